@@ -0,0 +1,25 @@
+package xyh.dp.mall.common.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 下游依赖并发隔离注解
+ * 标记访问某个下游依赖（如Redis）的类或方法，在虚拟线程中执行时受信号量并发上限保护
+ *
+ * <p>MyBatis Mapper与Feign客户端已由切面自动识别，无需标注。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    /**
+     * 依赖名称，对应bulkhead.limits中的key
+     *
+     * @return 依赖名称
+     */
+    String value();
+}
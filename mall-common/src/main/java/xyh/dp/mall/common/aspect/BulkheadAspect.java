@@ -0,0 +1,147 @@
+package xyh.dp.mall.common.aspect;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import xyh.dp.mall.common.annotation.Bulkhead;
+import xyh.dp.mall.common.concurrent.DependencyBulkhead;
+
+/**
+ * 下游依赖并发隔离切面
+ * 在虚拟线程中访问下游依赖时，按依赖获取信号量许可
+ *
+ * <p>拦截范围：
+ * - MyBatis-Plus Mapper → mysql
+ * - Feign客户端 → @FeignClient的name（如mall-product）
+ * - 标注@Bulkhead的类或方法 → 注解指定的依赖
+ * </p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class BulkheadAspect {
+
+    private final DependencyBulkhead bulkhead;
+
+    /**
+     * 定义切点：所有MyBatis-Plus Mapper
+     */
+    @Pointcut("target(com.baomidou.mybatisplus.core.mapper.BaseMapper)")
+    public void mapperPointcut() {
+    }
+
+    /**
+     * 定义切点：所有Feign客户端接口
+     */
+    @Pointcut("execution(* xyh.dp.mall..feign.*Client.*(..))")
+    public void feignPointcut() {
+    }
+
+    /**
+     * 定义切点：标注了@Bulkhead的类或方法
+     */
+    @Pointcut("@within(xyh.dp.mall.common.annotation.Bulkhead) || @annotation(xyh.dp.mall.common.annotation.Bulkhead)")
+    public void annotatedPointcut() {
+    }
+
+    /**
+     * Mapper调用隔离
+     *
+     * @param joinPoint 连接点
+     * @return 方法执行结果
+     * @throws Throwable 方法执行异常
+     */
+    @Around("mapperPointcut()")
+    public Object aroundMapper(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceedWithin(DependencyBulkhead.MYSQL, joinPoint);
+    }
+
+    /**
+     * Feign调用隔离
+     *
+     * @param joinPoint 连接点
+     * @return 方法执行结果
+     * @throws Throwable 方法执行异常
+     */
+    @Around("feignPointcut()")
+    public Object aroundFeign(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!bulkhead.isApplicable()) {
+            return joinPoint.proceed();
+        }
+        return proceedWithin(resolveFeignName(joinPoint), joinPoint);
+    }
+
+    /**
+     * 注解标记的依赖调用隔离
+     *
+     * @param joinPoint 连接点
+     * @return 方法执行结果
+     * @throws Throwable 方法执行异常
+     */
+    @Around("annotatedPointcut()")
+    public Object aroundAnnotated(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!bulkhead.isApplicable()) {
+            return joinPoint.proceed();
+        }
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Bulkhead annotation = AnnotationUtils.findAnnotation(signature.getMethod(), Bulkhead.class);
+        if (annotation == null) {
+            annotation = AnnotationUtils.findAnnotation(joinPoint.getTarget().getClass(), Bulkhead.class);
+        }
+        if (annotation == null) {
+            return joinPoint.proceed();
+        }
+        return proceedWithin(annotation.value(), joinPoint);
+    }
+
+    /**
+     * 在依赖许可内执行
+     *
+     * @param dependency 依赖名称
+     * @param joinPoint  连接点
+     * @return 方法执行结果
+     * @throws Throwable 方法执行异常
+     */
+    private Object proceedWithin(String dependency, ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!bulkhead.isApplicable()) {
+            return joinPoint.proceed();
+        }
+        boolean acquired = bulkhead.acquire(dependency);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (acquired) {
+                bulkhead.release(dependency);
+            }
+        }
+    }
+
+    /**
+     * 解析Feign客户端对应的服务名
+     *
+     * @param joinPoint 连接点
+     * @return 服务名
+     */
+    private String resolveFeignName(ProceedingJoinPoint joinPoint) {
+        FeignClient feignClient = AnnotationUtils.findAnnotation(
+                joinPoint.getSignature().getDeclaringType(), FeignClient.class);
+        if (feignClient == null) {
+            return "feign";
+        }
+        return StringUtils.hasText(feignClient.name()) ? feignClient.name() : feignClient.value();
+    }
+}
@@ -0,0 +1,50 @@
+package xyh.dp.mall.common.concurrent;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 下游依赖并发隔离配置
+ * 为每个下游依赖（MySQL、Redis、Feign服务）配置最大并发数
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bulkhead")
+public class BulkheadProperties {
+
+    /**
+     * 是否启用并发隔离
+     */
+    private boolean enabled = true;
+
+    /**
+     * 是否仅对虚拟线程生效
+     * 平台线程池本身有线程数上限，默认不再额外限制
+     */
+    private boolean virtualThreadsOnly = true;
+
+    /**
+     * 获取许可的最长等待时间（毫秒）
+     */
+    private long acquireTimeoutMs = 3000;
+
+    /**
+     * 未单独配置的依赖使用的默认并发上限
+     */
+    private int defaultLimit = 32;
+
+    /**
+     * 各依赖的并发上限（key为依赖名称，如mysql、redis、mall-product）
+     */
+    private Map<String, Integer> limits = new HashMap<>(Map.of(
+            DependencyBulkhead.MYSQL, 10,
+            DependencyBulkhead.REDIS, 16
+    ));
+}
@@ -0,0 +1,56 @@
+package xyh.dp.mall.common.concurrent;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.context.UserContext;
+import xyh.dp.mall.common.context.UserContextHolder;
+
+/**
+ * 上下文传递任务装饰器
+ * 在任务提交时捕获调用线程的用户上下文和链路追踪上下文，并在执行线程中恢复
+ *
+ * <p>解决的问题：
+ * - UserContextHolder基于ThreadLocal，@Async线程中读取为null
+ * - 异步任务的Span与请求链路断开
+ * </p>
+ *
+ * <p>执行结束后恢复执行线程原有的上下文，兼容CallerRunsPolicy在调用线程中直接执行的情况。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Component
+public class ContextAwareTaskDecorator implements TaskDecorator {
+
+    /**
+     * 基于Micrometer Context Propagation的链路上下文传递
+     */
+    private final TaskDecorator tracingDecorator = new ContextPropagatingTaskDecorator();
+
+    /**
+     * 装饰任务
+     *
+     * @param runnable 原始任务
+     * @return 携带调用方上下文的任务
+     */
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        UserContext captured = UserContextHolder.getContext();
+        Runnable traced = tracingDecorator.decorate(runnable);
+
+        return () -> {
+            UserContext previous = UserContextHolder.getContext();
+            UserContextHolder.setContext(captured);
+            try {
+                traced.run();
+            } finally {
+                if (previous != null) {
+                    UserContextHolder.setContext(previous);
+                } else {
+                    UserContextHolder.clear();
+                }
+            }
+        };
+    }
+}
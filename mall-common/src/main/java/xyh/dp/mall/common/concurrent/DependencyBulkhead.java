@@ -0,0 +1,137 @@
+package xyh.dp.mall.common.concurrent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.exception.BusinessException;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下游依赖并发隔离器（信号量舱壁）
+ * 限制同时访问同一下游依赖的任务数，防止虚拟线程无上限地压垮MySQL或Redis
+ *
+ * <p>同一线程内对同一依赖的嵌套调用只占用一个许可，避免饱和时自我死锁。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DependencyBulkhead {
+
+    /**
+     * MySQL依赖名称
+     */
+    public static final String MYSQL = "mysql";
+
+    /**
+     * Redis依赖名称
+     */
+    public static final String REDIS = "redis";
+
+    private final BulkheadProperties properties;
+
+    private final Map<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+    /**
+     * 当前线程已持有许可的依赖
+     */
+    private final ThreadLocal<Set<String>> held = ThreadLocal.withInitial(HashSet::new);
+
+    /**
+     * 判断当前线程是否需要进行并发隔离
+     *
+     * @return 需要隔离返回true
+     */
+    public boolean isApplicable() {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        return !properties.isVirtualThreadsOnly() || Thread.currentThread().isVirtual();
+    }
+
+    /**
+     * 获取依赖访问许可
+     *
+     * @param dependency 依赖名称
+     * @return true-新获取了许可，需要调用release；false-当前线程已持有，无需释放
+     * @throws BusinessException 等待超时或线程被中断
+     */
+    public boolean acquire(String dependency) {
+        Set<String> current = held.get();
+        if (current.contains(dependency)) {
+            return false;
+        }
+
+        Semaphore semaphore = semaphores.computeIfAbsent(dependency, this::createSemaphore);
+        try {
+            if (!semaphore.tryAcquire(properties.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                log.warn("下游依赖并发已满: dependency={}, limit={}", dependency, getLimit(dependency));
+                throw new BusinessException(503, "服务繁忙，请稍后重试: " + dependency);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(503, "等待下游依赖被中断: " + dependency);
+        }
+        current.add(dependency);
+        return true;
+    }
+
+    /**
+     * 释放依赖访问许可
+     *
+     * @param dependency 依赖名称
+     */
+    public void release(String dependency) {
+        Set<String> current = held.get();
+        if (current.remove(dependency)) {
+            Semaphore semaphore = semaphores.get(dependency);
+            if (semaphore != null) {
+                semaphore.release();
+            }
+        }
+        if (current.isEmpty()) {
+            held.remove();
+        }
+    }
+
+    /**
+     * 获取依赖当前可用许可数
+     *
+     * @param dependency 依赖名称
+     * @return 可用许可数，未初始化时返回配置上限
+     */
+    public int availablePermits(String dependency) {
+        Semaphore semaphore = semaphores.get(dependency);
+        return semaphore != null ? semaphore.availablePermits() : getLimit(dependency);
+    }
+
+    /**
+     * 获取依赖的并发上限
+     *
+     * @param dependency 依赖名称
+     * @return 并发上限
+     */
+    public int getLimit(String dependency) {
+        return properties.getLimits().getOrDefault(dependency, properties.getDefaultLimit());
+    }
+
+    /**
+     * 创建依赖信号量（公平模式，避免饥饿）
+     *
+     * @param dependency 依赖名称
+     * @return 信号量
+     */
+    private Semaphore createSemaphore(String dependency) {
+        int limit = getLimit(dependency);
+        log.info("初始化下游依赖并发隔离: dependency={}, limit={}", dependency, limit);
+        return new Semaphore(limit, true);
+    }
+}
@@ -0,0 +1,21 @@
+package xyh.dp.mall.common.concurrent;
+
+/**
+ * 执行器线程模式
+ * 决定异步执行器使用平台线程池还是虚拟线程
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public enum ExecutorMode {
+
+    /**
+     * 平台线程池（ThreadPoolTaskExecutor）
+     */
+    PLATFORM,
+
+    /**
+     * 虚拟线程（每任务一个虚拟线程，由并发上限节流）
+     */
+    VIRTUAL
+}
@@ -0,0 +1,27 @@
+package xyh.dp.mall.common.concurrent;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 线程池监控配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "executor.monitor")
+public class ExecutorMonitorProperties {
+
+    /**
+     * 队列使用率告警阈值（0~1）
+     */
+    private double saturationThreshold = 0.8;
+
+    /**
+     * 同一线程池两次告警的最小间隔（秒）
+     */
+    private int alertIntervalSeconds = 60;
+}
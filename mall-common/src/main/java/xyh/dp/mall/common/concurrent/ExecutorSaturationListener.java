@@ -0,0 +1,23 @@
+package xyh.dp.mall.common.concurrent;
+
+/**
+ * 线程池饱和告警钩子
+ * 注册为Spring Bean即可接收所有托管线程池的饱和事件
+ *
+ * <p>回调在提交任务的线程中同步执行，实现方需自行保证耗时可控（如异步发送告警）。
+ * 同一线程池的告警按executor.monitor.alert-interval-seconds限频。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface ExecutorSaturationListener {
+
+    /**
+     * 线程池饱和
+     *
+     * @param snapshot 饱和时的线程池快照
+     * @param reason   饱和原因
+     */
+    void onSaturated(ExecutorSnapshot snapshot, SaturationReason reason);
+}
@@ -0,0 +1,87 @@
+package xyh.dp.mall.common.concurrent;
+
+import lombok.Data;
+
+/**
+ * 线程池运行状态快照
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class ExecutorSnapshot {
+
+    /**
+     * 线程池名称
+     */
+    private String name;
+
+    /**
+     * 核心线程数
+     */
+    private int corePoolSize;
+
+    /**
+     * 最大线程数
+     */
+    private int maxPoolSize;
+
+    /**
+     * 当前线程数
+     */
+    private int poolSize;
+
+    /**
+     * 正在执行任务的线程数
+     */
+    private int activeCount;
+
+    /**
+     * 队列中等待的任务数
+     */
+    private int queueSize;
+
+    /**
+     * 队列容量
+     */
+    private int queueCapacity;
+
+    /**
+     * 已完成任务数
+     */
+    private long completedTaskCount;
+
+    /**
+     * 被拒绝（回退到调用线程执行）的任务数
+     */
+    private long rejectedCount;
+
+    /**
+     * 平均排队等待时间（毫秒）
+     */
+    private double avgWaitMs;
+
+    /**
+     * 最大排队等待时间（毫秒）
+     */
+    private double maxWaitMs;
+
+    /**
+     * 平均执行时间（毫秒）
+     */
+    private double avgRunMs;
+
+    /**
+     * 最大执行时间（毫秒）
+     */
+    private double maxRunMs;
+
+    /**
+     * 队列使用率（0~1）
+     *
+     * @return 队列使用率
+     */
+    public double getQueueUsage() {
+        return queueCapacity > 0 ? (double) queueSize / queueCapacity : 0D;
+    }
+}
@@ -0,0 +1,29 @@
+package xyh.dp.mall.common.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 默认饱和告警：输出告警日志
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class LoggingSaturationListener implements ExecutorSaturationListener {
+
+    /**
+     * 输出饱和告警日志
+     *
+     * @param snapshot 饱和时的线程池快照
+     * @param reason   饱和原因
+     */
+    @Override
+    public void onSaturated(ExecutorSnapshot snapshot, SaturationReason reason) {
+        log.warn("线程池饱和告警: name={}, reason={}, active={}/{}, queue={}/{}, rejected={}, avgWaitMs={}",
+                snapshot.getName(), reason, snapshot.getActiveCount(), snapshot.getMaxPoolSize(),
+                snapshot.getQueueSize(), snapshot.getQueueCapacity(), snapshot.getRejectedCount(),
+                snapshot.getAvgWaitMs());
+    }
+}
@@ -0,0 +1,179 @@
+package xyh.dp.mall.common.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 托管线程池注册中心
+ * 统一创建可观测的线程池，并负责：
+ * - 注册Micrometer指标（mall.executor.*，tag name=线程池名称）
+ * - 监听Nacos配置变更，运行时调整executor.{name}.*下的线程数和队列容量
+ * - 分发队列饱和告警（同一线程池按executor.monitor.alert-interval-seconds限频）
+ *
+ * <p>虚拟线程执行器没有队列和线程数概念，不在此托管。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ManagedExecutorRegistry {
+
+    /**
+     * 线程池配置前缀，完整前缀为executor.{name}
+     */
+    public static final String CONFIG_PREFIX = "executor";
+
+    private final Environment environment;
+    private final ExecutorMonitorProperties monitorProperties;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final ObjectProvider<ExecutorSaturationListener> saturationListeners;
+
+    /**
+     * 已注册的线程池
+     */
+    private final Map<String, ManagedThreadPoolTaskExecutor> executors = new ConcurrentHashMap<>();
+
+    /**
+     * 各线程池上次告警时间（毫秒）
+     */
+    private final Map<String, AtomicLong> lastAlertMillis = new ConcurrentHashMap<>();
+
+    /**
+     * 创建并注册托管线程池
+     * 返回的线程池已按规格设置线程数和队列容量，调用方继续设置线程名前缀、拒绝策略等后调用initialize()
+     *
+     * @param name 线程池名称，同时对应配置executor.{name}
+     * @param spec 初始规格
+     * @return 托管线程池（未初始化）
+     */
+    public ManagedThreadPoolTaskExecutor create(String name, ThreadPoolSpec spec) {
+        ManagedThreadPoolTaskExecutor executor = new ManagedThreadPoolTaskExecutor(name, monitorProperties);
+        executor.setCorePoolSize(spec.getCorePoolSize());
+        executor.setMaxPoolSize(spec.getMaxPoolSize());
+        executor.setQueueCapacity(spec.getQueueCapacity());
+        executor.setKeepAliveSeconds(spec.getKeepAliveSeconds());
+        executor.setSaturationCallback(this::dispatchSaturation);
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            executor.bindTo(meterRegistry);
+        }
+        ManagedThreadPoolTaskExecutor previous = executors.put(name, executor);
+        if (previous != null) {
+            log.warn("托管线程池重复注册，旧实例将不再响应配置变更: name={}", name);
+        }
+        return executor;
+    }
+
+    /**
+     * 获取托管线程池
+     *
+     * @param name 线程池名称
+     * @return 线程池，不存在返回null
+     */
+    public ManagedThreadPoolTaskExecutor get(String name) {
+        return executors.get(name);
+    }
+
+    /**
+     * 获取所有线程池的运行状态快照
+     *
+     * @return 快照列表
+     */
+    public List<ExecutorSnapshot> snapshots() {
+        List<ExecutorSnapshot> snapshots = new ArrayList<>(executors.size());
+        for (ManagedThreadPoolTaskExecutor executor : executors.values()) {
+            snapshots.add(executor.snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * 调整线程池规格
+     *
+     * @param name 线程池名称
+     * @param spec 新规格
+     * @return 是否调整成功
+     */
+    public boolean resize(String name, ThreadPoolSpec spec) {
+        ManagedThreadPoolTaskExecutor executor = executors.get(name);
+        if (executor == null) {
+            return false;
+        }
+        if (!spec.isValid()) {
+            log.error("线程池参数非法，忽略本次调整: name={}, spec={}", name, spec);
+            return false;
+        }
+        ExecutorSnapshot before = executor.snapshot();
+        executor.resize(spec);
+        log.info("线程池参数已调整: name={}, core {}->{}, max {}->{}, queue {}->{}", name,
+                before.getCorePoolSize(), spec.getCorePoolSize(),
+                before.getMaxPoolSize(), spec.getMaxPoolSize(),
+                before.getQueueCapacity(), spec.getQueueCapacity());
+        return true;
+    }
+
+    /**
+     * 监听配置变更（Nacos推送后由Spring Cloud发布）
+     * 直接从Environment重新绑定，不依赖@ConfigurationProperties的刷新顺序
+     *
+     * @param event 配置变更事件
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        Binder binder = Binder.get(environment);
+        for (Map.Entry<String, ManagedThreadPoolTaskExecutor> entry : executors.entrySet()) {
+            String prefix = CONFIG_PREFIX + "." + entry.getKey();
+            boolean changed = event.getKeys().stream().anyMatch(key -> key.startsWith(prefix + "."));
+            if (!changed) {
+                continue;
+            }
+            ManagedThreadPoolTaskExecutor executor = entry.getValue();
+            ThreadPoolSpec spec = new ThreadPoolSpec(executor.getCorePoolSize(), executor.getMaxPoolSize(),
+                    executor.getCurrentQueueCapacity(), executor.getKeepAliveSeconds());
+            binder.bind(prefix, Bindable.ofInstance(spec));
+            resize(entry.getKey(), spec);
+        }
+    }
+
+    /**
+     * 分发饱和告警
+     *
+     * @param executor 饱和的线程池
+     * @param reason   饱和原因
+     */
+    private void dispatchSaturation(ManagedThreadPoolTaskExecutor executor, SaturationReason reason) {
+        long now = System.currentTimeMillis();
+        AtomicLong lastAlert = lastAlertMillis.computeIfAbsent(executor.getName(), name -> new AtomicLong());
+        long last = lastAlert.get();
+        if (now - last < monitorProperties.getAlertIntervalSeconds() * 1000L || !lastAlert.compareAndSet(last, now)) {
+            return;
+        }
+
+        ExecutorSnapshot snapshot = executor.snapshot();
+        saturationListeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onSaturated(snapshot, reason);
+            } catch (Exception e) {
+                log.error("线程池饱和告警处理失败: name={}, listener={}", executor.getName(),
+                        listener.getClass().getSimpleName(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,355 @@
+package xyh.dp.mall.common.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 可观测、可动态调整的线程池
+ * 在ThreadPoolTaskExecutor基础上增加：
+ * - 任务排队等待时间、执行时间统计
+ * - 拒绝次数统计（CallerRunsPolicy下即回退到调用线程执行的次数）
+ * - 运行时调整核心线程数、最大线程数、队列容量
+ * - 队列使用率超过阈值或发生拒绝时触发饱和回调
+ *
+ * <p>通过{@link ManagedExecutorRegistry#create}创建，由注册中心统一暴露指标并响应Nacos配置变更。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+public class ManagedThreadPoolTaskExecutor extends ThreadPoolTaskExecutor implements MeterBinder {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 指标名前缀（与Spring Boot自带的executor.*指标区分）
+     */
+    private static final String METRIC_PREFIX = "mall.executor.";
+
+    /**
+     * 线程池名称
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 监控配置（队列告警阈值）
+     */
+    private final transient ExecutorMonitorProperties monitorProperties;
+
+    /**
+     * 业务侧设置的任务装饰器（如上下文传递）
+     */
+    private transient TaskDecorator delegateDecorator;
+
+    /**
+     * 饱和回调
+     */
+    @Setter
+    private transient BiConsumer<ManagedThreadPoolTaskExecutor, SaturationReason> saturationCallback;
+
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder timedTaskCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0L);
+    private final LongAccumulator maxRunNanos = new LongAccumulator(Long::max, 0L);
+
+    private transient Timer waitTimer;
+    private transient Timer runTimer;
+    private transient Counter rejectedCounter;
+
+    /**
+     * 创建托管线程池
+     *
+     * @param name              线程池名称
+     * @param monitorProperties 监控配置
+     */
+    public ManagedThreadPoolTaskExecutor(String name, ExecutorMonitorProperties monitorProperties) {
+        this.name = name;
+        this.monitorProperties = monitorProperties;
+        super.setTaskDecorator(this::monitor);
+    }
+
+    /**
+     * 设置业务任务装饰器，执行时在统计逻辑内部调用
+     *
+     * @param taskDecorator 任务装饰器
+     */
+    @Override
+    public void setTaskDecorator(TaskDecorator taskDecorator) {
+        this.delegateDecorator = taskDecorator;
+    }
+
+    /**
+     * 修改队列容量，已初始化时立即生效
+     *
+     * @param queueCapacity 队列容量
+     */
+    @Override
+    public void setQueueCapacity(int queueCapacity) {
+        super.setQueueCapacity(queueCapacity);
+        BlockingQueue<Runnable> queue = currentQueue();
+        if (queue instanceof ResizableCapacityLinkedBlockingQueue<Runnable> resizable) {
+            resizable.setCapacity(queueCapacity);
+        }
+    }
+
+    /**
+     * 按规格调整线程池参数
+     * 先扩大上限再调整下限，避免出现核心线程数大于最大线程数的中间状态
+     *
+     * @param spec 线程池规格
+     */
+    public void resize(ThreadPoolSpec spec) {
+        if (spec.getMaxPoolSize() >= getCorePoolSize()) {
+            setMaxPoolSize(spec.getMaxPoolSize());
+            setCorePoolSize(spec.getCorePoolSize());
+        } else {
+            setCorePoolSize(spec.getCorePoolSize());
+            setMaxPoolSize(spec.getMaxPoolSize());
+        }
+        setQueueCapacity(spec.getQueueCapacity());
+        setKeepAliveSeconds(spec.getKeepAliveSeconds());
+    }
+
+    /**
+     * 当前队列容量
+     *
+     * @return 队列容量
+     */
+    public int getCurrentQueueCapacity() {
+        BlockingQueue<Runnable> queue = currentQueue();
+        if (queue instanceof ResizableCapacityLinkedBlockingQueue<Runnable> resizable) {
+            return resizable.getCapacity();
+        }
+        return getQueueCapacity();
+    }
+
+    /**
+     * 被拒绝的任务数
+     *
+     * @return 拒绝次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * 生成运行状态快照
+     *
+     * @return 快照
+     */
+    public ExecutorSnapshot snapshot() {
+        long timed = timedTaskCount.sum();
+        ExecutorSnapshot snapshot = new ExecutorSnapshot();
+        snapshot.setName(name);
+        snapshot.setCorePoolSize(getCorePoolSize());
+        snapshot.setMaxPoolSize(getMaxPoolSize());
+        snapshot.setPoolSize(getPoolSize());
+        snapshot.setActiveCount(getActiveCount());
+        snapshot.setQueueSize(getQueueSize());
+        snapshot.setQueueCapacity(getCurrentQueueCapacity());
+        ThreadPoolExecutor executor = currentExecutor();
+        snapshot.setCompletedTaskCount(executor != null ? executor.getCompletedTaskCount() : 0L);
+        snapshot.setRejectedCount(rejectedCount.sum());
+        snapshot.setAvgWaitMs(timed > 0 ? toMillis(totalWaitNanos.sum()) / timed : 0D);
+        snapshot.setMaxWaitMs(toMillis(maxWaitNanos.get()));
+        snapshot.setAvgRunMs(timed > 0 ? toMillis(totalRunNanos.sum()) / timed : 0D);
+        snapshot.setMaxRunMs(toMillis(maxRunNanos.get()));
+        return snapshot;
+    }
+
+    /**
+     * 注册Micrometer指标
+     *
+     * @param registry 指标注册表
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("name", name);
+        Gauge.builder(METRIC_PREFIX + "active", this, ManagedThreadPoolTaskExecutor::getActiveCount)
+                .tags(tags).description("正在执行任务的线程数").register(registry);
+        Gauge.builder(METRIC_PREFIX + "pool.size", this, ManagedThreadPoolTaskExecutor::getPoolSize)
+                .tags(tags).description("当前线程数").register(registry);
+        Gauge.builder(METRIC_PREFIX + "pool.core", this, ManagedThreadPoolTaskExecutor::getCorePoolSize)
+                .tags(tags).description("核心线程数").register(registry);
+        Gauge.builder(METRIC_PREFIX + "pool.max", this, ManagedThreadPoolTaskExecutor::getMaxPoolSize)
+                .tags(tags).description("最大线程数").register(registry);
+        Gauge.builder(METRIC_PREFIX + "queue.size", this, ManagedThreadPoolTaskExecutor::getQueueSize)
+                .tags(tags).description("队列中等待的任务数").register(registry);
+        Gauge.builder(METRIC_PREFIX + "queue.capacity", this, ManagedThreadPoolTaskExecutor::getCurrentQueueCapacity)
+                .tags(tags).description("队列容量").register(registry);
+        waitTimer = Timer.builder(METRIC_PREFIX + "task.wait")
+                .tags(tags).description("任务排队等待时间").register(registry);
+        runTimer = Timer.builder(METRIC_PREFIX + "task.run")
+                .tags(tags).description("任务执行时间").register(registry);
+        rejectedCounter = Counter.builder(METRIC_PREFIX + "rejected")
+                .tags(tags).description("被拒绝的任务数").register(registry);
+    }
+
+    /**
+     * 使用可调整容量的队列
+     *
+     * @param queueCapacity 初始容量
+     * @return 任务队列
+     */
+    @Override
+    protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        if (queueCapacity > 0) {
+            return new ResizableCapacityLinkedBlockingQueue<>(queueCapacity);
+        }
+        return new SynchronousQueue<>();
+    }
+
+    /**
+     * 包装拒绝策略，统计拒绝次数并触发饱和回调
+     *
+     * @param threadFactory            线程工厂
+     * @param rejectedExecutionHandler 原始拒绝策略
+     * @return 线程池
+     */
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory,
+                                                 RejectedExecutionHandler rejectedExecutionHandler) {
+        RejectedExecutionHandler counting = (task, executor) -> {
+            rejectedCount.increment();
+            if (rejectedCounter != null) {
+                rejectedCounter.increment();
+            }
+            notifySaturation(SaturationReason.REJECTED);
+            rejectedExecutionHandler.rejectedExecution(task, executor);
+        };
+        return super.initializeExecutor(threadFactory, counting);
+    }
+
+    /**
+     * 统计装饰：提交时记录时间并检查队列水位，执行时记录等待和执行耗时
+     *
+     * @param task 原始任务
+     * @return 装饰后的任务
+     */
+    private Runnable monitor(Runnable task) {
+        Runnable decorated = delegateDecorator != null ? delegateDecorator.decorate(task) : task;
+        checkQueueWatermark();
+        long submitNanos = System.nanoTime();
+        return () -> {
+            long startNanos = System.nanoTime();
+            recordWait(startNanos - submitNanos);
+            try {
+                decorated.run();
+            } finally {
+                recordRun(System.nanoTime() - startNanos);
+            }
+        };
+    }
+
+    /**
+     * 检查队列使用率是否超过告警阈值
+     */
+    private void checkQueueWatermark() {
+        int capacity = getCurrentQueueCapacity();
+        if (capacity <= 0 || saturationCallback == null) {
+            return;
+        }
+        if (getQueueSize() >= capacity * monitorProperties.getSaturationThreshold()) {
+            notifySaturation(SaturationReason.QUEUE_HIGH_WATERMARK);
+        }
+    }
+
+    /**
+     * 触发饱和回调，回调异常不影响任务提交
+     *
+     * @param reason 饱和原因
+     */
+    private void notifySaturation(SaturationReason reason) {
+        if (saturationCallback == null) {
+            return;
+        }
+        try {
+            saturationCallback.accept(this, reason);
+        } catch (Exception e) {
+            log.error("线程池饱和回调失败: name={}", name, e);
+        }
+    }
+
+    /**
+     * 记录排队等待时间
+     *
+     * @param nanos 纳秒
+     */
+    private void recordWait(long nanos) {
+        timedTaskCount.increment();
+        totalWaitNanos.add(nanos);
+        maxWaitNanos.accumulate(nanos);
+        if (waitTimer != null) {
+            waitTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 记录执行时间
+     *
+     * @param nanos 纳秒
+     */
+    private void recordRun(long nanos) {
+        totalRunNanos.add(nanos);
+        maxRunNanos.accumulate(nanos);
+        if (runTimer != null) {
+            runTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 获取底层线程池，未初始化时返回null
+     *
+     * @return 线程池
+     */
+    private ThreadPoolExecutor currentExecutor() {
+        try {
+            return getThreadPoolExecutor();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取底层队列，未初始化时返回null
+     *
+     * @return 任务队列
+     */
+    private BlockingQueue<Runnable> currentQueue() {
+        ThreadPoolExecutor executor = currentExecutor();
+        return executor != null ? executor.getQueue() : null;
+    }
+
+    /**
+     * 纳秒转毫秒
+     *
+     * @param nanos 纳秒
+     * @return 毫秒
+     */
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000D;
+    }
+}
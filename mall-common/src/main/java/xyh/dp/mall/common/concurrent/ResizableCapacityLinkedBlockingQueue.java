@@ -0,0 +1,274 @@
+package xyh.dp.mall.common.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * 可调整容量的阻塞队列
+ * 供线程池运行时修改队列容量使用（JDK的LinkedBlockingQueue容量为final）
+ *
+ * <p>容量控制在入队一侧：offer超出容量立即返回false，带超时的offer和put在notFull条件上等待，
+ * 直到有元素出队或扩容。出队只在有生产者等待时才获取入队锁发出通知，消费者路径不增加锁竞争。
+ * 缩容时已在队列中的任务不会被丢弃，只是在降到新容量以下之前拒绝（或阻塞）新任务。</p>
+ *
+ * @param <E> 元素类型
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public class ResizableCapacityLinkedBlockingQueue<E> extends LinkedBlockingQueue<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 保证"检查容量+入队"的原子性
+     */
+    private final ReentrantLock offerLock = new ReentrantLock();
+
+    /**
+     * 队列未满条件，等待中的生产者在此等待
+     */
+    private final Condition notFull = offerLock.newCondition();
+
+    /**
+     * 正在等待的生产者数，先登记再复查容量，出队后据此决定是否通知
+     */
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    /**
+     * 当前容量
+     */
+    private volatile int capacity;
+
+    /**
+     * 创建指定容量的队列
+     *
+     * @param capacity 容量
+     */
+    public ResizableCapacityLinkedBlockingQueue(int capacity) {
+        super();
+        setCapacity(capacity);
+    }
+
+    /**
+     * 获取当前容量
+     *
+     * @return 容量
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 修改容量，扩容后唤醒等待中的生产者
+     *
+     * @param capacity 新容量
+     */
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0: " + capacity);
+        }
+        this.capacity = capacity;
+        signalNotFull(true);
+    }
+
+    /**
+     * 入队，超出容量时返回false
+     *
+     * @param e 元素
+     * @return 是否入队成功
+     */
+    @Override
+    public boolean offer(E e) {
+        offerLock.lock();
+        try {
+            if (size() >= capacity) {
+                return false;
+            }
+            return super.offer(e);
+        } finally {
+            offerLock.unlock();
+        }
+    }
+
+    /**
+     * 入队，超出容量时最多等待指定时间
+     *
+     * @param e       元素
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 是否入队成功，超时返回false
+     * @throws InterruptedException 等待时被中断
+     */
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        return offerWaiting(e, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * 入队，超出容量时等待直到有空位
+     *
+     * @param e 元素
+     * @throws InterruptedException 等待时被中断
+     */
+    @Override
+    public void put(E e) throws InterruptedException {
+        offerWaiting(e, false, 0L);
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = super.take();
+        signalNotFull(false);
+        return e;
+    }
+
+    @Override
+    public E poll() {
+        E e = super.poll();
+        if (e != null) {
+            signalNotFull(false);
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = super.poll(timeout, unit);
+        if (e != null) {
+            signalNotFull(false);
+        }
+        return e;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        boolean removed = super.remove(o);
+        if (removed) {
+            signalNotFull(false);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        boolean removed = super.removeIf(filter);
+        if (removed) {
+            signalNotFull(true);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean removed = super.removeAll(c);
+        if (removed) {
+            signalNotFull(true);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        boolean removed = super.retainAll(c);
+        if (removed) {
+            signalNotFull(true);
+        }
+        return removed;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        int drained = super.drainTo(c, maxElements);
+        if (drained > 0) {
+            signalNotFull(true);
+        }
+        return drained;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        signalNotFull(true);
+    }
+
+    /**
+     * 剩余容量
+     *
+     * @return 剩余容量
+     */
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+
+    /**
+     * 等待空位后入队
+     * 等待前先登记再复查容量：出队方先出队再读取登记数，两者至少有一方看到对方，不会错过通知
+     *
+     * @param e     元素
+     * @param timed 是否限时
+     * @param nanos 限时等待的纳秒数
+     * @return 是否入队成功，超时返回false
+     * @throws InterruptedException 等待时被中断
+     */
+    private boolean offerWaiting(E e, boolean timed, long nanos) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        offerLock.lockInterruptibly();
+        try {
+            while (size() >= capacity) {
+                if (timed && nanos <= 0L) {
+                    return false;
+                }
+                waitingProducers.incrementAndGet();
+                try {
+                    if (size() < capacity) {
+                        break;
+                    }
+                    if (timed) {
+                        nanos = notFull.awaitNanos(nanos);
+                    } else {
+                        notFull.await();
+                    }
+                } finally {
+                    waitingProducers.decrementAndGet();
+                }
+            }
+            return super.offer(e);
+        } finally {
+            offerLock.unlock();
+        }
+    }
+
+    /**
+     * 有生产者等待时通知队列未满
+     *
+     * @param all 是否唤醒全部（出队多个元素或扩容时）
+     */
+    private void signalNotFull(boolean all) {
+        if (waitingProducers.get() == 0) {
+            return;
+        }
+        offerLock.lock();
+        try {
+            if (all) {
+                notFull.signalAll();
+            } else {
+                notFull.signal();
+            }
+        } finally {
+            offerLock.unlock();
+        }
+    }
+}
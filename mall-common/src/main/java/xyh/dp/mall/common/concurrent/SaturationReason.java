@@ -0,0 +1,20 @@
+package xyh.dp.mall.common.concurrent;
+
+/**
+ * 线程池饱和原因
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public enum SaturationReason {
+
+    /**
+     * 队列使用率超过阈值
+     */
+    QUEUE_HIGH_WATERMARK,
+
+    /**
+     * 队列已满，任务被拒绝（CallerRunsPolicy下回退到调用线程执行）
+     */
+    REJECTED
+}
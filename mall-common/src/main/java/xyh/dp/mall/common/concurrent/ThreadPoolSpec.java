@@ -0,0 +1,47 @@
+package xyh.dp.mall.common.concurrent;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 线程池规格
+ * 可在运行时通过Nacos配置调整的线程池参数
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThreadPoolSpec {
+
+    /**
+     * 核心线程数
+     */
+    private int corePoolSize = 10;
+
+    /**
+     * 最大线程数
+     */
+    private int maxPoolSize = 50;
+
+    /**
+     * 队列容量
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * 线程存活时间(秒)
+     */
+    private int keepAliveSeconds = 60;
+
+    /**
+     * 参数是否合法
+     *
+     * @return 合法返回true
+     */
+    public boolean isValid() {
+        return corePoolSize > 0 && maxPoolSize >= corePoolSize && queueCapacity > 0 && keepAliveSeconds >= 0;
+    }
+}
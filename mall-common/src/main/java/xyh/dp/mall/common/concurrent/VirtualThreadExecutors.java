@@ -0,0 +1,45 @@
+package xyh.dp.mall.common.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 虚拟线程执行器工厂
+ * 为阻塞型I/O任务（Feign、Redis、JDBC）创建基于虚拟线程的执行器
+ *
+ * <p>虚拟线程本身几乎没有创建成本，因此不设队列；通过concurrencyLimit限制同时运行的任务数，
+ * 超出上限时提交线程阻塞等待（与CallerRunsPolicy一样形成背压）。
+ * 对下游MySQL、Redis的并发保护由{@link DependencyBulkhead}负责。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+public final class VirtualThreadExecutors {
+
+    private VirtualThreadExecutors() {
+    }
+
+    /**
+     * 创建虚拟线程执行器
+     *
+     * @param threadNamePrefix    线程名称前缀
+     * @param concurrencyLimit    最大并发任务数
+     * @param awaitTerminationMs  关闭时等待任务完成的最长时间（毫秒）
+     * @param taskDecorator       任务装饰器（上下文传递）
+     * @return 虚拟线程执行器
+     */
+    public static SimpleAsyncTaskExecutor create(String threadNamePrefix, int concurrencyLimit,
+                                                 long awaitTerminationMs, TaskDecorator taskDecorator) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskTerminationTimeout(awaitTerminationMs);
+        if (taskDecorator != null) {
+            executor.setTaskDecorator(taskDecorator);
+        }
+        log.info("虚拟线程执行器初始化完成: prefix={}, concurrencyLimit={}", threadNamePrefix, concurrencyLimit);
+        return executor;
+    }
+}
@@ -0,0 +1,62 @@
+package xyh.dp.mall.common.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import xyh.dp.mall.common.concurrent.ExecutorSnapshot;
+import xyh.dp.mall.common.concurrent.ManagedExecutorRegistry;
+import xyh.dp.mall.common.concurrent.ManagedThreadPoolTaskExecutor;
+import xyh.dp.mall.common.exception.BusinessException;
+import xyh.dp.mall.common.result.Result;
+
+import java.util.List;
+
+/**
+ * 线程池监控接口
+ * 查询托管线程池的线程数、队列深度、等待/执行耗时和拒绝次数
+ *
+ * <p>线程池参数通过Nacos配置executor.{name}.*调整，此处只读。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@RestController
+@RequestMapping("/monitor/executor")
+@RequiredArgsConstructor
+@Tag(name = "线程池监控", description = "托管线程池运行状态查询接口")
+public class ExecutorMonitorController {
+
+    private final ManagedExecutorRegistry executorRegistry;
+
+    /**
+     * 查询所有托管线程池
+     *
+     * @return 线程池快照列表
+     */
+    @GetMapping("/list")
+    @Operation(summary = "查询所有线程池", description = "查询本服务所有托管线程池的运行状态")
+    public Result<List<ExecutorSnapshot>> list() {
+        return Result.success(executorRegistry.snapshots());
+    }
+
+    /**
+     * 查询指定线程池
+     *
+     * @param name 线程池名称
+     * @return 线程池快照
+     */
+    @GetMapping("/query")
+    @Operation(summary = "查询线程池", description = "查询指定托管线程池的运行状态")
+    public Result<ExecutorSnapshot> query(
+            @Parameter(description = "线程池名称，如：order")
+            @RequestParam String name) {
+
+        ManagedThreadPoolTaskExecutor executor = executorRegistry.get(name);
+        if (executor == null) {
+            throw new BusinessException(404, "线程池不存在: " + name);
+        }
+        return Result.success(executor.snapshot());
+    }
+}
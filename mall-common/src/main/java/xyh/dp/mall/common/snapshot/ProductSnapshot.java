@@ -0,0 +1,94 @@
+package xyh.dp.mall.common.snapshot;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品快照
+ * mall-product在价格、库存、状态变化时发布，mall-trade据此在本地维护商品快照，避免逐个远程查询
+ *
+ * <p>传输格式为逗号分隔的紧凑字符串：id,version,price,stock,status。
+ * version取自全局递增序列（{@link #SEQ_KEY}），消费方可据此判断新旧并发现丢失的通知。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSnapshot {
+
+    /**
+     * 变更通知频道
+     */
+    public static final String CHANNEL = "product:snapshot:changed";
+
+    /**
+     * 最新快照Hash（field为商品ID，value为编码后的快照），供消费方补偿丢失的通知
+     */
+    public static final String HASH_KEY = "product:snapshot";
+
+    /**
+     * 全局版本序列
+     */
+    public static final String SEQ_KEY = "product:snapshot:seq";
+
+    /**
+     * 商品ID
+     */
+    private long id;
+
+    /**
+     * 版本号，0表示来自远程查询、没有版本信息
+     */
+    private long version;
+
+    /**
+     * 价格
+     */
+    private BigDecimal price;
+
+    /**
+     * 库存
+     */
+    private int stock;
+
+    /**
+     * 商品状态: ON_SALE-上架, OFF_SALE-下架, DELETED-已删除
+     */
+    private String status;
+
+    /**
+     * 编码为传输格式
+     *
+     * @return id,version,price,stock,status
+     */
+    public String encode() {
+        return id + "," + version + "," + price.toPlainString() + "," + stock + "," + status;
+    }
+
+    /**
+     * 从传输格式解码
+     *
+     * @param value 编码后的快照
+     * @return 商品快照，格式错误返回null
+     */
+    public static ProductSnapshot decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split(",", 5);
+        if (parts.length != 5) {
+            return null;
+        }
+        try {
+            return new ProductSnapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                    new BigDecimal(parts[2]), Integer.parseInt(parts[3]), parts[4]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
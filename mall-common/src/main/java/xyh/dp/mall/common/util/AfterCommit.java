@@ -0,0 +1,53 @@
+package xyh.dp.mall.common.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务提交后执行
+ * 缓存、计数、消息等事务外的副作用只在数据库事务提交后执行：事务回滚时不执行，
+ * 也不在事务内占用行锁的同时等待Redis等外部调用；没有活动事务时立即执行
+ *
+ * <p>副作用的异常只记录日志，不影响已提交的事务和调用方。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * 在当前事务提交后执行，没有活动事务时立即执行
+     *
+     * @param action 副作用
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runQuietly(action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runQuietly(action);
+            }
+        });
+    }
+
+    /**
+     * 执行副作用，异常只记录日志
+     *
+     * @param action 副作用
+     */
+    private static void runQuietly(Runnable action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            log.warn("事务提交后执行失败: {}", e.getMessage(), e);
+        }
+    }
+}
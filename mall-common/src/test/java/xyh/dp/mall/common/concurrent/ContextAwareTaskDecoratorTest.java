@@ -0,0 +1,107 @@
+package xyh.dp.mall.common.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import xyh.dp.mall.common.context.UserContext;
+import xyh.dp.mall.common.context.UserContextHolder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上下文传递任务装饰器测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+class ContextAwareTaskDecoratorTest {
+
+    private final ContextAwareTaskDecorator decorator = new ContextAwareTaskDecorator();
+
+    /**
+     * 每个测试后清理当前线程上下文
+     */
+    @AfterEach
+    void tearDown() {
+        UserContextHolder.clear();
+    }
+
+    /**
+     * 测试用户上下文传递到虚拟线程，且执行后不残留
+     *
+     * @throws Exception 测试异常
+     */
+    @Test
+    void testPropagateToVirtualThread() throws Exception {
+        UserContextHolder.setContext(buildContext(1L, "FARMER"));
+        AtomicReference<Long> seenUserId = new AtomicReference<>();
+        AtomicReference<UserContext> afterRun = new AtomicReference<>();
+
+        Runnable task = decorator.decorate(() -> seenUserId.set(UserContextHolder.getUserId()));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> {
+                task.run();
+                afterRun.set(UserContextHolder.getContext());
+            }).get();
+        }
+
+        assertEquals(1L, seenUserId.get());
+        assertNull(afterRun.get(), "任务结束后执行线程不应残留上下文");
+    }
+
+    /**
+     * 测试平台线程池复用线程时不串用上一个任务的上下文
+     *
+     * @throws Exception 测试异常
+     */
+    @Test
+    void testNoLeakBetweenPooledTasks() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            UserContextHolder.setContext(buildContext(1L, "FARMER"));
+            Runnable first = decorator.decorate(() -> { });
+            CompletableFuture.runAsync(first, executor).get();
+
+            UserContextHolder.clear();
+            AtomicReference<UserContext> seen = new AtomicReference<>();
+            Runnable second = decorator.decorate(() -> seen.set(UserContextHolder.getContext()));
+            CompletableFuture.runAsync(second, executor).get();
+
+            assertNull(seen.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 测试CallerRunsPolicy场景：在调用线程直接执行后恢复调用线程原有上下文
+     */
+    @Test
+    void testRestoreCallerContext() {
+        UserContextHolder.setContext(buildContext(1L, "FARMER"));
+        Runnable task = decorator.decorate(() -> UserContextHolder.setContext(buildContext(2L, "SUPPLIER")));
+
+        task.run();
+
+        assertEquals(1L, UserContextHolder.getUserId());
+        assertEquals("FARMER", UserContextHolder.getUserType());
+    }
+
+    /**
+     * 构建用户上下文
+     *
+     * @param userId   用户ID
+     * @param userType 用户类型
+     * @return 用户上下文
+     */
+    private UserContext buildContext(Long userId, String userType) {
+        UserContext context = new UserContext();
+        context.setUserId(userId);
+        context.setUserType(userType);
+        return context;
+    }
+}
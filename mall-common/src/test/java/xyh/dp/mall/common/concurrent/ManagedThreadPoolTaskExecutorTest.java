@@ -0,0 +1,137 @@
+package xyh.dp.mall.common.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 托管线程池测试
+ * 测试拒绝统计、饱和回调和运行时调整
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+class ManagedThreadPoolTaskExecutorTest {
+
+    private ManagedThreadPoolTaskExecutor executor;
+
+    private final List<SaturationReason> saturations = new ArrayList<>();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * 创建1个线程、队列容量2的线程池
+     */
+    @BeforeEach
+    void setUp() {
+        ExecutorMonitorProperties properties = new ExecutorMonitorProperties();
+        properties.setSaturationThreshold(0.5);
+        executor = new ManagedThreadPoolTaskExecutor("test", properties);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(2);
+        executor.setThreadNamePrefix("managed-test-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setSaturationCallback((pool, reason) -> saturations.add(reason));
+        executor.initialize();
+    }
+
+    /**
+     * 每个测试后关闭线程池
+     */
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    /**
+     * 测试队列满后回退到调用线程执行，并统计拒绝次数
+     */
+    @Test
+    void testRejectedFallbackToCaller() {
+        executor.execute(this::block);
+        executor.execute(this::block);
+        executor.execute(this::block);
+
+        Thread[] runner = new Thread[1];
+        executor.execute(() -> runner[0] = Thread.currentThread());
+
+        assertSame(Thread.currentThread(), runner[0]);
+        assertEquals(1, executor.getRejectedCount());
+        assertTrue(saturations.contains(SaturationReason.REJECTED));
+        assertTrue(saturations.contains(SaturationReason.QUEUE_HIGH_WATERMARK));
+    }
+
+    /**
+     * 测试运行时扩大队列容量后不再拒绝
+     */
+    @Test
+    void testResizeQueueCapacity() {
+        executor.execute(this::block);
+        executor.execute(this::block);
+        executor.execute(this::block);
+
+        executor.resize(new ThreadPoolSpec(1, 2, 10, 60));
+        executor.execute(this::block);
+
+        ExecutorSnapshot snapshot = executor.snapshot();
+        assertEquals(0, snapshot.getRejectedCount());
+        assertEquals(10, snapshot.getQueueCapacity());
+        assertEquals(2, snapshot.getMaxPoolSize());
+        assertEquals(3, snapshot.getQueueSize());
+    }
+
+    /**
+     * 测试等待时间和执行时间统计
+     *
+     * @throws Exception 测试异常
+     */
+    @Test
+    void testWaitAndRunTimeRecorded() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> {
+            sleep(20);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // 统计在任务返回后记录，稍等片刻
+        sleep(50);
+
+        ExecutorSnapshot snapshot = executor.snapshot();
+        assertTrue(snapshot.getMaxRunMs() >= 20, "执行时间应不少于20ms: " + snapshot.getMaxRunMs());
+        assertTrue(snapshot.getAvgWaitMs() >= 0);
+    }
+
+    /**
+     * 阻塞直到测试结束
+     */
+    private void block() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 休眠
+     *
+     * @param millis 毫秒
+     */
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
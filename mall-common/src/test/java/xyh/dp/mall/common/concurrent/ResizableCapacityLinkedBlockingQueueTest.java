@@ -0,0 +1,80 @@
+package xyh.dp.mall.common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 可调整容量阻塞队列测试
+ * 测试超时入队、阻塞入队和扩容唤醒
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+class ResizableCapacityLinkedBlockingQueueTest {
+
+    /**
+     * 测试队列满时带超时的offer等待到超时后返回false
+     */
+    @Test
+    void testTimedOfferWaitsForTimeout() throws Exception {
+        ResizableCapacityLinkedBlockingQueue<Integer> queue = new ResizableCapacityLinkedBlockingQueue<>(1);
+        queue.put(1);
+
+        long start = System.nanoTime();
+        assertFalse(queue.offer(2, 50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, queue.size());
+    }
+
+    /**
+     * 测试队列满时put阻塞，出队后入队
+     */
+    @Test
+    void testPutBlocksUntilTake() throws Exception {
+        ResizableCapacityLinkedBlockingQueue<Integer> queue = new ResizableCapacityLinkedBlockingQueue<>(1);
+        queue.put(1);
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            try {
+                queue.put(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(producer.isDone());
+
+        assertEquals(1, queue.take());
+        producer.get(1, TimeUnit.SECONDS);
+        assertEquals(2, queue.poll());
+    }
+
+    /**
+     * 测试扩容后唤醒等待中的offer
+     */
+    @Test
+    void testGrowWakesWaitingOffer() throws Exception {
+        ResizableCapacityLinkedBlockingQueue<Integer> queue = new ResizableCapacityLinkedBlockingQueue<>(1);
+        queue.put(1);
+
+        CompletableFuture<Boolean> producer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.offer(2, 5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        Thread.sleep(50);
+        queue.setCapacity(2);
+
+        assertTrue(producer.get(1, TimeUnit.SECONDS));
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+        assertFalse(queue.offer(3));
+    }
+}
@@ -3,9 +3,12 @@ package xyh.dp.mall.job.feign;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import xyh.dp.mall.common.result.Result;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 交易服务Feign客户端
@@ -18,11 +21,20 @@ import java.util.List;
 public interface TradeFeignClient {
 
     /**
-     * 查询一周内的热销商品排行（前N）
+     * 实时计算一周内的热销商品排行（前N，不读缓存）
      * 
      * @param topN 返回前N个商品
      * @return 热销商品列表
      */
-    @GetMapping("/hot-product/weekly/top/{topN}")
-    Result<List<Object>> getWeeklyHotProducts(@PathVariable("topN") Integer topN);
+    @GetMapping("/hot-product/weekly/live/{topN}")
+    Result<List<Object>> getLiveWeeklyHotProducts(@PathVariable("topN") Integer topN);
+
+    /**
+     * 回填购买汇总
+     * 
+     * @param days 回填最近多少天的商品每日汇总
+     * @return 回填行数
+     */
+    @PostMapping("/purchase-record/stats/backfill")
+    Result<Map<String, Object>> backfillPurchaseStats(@RequestParam("days") Integer days);
 }
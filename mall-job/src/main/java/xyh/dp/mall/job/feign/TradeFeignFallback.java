@@ -7,6 +7,7 @@ import xyh.dp.mall.common.result.Result;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 交易服务Feign降级处理
@@ -22,10 +23,16 @@ public class TradeFeignFallback implements FallbackFactory<TradeFeignClient> {
     public TradeFeignClient create(Throwable cause) {
         return new TradeFeignClient() {
             @Override
-            public Result<List<Object>> getWeeklyHotProducts(Integer topN) {
+            public Result<List<Object>> getLiveWeeklyHotProducts(Integer topN) {
                 log.error("调用交易服务查询热销商品失败，降级处理", cause);
                 return Result.fail("交易服务不可用");
             }
+
+            @Override
+            public Result<Map<String, Object>> backfillPurchaseStats(Integer days) {
+                log.error("调用交易服务回填购买汇总失败，降级处理", cause);
+                return Result.fail("交易服务不可用");
+            }
         };
     }
 }
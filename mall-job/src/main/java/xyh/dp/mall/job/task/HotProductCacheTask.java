@@ -20,7 +20,9 @@ import java.util.concurrent.TimeUnit;
  * 
  * <p>执行策略：
  * - 每小时更新一次热销榜单缓存
+ * - 只向交易服务请求一次TOP50，TOP10/TOP20由TOP50截取
  * - 缓存有效期2小时（防止任务失败时数据过期）
+ * - 交易服务读取同一组key，缓存超过刷新周期时自行在后台刷新
  * </p>
  * 
  * @author mall-cloud
@@ -37,6 +39,7 @@ public class HotProductCacheTask {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final String CACHE_KEY_PREFIX = "hot_products:weekly:top_";
     private static final long CACHE_EXPIRE_HOURS = 2;
+    private static final int[] CACHE_SIZES = {10, 20, 50};
 
     /**
      * 更新热销商品榜单缓存
@@ -59,14 +62,8 @@ public class HotProductCacheTask {
         try {
             long start = System.currentTimeMillis();
             
-            // 更新TOP10
-            updateHotProductsCache(10);
-            
-            // 更新TOP20（用于首页展示更多商品）
-            updateHotProductsCache(20);
-            
-            // 更新TOP50（用于数据分析）
-            updateHotProductsCache(50);
+            // 计算一次TOP50，截取TOP10（首页）、TOP20（首页展示更多商品）
+            updateHotProductsCache();
             
             long duration = System.currentTimeMillis() - start;
             String endTime = LocalDateTime.now().format(FORMATTER);
@@ -83,39 +80,39 @@ public class HotProductCacheTask {
     }
 
     /**
-     * 更新指定数量的热销商品缓存
-     * 
-     * @param topN 前N个商品
+     * 更新热销商品缓存
+     * 获取TOP50后按10/20/50截取分别写入
      */
-    private void updateHotProductsCache(int topN) {
+    private void updateHotProductsCache() {
+        int maxSize = CACHE_SIZES[CACHE_SIZES.length - 1];
         try {
-            log.info("开始更新TOP{}热销商品缓存", topN);
+            log.info("开始更新热销商品缓存");
             
-            // 调用交易服务获取热销商品
-            Result<List<Object>> result = tradeFeignClient.getWeeklyHotProducts(topN);
+            // 调用交易服务实时计算热销商品
+            Result<List<Object>> result = tradeFeignClient.getLiveWeeklyHotProducts(maxSize);
             
             if (!result.isSuccess() || result.getData() == null) {
-                log.warn("获取TOP{}热销商品失败: {}", topN, result.getMessage());
+                log.warn("获取TOP{}热销商品失败: {}", maxSize, result.getMessage());
                 return;
             }
             
             List<Object> hotProducts = result.getData();
             
-            // 将结果缓存到Redis
-            String cacheKey = CACHE_KEY_PREFIX + topN;
-            String cacheValue = JSON.toJSONString(hotProducts);
-            
-            redisTemplate.opsForValue().set(
-                    cacheKey,
-                    cacheValue,
-                    CACHE_EXPIRE_HOURS,
-                    TimeUnit.HOURS
-            );
+            // 截取后缓存到Redis
+            for (int topN : CACHE_SIZES) {
+                List<Object> slice = hotProducts.subList(0, Math.min(topN, hotProducts.size()));
+                redisTemplate.opsForValue().set(
+                        CACHE_KEY_PREFIX + topN,
+                        JSON.toJSONString(slice),
+                        CACHE_EXPIRE_HOURS,
+                        TimeUnit.HOURS
+                );
+            }
             
-            log.info("TOP{}热销商品缓存更新成功，共{}个商品", topN, hotProducts.size());
+            log.info("热销商品缓存更新成功，共{}个商品", hotProducts.size());
             
         } catch (Exception e) {
-            log.error("更新TOP{}热销商品缓存失败", topN, e);
+            log.error("更新热销商品缓存失败", e);
         }
     }
 
@@ -127,9 +124,9 @@ public class HotProductCacheTask {
             log.info("开始清除热销榜单缓存");
             
             // 清除各个榜单的缓存
-            redisTemplate.delete(CACHE_KEY_PREFIX + "10");
-            redisTemplate.delete(CACHE_KEY_PREFIX + "20");
-            redisTemplate.delete(CACHE_KEY_PREFIX + "50");
+            for (int topN : CACHE_SIZES) {
+                redisTemplate.delete(CACHE_KEY_PREFIX + topN);
+            }
             
             log.info("热销榜单缓存清除完成");
             
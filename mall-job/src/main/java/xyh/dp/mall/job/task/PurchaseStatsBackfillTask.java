@@ -0,0 +1,72 @@
+package xyh.dp.mall.job.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.job.feign.TradeFeignClient;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * 购买汇总回填任务
+ * 从购买记录重算前一天的商品每日汇总和全部用户汇总，修正增量维护中的并发误差
+ * 
+ * <p>执行策略：
+ * - 每天凌晨2点30分执行（业务低峰期，早于3点的ES全量同步）
+ * - 首次上线时可直接调用交易服务 POST /purchase-record/stats/backfill?days=N 回填历史数据
+ * </p>
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PurchaseStatsBackfillTask {
+
+    private final TradeFeignClient tradeFeignClient;
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 重算前一天的购买汇总
+     * 每天凌晨2点30分执行
+     * 
+     * Cron表达式说明：0 30 2 * * ?
+     * - 秒：0
+     * - 分：30
+     * - 时：2
+     * - 日：*（每天）
+     * - 月：*（每月）
+     * - 星期：?（不指定）
+     */
+    @Scheduled(cron = "0 30 2 * * ?")
+    public void backfillYesterday() {
+        String startTime = LocalDateTime.now().format(FORMATTER);
+        log.info("================== 开始执行购买汇总回填任务 ==================");
+        log.info("任务开始时间: {}", startTime);
+
+        try {
+            long start = System.currentTimeMillis();
+
+            Result<Map<String, Object>> result = tradeFeignClient.backfillPurchaseStats(1);
+
+            long duration = System.currentTimeMillis() - start;
+            if (result.isSuccess()) {
+                log.info("购买汇总回填成功: {}", result.getData());
+                log.info("耗时: {} 毫秒", duration);
+            } else {
+                log.error("购买汇总回填失败: {}", result.getMessage());
+            }
+
+        } catch (Exception e) {
+            log.error("购买汇总回填异常", e);
+        } finally {
+            log.info("================== 购买汇总回填任务执行完毕 ==================");
+        }
+    }
+}
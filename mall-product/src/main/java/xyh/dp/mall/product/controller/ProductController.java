@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 import xyh.dp.mall.common.annotation.RequireLogin;
+import xyh.dp.mall.common.exception.BusinessException;
 import xyh.dp.mall.common.result.Result;
 import xyh.dp.mall.product.dto.ProductCreateDTO;
 import xyh.dp.mall.product.dto.ProductUpdateDTO;
@@ -75,6 +76,22 @@ public class ProductController {
         return Result.success(product);
     }
 
+    /**
+     * 根据ID批量查询商品
+     * 内部接口，供购物车等服务通过Feign一次获取多个商品
+     * 
+     * @param ids 商品ID列表
+     * @return 商品列表
+     */
+    @GetMapping("/batch")
+    @Operation(summary = "批量查询商品", description = "内部接口，根据ID列表批量查询商品，最多200个")
+    public Result<List<ProductVO>> listByIds(@Parameter(description = "商品ID列表") @RequestParam List<Long> ids) {
+        if (ids.size() > 200) {
+            throw new BusinessException("单次最多查询200个商品");
+        }
+        return Result.success(productService.listByIds(ids));
+    }
+
     /**
      * 查询分类列表
      * 
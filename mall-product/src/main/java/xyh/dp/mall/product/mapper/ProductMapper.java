@@ -3,6 +3,7 @@ package xyh.dp.mall.product.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 import xyh.dp.mall.product.entity.Product;
 
@@ -28,4 +29,14 @@ public interface ProductMapper extends BaseMapper<Product> {
     int deductStock(@Param("productId") Long productId, 
                     @Param("quantity") Integer quantity, 
                     @Param("currentStock") Integer currentStock);
+
+    /**
+     * 读取商品快照字段并加共享锁
+     * 锁持有到所在事务结束，期间其他事务无法修改该商品
+     * 
+     * @param productId 商品ID
+     * @return 只含id、price、stock、status的商品，不存在返回null
+     */
+    @Select("SELECT id, price, stock, status FROM product WHERE id = #{productId} LOCK IN SHARE MODE")
+    Product selectSnapshotForShare(@Param("productId") Long productId);
 }
@@ -42,6 +42,7 @@ public class ProductService {
 
     private final ProductMapper productMapper;
     private final CategoryMapper categoryMapper;
+    private final ProductSnapshotPublisher snapshotPublisher;
 
     // ==================== 商家商品管理接口 ====================
 
@@ -69,6 +70,7 @@ public class ProductService {
         Product product = buildProductFromCreateDTO(dto, supplierId);
 
         productMapper.insert(product);
+        snapshotPublisher.publish(product);
         log.info("商品创建成功, id: {}, name: {}", product.getId(), product.getName());
         return product.getId();
     }
@@ -107,6 +109,7 @@ public class ProductService {
         product.setUpdateTime(LocalDateTime.now());
 
         productMapper.updateById(product);
+        snapshotPublisher.publish(product);
         log.info("商品更新成功, id: {}", product.getId());
     }
 
@@ -135,6 +138,7 @@ public class ProductService {
         product.setStatus("DELETED");
         product.setUpdateTime(LocalDateTime.now());
         productMapper.updateById(product);
+        snapshotPublisher.publish(product);
 
         log.info("商品删除成功, id: {}", productId);
     }
@@ -189,6 +193,7 @@ public class ProductService {
         product.setStock(newStock);
         product.setUpdateTime(LocalDateTime.now());
         productMapper.updateById(product);
+        snapshotPublisher.publish(product);
 
         log.info("库存调整成功, productId: {}, oldStock: {}, newStock: {}",
                 dto.getProductId(), product.getStock(), newStock);
@@ -255,6 +260,7 @@ public class ProductService {
         product.setStatus(status);
         product.setUpdateTime(LocalDateTime.now());
         productMapper.updateById(product);
+        snapshotPublisher.publish(product);
         log.info("商品状态更新成功, id: {}, status: {}", productId, status);
     }
 
@@ -517,6 +523,22 @@ public class ProductService {
         return convertToVO(product);
     }
 
+    /**
+     * 根据ID批量查询商品
+     * 不存在的商品不在结果中
+     * 
+     * @param ids 商品ID列表
+     * @return 商品列表
+     */
+    public List<ProductVO> listByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return productMapper.selectByIds(ids).stream()
+                .map(this::convertToVO)
+                .collect(Collectors.toList());
+    }
+
     /**
      * 查询分类列表
      * 
@@ -559,6 +581,8 @@ public class ProductService {
         
         log.info("扣减库存成功, productId: {}, quantity: {}, remaining: {}", 
                 productId, quantity, product.getStock() - quantity);
+        product.setStock(product.getStock() - quantity);
+        snapshotPublisher.publish(product);
         return true;
     }
 
@@ -582,6 +606,7 @@ public class ProductService {
         
         product.setStock(product.getStock() + quantity);
         productMapper.updateById(product);
+        snapshotPublisher.publish(product);
         
         log.info("恢复库存成功, productId: {}, quantity: {}, total: {}", 
                 productId, quantity, product.getStock());
@@ -0,0 +1,107 @@
+package xyh.dp.mall.product.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyh.dp.mall.common.snapshot.ProductSnapshot;
+import xyh.dp.mall.common.util.AfterCommit;
+import xyh.dp.mall.product.entity.Product;
+import xyh.dp.mall.product.mapper.ProductMapper;
+
+import java.util.List;
+
+/**
+ * 商品快照发布器
+ * 商品价格、库存、状态变化后发布紧凑的变更通知，供交易服务维护本地快照
+ *
+ * <p>版本号分配、最新快照保存和通知发布在同一个Lua脚本中完成，保证通知顺序与版本号一致。
+ * 在事务中调用时延迟到提交后发布；发布失败只记录日志，不影响商品业务。</p>
+ *
+ * <p>提交后的回调执行顺序与事务提交顺序无关：两个事务先后修改同一商品时，先提交者的回调可能后执行，
+ * 若发布调用方手中的对象，旧数据会拿到更大的版本号。因此发布时在新事务中以共享锁重新读取该商品，
+ * 并在持有锁期间执行脚本：读取之后的修改必须等待发布完成才能提交，版本号顺序与数据库中的修改顺序一致。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class ProductSnapshotPublisher {
+
+    /**
+     * KEYS[1]: 版本序列, KEYS[2]: 快照Hash
+     * ARGV[1]: 商品ID, ARGV[2]: price,stock,status, ARGV[3]: 通知频道
+     */
+    private static final RedisScript<Long> PUBLISH_SCRIPT = RedisScript.of("""
+            local version = redis.call('INCR', KEYS[1])
+            local value = ARGV[1] .. ',' .. version .. ',' .. ARGV[2]
+            redis.call('HSET', KEYS[2], ARGV[1], value)
+            redis.call('PUBLISH', ARGV[3], value)
+            return version
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ProductMapper productMapper;
+
+    /**
+     * 独立事务：提交后回调中原事务已不能再执行语句
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 创建快照发布器
+     *
+     * @param redisTemplate      Redis模板
+     * @param productMapper      商品Mapper
+     * @param transactionManager 事务管理器
+     */
+    public ProductSnapshotPublisher(StringRedisTemplate redisTemplate, ProductMapper productMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.redisTemplate = redisTemplate;
+        this.productMapper = productMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 发布商品快照
+     * 只取商品ID，发布的内容以提交后数据库中的数据为准
+     *
+     * @param product 变更后的商品
+     */
+    public void publish(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        Long productId = product.getId();
+        AfterCommit.run(() -> transactionTemplate.executeWithoutResult(status -> doPublish(productId)));
+    }
+
+    /**
+     * 以共享锁读取商品并发布，须在事务中调用
+     *
+     * @param productId 商品ID
+     */
+    private void doPublish(Long productId) {
+        try {
+            Product current = productMapper.selectSnapshotForShare(productId);
+            if (current == null || current.getPrice() == null) {
+                return;
+            }
+            String payload = current.getPrice().toPlainString() + ","
+                    + (current.getStock() != null ? current.getStock() : 0) + ","
+                    + current.getStatus();
+            Long version = redisTemplate.execute(PUBLISH_SCRIPT,
+                    List.of(ProductSnapshot.SEQ_KEY, ProductSnapshot.HASH_KEY),
+                    String.valueOf(productId), payload, ProductSnapshot.CHANNEL);
+            log.debug("商品快照已发布: productId={}, version={}, payload={}", productId, version, payload);
+        } catch (Exception e) {
+            log.error("商品快照发布失败: productId={}", productId, e);
+        }
+    }
+}
@@ -45,6 +45,9 @@ class ProductServiceTest {
     @Mock
     private CategoryMapper categoryMapper;
 
+    @Mock
+    private ProductSnapshotPublisher snapshotPublisher;
+
     @InjectMocks
     private ProductService productService;
 
@@ -191,6 +194,7 @@ class ProductServiceTest {
             // Then
             assertThat(result).isTrue();
             verify(productMapper, times(1)).deductStock(1L, 10, 1000);
+            verify(snapshotPublisher).publish(argThat(product -> product.getStock() == 990));
         }
 
         /**
@@ -0,0 +1,98 @@
+package xyh.dp.mall.product.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.PlatformTransactionManager;
+import xyh.dp.mall.common.snapshot.ProductSnapshot;
+import xyh.dp.mall.product.entity.Product;
+import xyh.dp.mall.product.mapper.ProductMapper;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * ProductSnapshotPublisher 商品快照发布器单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProductSnapshotPublisher 商品快照发布器测试")
+class ProductSnapshotPublisherTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ProductMapper productMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductSnapshotPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new ProductSnapshotPublisher(redisTemplate, productMapper, transactionManager);
+    }
+
+    @Test
+    @DisplayName("发布数据库中加锁读取的最新数据，而不是调用方手中的对象")
+    @SuppressWarnings("unchecked")
+    void publish_shouldUseLockedReread() {
+        // Given - 调用方手中库存为10，提交后另一事务已改为5
+        Product stale = product(10);
+        when(productMapper.selectSnapshotForShare(1L)).thenReturn(product(5));
+
+        // When
+        publisher.publish(stale);
+
+        // Then - 在独立事务中读取并发布，发布完成后才提交释放共享锁
+        InOrder inOrder = inOrder(transactionManager, productMapper, redisTemplate);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(productMapper).selectSnapshotForShare(1L);
+        inOrder.verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of(ProductSnapshot.SEQ_KEY, ProductSnapshot.HASH_KEY)),
+                eq("1"), eq("25.00,5,ON_SALE"), eq(ProductSnapshot.CHANNEL));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("商品已不存在时不发布")
+    void publish_missingProduct_shouldSkip() {
+        // Given
+        when(productMapper.selectSnapshotForShare(1L)).thenReturn(null);
+
+        // When
+        publisher.publish(product(10));
+
+        // Then
+        verifyNoInteractions(redisTemplate);
+    }
+
+    /**
+     * 构建商品
+     *
+     * @param stock 库存
+     * @return 商品
+     */
+    private static Product product(int stock) {
+        Product product = new Product();
+        product.setId(1L);
+        product.setPrice(new BigDecimal("25.00"));
+        product.setStock(stock);
+        product.setStatus("ON_SALE");
+        return product;
+    }
+}
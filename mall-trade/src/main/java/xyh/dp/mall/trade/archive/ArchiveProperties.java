@@ -0,0 +1,57 @@
+package xyh.dp.mall.trade.archive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分区维护与冷数据归档配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "archive")
+public class ArchiveProperties {
+
+    /**
+     * 是否启用分区维护和归档（表未分区时必须关闭）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 归档文件目录，必须是各实例共享的存储（归档由拿到锁的实例写入，读取可能落在任一实例）
+     */
+    private String directory = "/data/mall-trade/archive";
+
+    /**
+     * 确认归档目录已挂载为各实例共享的存储，启用归档时必须为true，否则启动失败
+     */
+    private boolean sharedStorage = false;
+
+    /**
+     * 导出时每批读取的行数
+     */
+    private int chunkSize = 2000;
+
+    /**
+     * 每个月分区归档的分片数，行按分片列的哈希分散到各分片文件
+     */
+    private int shards = 64;
+
+    /**
+     * 提前创建的未来月分区数
+     */
+    private int futureMonths = 3;
+
+    /**
+     * 各表在线保留的月数（含当月），更早的月分区导出后删除；购买记录表不归档，不在此配置
+     */
+    private Map<String, Integer> retainMonths = new HashMap<>(Map.of(
+            PartitionedTable.ORDER.getTableName(), 24,
+            PartitionedTable.TRACKING_EVENT.getTableName(), 6));
+}
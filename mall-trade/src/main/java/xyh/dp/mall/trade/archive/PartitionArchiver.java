@@ -0,0 +1,440 @@
+package xyh.dp.mall.trade.archive;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.exception.BusinessException;
+import xyh.dp.mall.trade.mapper.PartitionMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 月分区维护与冷数据归档
+ * 订单、购买记录、埋点事件按月RANGE COLUMNS分区，带时间条件的查询由MySQL裁剪到相关分区，
+ * 冷分区导出为压缩文件后整体删除，在线表只保留最近若干个月
+ *
+ * <p>启动时和每天凌晨执行（多实例只有拿到锁的实例执行）：
+ * 1. 从pmax拆出未来若干个月的分区，保证新数据总是落在月分区；
+ * 2. 可归档的表（订单、埋点事件）早于保留期的月分区按主键分批导出为 目录/表名/分区名/分片号.jsonl.gz
+ *    （每行一条记录的JSON），行按表的分片列（用户ID、订单号）哈希分散到各分片文件；行数与分区一致后再DROP PARTITION。
+ *    导出中断时临时目录被下次覆盖，分区不会在导出完成前删除。
+ * 购买记录是汇总和索引重建的数据源，只维护分区不归档。</p>
+ *
+ * <p>需要时通过{@link #read}按月读取归档文件：按分片列读取（按订单号查询订单）只解压一个分片，
+ * 约为整月数据的1/分片数；按其他列读取需要扫描全部分片。
+ * 归档目录必须是各实例共享的存储，启用归档时未确认（archive.shared-storage）或目录不可写则启动失败。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionArchiver {
+
+    private static final String LOCK_KEY = "archive:lock";
+    private static final Duration LOCK_TTL = Duration.ofHours(2);
+    private static final String FILE_SUFFIX = ".jsonl.gz";
+
+    /**
+     * 仅释放自己持有的锁（归档超过锁有效期时锁可能已被其他实例取得）
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final PartitionMapper partitionMapper;
+    private final ArchiveProperties properties;
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 启用归档时校验归档目录：必须确认为共享存储且可写
+     *
+     * @throws IllegalStateException 未确认共享存储或目录不可写
+     */
+    @PostConstruct
+    public void validateStorage() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!properties.isSharedStorage()) {
+            throw new IllegalStateException("归档目录必须是各实例共享的存储，挂载后设置archive.shared-storage=true: "
+                    + properties.getDirectory());
+        }
+        Path directory = Paths.get(properties.getDirectory());
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("归档目录不可用: " + directory, e);
+        }
+        if (!Files.isWritable(directory)) {
+            throw new IllegalStateException("归档目录不可写: " + directory);
+        }
+    }
+
+    /**
+     * 启动后补齐未来月分区
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        runLocked(false);
+    }
+
+    /**
+     * 每天凌晨补齐未来月分区并归档冷分区
+     */
+    @Scheduled(cron = "${archive.cron:0 30 3 * * ?}")
+    public void maintain() {
+        runLocked(true);
+    }
+
+    /**
+     * 从pmax拆出到（当前月 + futureMonths）为止的月分区
+     *
+     * @param table 分区表
+     */
+    public void ensurePartitions(PartitionedTable table) {
+        YearMonth last = lastMonth(partitionMapper.selectPartitionNames(table.getTableName()));
+        if (last == null) {
+            log.warn("表未按月分区，跳过: table={}", table.getTableName());
+            return;
+        }
+        YearMonth until = YearMonth.now().plusMonths(properties.getFutureMonths());
+        for (YearMonth month = last.plusMonths(1); !month.isAfter(until); month = month.plusMonths(1)) {
+            partitionMapper.addPartition(table.getTableName(), PartitionedTable.partitionName(month),
+                    month.plusMonths(1).atDay(1).toString());
+            log.info("创建月分区: table={}, partition={}", table.getTableName(), PartitionedTable.partitionName(month));
+        }
+    }
+
+    /**
+     * 归档早于保留期的月分区
+     *
+     * @param table 分区表
+     * @return 归档的分区数
+     */
+    public int archive(PartitionedTable table) {
+        if (!table.isArchivable()) {
+            return 0;
+        }
+        int retainMonths = properties.getRetainMonths().getOrDefault(table.getTableName(), Integer.MAX_VALUE);
+        if (retainMonths == Integer.MAX_VALUE) {
+            return 0;
+        }
+        YearMonth oldestRetained = YearMonth.now().minusMonths(retainMonths - 1L);
+        int archived = 0;
+        for (String partition : partitionMapper.selectPartitionNames(table.getTableName())) {
+            YearMonth month = PartitionedTable.parseMonth(partition);
+            if (month == null || !month.isBefore(oldestRetained)) {
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            long rows = export(table, partition);
+            partitionMapper.dropPartition(table.getTableName(), partition);
+            purgeRegistry(table, month.plusMonths(1).atDay(1).atStartOfDay());
+            archived++;
+            log.info("分区归档完成: table={}, partition={}, rows={}, 耗时={}ms",
+                    table.getTableName(), partition, rows, System.currentTimeMillis() - start);
+        }
+        return archived;
+    }
+
+    /**
+     * 清理已归档月份的业务唯一键登记
+     * 归档数据的订单号、事件ID含当时的时间，新生成的不会与之重复，登记不再需要
+     *
+     * @param table  分区表
+     * @param before 已归档月份的结束时间（不含）
+     */
+    private void purgeRegistry(PartitionedTable table, LocalDateTime before) {
+        if (table.getRegistryTable() == null) {
+            return;
+        }
+        long deleted = 0;
+        int batch;
+        do {
+            batch = partitionMapper.deleteRegistryBefore(table.getRegistryTable(), before, properties.getChunkSize());
+            deleted += batch;
+        } while (batch == properties.getChunkSize());
+        log.info("登记表清理完成: table={}, before={}, rows={}", table.getRegistryTable(), before, deleted);
+    }
+
+    /**
+     * 读取某月的归档记录
+     * 按表的分片列读取时只解压对应的分片文件
+     *
+     * @param table  分区表
+     * @param month  月份
+     * @param column 过滤列名
+     * @param value  过滤值（按字符串比较）
+     * @param limit  最多返回条数
+     * @return 记录（列名 -> 值），未启用归档或该月未归档返回空列表
+     * @throws BusinessException 归档目录不可用或读取失败
+     */
+    public List<JSONObject> read(PartitionedTable table, YearMonth month, String column, Object value, int limit) {
+        if (!properties.isEnabled() || !table.isArchivable()) {
+            return List.of();
+        }
+        String partition = PartitionedTable.partitionName(month);
+        String expected = String.valueOf(value);
+        List<JSONObject> rows = new ArrayList<>();
+        for (Path file : filesToScan(table, partition, column, expected)) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                String line;
+                while (rows.size() < limit && (line = reader.readLine()) != null) {
+                    JSONObject row = JSON.parseObject(line);
+                    if (expected.equals(String.valueOf(row.get(column)))) {
+                        rows.add(row);
+                    }
+                }
+            } catch (IOException e) {
+                log.error("读取归档文件失败: file={}", file, e);
+                throw new BusinessException("读取归档数据失败");
+            }
+            if (rows.size() >= limit) {
+                break;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 读取时需要扫描的归档文件
+     *
+     * @param table     分区表
+     * @param partition 分区名
+     * @param column    过滤列名
+     * @param expected  过滤值
+     * @return 归档文件，未归档返回空列表
+     * @throws BusinessException 归档目录不可用（共享存储未挂载时不把归档数据当作不存在）
+     */
+    private List<Path> filesToScan(PartitionedTable table, String partition, String column, String expected) {
+        Path root = Paths.get(properties.getDirectory());
+        if (!Files.isDirectory(root)) {
+            log.error("归档目录不可用: directory={}", root);
+            throw new BusinessException("读取归档数据失败");
+        }
+        Path directory = archiveDirectory(table, partition);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> shards = files.filter(file -> file.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .sorted()
+                    .toList();
+            if (column.equals(table.getShardColumn()) && !shards.isEmpty()) {
+                return List.of(directory.resolve(shardFileName(shardOf(expected, shards.size()))));
+            }
+            return shards;
+        } catch (IOException e) {
+            log.error("列出归档文件失败: directory={}", directory, e);
+            throw new BusinessException("读取归档数据失败");
+        }
+    }
+
+    /**
+     * 按主键分批把分区导出为分片压缩文件，行数核对一致后把临时目录原子改名
+     *
+     * @param table     分区表
+     * @param partition 分区名
+     * @return 导出行数
+     */
+    private long export(PartitionedTable table, String partition) {
+        Path directory = archiveDirectory(table, partition);
+        Path temp = directory.resolveSibling(partition + ".tmp");
+        int shards = Math.max(1, properties.getShards());
+        long expected = partitionMapper.countPartition(table.getTableName(), partition);
+        long written = 0;
+        try {
+            deleteRecursively(temp);
+            Files.createDirectories(temp);
+            BufferedWriter[] writers = new BufferedWriter[shards];
+            try {
+                for (int shard = 0; shard < shards; shard++) {
+                    writers[shard] = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                            Files.newOutputStream(temp.resolve(shardFileName(shard)))), StandardCharsets.UTF_8));
+                }
+                long afterId = 0;
+                List<Map<String, Object>> chunk;
+                do {
+                    chunk = partitionMapper.selectChunk(table.getTableName(), partition, afterId,
+                            properties.getChunkSize());
+                    for (Map<String, Object> row : chunk) {
+                        String shardValue = String.valueOf(row.get(table.getShardColumn()));
+                        BufferedWriter writer = writers[shardOf(shardValue, shards)];
+                        writer.write(JSON.toJSONString(row));
+                        writer.newLine();
+                        afterId = ((Number) row.get("id")).longValue();
+                    }
+                    written += chunk.size();
+                } while (chunk.size() == properties.getChunkSize());
+            } finally {
+                closeAll(writers);
+            }
+            // 导出期间仍可能有迟到数据写入（如补录的历史记录），行数不一致时放弃本次删除
+            if (written != expected || written != partitionMapper.countPartition(table.getTableName(), partition)) {
+                deleteRecursively(temp);
+                throw new IllegalStateException("归档行数不一致: expected=" + expected + ", written=" + written);
+            }
+            // 上次导出成功但删除分区失败时目录已存在，以本次导出为准
+            deleteRecursively(directory);
+            Files.move(temp, directory, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } catch (IOException e) {
+            throw new IllegalStateException("写入归档文件失败: " + directory, e);
+        }
+    }
+
+    /**
+     * 关闭全部分片文件（写入gzip结尾），关闭失败时抛出第一个异常
+     *
+     * @param writers 分片文件
+     * @throws IOException 关闭失败
+     */
+    private static void closeAll(BufferedWriter[] writers) throws IOException {
+        IOException failure = null;
+        for (BufferedWriter writer : writers) {
+            if (writer == null) {
+                continue;
+            }
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 删除目录及其中的文件（归档目录只有一层）
+     *
+     * @param directory 目录
+     * @throws IOException 删除失败
+     */
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * 加锁执行分区维护，多实例只有拿到锁的实例执行
+     *
+     * @param archive 是否同时归档冷分区
+     */
+    private void runLocked(boolean archive) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            for (PartitionedTable table : PartitionedTable.values()) {
+                try {
+                    ensurePartitions(table);
+                    if (archive) {
+                        archive(table);
+                    }
+                } catch (Exception e) {
+                    log.error("分区维护失败: table={}", table.getTableName(), e);
+                }
+            }
+        } finally {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), token);
+        }
+    }
+
+    /**
+     * 最后一个月分区
+     *
+     * @param partitions 分区名
+     * @return 月份，没有月分区返回null
+     */
+    private static YearMonth lastMonth(List<String> partitions) {
+        YearMonth last = null;
+        for (String partition : partitions) {
+            YearMonth month = PartitionedTable.parseMonth(partition);
+            if (month != null && (last == null || month.isAfter(last))) {
+                last = month;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * 月分区的归档目录
+     *
+     * @param table     分区表
+     * @param partition 分区名
+     * @return 路径
+     */
+    private Path archiveDirectory(PartitionedTable table, String partition) {
+        return Paths.get(properties.getDirectory(), table.getTableName(), partition);
+    }
+
+    /**
+     * 分片文件名
+     *
+     * @param shard 分片号
+     * @return 文件名，如007.jsonl.gz
+     */
+    private static String shardFileName(int shard) {
+        return String.format("%03d", shard) + FILE_SUFFIX;
+    }
+
+    /**
+     * 分片列的值所在的分片（String.hashCode跨JVM稳定）
+     *
+     * @param value  分片列的值（字符串形式）
+     * @param shards 分片数
+     * @return 分片号
+     */
+    static int shardOf(String value, int shards) {
+        return Math.floorMod(value.hashCode(), shards);
+    }
+}
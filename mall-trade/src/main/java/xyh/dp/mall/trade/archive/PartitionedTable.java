@@ -0,0 +1,96 @@
+package xyh.dp.mall.trade.archive;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 按月分区的表
+ * 分区命名为p+年月（如p202501，保存该月及之前未归档的数据）和pmax（尚未创建月分区的数据）
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Getter
+@RequiredArgsConstructor
+public enum PartitionedTable {
+
+    /**
+     * 订单表，按创建时间分区，订单号登记在tb_order_no，归档按订单号分片
+     */
+    ORDER("tb_order", "create_time", "tb_order_no", "order_no", true),
+
+    /**
+     * 购买记录表，按购买时间分区，只维护分区不归档：
+     * 用户购买汇总、已购商品位图和共同购买矩阵都从全部购买记录重建，归档后重建结果会缩小
+     */
+    PURCHASE_RECORD("tb_purchase_record", "purchase_time", null, "user_id", false),
+
+    /**
+     * 用户行为埋点事件表，按事件时间分区，事件ID登记在user_tracking_event_id，归档按用户分片
+     */
+    TRACKING_EVENT("user_tracking_event", "event_time", "user_tracking_event_id", "user_id", true);
+
+    /**
+     * 兜底分区名
+     */
+    public static final String MAX_PARTITION = "pmax";
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /**
+     * 表名
+     */
+    private final String tableName;
+
+    /**
+     * 分区列
+     */
+    private final String partitionColumn;
+
+    /**
+     * 业务唯一键登记表（不分区，有create_time列），没有为null
+     * 分区表的唯一键必须包含分区列，业务唯一键的全局唯一由登记表保证；月分区归档后清理该月之前的登记
+     */
+    private final String registryTable;
+
+    /**
+     * 归档分片列，按该列读取归档时只解压对应的分片
+     */
+    private final String shardColumn;
+
+    /**
+     * 是否归档冷分区（不归档的表忽略在线保留月数配置）
+     */
+    private final boolean archivable;
+
+    /**
+     * 月分区名
+     *
+     * @param month 月份
+     * @return 分区名，如p202501
+     */
+    public static String partitionName(YearMonth month) {
+        return "p" + MONTH_FORMAT.format(month);
+    }
+
+    /**
+     * 解析月分区名
+     *
+     * @param partitionName 分区名
+     * @return 月份，不是月分区返回null
+     */
+    public static YearMonth parseMonth(String partitionName) {
+        if (partitionName == null || partitionName.length() != 7 || partitionName.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(1), MONTH_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
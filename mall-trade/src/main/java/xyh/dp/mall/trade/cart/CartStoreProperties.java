@@ -0,0 +1,59 @@
+package xyh.dp.mall.trade.cart;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 购物车存储配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cart.store")
+public class CartStoreProperties {
+
+    /**
+     * 存储模式: MYSQL-直接读写数据库, REDIS-Redis Hash + 异步批量落库
+     */
+    private Mode mode = Mode.MYSQL;
+
+    /**
+     * Redis购物车过期时间（天），每次写操作后续期
+     */
+    private int ttlDays = 7;
+
+    /**
+     * 落库间隔（毫秒）
+     */
+    private long flushIntervalMs = 1000;
+
+    /**
+     * 每批落库的用户数
+     */
+    private int flushBatchSize = 200;
+
+    /**
+     * 每轮落库最多处理的批次数，避免单轮占用过久
+     */
+    private int flushMaxBatches = 10;
+
+    /**
+     * 是否使用Redis存储
+     *
+     * @return Redis模式返回true
+     */
+    public boolean isRedisMode() {
+        return mode == Mode.REDIS;
+    }
+
+    /**
+     * 存储模式
+     */
+    public enum Mode {
+        MYSQL,
+        REDIS
+    }
+}
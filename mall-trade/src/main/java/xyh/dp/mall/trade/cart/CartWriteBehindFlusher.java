@@ -0,0 +1,211 @@
+package xyh.dp.mall.trade.cart;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyh.dp.mall.trade.entity.CartItem;
+import xyh.dp.mall.trade.mapper.CartItemMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 购物车异步落库任务
+ * 定期从待落库集合中取出有变更的用户，以Redis中的购物车为准，批量同步到tb_cart_item
+ *
+ * <p>合并写：两次落库之间同一用户的任意多次修改只产生一次对账，
+ * 每批用户只执行一次查询和一次批量插入/更新/删除。</p>
+ *
+ * <p>多实例部署时通过分布式锁保证同一时刻只有一个实例在落库；落库失败的用户放回待落库集合重试。
+ * 不判断当前存储模式，从REDIS切回MYSQL后仍会把残留的变更写完；待落库集合为空时不抢锁，
+ * MYSQL模式下每个周期只有一次SCARD。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartWriteBehindFlusher {
+
+    private static final String LOCK_KEY = "cart:flush:lock";
+    private static final Duration LOCK_TTL = Duration.ofSeconds(30);
+
+    /**
+     * 仅释放自己持有的锁
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CartItemMapper cartItemMapper;
+    private final CartStoreProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 定时落库，没有待落库用户时直接返回
+     */
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval-ms:1000}")
+    public void flush() {
+        Long dirty = redisTemplate.opsForSet().size(RedisCartStore.DIRTY_KEY);
+        if (dirty == null || dirty == 0) {
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            for (int i = 0; i < properties.getFlushMaxBatches(); i++) {
+                List<String> userIds = redisTemplate.opsForSet().pop(RedisCartStore.DIRTY_KEY,
+                        properties.getFlushBatchSize());
+                if (userIds == null || userIds.isEmpty()) {
+                    break;
+                }
+                flushUsers(userIds);
+            }
+        } catch (Exception e) {
+            log.error("购物车落库失败", e);
+        } finally {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), token);
+        }
+    }
+
+    /**
+     * 同步一批用户的购物车
+     *
+     * @param userIds 用户ID列表
+     */
+    private void flushUsers(List<String> userIds) {
+        try {
+            Map<Long, List<CartItem>> carts = readCarts(userIds);
+            if (carts.isEmpty()) {
+                return;
+            }
+            int[] counts = transactionTemplate.execute(status -> reconcile(carts));
+            log.debug("购物车落库完成: users={}, insert={}, update={}, delete={}",
+                    carts.size(), counts[0], counts[1], counts[2]);
+        } catch (Exception e) {
+            redisTemplate.opsForSet().add(RedisCartStore.DIRTY_KEY, userIds.toArray(new String[0]));
+            log.error("购物车落库失败，稍后重试: users={}", userIds.size(), e);
+        }
+    }
+
+    /**
+     * 管道批量读取购物车Hash
+     * 已过期的购物车跳过（数据库中即为最后一次落库的状态）
+     *
+     * @param userIds 用户ID列表
+     * @return 用户ID -> 购物车项
+     */
+    private Map<Long, List<CartItem>> readCarts(List<String> userIds) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String userId : userIds) {
+                hGetAll(connection, RedisCartStore.CART_KEY_PREFIX + userId);
+            }
+            return null;
+        });
+
+        Map<Long, List<CartItem>> carts = new HashMap<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            Map<?, ?> entries = (Map<?, ?>) results.get(i);
+            if (entries == null || entries.isEmpty()) {
+                continue;
+            }
+            Long userId = Long.valueOf(userIds.get(i));
+            carts.put(userId, RedisCartStore.parseItems(userId, entries));
+        }
+        return carts;
+    }
+
+    /**
+     * 以Redis为准对账：新增、修改、删除
+     *
+     * @param carts 用户ID -> Redis中的购物车项
+     * @return [插入数, 更新数, 删除数]
+     */
+    private int[] reconcile(Map<Long, List<CartItem>> carts) {
+        LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.in(CartItem::getUserId, carts.keySet());
+        Map<String, CartItem> existing = new HashMap<>();
+        for (CartItem row : cartItemMapper.selectList(queryWrapper)) {
+            existing.put(row.getUserId() + ":" + row.getProductId(), row);
+        }
+
+        List<CartItem> inserts = new ArrayList<>();
+        List<CartItem> updates = new ArrayList<>();
+        for (List<CartItem> items : carts.values()) {
+            for (CartItem item : items) {
+                CartItem row = existing.remove(item.getUserId() + ":" + item.getProductId());
+                if (row == null) {
+                    item.setId(null);
+                    if (item.getUpdateTime() == null) {
+                        item.setUpdateTime(LocalDateTime.now());
+                    }
+                    inserts.add(item);
+                } else if (changed(row, item)) {
+                    row.setQuantity(item.getQuantity());
+                    row.setSelected(item.getSelected());
+                    row.setPrice(item.getPrice());
+                    row.setUpdateTime(item.getUpdateTime() != null ? item.getUpdateTime() : LocalDateTime.now());
+                    updates.add(row);
+                }
+            }
+        }
+        // Redis中已不存在的商品
+        List<Long> deletes = existing.values().stream().map(CartItem::getId).toList();
+
+        if (!inserts.isEmpty()) {
+            cartItemMapper.insert(inserts);
+        }
+        if (!updates.isEmpty()) {
+            cartItemMapper.updateById(updates);
+        }
+        if (!deletes.isEmpty()) {
+            cartItemMapper.deleteByIds(deletes);
+        }
+        return new int[]{inserts.size(), updates.size(), deletes.size()};
+    }
+
+    /**
+     * 判断购物车项是否有变化
+     *
+     * @param row  数据库记录
+     * @param item Redis中的购物车项
+     * @return 有变化返回true
+     */
+    private boolean changed(CartItem row, CartItem item) {
+        return !Objects.equals(row.getQuantity(), item.getQuantity())
+                || !Objects.equals(row.getSelected(), item.getSelected())
+                || row.getPrice() == null || item.getPrice().compareTo(row.getPrice()) != 0;
+    }
+
+    /**
+     * 管道中读取Hash
+     *
+     * @param connection Redis连接
+     * @param key        key
+     */
+    private void hGetAll(RedisConnection connection, String key) {
+        connection.hashCommands().hGetAll(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,542 @@
+package xyh.dp.mall.trade.cart;
+
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.annotation.Bulkhead;
+import xyh.dp.mall.common.concurrent.DependencyBulkhead;
+import xyh.dp.mall.common.exception.BusinessException;
+import xyh.dp.mall.trade.entity.CartItem;
+import xyh.dp.mall.trade.feign.dto.ProductDTO;
+import xyh.dp.mall.trade.mapper.CartItemMapper;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis购物车存储
+ * 每个用户的购物车保存在一个Hash中，所有写操作由Lua脚本原子完成，并把用户记入待落库集合，
+ * 由{@link CartWriteBehindFlusher}异步批量同步到tb_cart_item
+ *
+ * <p>Hash结构（key = cart:{userId}），每个商品占以下字段：
+ * - q:{productId} 数量（HINCRBY累加）
+ * - s:{productId} 是否选中（1/0）
+ * - m:{productId} 商品快照JSON（名称、主图、单价、加入时间）
+ * - t:{productId} 最后修改时间（毫秒）
+ * 另有_loaded标记字段，用于区分"购物车为空"和"缓存未命中"。
+ * 缓存未命中时从MySQL懒加载。</p>
+ *
+ * <p>Redis模式下购物车项ID即商品ID（同一用户同一商品只有一项）。切换前下发的tb_cart_item行ID
+ * 需显式标记，由{@link xyh.dp.mall.trade.service.CartService}查出商品ID后再调用，本类只接受商品ID。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Bulkhead(DependencyBulkhead.REDIS)
+public class RedisCartStore {
+
+    static final String CART_KEY_PREFIX = "cart:";
+    static final String DIRTY_KEY = "cart:dirty";
+    static final String LOADED_FIELD = "_loaded";
+    static final String QUANTITY_PREFIX = "q:";
+    static final String SELECTED_PREFIX = "s:";
+    static final String META_PREFIX = "m:";
+    static final String TIME_PREFIX = "t:";
+
+    /**
+     * 脚本返回值：购物车未加载
+     */
+    private static final long NOT_LOADED = -2L;
+
+    /**
+     * 脚本返回值：库存不足
+     */
+    private static final long OUT_OF_STOCK = -1L;
+
+    /**
+     * 公共参数约定：
+     * KEYS[1]: 购物车key, KEYS[2]: 待落库用户集合
+     * ARGV[1]: 用户ID, ARGV[2]: 过期时间(秒), ARGV[3]: 当前时间(毫秒)
+     */
+    private static final String TOUCH = """
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            redis.call('SADD', KEYS[2], ARGV[1])
+            """;
+
+    /**
+     * 加购：ARGV[4]商品ID, ARGV[5]增加数量, ARGV[6]库存上限, ARGV[7]商品快照
+     * 返回新数量；-1库存不足；-2未加载
+     */
+    private static final RedisScript<Long> ADD_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local qf = 'q:' .. ARGV[4]
+            local current = tonumber(redis.call('HGET', KEYS[1], qf) or '0')
+            if current + tonumber(ARGV[5]) > tonumber(ARGV[6]) then return -1 end
+            local quantity = redis.call('HINCRBY', KEYS[1], qf, ARGV[5])
+            if current == 0 then
+                redis.call('HSET', KEYS[1], 's:' .. ARGV[4], 1, 'm:' .. ARGV[4], ARGV[7])
+            end
+            redis.call('HSET', KEYS[1], 't:' .. ARGV[4], ARGV[3])
+            """ + TOUCH + """
+            return quantity
+            """, Long.class);
+
+    /**
+     * 修改单项字段：ARGV[4]商品ID, ARGV[5]字段前缀(q/s), ARGV[6]新值
+     * 返回1成功；0商品不在购物车；-2未加载
+     */
+    private static final RedisScript<Long> SET_FIELD_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[4]) == 0 then return 0 end
+            redis.call('HSET', KEYS[1], ARGV[5] .. ':' .. ARGV[4], ARGV[6], 't:' .. ARGV[4], ARGV[3])
+            """ + TOUCH + """
+            return 1
+            """, Long.class);
+
+    /**
+     * 删除单项：ARGV[4]商品ID
+     * 返回1成功；0商品不在购物车；-2未加载
+     */
+    private static final RedisScript<Long> REMOVE_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local p = ARGV[4]
+            local removed = redis.call('HDEL', KEYS[1], 'q:' .. p, 's:' .. p, 'm:' .. p, 't:' .. p)
+            if removed == 0 then return 0 end
+            """ + TOUCH + """
+            return 1
+            """, Long.class);
+
+    /**
+     * 脚本返回值：购物车项不存在
+     */
+    private static final long ITEM_MISSING = -3L;
+
+    /**
+     * 批量操作：ARGV[4..7]依次为删除、加购、改数量、改选中的项数，之后按同样顺序排列各项参数：
+     * 删除{商品ID}，加购{商品ID, 增加数量, 库存上限, 商品快照}，改数量{商品ID, 新数量}，改选中{商品ID, 1/0}
+     * 先校验全部操作再写入，任一校验失败不做任何修改。
+     * 返回1成功；-1库存不足；-2未加载；-3购物车项不存在
+     */
+    private static final RedisScript<Long> BATCH_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local removeCount, addCount = tonumber(ARGV[4]), tonumber(ARGV[5])
+            local updateCount, selectCount = tonumber(ARGV[6]), tonumber(ARGV[7])
+            local removeStart = 8
+            local addStart = removeStart + removeCount
+            local updateStart = addStart + addCount * 4
+            local selectStart = updateStart + updateCount * 2
+            local removed, added = {}, {}
+            for i = removeStart, addStart - 1 do
+                if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[i]) == 0 then return -3 end
+                removed[ARGV[i]] = true
+            end
+            for i = addStart, updateStart - 1, 4 do
+                local current = 0
+                if not removed[ARGV[i]] then
+                    current = tonumber(redis.call('HGET', KEYS[1], 'q:' .. ARGV[i]) or '0')
+                end
+                if current + tonumber(ARGV[i + 1]) > tonumber(ARGV[i + 2]) then return -1 end
+                added[ARGV[i]] = true
+            end
+            for i = updateStart, #ARGV, 2 do
+                if not added[ARGV[i]] and (removed[ARGV[i]]
+                        or redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[i]) == 0) then
+                    return -3
+                end
+            end
+            for i = removeStart, addStart - 1 do
+                local p = ARGV[i]
+                redis.call('HDEL', KEYS[1], 'q:' .. p, 's:' .. p, 'm:' .. p, 't:' .. p)
+            end
+            for i = addStart, updateStart - 1, 4 do
+                local current = redis.call('HINCRBY', KEYS[1], 'q:' .. ARGV[i], ARGV[i + 1])
+                if current == tonumber(ARGV[i + 1]) then
+                    redis.call('HSET', KEYS[1], 's:' .. ARGV[i], 1, 'm:' .. ARGV[i], ARGV[i + 3])
+                end
+                redis.call('HSET', KEYS[1], 't:' .. ARGV[i], ARGV[3])
+            end
+            for i = updateStart, selectStart - 1, 2 do
+                redis.call('HSET', KEYS[1], 'q:' .. ARGV[i], ARGV[i + 1], 't:' .. ARGV[i], ARGV[3])
+            end
+            for i = selectStart, #ARGV, 2 do
+                redis.call('HSET', KEYS[1], 's:' .. ARGV[i], ARGV[i + 1], 't:' .. ARGV[i], ARGV[3])
+            end
+            """ + TOUCH + """
+            return 1
+            """, Long.class);
+
+    /**
+     * 全选/全不选：ARGV[4]选中值(1/0)
+     * 返回修改的项数；-2未加载
+     */
+    private static final RedisScript<Long> SELECT_ALL_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local count = 0
+            for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+                if string.sub(field, 1, 2) == 's:' then
+                    redis.call('HSET', KEYS[1], field, ARGV[4], 't:' .. string.sub(field, 3), ARGV[3])
+                    count = count + 1
+                end
+            end
+            """ + TOUCH + """
+            return count
+            """, Long.class);
+
+    /**
+     * 删除选中项
+     * 返回删除的项数；-2未加载
+     */
+    private static final RedisScript<Long> REMOVE_SELECTED_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local count = 0
+            for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+                if string.sub(field, 1, 2) == 's:' and redis.call('HGET', KEYS[1], field) == '1' then
+                    local p = string.sub(field, 3)
+                    redis.call('HDEL', KEYS[1], 'q:' .. p, 's:' .. p, 'm:' .. p, 't:' .. p)
+                    count = count + 1
+                end
+            end
+            """ + TOUCH + """
+            return count
+            """, Long.class);
+
+    /**
+     * 清空购物车（保留已加载标记，避免再次从数据库加载旧数据）
+     */
+    private static final RedisScript<Long> CLEAR_SCRIPT = RedisScript.of("""
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], '_loaded', 1)
+            """ + TOUCH + """
+            return 1
+            """, Long.class);
+
+    /**
+     * 从数据库加载：ARGV[4..]为field/value对；购物车已存在时不覆盖
+     * 返回1已加载；0已存在
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            redis.call('HSET', KEYS[1], '_loaded', 1)
+            for i = 4, #ARGV, 2 do
+                redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CartItemMapper cartItemMapper;
+    private final CartStoreProperties properties;
+
+    /**
+     * 查询用户购物车（按加入时间倒序）
+     *
+     * @param userId 用户ID
+     * @return 购物车项列表，id为商品ID
+     */
+    public List<CartItem> getItems(Long userId) {
+        String key = cartKey(userId);
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key);
+        if (entries.isEmpty()) {
+            loadFromDatabase(userId);
+            entries = redisTemplate.opsForHash().entries(key);
+        }
+        return parseItems(userId, entries);
+    }
+
+    /**
+     * 加入购物车，已存在时累加数量
+     *
+     * @param userId   用户ID
+     * @param product  商品信息
+     * @param quantity 增加数量
+     * @return 累加后的数量
+     */
+    public long add(Long userId, ProductDTO product, int quantity) {
+        CartItem meta = new CartItem();
+        meta.setProductName(product.getName());
+        meta.setProductImage(product.getMainImage());
+        meta.setPrice(product.getPrice());
+        meta.setCreateTime(LocalDateTime.now());
+
+        long result = execute(userId, ADD_SCRIPT, String.valueOf(product.getId()), String.valueOf(quantity),
+                String.valueOf(product.getStock()), JSON.toJSONString(meta));
+        if (result == OUT_OF_STOCK) {
+            throw new BusinessException("库存不足");
+        }
+        return result;
+    }
+
+    /**
+     * 修改数量
+     *
+     * @param userId    用户ID
+     * @param productId 商品ID
+     * @param quantity  新数量
+     * @return 商品在购物车中返回true
+     */
+    public boolean updateQuantity(Long userId, Long productId, int quantity) {
+        return execute(userId, SET_FIELD_SCRIPT, String.valueOf(productId), "q", String.valueOf(quantity)) > 0;
+    }
+
+    /**
+     * 修改选中状态
+     *
+     * @param userId    用户ID
+     * @param productId 商品ID
+     * @param selected  是否选中
+     * @return 商品在购物车中返回true
+     */
+    public boolean setSelected(Long userId, Long productId, boolean selected) {
+        return execute(userId, SET_FIELD_SCRIPT, String.valueOf(productId), "s", selected ? "1" : "0") > 0;
+    }
+
+    /**
+     * 全选/全不选
+     *
+     * @param userId   用户ID
+     * @param selected 是否选中
+     * @return 修改的项数
+     */
+    public long selectAll(Long userId, boolean selected) {
+        return execute(userId, SELECT_ALL_SCRIPT, selected ? "1" : "0");
+    }
+
+    /**
+     * 删除单项
+     *
+     * @param userId    用户ID
+     * @param productId 商品ID
+     * @return 商品在购物车中返回true
+     */
+    public boolean remove(Long userId, Long productId) {
+        return execute(userId, REMOVE_SCRIPT, String.valueOf(productId)) > 0;
+    }
+
+    /**
+     * 删除选中项
+     *
+     * @param userId 用户ID
+     * @return 删除的项数
+     */
+    public long removeSelected(Long userId) {
+        return execute(userId, REMOVE_SELECTED_SCRIPT);
+    }
+
+    /**
+     * 批量操作，由一个脚本原子执行：全部成功或不做任何修改，其他请求不会看到执行到一半的购物车
+     *
+     * @param userId     用户ID
+     * @param removals   待删除的商品ID
+     * @param adds       商品ID -> 增加数量
+     * @param products   加购商品信息
+     * @param quantities 商品ID -> 新数量
+     * @param selections 商品ID -> 是否选中
+     */
+    public void applyBatch(Long userId, Set<Long> removals, Map<Long, Integer> adds, Map<Long, ProductDTO> products,
+                           Map<Long, Integer> quantities, Map<Long, Boolean> selections) {
+        List<String> args = new ArrayList<>(4 + removals.size() + adds.size() * 4
+                + quantities.size() * 2 + selections.size() * 2);
+        args.add(String.valueOf(removals.size()));
+        args.add(String.valueOf(adds.size()));
+        args.add(String.valueOf(quantities.size()));
+        args.add(String.valueOf(selections.size()));
+        removals.forEach(productId -> args.add(String.valueOf(productId)));
+        LocalDateTime now = LocalDateTime.now();
+        adds.forEach((productId, quantity) -> {
+            ProductDTO product = products.get(productId);
+            CartItem meta = new CartItem();
+            meta.setProductName(product.getName());
+            meta.setProductImage(product.getMainImage());
+            meta.setPrice(product.getPrice());
+            meta.setCreateTime(now);
+            args.add(String.valueOf(productId));
+            args.add(String.valueOf(quantity));
+            args.add(String.valueOf(product.getStock()));
+            args.add(JSON.toJSONString(meta));
+        });
+        quantities.forEach((productId, quantity) -> {
+            args.add(String.valueOf(productId));
+            args.add(String.valueOf(quantity));
+        });
+        selections.forEach((productId, selected) -> {
+            args.add(String.valueOf(productId));
+            args.add(selected ? "1" : "0");
+        });
+
+        long result = execute(userId, BATCH_SCRIPT, args.toArray(new String[0]));
+        if (result == OUT_OF_STOCK) {
+            throw new BusinessException("库存不足");
+        }
+        if (result == ITEM_MISSING) {
+            throw new BusinessException("购物车项不存在");
+        }
+    }
+
+    /**
+     * 清空购物车
+     *
+     * @param userId 用户ID
+     */
+    public void clear(Long userId) {
+        execute(userId, CLEAR_SCRIPT);
+    }
+
+    /**
+     * 解析购物车Hash（落库时也复用）
+     *
+     * @param userId  用户ID
+     * @param entries Hash全部字段
+     * @return 购物车项列表，id为商品ID
+     */
+    static List<CartItem> parseItems(Long userId, Map<?, ?> entries) {
+        Map<String, CartItem> items = new HashMap<>();
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+            String field = String.valueOf(entry.getKey());
+            String value = String.valueOf(entry.getValue());
+            if (field.equals(LOADED_FIELD) || field.length() < 3) {
+                continue;
+            }
+            String productId = field.substring(2);
+            CartItem item = items.computeIfAbsent(productId, id -> newItem(userId, id));
+            switch (field.substring(0, 2)) {
+                case QUANTITY_PREFIX -> item.setQuantity(Integer.parseInt(value));
+                case SELECTED_PREFIX -> item.setSelected("1".equals(value));
+                case TIME_PREFIX -> item.setUpdateTime(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(Long.parseLong(value)), ZoneId.systemDefault()));
+                case META_PREFIX -> {
+                    CartItem meta = JSON.parseObject(value, CartItem.class);
+                    item.setProductName(meta.getProductName());
+                    item.setProductImage(meta.getProductImage());
+                    item.setPrice(meta.getPrice());
+                    item.setCreateTime(meta.getCreateTime());
+                }
+                default -> {
+                }
+            }
+        }
+
+        List<CartItem> result = new ArrayList<>(items.size());
+        for (CartItem item : items.values()) {
+            // 跳过并发删除导致的残缺项
+            if (item.getQuantity() != null && item.getPrice() != null) {
+                result.add(item);
+            }
+        }
+        result.sort(Comparator.comparing(CartItem::getCreateTime,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return result;
+    }
+
+    /**
+     * 用户购物车key
+     *
+     * @param userId 用户ID
+     * @return Redis key
+     */
+    static String cartKey(Long userId) {
+        return CART_KEY_PREFIX + userId;
+    }
+
+    /**
+     * 执行写脚本，购物车未加载时先从数据库加载再重试一次
+     *
+     * @param userId 用户ID
+     * @param script 脚本
+     * @param args   ARGV[4]起的参数
+     * @return 脚本返回值
+     */
+    private long execute(Long userId, RedisScript<Long> script, String... args) {
+        Long result = executeOnce(userId, script, args);
+        if (result != null && result == NOT_LOADED) {
+            loadFromDatabase(userId);
+            result = executeOnce(userId, script, args);
+        }
+        if (result == null || result == NOT_LOADED) {
+            throw new BusinessException("购物车操作失败，请稍后重试");
+        }
+        return result;
+    }
+
+    /**
+     * 执行一次写脚本
+     *
+     * @param userId 用户ID
+     * @param script 脚本
+     * @param args   ARGV[4]起的参数
+     * @return 脚本返回值
+     */
+    private Long executeOnce(Long userId, RedisScript<Long> script, String... args) {
+        Object[] argv = new Object[3 + args.length];
+        argv[0] = String.valueOf(userId);
+        argv[1] = String.valueOf(properties.getTtlDays() * 86400L);
+        argv[2] = String.valueOf(System.currentTimeMillis());
+        System.arraycopy(args, 0, argv, 3, args.length);
+        return redisTemplate.execute(script, List.of(cartKey(userId), DIRTY_KEY), argv);
+    }
+
+    /**
+     * 从MySQL加载用户购物车到Redis（Redis中已存在时不覆盖）
+     *
+     * @param userId 用户ID
+     */
+    private void loadFromDatabase(Long userId) {
+        LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(CartItem::getUserId, userId);
+        List<CartItem> rows = cartItemMapper.selectList(queryWrapper);
+
+        List<String> argv = new ArrayList<>(3 + rows.size() * 8);
+        argv.add(String.valueOf(userId));
+        argv.add(String.valueOf(properties.getTtlDays() * 86400L));
+        argv.add(String.valueOf(System.currentTimeMillis()));
+        for (CartItem row : rows) {
+            String productId = String.valueOf(row.getProductId());
+            CartItem meta = new CartItem();
+            meta.setProductName(row.getProductName());
+            meta.setProductImage(row.getProductImage());
+            meta.setPrice(row.getPrice());
+            meta.setCreateTime(row.getCreateTime());
+            LocalDateTime updateTime = row.getUpdateTime() != null ? row.getUpdateTime() : LocalDateTime.now();
+
+            argv.add(QUANTITY_PREFIX + productId);
+            argv.add(String.valueOf(row.getQuantity()));
+            argv.add(SELECTED_PREFIX + productId);
+            argv.add(Boolean.TRUE.equals(row.getSelected()) ? "1" : "0");
+            argv.add(META_PREFIX + productId);
+            argv.add(JSON.toJSONString(meta));
+            argv.add(TIME_PREFIX + productId);
+            argv.add(String.valueOf(updateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        }
+        Long loaded = redisTemplate.execute(LOAD_SCRIPT, List.of(cartKey(userId), DIRTY_KEY), argv.toArray());
+        log.debug("购物车从数据库加载: userId={}, items={}, loaded={}", userId, rows.size(), loaded);
+    }
+
+    /**
+     * 创建空购物车项
+     *
+     * @param userId    用户ID
+     * @param productId 商品ID
+     * @return 购物车项
+     */
+    private static CartItem newItem(Long userId, String productId) {
+        CartItem item = new CartItem();
+        item.setId(Long.valueOf(productId));
+        item.setUserId(userId);
+        item.setProductId(Long.valueOf(productId));
+        return item;
+    }
+}
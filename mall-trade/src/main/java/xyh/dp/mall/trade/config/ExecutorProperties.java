@@ -0,0 +1,109 @@
+package xyh.dp.mall.trade.config;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.concurrent.ExecutorMode;
+import xyh.dp.mall.common.concurrent.ThreadPoolSpec;
+
+/**
+ * 异步执行器配置
+ * 支持为每个执行器独立选择平台线程池或虚拟线程模式
+ * 平台线程池的线程数和队列容量修改后由ManagedExecutorRegistry实时生效，无需重启
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "executor")
+public class ExecutorProperties {
+
+    /**
+     * 订单处理执行器（orderExecutor）
+     */
+    private Pool order = new Pool(10, 50, 200, 200);
+
+    /**
+     * 通用异步执行器（asyncExecutor）
+     */
+    private Pool async = new Pool(5, 20, 100, 100);
+
+    /**
+     * 匹配任务执行器（matchingTaskExecutor）
+     */
+    private Pool matching = new Pool(4, 10, 100, 50);
+
+    /**
+     * 匹配任务内的候选商品并行评分（matchingScoringPool）
+     */
+    private Scoring scoring = new Scoring();
+
+    /**
+     * 候选商品并行评分配置
+     * 评分以CPU计算为主，使用按CPU核数设置的工作窃取线程池，所有匹配任务共享
+     */
+    @Data
+    public static class Scoring {
+
+        /**
+         * 评分线程池并行度，0表示CPU核数（启动时生效）
+         */
+        private int parallelism = 0;
+
+        /**
+         * 单个匹配任务最多同时占用的评分线程数，0表示并行度的一半（至少1），避免一个大任务占满线程池
+         */
+        private int perTaskParallelism = 0;
+
+        /**
+         * 每个评分线程至少分到的候选商品数，候选商品少时减少线程数，避免调度开销超过评分本身
+         */
+        private int minCandidatesPerWorker = 16;
+    }
+
+    /**
+     * 单个执行器配置
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    @ToString(callSuper = true)
+    @NoArgsConstructor
+    public static class Pool extends ThreadPoolSpec {
+
+        /**
+         * 线程模式: PLATFORM-平台线程池, VIRTUAL-虚拟线程
+         */
+        private ExecutorMode mode = ExecutorMode.PLATFORM;
+
+        /**
+         * 虚拟线程模式下的最大并发任务数
+         */
+        private int virtualConcurrencyLimit = 100;
+
+        /**
+         * 创建指定默认值的配置
+         *
+         * @param corePoolSize            核心线程数
+         * @param maxPoolSize             最大线程数
+         * @param queueCapacity           队列容量
+         * @param virtualConcurrencyLimit 虚拟线程最大并发任务数
+         */
+        public Pool(int corePoolSize, int maxPoolSize, int queueCapacity, int virtualConcurrencyLimit) {
+            super(corePoolSize, maxPoolSize, queueCapacity, 60);
+            this.virtualConcurrencyLimit = virtualConcurrencyLimit;
+        }
+
+        /**
+         * 是否使用虚拟线程
+         *
+         * @return 虚拟线程模式返回true
+         */
+        public boolean isVirtual() {
+            return mode == ExecutorMode.VIRTUAL;
+        }
+    }
+}
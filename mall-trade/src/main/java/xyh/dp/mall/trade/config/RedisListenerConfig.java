@@ -0,0 +1,47 @@
+package xyh.dp.mall.trade.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import xyh.dp.mall.common.snapshot.ProductSnapshot;
+import xyh.dp.mall.trade.copurchase.CoPurchaseIndex;
+import xyh.dp.mall.trade.matching.async.MatchCancellationRegistry;
+import xyh.dp.mall.trade.profile.PurchasedProductIndex;
+import xyh.dp.mall.trade.snapshot.ProductSnapshotCache;
+
+/**
+ * Redis消息订阅配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Configuration
+public class RedisListenerConfig {
+
+    /**
+     * Redis消息监听容器
+     *
+     * @param connectionFactory     Redis连接工厂
+     * @param productSnapshotCache  商品快照缓存
+     * @param purchasedProductIndex 用户已购商品索引
+     * @param coPurchaseIndex       共同购买索引
+     * @param cancellationRegistry  匹配任务本地取消登记
+     * @return 监听容器
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       ProductSnapshotCache productSnapshotCache,
+                                                                       PurchasedProductIndex purchasedProductIndex,
+                                                                       CoPurchaseIndex coPurchaseIndex,
+                                                                       MatchCancellationRegistry cancellationRegistry) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(productSnapshotCache, new ChannelTopic(ProductSnapshot.CHANNEL));
+        container.addMessageListener(purchasedProductIndex, new ChannelTopic(PurchasedProductIndex.CHANNEL));
+        container.addMessageListener(coPurchaseIndex, new ChannelTopic(CoPurchaseIndex.CHANNEL));
+        container.addMessageListener(cancellationRegistry, new ChannelTopic(MatchCancellationRegistry.CHANNEL));
+        return container;
+    }
+}
@@ -1,10 +1,14 @@
 package xyh.dp.mall.trade.config;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import xyh.dp.mall.common.concurrent.ContextAwareTaskDecorator;
+import xyh.dp.mall.common.concurrent.ManagedExecutorRegistry;
+import xyh.dp.mall.common.concurrent.VirtualThreadExecutors;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -13,33 +17,24 @@ import java.util.concurrent.ThreadPoolExecutor;
  * 线程池配置
  * 提供异步任务执行和并行处理能力
  * 
+ * <p>每个执行器可通过executor.*.mode切换为虚拟线程模式，
+ * 两种模式下都会把用户上下文和链路追踪上下文传递到任务线程。</p>
+ * 
+ * <p>平台线程池由ManagedExecutorRegistry托管，线程数和队列容量取自executor.*配置，
+ * 在Nacos中修改后实时生效。</p>
+ * 
  * @author mall-cloud
  * @since 1.0.0
  */
 @Slf4j
 @Configuration
 @EnableAsync
+@RequiredArgsConstructor
 public class ThreadPoolConfig {
 
-    /**
-     * 核心线程数
-     */
-    private static final int CORE_POOL_SIZE = 10;
-
-    /**
-     * 最大线程数
-     */
-    private static final int MAX_POOL_SIZE = 50;
-
-    /**
-     * 队列容量
-     */
-    private static final int QUEUE_CAPACITY = 200;
-
-    /**
-     * 线程存活时间(秒)
-     */
-    private static final int KEEP_ALIVE_SECONDS = 60;
+    private final ExecutorProperties executorProperties;
+    private final ContextAwareTaskDecorator contextAwareTaskDecorator;
+    private final ManagedExecutorRegistry executorRegistry;
 
     /**
      * 订单处理线程池
@@ -49,18 +44,21 @@ public class ThreadPoolConfig {
      */
     @Bean("orderExecutor")
     public Executor orderExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(CORE_POOL_SIZE);
-        executor.setMaxPoolSize(MAX_POOL_SIZE);
-        executor.setQueueCapacity(QUEUE_CAPACITY);
-        executor.setKeepAliveSeconds(KEEP_ALIVE_SECONDS);
+        ExecutorProperties.Pool pool = executorProperties.getOrder();
+        if (pool.isVirtual()) {
+            return VirtualThreadExecutors.create("order-vt-", pool.getVirtualConcurrencyLimit(),
+                    60_000L, contextAwareTaskDecorator);
+        }
+
+        ThreadPoolTaskExecutor executor = executorRegistry.create("order", pool);
         executor.setThreadNamePrefix("order-async-");
+        executor.setTaskDecorator(contextAwareTaskDecorator);
         // 拒绝策略：由调用线程处理
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
         executor.initialize();
-        log.info("订单处理线程池初始化完成, corePoolSize={}, maxPoolSize={}", CORE_POOL_SIZE, MAX_POOL_SIZE);
+        log.info("订单处理线程池初始化完成, corePoolSize={}, maxPoolSize={}", pool.getCorePoolSize(), pool.getMaxPoolSize());
         return executor;
     }
 
@@ -72,12 +70,15 @@ public class ThreadPoolConfig {
      */
     @Bean("asyncExecutor")
     public Executor asyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(20);
-        executor.setQueueCapacity(100);
-        executor.setKeepAliveSeconds(KEEP_ALIVE_SECONDS);
+        ExecutorProperties.Pool pool = executorProperties.getAsync();
+        if (pool.isVirtual()) {
+            return VirtualThreadExecutors.create("async-vt-", pool.getVirtualConcurrencyLimit(),
+                    30_000L, contextAwareTaskDecorator);
+        }
+
+        ThreadPoolTaskExecutor executor = executorRegistry.create("async", pool);
         executor.setThreadNamePrefix("async-task-");
+        executor.setTaskDecorator(contextAwareTaskDecorator);
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
@@ -11,6 +11,7 @@ import xyh.dp.mall.common.annotation.RateLimit;
 import xyh.dp.mall.common.annotation.RequireLogin;
 import xyh.dp.mall.common.result.Result;
 import xyh.dp.mall.trade.dto.AddCartItemDTO;
+import xyh.dp.mall.trade.dto.BatchCartDTO;
 import xyh.dp.mall.trade.dto.UpdateCartItemDTO;
 import xyh.dp.mall.trade.service.CartService;
 import xyh.dp.mall.trade.vo.CartSummaryVO;
@@ -76,11 +77,28 @@ public class CartController {
         return Result.success();
     }
     
+    /**
+     * 批量操作购物车
+     * 
+     * @param dto 批量操作请求
+     * @return 操作后的购物车汇总
+     */
+    @PostMapping("/batch")
+    @RequireLogin
+    @RateLimit(prefix = "cart_batch", window = 60, maxRequests = 50, message = "操作过于频繁，请稍后再试")
+    @Operation(summary = "批量操作购物车", description = "一次提交多个加入、改数量、改选中、删除操作，返回最新购物车")
+    public Result<CartSummaryVO> batchUpdate(@Valid @RequestBody BatchCartDTO dto) {
+        log.info("批量操作购物车: operations={}", dto.getOperations().size());
+        CartSummaryVO summary = cartService.batchUpdate(dto);
+        return Result.success(summary);
+    }
+    
     /**
      * 切换购物车项选中状态
      * 
      * @param cartItemId 购物车项ID
      * @param selected 是否选中
+     * @param legacyRowId cartItemId是否为旧的tb_cart_item行ID
      * @return 操作结果
      */
     @PutMapping("/{cartItemId}/select")
@@ -88,10 +106,11 @@ public class CartController {
     @Operation(summary = "切换选中状态", description = "切换购物车项的选中状态")
     public Result<Void> toggleSelected(
             @Parameter(description = "购物车项ID") @PathVariable Long cartItemId,
-            @Parameter(description = "是否选中") @RequestParam Boolean selected
+            @Parameter(description = "是否选中") @RequestParam Boolean selected,
+            @Parameter(description = "是否为旧的购物车行ID") @RequestParam(defaultValue = "false") Boolean legacyRowId
     ) {
-        log.info("切换购物车选中状态: id={}, selected={}", cartItemId, selected);
-        cartService.toggleSelected(cartItemId, selected);
+        log.info("切换购物车选中状态: id={}, selected={}, legacyRowId={}", cartItemId, selected, legacyRowId);
+        cartService.toggleSelected(cartItemId, selected, legacyRowId);
         return Result.success();
     }
     
@@ -114,14 +133,18 @@ public class CartController {
      * 删除购物车项
      * 
      * @param cartItemId 购物车项ID
+     * @param legacyRowId cartItemId是否为旧的tb_cart_item行ID
      * @return 操作结果
      */
     @DeleteMapping("/{cartItemId}")
     @RequireLogin
     @Operation(summary = "删除购物车项", description = "从购物车中移除指定商品")
-    public Result<Void> removeItem(@Parameter(description = "购物车项ID") @PathVariable Long cartItemId) {
-        log.info("删除购物车项: id={}", cartItemId);
-        cartService.removeItem(cartItemId);
+    public Result<Void> removeItem(
+            @Parameter(description = "购物车项ID") @PathVariable Long cartItemId,
+            @Parameter(description = "是否为旧的购物车行ID") @RequestParam(defaultValue = "false") Boolean legacyRowId
+    ) {
+        log.info("删除购物车项: id={}, legacyRowId={}", cartItemId, legacyRowId);
+        cartService.removeItem(cartItemId, legacyRowId);
         return Result.success();
     }
     
@@ -62,6 +62,26 @@ public class HotProductController {
         return Result.success(list);
     }
 
+    /**
+     * 实时计算一周内的热销商品排行（不读缓存）
+     * 供定时任务刷新缓存使用
+     * 
+     * @param topN 返回前N个商品
+     * @return 热销商品列表
+     */
+    @GetMapping("/weekly/live/{topN}")
+    @Operation(summary = "一周热销排行（实时）", description = "不读缓存，实时计算最近7天的热销商品排行榜，供定时任务刷新缓存")
+    public Result<List<HotProductVO>> getLiveWeeklyHotProducts(
+            @Parameter(description = "返回前N个商品") @PathVariable Integer topN
+    ) {
+        if (topN <= 0 || topN > 100) {
+            return Result.error("topN参数必须在1-100之间");
+        }
+
+        List<HotProductVO> list = hotProductService.computeWeeklyHotProducts(topN);
+        return Result.success(list);
+    }
+
     /**
      * 查询指定分类的一周热销商品
      * 
@@ -84,4 +104,32 @@ public class HotProductController {
         List<HotProductVO> list = hotProductService.getWeeklyHotProductsByCategory(categoryId, topN);
         return Result.success(list);
     }
+
+    /**
+     * 查询分类一周内的去重购买人数
+     * 
+     * @param categoryId 分类ID
+     * @return 去重购买人数（HyperLogLog估算，误差约0.81%）
+     */
+    @GetMapping("/weekly/category/{categoryId}/buyer-count")
+    @Operation(summary = "分类周购买人数", description = "查询指定分类最近7天的去重购买人数")
+    public Result<Long> getWeeklyCategoryBuyerCount(
+            @Parameter(description = "分类ID") @PathVariable Long categoryId
+    ) {
+        return Result.success(hotProductService.getWeeklyCategoryBuyerCount(categoryId));
+    }
+
+    /**
+     * 查询供应商一周内的去重购买人数
+     * 
+     * @param supplierId 供应商ID
+     * @return 去重购买人数（HyperLogLog估算，误差约0.81%）
+     */
+    @GetMapping("/weekly/supplier/{supplierId}/buyer-count")
+    @Operation(summary = "供应商周购买人数", description = "查询指定供应商最近7天的去重购买人数")
+    public Result<Long> getWeeklySupplierBuyerCount(
+            @Parameter(description = "供应商ID") @PathVariable Long supplierId
+    ) {
+        return Result.success(hotProductService.getWeeklySupplierBuyerCount(supplierId));
+    }
 }
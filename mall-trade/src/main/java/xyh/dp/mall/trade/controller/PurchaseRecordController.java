@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.*;
 import xyh.dp.mall.common.annotation.RequireLogin;
 import xyh.dp.mall.common.result.Result;
 import xyh.dp.mall.trade.service.PurchaseRecordService;
+import xyh.dp.mall.trade.service.PurchaseStatsService;
+import xyh.dp.mall.trade.vo.AlsoBoughtVO;
 import xyh.dp.mall.trade.vo.PurchaseRecordVO;
 
 import java.util.List;
@@ -29,6 +31,7 @@ import java.util.Map;
 public class PurchaseRecordController {
     
     private final PurchaseRecordService purchaseRecordService;
+    private final PurchaseStatsService purchaseStatsService;
     
     /**
      * 分页查询我的购买记录
@@ -91,4 +94,72 @@ public class PurchaseRecordController {
         List<Long> productIds = purchaseRecordService.getMyPurchasedProductIds();
         return Result.success(productIds);
     }
+    
+    /**
+     * 查询最近买过的商品
+     * 
+     * @param limit 数量（最多50）
+     * @return 商品ID列表，从新到旧
+     */
+    @GetMapping("/recent")
+    @RequireLogin
+    @Operation(summary = "查询最近买过", description = "按最近购买时间倒序返回当前用户购买过的商品ID")
+    public Result<List<Long>> getRecentProductIds(
+            @Parameter(description = "数量") @RequestParam(defaultValue = "20") Integer limit
+    ) {
+        log.info("查询最近买过的商品: limit={}", limit);
+        List<Long> productIds = purchaseRecordService.getMyRecentProductIds(limit);
+        return Result.success(productIds);
+    }
+    
+    /**
+     * 查询买了还买
+     * 
+     * @param productId 商品ID
+     * @param limit 数量（最多20）
+     * @return 按共同购买人数降序的商品
+     */
+    @GetMapping("/also-bought/{productId}")
+    @Operation(summary = "查询买了还买", description = "购买过该商品的用户还购买过的商品，按共同购买人数降序")
+    public Result<List<AlsoBoughtVO>> getAlsoBought(
+            @Parameter(description = "商品ID") @PathVariable Long productId,
+            @Parameter(description = "数量") @RequestParam(defaultValue = "10") Integer limit
+    ) {
+        List<AlsoBoughtVO> alsoBought = purchaseRecordService.getAlsoBought(productId, limit);
+        return Result.success(alsoBought);
+    }
+    
+    /**
+     * 回填购买汇总
+     * 内部接口，供定时任务服务通过Feign调用，也可用于首次上线时回填历史数据
+     * 
+     * @param days 回填最近多少天的商品每日汇总
+     * @return 回填行数
+     */
+    @PostMapping("/stats/backfill")
+    @Operation(summary = "回填购买汇总", description = "内部接口，从购买记录重算商品每日汇总、供应商汇总和用户汇总")
+    public Result<Map<String, Object>> backfillStats(
+            @Parameter(description = "回填天数") @RequestParam(defaultValue = "1") Integer days
+    ) {
+        log.info("回填购买汇总请求: days={}", days);
+        int[] rows = purchaseStatsService.backfill(days);
+        return Result.success(Map.of("dailyRows", rows[0], "userRows", rows[1], "supplierRows", rows[2]));
+    }
+    
+    /**
+     * 重建用户购买画像
+     * 内部接口，用于修复Redis画像与购买记录之间的偏差
+     * 
+     * @param userId 用户ID，不传则重建所有用户
+     * @return 重算的用户汇总行数
+     */
+    @PostMapping("/stats/profile/rebuild")
+    @Operation(summary = "重建用户购买画像", description = "内部接口，从购买记录重算用户汇总并刷新Redis画像")
+    public Result<Map<String, Object>> rebuildProfiles(
+            @Parameter(description = "用户ID，不传则重建所有用户") @RequestParam(required = false) Long userId
+    ) {
+        log.info("重建用户购买画像请求: userId={}", userId);
+        int rows = purchaseStatsService.rebuildProfiles(userId);
+        return Result.success(Map.of("userRows", rows));
+    }
 }
@@ -0,0 +1,44 @@
+package xyh.dp.mall.trade.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+import xyh.dp.mall.common.annotation.RequireLogin;
+import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.trade.service.SupplierDashboardService;
+import xyh.dp.mall.trade.vo.SupplierDashboardVO;
+
+/**
+ * 供应商销售看板控制器
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@RestController
+@RequestMapping("/supplier")
+@RequiredArgsConstructor
+@Tag(name = "供应商销售看板", description = "供应商销售汇总相关接口")
+public class SupplierDashboardController {
+
+    private final SupplierDashboardService supplierDashboardService;
+
+    /**
+     * 查询当前供应商的销售看板
+     * 
+     * @param days 统计最近多少天（含今天）
+     * @return 销售看板
+     */
+    @GetMapping("/dashboard")
+    @RequireLogin
+    @Operation(summary = "供应商销售看板", description = "查询当前供应商最近若干天的销售额、销量、订单数和商品销售")
+    public Result<SupplierDashboardVO> getDashboard(
+            @Parameter(description = "统计天数（1-90）") @RequestParam(defaultValue = "7") Integer days
+    ) {
+        log.info("查询供应商销售看板: days={}", days);
+        return Result.success(supplierDashboardService.getDashboard(days));
+    }
+}
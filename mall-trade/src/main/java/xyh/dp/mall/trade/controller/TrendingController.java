@@ -0,0 +1,49 @@
+package xyh.dp.mall.trade.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.trade.service.HotProductService;
+import xyh.dp.mall.trade.vo.TrendingProductVO;
+
+import java.util.List;
+
+/**
+ * 近期热点控制器
+ * 提供"最近多人买"查询接口
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@RestController
+@RequestMapping("/hot")
+@RequiredArgsConstructor
+@Tag(name = "近期热点", description = "最近多人买的商品查询接口")
+public class TrendingController {
+
+    private final HotProductService hotProductService;
+
+    /**
+     * 查询近期热点商品
+     * 
+     * @param window 时间窗口
+     * @param topN 返回前N个商品
+     * @return 按热度降序的商品列表
+     */
+    @GetMapping("/trending")
+    @Operation(summary = "近期热点", description = "查询时间窗口内购买次数最多的商品，越近的购买权重越高")
+    public Result<List<TrendingProductVO>> getTrending(
+            @Parameter(description = "时间窗口，如：30m、1h") @RequestParam(defaultValue = "1h") String window,
+            @Parameter(description = "返回前N个商品") @RequestParam(defaultValue = "20") Integer topN
+    ) {
+        if (topN <= 0 || topN > 100) {
+            return Result.error("topN参数必须在1-100之间");
+        }
+        return Result.success(hotProductService.getTrendingProducts(window, topN));
+    }
+}
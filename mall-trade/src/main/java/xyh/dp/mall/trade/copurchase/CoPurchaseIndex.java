@@ -0,0 +1,331 @@
+package xyh.dp.mall.trade.copurchase;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.util.AfterCommit;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+import xyh.dp.mall.trade.profile.PurchasedProductIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 共同购买索引（买了还买）
+ * 每个节点在内存中维护完整的{@link CoPurchaseMatrix}，查询只读取定期生成的前K快照，不访问Redis和数据库
+ *
+ * <p>用户首次购买某商品并提交后，从{@link PurchasedProductIndex}取出该用户已购的其他商品，
+ * 以"购买记录ID|商品ID|其他商品ID,..."发布到频道，所有节点（包括发布者）收到后各自累加，保证各节点矩阵一致。
+ * 重复购买同一商品不改变"同时买过两者的用户数"，直接跳过。
+ * 订单取消后用户已没有该商品的其他购买记录时，以"-购买记录ID|商品ID|其他商品ID,..."发布撤销通知，各节点两两减1。</p>
+ *
+ * <p>矩阵定期剪枝到每个商品保留keepPerProduct个邻居，同时生成每个商品前topK个邻居的只读快照并整体替换。
+ * 剪枝会丢失低频邻居的计数，通知也可能丢失，因此启动时和每天凌晨从购买记录按用户ID分段重建：
+ * 重建开始时记录最大购买记录ID作为高水位，只扫描不超过高水位的记录；重建期间收到的通知先暂存，
+ * 扫描完成后只回放记录ID高于高水位的通知再替换旧矩阵，扫描已包含的购买不会重复累加。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class CoPurchaseIndex implements MessageListener {
+
+    /**
+     * 共同购买通知频道
+     */
+    public static final String CHANNEL = "purchase:copurchase";
+
+    private final StringRedisTemplate redisTemplate;
+    private final PurchaseRecordMapper purchaseRecordMapper;
+    private final PurchasedProductIndex purchasedProductIndex;
+    private final CoPurchaseProperties properties;
+    private final Executor asyncExecutor;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile CoPurchaseMatrix matrix = new CoPurchaseMatrix();
+
+    /**
+     * 重建期间暂存的通知，非重建期间为null（由replayLock保护）
+     */
+    private List<Notification> replay;
+
+    private final Object replayLock = new Object();
+
+    /**
+     * 商品ID -> 前K邻居（只读）
+     */
+    private volatile Map<Long, Neighbours> snapshot = Collections.emptyMap();
+
+    /**
+     * 创建共同购买索引
+     *
+     * @param redisTemplate         Redis模板
+     * @param purchaseRecordMapper  购买记录Mapper
+     * @param purchasedProductIndex 用户已购商品索引
+     * @param properties            配置
+     * @param asyncExecutor         通用异步执行器（启动重建）
+     */
+    public CoPurchaseIndex(StringRedisTemplate redisTemplate, PurchaseRecordMapper purchaseRecordMapper,
+                           PurchasedProductIndex purchasedProductIndex, CoPurchaseProperties properties,
+                           @Qualifier("asyncExecutor") Executor asyncExecutor) {
+        this.redisTemplate = redisTemplate;
+        this.purchaseRecordMapper = purchaseRecordMapper;
+        this.purchasedProductIndex = purchasedProductIndex;
+        this.properties = properties;
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * 查询与商品共同购买最多的商品
+     *
+     * @param productId 商品ID
+     * @return 按共同购买人数降序的邻居，没有返回{@link Neighbours#EMPTY}
+     */
+    public Neighbours neighbours(Long productId) {
+        Neighbours neighbours = snapshot.get(productId);
+        return neighbours != null ? neighbours : Neighbours.EMPTY;
+    }
+
+    /**
+     * 记录一次购买
+     * 只处理用户首次购买的商品；经{@link AfterCommit}在事务提交后（已购商品索引更新之后）发布
+     *
+     * @param record     已写入的购买记录
+     * @param newProduct 是否为该用户首次购买此商品
+     */
+    public void record(PurchaseRecord record, boolean newProduct) {
+        if (!newProduct || record.getUserId() == null || record.getProductId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> publish(record.getId(), record.getUserId(), record.getProductId()));
+    }
+
+    /**
+     * 撤销一次购买（订单取消）
+     * 只处理用户已没有该商品其他购买记录的情况；经{@link AfterCommit}在事务提交后（已购商品索引撤销之后）发布
+     *
+     * @param record     已删除的购买记录
+     * @param lastRecord 是否为该用户此商品的最后一条购买记录
+     */
+    public void revoke(PurchaseRecord record, boolean lastRecord) {
+        if (!lastRecord || record.getUserId() == null || record.getProductId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> publish(-record.getId(), record.getUserId(), record.getProductId()));
+    }
+
+    /**
+     * 处理共同购买通知：累加到矩阵，撤销通知从矩阵中扣减
+     *
+     * @param message 通知消息，格式为"购买记录ID|商品ID|其他商品ID,..."，购买记录ID为负表示撤销
+     * @param pattern 订阅模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        Notification notification;
+        try {
+            notification = parse(body);
+        } catch (RuntimeException e) {
+            log.warn("共同购买通知格式错误: {}", body);
+            return;
+        }
+        CoPurchaseMatrix current;
+        synchronized (replayLock) {
+            current = matrix;
+            if (replay != null) {
+                replay.add(notification);
+            }
+        }
+        apply(current, notification);
+    }
+
+    /**
+     * 定期剪枝并刷新查询快照
+     */
+    @Scheduled(fixedDelayString = "${copurchase.prune-interval-ms:60000}")
+    public void prune() {
+        snapshot = matrix.prune(properties.getKeepPerProduct(), properties.getTopK());
+    }
+
+    /**
+     * 启动后在后台从购买记录重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        asyncExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * 每天凌晨从购买记录重建，修正剪枝和通知丢失带来的偏差
+     */
+    @Scheduled(cron = "${copurchase.rebuild-cron:0 0 4 * * ?}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            CoPurchaseMatrix fresh = new CoPurchaseMatrix();
+            // 先开始暂存通知再读取高水位：高水位之后提交的购买，其通知一定在暂存开始之后到达
+            synchronized (replayLock) {
+                replay = new ArrayList<>();
+            }
+            Long maxId = purchaseRecordMapper.selectMaxId();
+            Long maxUserId = purchaseRecordMapper.selectMaxUserId();
+            int users = 0;
+            if (maxId != null && maxUserId != null) {
+                int step = properties.getRebuildUserStep();
+                long[] basket = new long[properties.getMaxBasket()];
+                for (long from = 0; from <= maxUserId; from += step) {
+                    users += addBaskets(fresh, purchaseRecordMapper.selectUserProducts(from, from + step, maxId),
+                            basket);
+                    fresh.trim(properties.getKeepPerProduct());
+                }
+            }
+            long highWaterMark = maxId != null ? maxId : 0L;
+            int replayed = 0;
+            synchronized (replayLock) {
+                for (Notification notification : replay) {
+                    // 撤销通知总是回放：扫描可能已不含被删除的记录，此时最多少计1，由下次重建修正
+                    if (notification.recordId() < 0 || notification.recordId() > highWaterMark) {
+                        apply(fresh, notification);
+                        replayed++;
+                    }
+                }
+                matrix = fresh;
+                replay = null;
+            }
+            prune();
+            log.info("共同购买矩阵重建完成: users={}, products={}, replayed={}, 耗时={}ms",
+                    users, fresh.size(), replayed, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            synchronized (replayLock) {
+                replay = null;
+            }
+            log.error("共同购买矩阵重建失败", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 按用户分组累加一段用户-商品对
+     * 超过basket容量的用户只取商品ID最大（最新上架）的部分，与增量更新一致
+     *
+     * @param target 目标矩阵
+     * @param rows   用户-商品对，按用户ID、商品ID排序
+     * @param basket 复用的缓冲区
+     * @return 用户数
+     */
+    private int addBaskets(CoPurchaseMatrix target, List<UserProduct> rows, long[] basket) {
+        int users = 0;
+        int start = 0;
+        while (start < rows.size()) {
+            Long userId = rows.get(start).getUserId();
+            int end = start;
+            while (end < rows.size() && userId.equals(rows.get(end).getUserId())) {
+                end++;
+            }
+            int from = Math.max(start, end - basket.length);
+            int size = 0;
+            for (int i = from; i < end; i++) {
+                basket[size++] = rows.get(i).getProductId();
+            }
+            if (size > 1) {
+                target.addBasket(basket, size);
+            }
+            users++;
+            start = end;
+        }
+        return users;
+    }
+
+    /**
+     * 把通知应用到矩阵
+     *
+     * @param target       目标矩阵
+     * @param notification 通知
+     */
+    private static void apply(CoPurchaseMatrix target, Notification notification) {
+        if (notification.recordId() < 0) {
+            target.remove(notification.productId(), notification.others());
+        } else {
+            target.add(notification.productId(), notification.others());
+        }
+    }
+
+    /**
+     * 解析共同购买通知
+     *
+     * @param body 通知消息
+     * @return 通知
+     * @throws IllegalArgumentException 缺少购买记录ID时抛出
+     */
+    private static Notification parse(String body) {
+        int last = body.lastIndexOf('|');
+        int first = body.indexOf('|');
+        if (first == last) {
+            throw new IllegalArgumentException("缺少购买记录ID");
+        }
+        long recordId = Long.parseLong(body.substring(0, first));
+        long productId = Long.parseLong(body.substring(first + 1, last));
+        String[] parts = body.substring(last + 1).split(",");
+        long[] others = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            others[i] = Long.parseLong(parts[i]);
+        }
+        return new Notification(recordId, productId, others);
+    }
+
+    /**
+     * 发布共同购买通知
+     *
+     * @param recordId  购买记录ID，撤销时为负
+     * @param userId    用户ID
+     * @param productId 新购买（或撤销）的商品ID
+     */
+    private void publish(Long recordId, Long userId, Long productId) {
+        try {
+            List<Long> purchased = purchasedProductIndex.productIds(userId);
+            StringBuilder message = new StringBuilder().append(recordId).append('|').append(productId).append('|');
+            int count = 0;
+            for (int i = purchased.size() - 1; i >= 0 && count < properties.getMaxBasket() - 1; i--) {
+                Long other = purchased.get(i);
+                if (!other.equals(productId)) {
+                    message.append(count > 0 ? "," : "").append(other);
+                    count++;
+                }
+            }
+            if (count > 0) {
+                redisTemplate.convertAndSend(CHANNEL, message.toString());
+            }
+        } catch (Exception e) {
+            log.warn("发布共同购买通知失败: userId={}, productId={}", userId, productId, e);
+        }
+    }
+
+    /**
+     * 共同购买通知
+     *
+     * @param recordId  购买记录ID，撤销通知为负
+     * @param productId 新购买的商品ID
+     * @param others    该用户已购的其他商品ID
+     */
+    private record Notification(long recordId, long productId, long[] others) {
+    }
+}
@@ -0,0 +1,142 @@
+package xyh.dp.mall.trade.copurchase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 共同购买矩阵
+ * 每个商品一行稀疏计数表：邻居商品ID -> 同时购买过两者的用户数，矩阵对称
+ *
+ * <p>写入和剪枝加同一把锁；读取不直接访问矩阵，而是访问{@link #prune}生成的只读前K快照。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public class CoPurchaseMatrix {
+
+    private static final int INITIAL_ROW_SIZE = 16;
+
+    private final Map<Long, LongIntHashMap> rows = new HashMap<>();
+
+    /**
+     * 记录用户新购买了一个商品：该商品与用户已购的其他商品两两加1
+     *
+     * @param productId 新购买的商品ID
+     * @param others    用户已购的其他商品ID
+     */
+    public synchronized void add(long productId, long[] others) {
+        if (others.length == 0) {
+            return;
+        }
+        LongIntHashMap row = rows.computeIfAbsent(productId, id -> new LongIntHashMap(INITIAL_ROW_SIZE));
+        for (long other : others) {
+            if (other == productId) {
+                continue;
+            }
+            row.addTo(other, 1);
+            rows.computeIfAbsent(other, id -> new LongIntHashMap(INITIAL_ROW_SIZE)).addTo(productId, 1);
+        }
+    }
+
+    /**
+     * 撤销用户购买的一个商品（订单取消）：该商品与用户已购的其他商品两两减1，减到0的邻居移除
+     *
+     * @param productId 撤销的商品ID
+     * @param others    用户已购的其他商品ID
+     */
+    public synchronized void remove(long productId, long[] others) {
+        for (long other : others) {
+            if (other == productId) {
+                continue;
+            }
+            decrement(productId, other);
+            decrement(other, productId);
+        }
+    }
+
+    /**
+     * 记录一个用户的全部已购商品（重建用）：两两加1
+     *
+     * @param basket 用户已购商品ID（去重）
+     * @param size   有效元素数
+     */
+    public synchronized void addBasket(long[] basket, int size) {
+        for (int i = 0; i < size; i++) {
+            LongIntHashMap row = rows.computeIfAbsent(basket[i], id -> new LongIntHashMap(INITIAL_ROW_SIZE));
+            for (int j = 0; j < size; j++) {
+                if (i != j) {
+                    row.addTo(basket[j], 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * 剪枝：每行只保留计数最大的keep个邻居
+     *
+     * @param keep 每行保留的邻居数
+     */
+    public synchronized void trim(int keep) {
+        for (LongIntHashMap row : rows.values()) {
+            row.retainTop(keep);
+        }
+    }
+
+    /**
+     * 剪枝并生成前K快照
+     * 每行只保留计数最大的keep个邻居（低频邻居的计数会丢失，由定期重建修正）
+     *
+     * @param keep 每行保留的邻居数
+     * @param topK 快照中每个商品的邻居数
+     * @return 商品ID -> 前K邻居（只读）
+     */
+    public synchronized Map<Long, Neighbours> prune(int keep, int topK) {
+        Map<Long, Neighbours> snapshot = new HashMap<>(rows.size() * 2);
+        for (Map.Entry<Long, LongIntHashMap> entry : rows.entrySet()) {
+            LongIntHashMap row = entry.getValue();
+            row.retainTop(keep);
+            if (row.size() > 0) {
+                snapshot.put(entry.getKey(), row.top(topK));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 查询两个商品的共同购买人数
+     *
+     * @param productId 商品ID
+     * @param otherId   另一个商品ID
+     * @return 共同购买人数
+     */
+    public synchronized int count(long productId, long otherId) {
+        LongIntHashMap row = rows.get(productId);
+        return row != null ? row.get(otherId) : 0;
+    }
+
+    /**
+     * 计数减1，行为空时移除该行
+     *
+     * @param productId 商品ID
+     * @param otherId   邻居商品ID
+     */
+    private void decrement(long productId, long otherId) {
+        LongIntHashMap row = rows.get(productId);
+        if (row == null) {
+            return;
+        }
+        row.addTo(otherId, -1);
+        if (row.size() == 0) {
+            rows.remove(productId);
+        }
+    }
+
+    /**
+     * 商品数（行数）
+     *
+     * @return 商品数
+     */
+    public synchronized int size() {
+        return rows.size();
+    }
+}
@@ -0,0 +1,42 @@
+package xyh.dp.mall.trade.copurchase;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 共同购买（买了还买）配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "copurchase")
+public class CoPurchaseProperties {
+
+    /**
+     * 查询快照中每个商品保留的邻居数
+     */
+    private int topK = 20;
+
+    /**
+     * 剪枝时矩阵每行保留的邻居数，大于topK以便新出现的邻居有机会进入前K
+     */
+    private int keepPerProduct = 200;
+
+    /**
+     * 单个用户参与统计的已购商品上限，超过的用户只取前若干个，避免批发用户放大计算量
+     */
+    private int maxBasket = 100;
+
+    /**
+     * 剪枝并刷新查询快照的间隔（毫秒）
+     */
+    private long pruneIntervalMs = 60000;
+
+    /**
+     * 重建时每段的用户ID跨度
+     */
+    private int rebuildUserStep = 1000;
+}
@@ -0,0 +1,215 @@
+package xyh.dp.mall.trade.copurchase;
+
+/**
+ * long键int值的稀疏计数表
+ * 开放寻址（线性探测）+ 基本类型数组，避免Long/Integer装箱；非线程安全，由调用方加锁
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public class LongIntHashMap {
+
+    /**
+     * 空槽位标记（商品ID均为正数）
+     */
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * 创建计数表
+     *
+     * @param expectedSize 预计元素数
+     */
+    public LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * 累加计数，累加后不大于0时移除该键
+     *
+     * @param key   键（正数）
+     * @param delta 增量（可为负）
+     */
+    public void addTo(long key, int delta) {
+        if (key <= 0) {
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        if (keys[index] == EMPTY) {
+            keys[index] = key;
+            size++;
+        }
+        values[index] += delta;
+        if (values[index] <= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * 查询计数
+     *
+     * @param key 键
+     * @return 计数，不存在返回0
+     */
+    public int get(long key) {
+        int index = hash(key) & mask;
+        for (int probes = 0; probes < keys.length; probes++) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            if (keys[index] == EMPTY) {
+                return 0;
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * 元素数
+     *
+     * @return 元素数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 取计数最大的前N个
+     *
+     * @param topN 数量
+     * @return 按计数降序的邻居
+     */
+    public Neighbours top(int topN) {
+        int n = Math.min(topN, size);
+        long[] topKeys = new long[n];
+        int[] topValues = new int[n];
+        int filled = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == EMPTY) {
+                continue;
+            }
+            long key = keys[i];
+            int value = values[i];
+            if (filled == n && (n == 0 || value < topValues[n - 1]
+                    || (value == topValues[n - 1] && key > topKeys[n - 1]))) {
+                continue;
+            }
+            // 插入排序：n很小（默认20），比堆更快
+            int pos = filled < n ? filled++ : n - 1;
+            while (pos > 0 && (topValues[pos - 1] < value
+                    || (topValues[pos - 1] == value && topKeys[pos - 1] > key))) {
+                topKeys[pos] = topKeys[pos - 1];
+                topValues[pos] = topValues[pos - 1];
+                pos--;
+            }
+            topKeys[pos] = key;
+            topValues[pos] = value;
+        }
+        return new Neighbours(topKeys, topValues);
+    }
+
+    /**
+     * 只保留计数最大的前N个，释放其余空间
+     *
+     * @param keep 保留数量
+     */
+    public void retainTop(int keep) {
+        if (size <= keep) {
+            return;
+        }
+        Neighbours kept = top(keep);
+        allocate(capacityFor(keep));
+        size = 0;
+        for (int i = 0; i < kept.size(); i++) {
+            addTo(kept.productId(i), kept.count(i));
+        }
+    }
+
+    /**
+     * 删除槽位，后续同一探测链上的元素向前回填，保证线性探测仍能找到它们
+     *
+     * @param index 槽位
+     */
+    private void removeAt(int index) {
+        size--;
+        int gap = index;
+        int i = (index + 1) & mask;
+        while (keys[i] != EMPTY) {
+            int ideal = hash(keys[i]) & mask;
+            // 理想位置不在(gap, i]区间内的元素可以移到空位
+            if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+    }
+
+    /**
+     * 扩容并重新散列
+     *
+     * @param capacity 新容量
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = hash(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * 分配数组
+     *
+     * @param capacity 容量（2的幂）
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 计算容量（2的幂，负载因子0.5）
+     *
+     * @param expectedSize 预计元素数
+     * @return 容量
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        return Math.max(capacity, 8);
+    }
+
+    /**
+     * 键散列
+     *
+     * @param key 键
+     * @return 散列值
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,59 @@
+package xyh.dp.mall.trade.copurchase;
+
+/**
+ * 商品的共同购买邻居（按共同购买人数降序）
+ * 两个基本类型数组按下标对应，创建后不再修改
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public final class Neighbours {
+
+    /**
+     * 空邻居
+     */
+    public static final Neighbours EMPTY = new Neighbours(new long[0], new int[0]);
+
+    private final long[] productIds;
+    private final int[] counts;
+
+    /**
+     * 创建邻居
+     *
+     * @param productIds 邻居商品ID
+     * @param counts     共同购买人数，与productIds下标对应
+     */
+    Neighbours(long[] productIds, int[] counts) {
+        this.productIds = productIds;
+        this.counts = counts;
+    }
+
+    /**
+     * 邻居数
+     *
+     * @return 邻居数
+     */
+    public int size() {
+        return productIds.length;
+    }
+
+    /**
+     * 第i个邻居的商品ID
+     *
+     * @param i 下标
+     * @return 商品ID
+     */
+    public long productId(int i) {
+        return productIds[i];
+    }
+
+    /**
+     * 第i个邻居的共同购买人数
+     *
+     * @param i 下标
+     * @return 共同购买人数
+     */
+    public int count(int i) {
+        return counts[i];
+    }
+}
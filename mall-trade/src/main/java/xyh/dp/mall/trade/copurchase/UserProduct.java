@@ -0,0 +1,23 @@
+package xyh.dp.mall.trade.copurchase;
+
+import lombok.Data;
+
+/**
+ * 用户购买过的商品（共同购买矩阵重建用）
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class UserProduct {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+}
@@ -0,0 +1,29 @@
+package xyh.dp.mall.trade.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 购物车批量操作DTO
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class BatchCartDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 操作列表
+     */
+    @Valid
+    @NotEmpty(message = "操作列表不能为空")
+    @Size(max = 100, message = "单次最多100个操作")
+    private List<CartOperationDTO> operations;
+}
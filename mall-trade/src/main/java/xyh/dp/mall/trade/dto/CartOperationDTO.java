@@ -0,0 +1,55 @@
+package xyh.dp.mall.trade.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 购物车批量操作中的单个操作DTO
+ * 
+ * <p>ADD使用productId、quantity；UPDATE使用id、quantity；SELECT使用id、selected；REMOVE使用id。</p>
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class CartOperationDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 操作类型: ADD-加入, UPDATE-修改数量, SELECT-修改选中状态, REMOVE-删除
+     */
+    @NotBlank(message = "操作类型不能为空")
+    @Pattern(regexp = "ADD|UPDATE|SELECT|REMOVE", message = "操作类型不正确")
+    private String type;
+
+    /**
+     * 购物车项ID（UPDATE/SELECT/REMOVE）
+     */
+    private Long id;
+
+    /**
+     * 商品ID（ADD）
+     */
+    private Long productId;
+
+    /**
+     * 数量（ADD为增加数量，UPDATE为新数量）
+     */
+    @Min(value = 1, message = "数量至少为1")
+    private Integer quantity;
+
+    /**
+     * 是否选中（SELECT）
+     */
+    private Boolean selected;
+
+    /**
+     * id是否为切换到Redis模式前下发的tb_cart_item行ID（仅Redis模式生效，默认按商品ID处理）
+     */
+    private Boolean legacyRowId;
+}
@@ -29,4 +29,9 @@ public class UpdateCartItemDTO implements Serializable {
     @NotNull(message = "数量不能为空")
     @Min(value = 1, message = "数量至少为1")
     private Integer quantity;
+
+    /**
+     * id是否为切换到Redis模式前下发的tb_cart_item行ID（仅Redis模式生效，默认按商品ID处理）
+     */
+    private Boolean legacyRowId;
 }
@@ -42,6 +42,11 @@ public class Order implements Serializable {
      */
     private Long productId;
 
+    /**
+     * 供应商ID
+     */
+    private Long supplierId;
+
     /**
      * 商品名称
      */
@@ -0,0 +1,66 @@
+package xyh.dp.mall.trade.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 商品每日销售汇总实体
+ * 每个商品每天一行，由购买记录增量维护
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@TableName("purchase_daily_product_stats")
+public class PurchaseDailyProductStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 供应商ID
+     */
+    private Long supplierId;
+
+    /**
+     * 统计日期
+     */
+    private LocalDate statDate;
+
+    /**
+     * 当日销量
+     */
+    private Integer quantity;
+
+    /**
+     * 当日销售额
+     */
+    private BigDecimal amount;
+
+    /**
+     * 当日去重购买人数
+     */
+    private Integer buyerCount;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,60 @@
+package xyh.dp.mall.trade.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 用户购买汇总实体
+ * 每个用户一行，由购买记录增量维护
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@TableName("purchase_user_stats")
+public class PurchaseUserStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 用户ID
+     */
+    @TableId(type = IdType.INPUT)
+    private Long userId;
+
+    /**
+     * 总购买次数
+     */
+    private Integer totalCount;
+
+    /**
+     * 总购买金额
+     */
+    private BigDecimal totalAmount;
+
+    /**
+     * 购买过的商品种类数
+     */
+    private Integer productCount;
+
+    /**
+     * 最近一次购买时间
+     */
+    private LocalDateTime lastPurchaseTime;
+
+    /**
+     * 品种购买次数(JSON对象，如: {"番茄":3,"水稻":1})
+     */
+    private String varietyHistogram;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,58 @@
+package xyh.dp.mall.trade.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 供应商每日销售汇总实体
+ * 每个供应商每天一行（主键为supplier_id + stat_date），由购买记录增量维护
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@TableName("supplier_daily_stats")
+public class SupplierDailyStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 供应商ID
+     */
+    private Long supplierId;
+
+    /**
+     * 统计日期
+     */
+    private LocalDate statDate;
+
+    /**
+     * 当日销量
+     */
+    private Integer quantity;
+
+    /**
+     * 当日销售额
+     */
+    private BigDecimal amount;
+
+    /**
+     * 当日成交订单数
+     */
+    private Integer orderCount;
+
+    /**
+     * 当日去重购买人数
+     */
+    private Integer buyerCount;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,39 @@
+package xyh.dp.mall.trade.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 供应商订单汇总实体
+ * 每个供应商一行，由下单、取消订单增量维护
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@TableName("supplier_order_stats")
+public class SupplierOrderStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 供应商ID
+     */
+    @TableId(type = IdType.INPUT)
+    private Long supplierId;
+
+    /**
+     * 待支付订单数
+     */
+    private Integer pendingCount;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -28,6 +28,15 @@ public interface ProductFeignClient {
     @GetMapping("/product/{id}")
     Result<ProductDTO> getProductById(@PathVariable("id") Long id);
 
+    /**
+     * 根据ID批量查询商品
+     * 
+     * @param ids 商品ID列表（最多200个）
+     * @return 商品列表，不存在的商品不在结果中
+     */
+    @GetMapping("/product/batch")
+    Result<java.util.List<ProductDTO>> getProductsByIds(@RequestParam("ids") java.util.List<Long> ids);
+
     /**
      * 根据品种和区域搜索商品（用于匹配）
      * 
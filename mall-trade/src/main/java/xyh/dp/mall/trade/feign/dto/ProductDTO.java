@@ -38,6 +38,16 @@ public class ProductDTO implements Serializable {
      */
     private BigDecimal price;
 
+    /**
+     * 分类ID
+     */
+    private Long categoryId;
+
+    /**
+     * 分类名称
+     */
+    private String categoryName;
+
     /**
      * 库存数量
      */
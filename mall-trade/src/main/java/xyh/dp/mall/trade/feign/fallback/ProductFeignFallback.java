@@ -45,6 +45,18 @@ public class ProductFeignFallback implements FallbackFactory<ProductFeignClient>
                 return Result.error(503, "商品服务暂时不可用，请稍后重试");
             }
 
+            /**
+             * 批量查询商品降级处理
+             * 
+             * @param ids 商品ID列表
+             * @return 降级结果
+             */
+            @Override
+            public Result<List<ProductDTO>> getProductsByIds(List<Long> ids) {
+                log.warn("商品服务降级: getProductsByIds({})", ids.size());
+                return Result.error(503, "商品服务暂时不可用，请稍后重试");
+            }
+
             /**
              * 搜索商品降级处理
              * 
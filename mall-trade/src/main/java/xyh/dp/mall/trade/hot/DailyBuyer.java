@@ -0,0 +1,38 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.Data;
+
+/**
+ * 某日购买过某商品的用户（去重购买人数重建用）
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class DailyBuyer {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 分类ID
+     */
+    private Long categoryId;
+
+    /**
+     * 供应商ID
+     */
+    private Long supplierId;
+
+    /**
+     * 日期，格式yyyyMMdd
+     */
+    private String day;
+}
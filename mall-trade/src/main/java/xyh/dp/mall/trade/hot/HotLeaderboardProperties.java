@@ -0,0 +1,42 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 热销排行榜配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hot.leaderboard")
+public class HotLeaderboardProperties {
+
+    /**
+     * 统计窗口（小时），默认7天
+     */
+    private int windowHours = 168;
+
+    /**
+     * 窗口汇总刷新间隔（毫秒）
+     */
+    private long refreshIntervalMs = 300_000;
+
+    /**
+     * 启动时Redis中没有窗口内数据则从购买记录重建
+     */
+    private boolean rebuildOnStartup = true;
+
+    /**
+     * 热销榜单缓存有效期（分钟），与mall-job写入的有效期一致
+     */
+    private int cacheTtlMinutes = 120;
+
+    /**
+     * 热销榜单缓存写入超过该时长（分钟）视为过期，读取时返回旧数据并在后台刷新
+     */
+    private int cacheStaleMinutes = 70;
+}
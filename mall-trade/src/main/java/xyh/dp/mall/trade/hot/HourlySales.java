@@ -0,0 +1,40 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品小时销量汇总（排行榜重建用）
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class HourlySales {
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 分类ID
+     */
+    private Long categoryId;
+
+    /**
+     * 小时桶，格式yyyyMMddHH
+     */
+    private String bucket;
+
+    /**
+     * 销量
+     */
+    private Integer quantity;
+
+    /**
+     * 销售额
+     */
+    private BigDecimal amount;
+}
@@ -0,0 +1,34 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 排行榜条目
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 窗口内销量
+     */
+    private int sales;
+
+    /**
+     * 窗口内销售额
+     */
+    private BigDecimal amount;
+}
@@ -0,0 +1,23 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.Data;
+
+/**
+ * 商品购买人数
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class ProductBuyerCount {
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 去重购买人数
+     */
+    private Integer buyerCount;
+}
@@ -0,0 +1,328 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.annotation.Bulkhead;
+import xyh.dp.mall.common.concurrent.DependencyBulkhead;
+import xyh.dp.mall.common.util.AfterCommit;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 滑动窗口销量排行榜
+ * 每次购买对所在小时的桶做ZINCRBY，窗口榜单由最近N个小时桶ZUNIONSTORE得到并定时刷新
+ *
+ * <p>key结构（scope为all或c{分类ID}，花括号为集群hash tag，保证同一榜单的桶在同一slot）：
+ * - hot:{sales:scope}:yyyyMMddHH  小时销量桶，member为商品ID
+ * - hot:{amount:scope}:yyyyMMddHH 小时销售额桶（单位：分）
+ * - hot:{sales:scope}:window / hot:{amount:scope}:window 窗口汇总
+ * - hot:{sales:scope}:empty 窗口内没有销量的标记
+ * 小时桶保留窗口长度再加1天后过期，窗口汇总保留两个刷新周期，过期后读取时按需重算；
+ * 窗口为空时ZUNIONSTORE不生成汇总key，改为写入空标记并保留一个刷新周期，期间读取直接返回空榜单。
+ * 订单取消时对购买所在小时桶ZINCRBY负的数量和金额，减到0的商品从桶中移除；窗口汇总在下次刷新时更新。</p>
+ *
+ * <p>读取只需ZREVRANGE取前N名，代价与一周订单量无关。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Bulkhead(DependencyBulkhead.REDIS)
+public class SalesLeaderboard {
+
+    /**
+     * 全站榜单
+     */
+    public static final String GLOBAL_SCOPE = "all";
+
+    static final String SALES = "sales";
+    static final String AMOUNT = "amount";
+    static final String CATEGORIES_KEY = "hot:categories";
+    static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHH");
+
+    private static final String REBUILD_LOCK_KEY = "hot:rebuild:lock";
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final PurchaseRecordMapper purchaseRecordMapper;
+    private final HotLeaderboardProperties properties;
+
+    /**
+     * 分类榜单范围
+     *
+     * @param categoryId 分类ID
+     * @return 榜单范围
+     */
+    public static String categoryScope(Long categoryId) {
+        return "c" + categoryId;
+    }
+
+    /**
+     * 记录一次购买
+     * 经{@link AfterCommit}在事务提交后累加，失败只记录日志，不影响购买流程
+     *
+     * @param record 购买记录
+     */
+    public void record(PurchaseRecord record) {
+        if (record.getProductId() == null || record.getQuantity() == null) {
+            return;
+        }
+        HourlySales row = new HourlySales();
+        row.setProductId(record.getProductId());
+        row.setCategoryId(record.getCategoryId());
+        row.setBucket(BUCKET_FORMAT.format(record.getPurchaseTime() != null
+                ? record.getPurchaseTime() : LocalDateTime.now()));
+        row.setQuantity(record.getQuantity());
+        row.setAmount(record.getTotalAmount());
+        AfterCommit.run(() -> increment(List.of(row)));
+    }
+
+    /**
+     * 撤销一次购买（订单取消）
+     * 经{@link AfterCommit}在事务提交后从购买所在的小时桶中扣减
+     *
+     * @param record 已删除的购买记录
+     */
+    public void revoke(PurchaseRecord record) {
+        if (record.getProductId() == null || record.getQuantity() == null || record.getPurchaseTime() == null) {
+            return;
+        }
+        HourlySales row = new HourlySales();
+        row.setProductId(record.getProductId());
+        row.setCategoryId(record.getCategoryId());
+        row.setBucket(BUCKET_FORMAT.format(record.getPurchaseTime()));
+        row.setQuantity(-record.getQuantity());
+        row.setAmount(record.getTotalAmount() != null ? record.getTotalAmount().negate() : null);
+        AfterCommit.run(() -> increment(List.of(row)));
+    }
+
+    /**
+     * 查询榜单前N名
+     *
+     * @param scope 榜单范围
+     * @param topN  数量
+     * @return 按销量降序的条目
+     */
+    public List<LeaderboardEntry> top(String scope, int topN) {
+        String salesKey = windowKey(SALES, scope);
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(salesKey))) {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(emptyKey(scope)))) {
+                return Collections.emptyList();
+            }
+            refresh(scope);
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                redisTemplate.opsForZSet().reverseRangeWithScores(salesKey, 0, topN - 1);
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> members = tuples.stream().map(ZSetOperations.TypedTuple::getValue).toList();
+        List<Double> amounts = redisTemplate.opsForZSet().score(windowKey(AMOUNT, scope), members.toArray());
+
+        List<LeaderboardEntry> entries = new ArrayList<>(members.size());
+        int i = 0;
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            Double cents = amounts != null ? amounts.get(i) : null;
+            entries.add(new LeaderboardEntry(Long.valueOf(tuple.getValue()),
+                    tuple.getScore() != null ? tuple.getScore().intValue() : 0,
+                    BigDecimal.valueOf(cents != null ? Math.round(cents) : 0L, 2)));
+            i++;
+        }
+        return entries;
+    }
+
+    /**
+     * 定时刷新全站及各分类的窗口汇总
+     */
+    @Scheduled(fixedDelayString = "${hot.leaderboard.refresh-interval-ms:300000}")
+    public void refreshAll() {
+        try {
+            refresh(GLOBAL_SCOPE);
+            Set<String> categories = redisTemplate.opsForSet().members(CATEGORIES_KEY);
+            if (categories != null) {
+                categories.forEach(categoryId -> refresh(categoryScope(Long.valueOf(categoryId))));
+            }
+        } catch (Exception e) {
+            log.error("刷新销量排行榜失败", e);
+        }
+    }
+
+    /**
+     * 重算指定榜单的窗口汇总
+     * 窗口内没有销量时写入空标记，一个刷新周期内的读取不再重算
+     *
+     * @param scope 榜单范围
+     */
+    public void refresh(String scope) {
+        List<String> buckets = windowBuckets(LocalDateTime.now());
+        Duration ttl = Duration.ofMillis(properties.getRefreshIntervalMs() * 2);
+        Long size = null;
+        for (String metric : List.of(SALES, AMOUNT)) {
+            List<String> keys = buckets.stream().map(bucket -> bucketKey(metric, scope, bucket)).toList();
+            String windowKey = windowKey(metric, scope);
+            Long stored = redisTemplate.opsForZSet()
+                    .unionAndStore(keys.get(0), keys.subList(1, keys.size()), windowKey);
+            redisTemplate.expire(windowKey, ttl);
+            if (SALES.equals(metric)) {
+                size = stored;
+            }
+        }
+        if (size != null && size == 0) {
+            redisTemplate.opsForValue().set(emptyKey(scope), "1", Duration.ofMillis(properties.getRefreshIntervalMs()));
+        } else {
+            redisTemplate.delete(emptyKey(scope));
+        }
+    }
+
+    /**
+     * 启动时若窗口内没有任何小时桶，从购买记录按小时汇总重建
+     * 多实例同时启动时只有拿到锁的实例执行；先于热销榜单缓存预热执行
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!properties.isRebuildOnStartup()) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> keys = windowBuckets(now).stream()
+                    .map(bucket -> bucketKey(SALES, GLOBAL_SCOPE, bucket))
+                    .toList();
+            Long existing = redisTemplate.countExistingKeys(keys);
+            if (existing != null && existing > 0) {
+                return;
+            }
+            Boolean locked = redisTemplate.opsForValue().setIfAbsent(REBUILD_LOCK_KEY, "1", Duration.ofMinutes(10));
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+
+            LocalDateTime since = now.truncatedTo(ChronoUnit.HOURS).minusHours(properties.getWindowHours() - 1L);
+            List<HourlySales> rows = purchaseRecordMapper.sumHourlySales(since);
+            for (int from = 0; from < rows.size(); from += REBUILD_CHUNK_SIZE) {
+                increment(rows.subList(from, Math.min(from + REBUILD_CHUNK_SIZE, rows.size())));
+            }
+            refreshAll();
+            log.info("销量排行榜重建完成: since={}, rows={}", since, rows.size());
+        } catch (Exception e) {
+            log.error("销量排行榜重建失败", e);
+        }
+    }
+
+    /**
+     * 管道批量累加小时桶（全站桶，有分类时同时累加分类桶）
+     * 扣减（数量为负）后移除桶中销量不大于0的商品
+     *
+     * @param rows 小时销量
+     */
+    private void increment(List<HourlySales> rows) {
+        Duration bucketTtl = Duration.ofHours(properties.getWindowHours() + 24L);
+        Set<String> categories = new HashSet<>();
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (HourlySales row : rows) {
+                    String member = String.valueOf(row.getProductId());
+                    double cents = row.getAmount() != null
+                            ? row.getAmount().movePointRight(2).setScale(0, RoundingMode.HALF_UP).doubleValue() : 0D;
+                    List<String> scopes = row.getCategoryId() != null
+                            ? List.of(GLOBAL_SCOPE, categoryScope(row.getCategoryId())) : List.of(GLOBAL_SCOPE);
+                    for (String scope : scopes) {
+                        String salesKey = bucketKey(SALES, scope, row.getBucket());
+                        String amountKey = bucketKey(AMOUNT, scope, row.getBucket());
+                        ops.opsForZSet().incrementScore(salesKey, member, row.getQuantity());
+                        ops.opsForZSet().incrementScore(amountKey, member, cents);
+                        if (row.getQuantity() < 0) {
+                            ops.opsForZSet().removeRangeByScore(salesKey, Double.NEGATIVE_INFINITY, 0);
+                        }
+                        ops.expire(salesKey, bucketTtl);
+                        ops.expire(amountKey, bucketTtl);
+                    }
+                    if (row.getCategoryId() != null) {
+                        categories.add(String.valueOf(row.getCategoryId()));
+                    }
+                }
+                if (!categories.isEmpty()) {
+                    ops.opsForSet().add(CATEGORIES_KEY, categories.toArray(new String[0]));
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 窗口内的小时桶（含当前小时）
+     *
+     * @param now 当前时间
+     * @return 小时桶列表，最近的在前
+     */
+    private List<String> windowBuckets(LocalDateTime now) {
+        List<String> buckets = new ArrayList<>(properties.getWindowHours());
+        for (int i = 0; i < properties.getWindowHours(); i++) {
+            buckets.add(BUCKET_FORMAT.format(now.minusHours(i)));
+        }
+        return buckets;
+    }
+
+    /**
+     * 小时桶key
+     *
+     * @param metric 指标
+     * @param scope  榜单范围
+     * @param bucket 小时桶
+     * @return key
+     */
+    static String bucketKey(String metric, String scope, String bucket) {
+        return "hot:{" + metric + ":" + scope + "}:" + bucket;
+    }
+
+    /**
+     * 窗口汇总key
+     *
+     * @param metric 指标
+     * @param scope  榜单范围
+     * @return key
+     */
+    static String windowKey(String metric, String scope) {
+        return "hot:{" + metric + ":" + scope + "}:window";
+    }
+
+    /**
+     * 窗口为空标记key
+     *
+     * @param scope 榜单范围
+     * @return key
+     */
+    static String emptyKey(String scope) {
+        return "hot:{" + SALES + ":" + scope + "}:empty";
+    }
+}
@@ -0,0 +1,27 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 近期热点条目
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingEntry {
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 时间衰减后的热度分
+     */
+    private double score;
+}
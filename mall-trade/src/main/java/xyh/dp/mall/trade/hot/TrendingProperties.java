@@ -0,0 +1,52 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 近期热点（最近多人买）配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hot.trending")
+public class TrendingProperties {
+
+    /**
+     * Count-Min哈希行数
+     */
+    private int depth = 4;
+
+    /**
+     * Count-Min每行计数器数（2的幂）
+     */
+    private int width = 2048;
+
+    /**
+     * 每个节点每个上报周期保留的候选商品数（2的幂）
+     */
+    private int capacity = 256;
+
+    /**
+     * 本地草图合并到Redis的间隔（毫秒）
+     */
+    private long flushIntervalMs = 5000;
+
+    /**
+     * Redis时间桶长度（秒）
+     */
+    private int bucketSeconds = 60;
+
+    /**
+     * 衰减半衰期（分钟），越久远的购买权重越低
+     */
+    private int halfLifeMinutes = 15;
+
+    /**
+     * 允许查询的最大窗口（分钟）
+     */
+    private int maxWindowMinutes = 360;
+}
@@ -0,0 +1,199 @@
+package xyh.dp.mall.trade.hot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 热点商品计数草图（Count-Min Sketch + 固定槽位候选集）
+ * 内存固定为 depth * width + capacity 个long，与商品数量无关
+ *
+ * <p>无锁：计数器用AtomicLongArray原子累加；候选集每个商品有两个候选槽位，
+ * 空槽位CAS占用，槽位已满时估计值更大的商品CAS替换较小的一方，CAS失败直接放弃（近似统计可接受）。</p>
+ *
+ * <p>Count-Min估计值只会偏大不会偏小，宽度越大误差越小：误差上界约为 总次数 * e / width。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public class TrendingSketch {
+
+    /**
+     * 空槽位标记（商品ID均为正数）
+     */
+    private static final long EMPTY = 0L;
+
+    private final int depth;
+    private final int width;
+    private final int widthMask;
+    private final int capacityMask;
+    private final AtomicLongArray counters;
+    private final AtomicLongArray candidates;
+
+    /**
+     * 创建草图
+     *
+     * @param depth    哈希行数
+     * @param width    每行计数器数（向上取2的幂）
+     * @param capacity 候选商品槽位数（向上取2的幂）
+     */
+    public TrendingSketch(int depth, int width, int capacity) {
+        this.depth = Math.max(1, depth);
+        this.width = powerOfTwo(width);
+        this.widthMask = this.width - 1;
+        int slots = powerOfTwo(capacity);
+        this.capacityMask = slots - 1;
+        this.counters = new AtomicLongArray(this.depth * this.width);
+        this.candidates = new AtomicLongArray(slots);
+    }
+
+    /**
+     * 累加商品计数
+     *
+     * @param productId 商品ID
+     * @param count     次数
+     */
+    public void add(long productId, long count) {
+        if (productId <= 0 || count <= 0) {
+            return;
+        }
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(row * width + index(productId, row), count));
+        }
+        offer(productId, estimate);
+    }
+
+    /**
+     * 估计商品计数（不小于真实值）
+     *
+     * @param productId 商品ID
+     * @return 估计次数
+     */
+    public long estimate(long productId) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + index(productId, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * 导出候选商品及其估计次数
+     *
+     * @return 商品ID -> 估计次数
+     */
+    public Map<Long, Long> snapshot() {
+        Map<Long, Long> result = new HashMap<>();
+        for (int i = 0; i <= capacityMask; i++) {
+            long productId = candidates.get(i);
+            if (productId != EMPTY) {
+                long estimate = estimate(productId);
+                if (estimate > 0) {
+                    result.put(productId, estimate);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清空计数器和候选集
+     * 仅在草图不再接收写入时调用
+     */
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0L);
+        }
+        for (int i = 0; i <= capacityMask; i++) {
+            candidates.set(i, EMPTY);
+        }
+    }
+
+    /**
+     * 尝试把商品放入候选集
+     *
+     * @param productId 商品ID
+     * @param estimate  当前估计次数
+     */
+    private void offer(long productId, long estimate) {
+        int first = slot(productId, 0);
+        int second = slot(productId, 1);
+        long firstId = candidates.get(first);
+        long secondId = candidates.get(second);
+        if (firstId == productId || secondId == productId) {
+            return;
+        }
+        if (firstId == EMPTY && candidates.compareAndSet(first, EMPTY, productId)) {
+            return;
+        }
+        if (secondId == EMPTY && candidates.compareAndSet(second, EMPTY, productId)) {
+            return;
+        }
+
+        firstId = candidates.get(first);
+        secondId = candidates.get(second);
+        if (firstId == productId || secondId == productId || firstId == EMPTY || secondId == EMPTY) {
+            return;
+        }
+        long firstEstimate = estimate(firstId);
+        long secondEstimate = estimate(secondId);
+        int victim = firstEstimate <= secondEstimate ? first : second;
+        long victimId = victim == first ? firstId : secondId;
+        if (estimate > Math.min(firstEstimate, secondEstimate)) {
+            candidates.compareAndSet(victim, victimId, productId);
+        }
+    }
+
+    /**
+     * 计数器下标
+     *
+     * @param productId 商品ID
+     * @param row       行号
+     * @return 行内下标
+     */
+    private int index(long productId, int row) {
+        return (int) (mix(productId + row * 0x9E3779B97F4A7C15L) >>> 32) & widthMask;
+    }
+
+    /**
+     * 候选槽位下标
+     *
+     * @param productId 商品ID
+     * @param choice    第几个候选槽位
+     * @return 槽位下标
+     */
+    private int slot(long productId, int choice) {
+        return (int) mix(productId ^ (choice + 1) * 0xC2B2AE3D27D4EB4FL) & capacityMask;
+    }
+
+    /**
+     * 64位哈希混淆（MurmurHash3 fmix64）
+     *
+     * @param value 输入
+     * @return 哈希值
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 向上取2的幂
+     *
+     * @param value 期望大小
+     * @return 不小于value的2的幂
+     */
+    private static int powerOfTwo(int value) {
+        int capacity = 1;
+        while (capacity < value) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,241 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.annotation.Bulkhead;
+import xyh.dp.mall.common.concurrent.DependencyBulkhead;
+import xyh.dp.mall.common.util.AfterCommit;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 近期热点商品（最近多人买）
+ * 下单路径只写本地无锁草图，定时把各节点的候选商品合并到Redis时间桶，查询时按时间衰减加权汇总
+ *
+ * <p>每个节点持有两个固定大小的{@link TrendingSketch}交替使用：上报时切换到空闲草图，
+ * 导出旧草图的候选商品后清空留作下一轮，内存不随订单量增长。上报失败的计数放回当前草图，下一轮重试。
+ * 写入在{@link StampedLock}读锁内进行，切换草图持有写锁（只交换引用），写锁获取后旧草图上不再有进行中的写入，
+ * 导出和清空时不会丢失计数。</p>
+ *
+ * <p>key结构（花括号为集群hash tag，保证所有桶在同一slot以便ZUNIONSTORE）：
+ * - hot:{trending}:桶序号  各节点每个上报周期ZINCRBY，桶序号 = 秒级时间戳 / 桶长度
+ * - hot:{trending}:window:分钟数  按窗口衰减加权汇总的结果，保留一个上报周期
+ * - hot:{trending}:window:分钟数:empty  窗口内没有购买时的空标记，一个上报周期内的查询不再重算</p>
+ *
+ * <p>第i个桶（0为当前桶）的权重为 0.5^(i * 桶长度 / 半衰期)。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TrendingTracker {
+
+    private static final String KEY_PREFIX = "hot:{trending}:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final TrendingProperties properties;
+
+    /**
+     * 写入草图时持有读锁，切换草图时持有写锁
+     */
+    private final StampedLock swapLock = new StampedLock();
+
+    /**
+     * 当前接收写入的草图，由swapLock保护
+     */
+    private TrendingSketch current;
+
+    /**
+     * 上一轮导出后清空的草图，只在上报线程中访问
+     */
+    private TrendingSketch spare;
+
+    /**
+     * 创建近期热点统计
+     *
+     * @param redisTemplate Redis模板
+     * @param properties    配置
+     */
+    public TrendingTracker(StringRedisTemplate redisTemplate, TrendingProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.current = newSketch();
+        this.spare = newSketch();
+    }
+
+    /**
+     * 记录一次购买，事务提交后只操作本地草图（回滚的购买不计入）
+     *
+     * @param record 购买记录
+     */
+    public void record(PurchaseRecord record) {
+        Long productId = record.getProductId();
+        if (productId != null) {
+            AfterCommit.run(() -> add(productId));
+        }
+    }
+
+    /**
+     * 在读锁内写入当前草图
+     *
+     * @param productId 商品ID
+     */
+    private void add(Long productId) {
+        long stamp = swapLock.readLock();
+        try {
+            current.add(productId, 1);
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 定时把本地草图合并到Redis当前时间桶
+     */
+    @Scheduled(fixedDelayString = "${hot.trending.flush-interval-ms:5000}")
+    public void flush() {
+        TrendingSketch drained;
+        long stamp = swapLock.writeLock();
+        try {
+            drained = current;
+            current = spare;
+        } finally {
+            swapLock.unlockWrite(stamp);
+        }
+        Map<Long, Long> counts = drained.snapshot();
+        drained.clear();
+        spare = drained;
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        String bucketKey = KEY_PREFIX + bucketIndex(Instant.now());
+        Duration ttl = Duration.ofMinutes(properties.getMaxWindowMinutes())
+                .plusSeconds(properties.getBucketSeconds());
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    counts.forEach((productId, count) ->
+                            ops.opsForZSet().incrementScore(bucketKey, String.valueOf(productId), count));
+                    ops.expire(bucketKey, ttl);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            long retryStamp = swapLock.readLock();
+            try {
+                counts.forEach(current::add);
+            } finally {
+                swapLock.unlockRead(retryStamp);
+            }
+            log.warn("近期热点上报失败，下一轮重试: products={}", counts.size(), e);
+        }
+    }
+
+    /**
+     * 查询窗口内热度前N的商品
+     *
+     * @param window 窗口
+     * @param topN   数量
+     * @return 按热度降序的条目
+     */
+    @Bulkhead(DependencyBulkhead.REDIS)
+    public List<TrendingEntry> top(Duration window, int topN) {
+        String resultKey = KEY_PREFIX + "window:" + window.toMinutes();
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(resultKey))) {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(emptyKey(resultKey)))) {
+                return Collections.emptyList();
+            }
+            merge(window, resultKey);
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                redisTemplate.opsForZSet().reverseRangeWithScores(resultKey, 0, topN - 1);
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<TrendingEntry> entries = new ArrayList<>(tuples.size());
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            entries.add(new TrendingEntry(Long.valueOf(tuple.getValue()),
+                    tuple.getScore() != null ? tuple.getScore() : 0D));
+        }
+        return entries;
+    }
+
+    /**
+     * 按衰减权重汇总窗口内的时间桶
+     * 窗口内没有购买时不产生结果key，改为写入空标记，一个上报周期内的读取不再重算
+     *
+     * @param window    窗口
+     * @param resultKey 结果key
+     */
+    private void merge(Duration window, String resultKey) {
+        int bucketSeconds = properties.getBucketSeconds();
+        int bucketCount = (int) Math.max(1, (window.toSeconds() + bucketSeconds - 1) / bucketSeconds);
+        double halfLifeSeconds = properties.getHalfLifeMinutes() * 60D;
+        long latest = bucketIndex(Instant.now());
+
+        List<String> keys = new ArrayList<>(bucketCount);
+        double[] weights = new double[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            keys.add(KEY_PREFIX + (latest - i));
+            weights[i] = Math.pow(0.5, i * bucketSeconds / halfLifeSeconds);
+        }
+        Long size = redisTemplate.opsForZSet().unionAndStore(keys.get(0), keys.subList(1, keys.size()), resultKey,
+                Aggregate.SUM, Weights.of(weights));
+        Duration ttl = Duration.ofMillis(properties.getFlushIntervalMs());
+        if (size != null && size == 0) {
+            redisTemplate.opsForValue().set(emptyKey(resultKey), "1", ttl);
+        } else {
+            redisTemplate.expire(resultKey, ttl);
+        }
+    }
+
+    /**
+     * 窗口汇总结果的空标记key
+     *
+     * @param resultKey 结果key
+     * @return 空标记key
+     */
+    static String emptyKey(String resultKey) {
+        return resultKey + ":empty";
+    }
+
+    /**
+     * 时间桶序号
+     *
+     * @param instant 时间
+     * @return 桶序号
+     */
+    private long bucketIndex(Instant instant) {
+        return instant.getEpochSecond() / properties.getBucketSeconds();
+    }
+
+    /**
+     * 按配置创建草图
+     *
+     * @return 草图
+     */
+    private TrendingSketch newSketch() {
+        return new TrendingSketch(properties.getDepth(), properties.getWidth(), properties.getCapacity());
+    }
+}
@@ -0,0 +1,243 @@
+package xyh.dp.mall.trade.hot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.annotation.Bulkhead;
+import xyh.dp.mall.common.concurrent.DependencyBulkhead;
+import xyh.dp.mall.common.util.AfterCommit;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 去重购买人数统计（HyperLogLog）
+ * 每次购买对商品、分类、供应商当天的HLL做PFADD，周购买人数为最近7天key的PFCOUNT
+ *
+ * <p>每个key固定约12KB，查询代价与购买量无关；标准误差约0.81%。
+ * key结构：uv:{维度:ID}:yyyyMMdd，花括号为集群hash tag，保证同一对象的7个key在同一slot以便多key PFCOUNT。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Bulkhead(DependencyBulkhead.REDIS)
+public class UniqueBuyerCounter {
+
+    public static final String PRODUCT = "product";
+    public static final String CATEGORY = "category";
+    public static final String SUPPLIER = "supplier";
+
+    static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final String REBUILD_LOCK_KEY = "uv:rebuild:lock";
+    private static final String REBUILT_KEY = "uv:rebuilt";
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final PurchaseRecordMapper purchaseRecordMapper;
+    private final HotLeaderboardProperties properties;
+
+    /**
+     * 记录一次购买
+     * 经{@link AfterCommit}在事务提交后PFADD，失败只记录日志，不影响购买流程
+     *
+     * @param record 购买记录
+     */
+    public void record(PurchaseRecord record) {
+        if (record.getUserId() == null || record.getProductId() == null) {
+            return;
+        }
+        DailyBuyer buyer = new DailyBuyer();
+        buyer.setUserId(record.getUserId());
+        buyer.setProductId(record.getProductId());
+        buyer.setCategoryId(record.getCategoryId());
+        buyer.setSupplierId(record.getSupplierId());
+        buyer.setDay(DAY_FORMAT.format(record.getPurchaseTime() != null
+                ? record.getPurchaseTime() : LocalDateTime.now()));
+        AfterCommit.run(() -> add(List.of(buyer)));
+    }
+
+    /**
+     * 批量查询窗口内的去重购买人数
+     * 每个对象一次多key PFCOUNT，整体一次管道往返
+     *
+     * @param dimension 维度：product/category/supplier
+     * @param ids       对象ID集合
+     * @return 对象ID -> 去重购买人数
+     */
+    public Map<Long, Long> countWindow(String dimension, Collection<Long> ids) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (ids.isEmpty()) {
+            return counts;
+        }
+        List<String> days = windowDays();
+        List<Long> idList = new ArrayList<>(ids);
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Long id : idList) {
+                    String[] keys = days.stream().map(day -> key(dimension, id, day)).toArray(String[]::new);
+                    ops.opsForHyperLogLog().size(keys);
+                }
+                return null;
+            }
+        });
+        for (int i = 0; i < idList.size(); i++) {
+            Object count = results.get(i);
+            counts.put(idList.get(i), count instanceof Long value ? value : 0L);
+        }
+        return counts;
+    }
+
+    /**
+     * 查询单个对象窗口内的去重购买人数
+     *
+     * @param dimension 维度：product/category/supplier
+     * @param id        对象ID
+     * @return 去重购买人数
+     */
+    public long countWindow(String dimension, Long id) {
+        String[] keys = windowDays().stream().map(day -> key(dimension, id, day)).toArray(String[]::new);
+        Long count = redisTemplate.opsForHyperLogLog().size(keys);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * 启动时若没有重建标记，从购买记录重建窗口内的HLL
+     * 标记与HLL key的有效期相同（窗口天数+1），在第一次部署、Redis数据丢失（标记随之丢失）或标记过期后的启动时重建：
+     * HLL key被单独清除或淘汰而标记仍在时，最多一个窗口后得到修复；重复重建不会多计（PFADD幂等）。
+     * 多实例只有拿到锁的实例执行。
+     * 购买用户流式读取，每攒够一批PFADD一次，内存占用与窗口内的购买量无关
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!properties.isRebuildOnStartup()) {
+            return;
+        }
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(REBUILT_KEY))) {
+                return;
+            }
+            Boolean locked = redisTemplate.opsForValue().setIfAbsent(REBUILD_LOCK_KEY, "1", Duration.ofMinutes(10));
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+
+            LocalDate since = LocalDate.now().minusDays(windowDaysCount() - 1L);
+            List<DailyBuyer> chunk = new ArrayList<>(REBUILD_CHUNK_SIZE);
+            long[] rows = new long[1];
+            purchaseRecordMapper.streamDailyBuyers(since.atStartOfDay(), context -> {
+                chunk.add(context.getResultObject());
+                if (chunk.size() == REBUILD_CHUNK_SIZE) {
+                    add(chunk);
+                    rows[0] += chunk.size();
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                add(chunk);
+                rows[0] += chunk.size();
+            }
+            // PFADD幂等，重复重建不会多计；标记已重建，避免每次重启都扫描
+            redisTemplate.opsForValue().set(REBUILT_KEY, "1", Duration.ofDays(windowDaysCount() + 1L));
+            log.info("去重购买人数重建完成: since={}, rows={}", since, rows[0]);
+        } catch (Exception e) {
+            log.error("去重购买人数重建失败", e);
+        }
+    }
+
+    /**
+     * 管道批量PFADD（商品、分类、供应商）
+     *
+     * @param buyers 购买用户
+     */
+    private void add(List<DailyBuyer> buyers) {
+        Duration ttl = Duration.ofDays(windowDaysCount() + 1L);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (DailyBuyer buyer : buyers) {
+                    String member = String.valueOf(buyer.getUserId());
+                    pfadd(ops, key(PRODUCT, buyer.getProductId(), buyer.getDay()), member, ttl);
+                    if (buyer.getCategoryId() != null) {
+                        pfadd(ops, key(CATEGORY, buyer.getCategoryId(), buyer.getDay()), member, ttl);
+                    }
+                    if (buyer.getSupplierId() != null) {
+                        pfadd(ops, key(SUPPLIER, buyer.getSupplierId(), buyer.getDay()), member, ttl);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * PFADD并设置过期时间
+     *
+     * @param ops    Redis操作
+     * @param key    key
+     * @param member 用户ID
+     * @param ttl    过期时间
+     */
+    private void pfadd(RedisOperations<String, String> ops, String key, String member, Duration ttl) {
+        ops.opsForHyperLogLog().add(key, member);
+        ops.expire(key, ttl);
+    }
+
+    /**
+     * 窗口内的日期（含今天）
+     *
+     * @return 日期列表
+     */
+    private List<String> windowDays() {
+        LocalDate today = LocalDate.now();
+        List<String> days = new ArrayList<>();
+        for (int i = 0; i < windowDaysCount(); i++) {
+            days.add(DAY_FORMAT.format(today.minusDays(i)));
+        }
+        return days;
+    }
+
+    /**
+     * 窗口天数
+     *
+     * @return 天数
+     */
+    private int windowDaysCount() {
+        return Math.max(1, properties.getWindowHours() / 24);
+    }
+
+    /**
+     * HLL key
+     *
+     * @param dimension 维度
+     * @param id        对象ID
+     * @param day       日期
+     * @return key
+     */
+    static String key(String dimension, Long id, String day) {
+        return "uv:{" + dimension + ":" + id + "}:" + day;
+    }
+}
@@ -2,8 +2,12 @@ package xyh.dp.mall.trade.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 import xyh.dp.mall.trade.entity.CartItem;
 
+import java.util.List;
+
 /**
  * 购物车Mapper接口
  * 
@@ -12,4 +16,20 @@ import xyh.dp.mall.trade.entity.CartItem;
  */
 @Mapper
 public interface CartItemMapper extends BaseMapper<CartItem> {
+
+    /**
+     * 批量修改数量（单条UPDATE，CASE按ID取新数量）
+     * 
+     * @param userId 用户ID（限定只能修改自己的购物车项）
+     * @param items 购物车项，仅使用id和quantity
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE tb_cart_item SET quantity = CASE id " +
+            "<foreach collection='items' item='item'>WHEN #{item.id} THEN #{item.quantity} </foreach>" +
+            "END, update_time = NOW() " +
+            "WHERE user_id = #{userId} AND id IN " +
+            "<foreach collection='items' item='item' open='(' separator=',' close=')'>#{item.id}</foreach>" +
+            "</script>")
+    int batchUpdateQuantity(@Param("userId") Long userId, @Param("items") List<CartItem> items);
 }
@@ -2,8 +2,13 @@ package xyh.dp.mall.trade.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import xyh.dp.mall.trade.entity.Order;
 
+import java.time.LocalDateTime;
+
 /**
  * 订单Mapper
  * 
@@ -12,4 +17,28 @@ import xyh.dp.mall.trade.entity.Order;
  */
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
+
+    /**
+     * 查询订单状态并加行锁，与取消订单互斥
+     * 
+     * @param id 订单ID
+     * @param createTime 创建时间（分区键）
+     * @return 订单状态，订单不存在返回null
+     */
+    @Select("SELECT status FROM tb_order WHERE id = #{id} AND create_time = #{createTime} FOR UPDATE")
+    String selectStatusForUpdate(@Param("id") Long id, @Param("createTime") LocalDateTime createTime);
+
+    /**
+     * 把待支付订单改为已取消
+     * 以状态为条件更新，并发取消或支付时只有一方能改到该行
+     * 
+     * @param id 订单ID
+     * @param createTime 创建时间（分区键）
+     * @param updateTime 更新时间
+     * @return 影响行数，订单已不是待支付状态时为0
+     */
+    @Update("UPDATE tb_order SET status = 'CANCELLED', update_time = #{updateTime} "
+            + "WHERE id = #{id} AND create_time = #{createTime} AND status = 'PENDING'")
+    int cancelPending(@Param("id") Long id, @Param("createTime") LocalDateTime createTime,
+                      @Param("updateTime") LocalDateTime updateTime);
 }
@@ -0,0 +1,38 @@
+package xyh.dp.mall.trade.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单号登记Mapper
+ * tb_order按月分区后唯一键必须包含create_time，订单号的全局唯一由不分区的登记表tb_order_no的主键保证
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Mapper
+public interface OrderNoMapper {
+
+    /**
+     * 登记订单号
+     *
+     * @param orderNo 订单号
+     * @param createTime 订单创建时间
+     * @return 登记成功返回1，订单号已被占用返回0
+     */
+    @Insert("INSERT IGNORE INTO tb_order_no (order_no, create_time) VALUES (#{orderNo}, #{createTime})")
+    int insertIgnore(@Param("orderNo") String orderNo, @Param("createTime") LocalDateTime createTime);
+
+    /**
+     * 查询订单创建时间
+     *
+     * @param orderNo 订单号
+     * @return 创建时间，未登记（登记表启用前的订单或登记已随归档清理）返回null
+     */
+    @Select("SELECT create_time FROM tb_order_no WHERE order_no = #{orderNo}")
+    LocalDateTime selectCreateTime(@Param("orderNo") String orderNo);
+}
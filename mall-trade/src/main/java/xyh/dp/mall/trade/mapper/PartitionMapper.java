@@ -0,0 +1,90 @@
+package xyh.dp.mall.trade.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分区维护Mapper
+ * 表名、分区名只来自{@link xyh.dp.mall.trade.archive.PartitionedTable}和程序生成的月分区名，不接受外部输入
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Mapper
+public interface PartitionMapper {
+
+    /**
+     * 查询表的分区名
+     *
+     * @param table 表名
+     * @return 分区名（按分区顺序），未分区返回空列表
+     */
+    @Select("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{table} AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<String> selectPartitionNames(@Param("table") String table);
+
+    /**
+     * 从兜底分区拆出一个月分区
+     *
+     * @param table 表名
+     * @param partition 新分区名
+     * @param lessThan 新分区上界（不含），格式yyyy-MM-dd
+     */
+    @Update("ALTER TABLE ${table} REORGANIZE PARTITION pmax INTO (" +
+            "PARTITION ${partition} VALUES LESS THAN ('${lessThan}'), " +
+            "PARTITION pmax VALUES LESS THAN (MAXVALUE))")
+    void addPartition(@Param("table") String table, @Param("partition") String partition,
+                      @Param("lessThan") String lessThan);
+
+    /**
+     * 删除分区（连同数据）
+     *
+     * @param table 表名
+     * @param partition 分区名
+     */
+    @Update("ALTER TABLE ${table} DROP PARTITION ${partition}")
+    void dropPartition(@Param("table") String table, @Param("partition") String partition);
+
+    /**
+     * 统计分区行数
+     *
+     * @param table 表名
+     * @param partition 分区名
+     * @return 行数
+     */
+    @Select("SELECT COUNT(*) FROM ${table} PARTITION (${partition})")
+    long countPartition(@Param("table") String table, @Param("partition") String partition);
+
+    /**
+     * 按主键分批读取分区数据
+     *
+     * @param table 表名
+     * @param partition 分区名
+     * @param afterId 上一批最大ID
+     * @param limit 每批行数
+     * @return 行（列名 -> 值）
+     */
+    @Select("SELECT * FROM ${table} PARTITION (${partition}) WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Map<String, Object>> selectChunk(@Param("table") String table, @Param("partition") String partition,
+                                          @Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 分批删除登记表中早于指定时间的登记
+     *
+     * @param table 登记表名
+     * @param before 时间上界（不含）
+     * @param limit 每批行数
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM ${table} WHERE create_time < #{before} LIMIT #{limit}")
+    int deleteRegistryBefore(@Param("table") String table, @Param("before") LocalDateTime before,
+                             @Param("limit") int limit);
+}
@@ -0,0 +1,138 @@
+package xyh.dp.mall.trade.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+
+/**
+ * 购买去重标记Mapper
+ * 去重类汇总指标（当日购买人数、商品种类数）用INSERT IGNORE写标记行判断是否首次出现：影响1行为首次，
+ * 0行为已存在。主键冲突由数据库判定，并发的两次购买只有一次计为首次，不再"先查询再累加"
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Mapper
+public interface PurchaseBuyerMarkerMapper {
+
+    /**
+     * 标记用户当日购买过商品
+     *
+     * @param statDate 统计日期
+     * @param productId 商品ID
+     * @param userId 用户ID
+     * @return 首次标记返回1，已标记返回0
+     */
+    @Insert("INSERT IGNORE INTO purchase_day_buyer (stat_date, product_id, user_id) " +
+            "VALUES (#{statDate}, #{productId}, #{userId})")
+    int insertProductBuyer(@Param("statDate") LocalDate statDate,
+                           @Param("productId") Long productId,
+                           @Param("userId") Long userId);
+
+    /**
+     * 标记用户当日购买过供应商的商品
+     *
+     * @param statDate 统计日期
+     * @param supplierId 供应商ID
+     * @param userId 用户ID
+     * @return 首次标记返回1，已标记返回0
+     */
+    @Insert("INSERT IGNORE INTO supplier_day_buyer (stat_date, supplier_id, user_id) " +
+            "VALUES (#{statDate}, #{supplierId}, #{userId})")
+    int insertSupplierBuyer(@Param("statDate") LocalDate statDate,
+                            @Param("supplierId") Long supplierId,
+                            @Param("userId") Long userId);
+
+    /**
+     * 标记用户购买过商品
+     *
+     * @param userId 用户ID
+     * @param productId 商品ID
+     * @return 首次标记返回1，已标记返回0
+     */
+    @Insert("INSERT IGNORE INTO purchase_user_product (user_id, product_id) VALUES (#{userId}, #{productId})")
+    int insertUserProduct(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    /**
+     * 删除用户当日购买商品的标记（订单取消后已没有其他购买记录时）
+     *
+     * @param statDate 统计日期
+     * @param productId 商品ID
+     * @param userId 用户ID
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM purchase_day_buyer WHERE stat_date = #{statDate} AND product_id = #{productId} " +
+            "AND user_id = #{userId}")
+    int deleteProductBuyer(@Param("statDate") LocalDate statDate,
+                           @Param("productId") Long productId,
+                           @Param("userId") Long userId);
+
+    /**
+     * 删除用户当日购买供应商商品的标记（订单取消后已没有其他购买记录时）
+     *
+     * @param statDate 统计日期
+     * @param supplierId 供应商ID
+     * @param userId 用户ID
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM supplier_day_buyer WHERE stat_date = #{statDate} AND supplier_id = #{supplierId} " +
+            "AND user_id = #{userId}")
+    int deleteSupplierBuyer(@Param("statDate") LocalDate statDate,
+                            @Param("supplierId") Long supplierId,
+                            @Param("userId") Long userId);
+
+    /**
+     * 删除用户购买商品的标记（订单取消后已没有其他购买记录时）
+     *
+     * @param userId 用户ID
+     * @param productId 商品ID
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM purchase_user_product WHERE user_id = #{userId} AND product_id = #{productId}")
+    int deleteUserProduct(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    /**
+     * 删除用户ID区间内的已购商品标记（重建前清空，已取消的购买不残留标记）
+     *
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId 结束用户ID（不含）
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM purchase_user_product WHERE user_id >= #{fromUserId} AND user_id < #{toUserId}")
+    int deleteUserProducts(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * 按购买记录补齐用户ID区间内的已购商品标记（幂等）
+     *
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId 结束用户ID（不含）
+     * @return 新增行数
+     */
+    @Insert("INSERT IGNORE INTO purchase_user_product (user_id, product_id) " +
+            "SELECT DISTINCT user_id, product_id FROM tb_purchase_record " +
+            "WHERE user_id >= #{fromUserId} AND user_id < #{toUserId}")
+    int rebuildUserProducts(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * 分批删除过期的商品当日购买人标记
+     *
+     * @param before 截止日期（不含）
+     * @param limit 每批行数
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM purchase_day_buyer WHERE stat_date < #{before} LIMIT #{limit}")
+    int deleteProductBuyersBefore(@Param("before") LocalDate before, @Param("limit") int limit);
+
+    /**
+     * 分批删除过期的供应商当日购买人标记
+     *
+     * @param before 截止日期（不含）
+     * @param limit 每批行数
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM supplier_day_buyer WHERE stat_date < #{before} LIMIT #{limit}")
+    int deleteSupplierBuyersBefore(@Param("before") LocalDate before, @Param("limit") int limit);
+}
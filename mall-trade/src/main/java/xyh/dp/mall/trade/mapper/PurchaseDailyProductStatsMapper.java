@@ -0,0 +1,110 @@
+package xyh.dp.mall.trade.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import xyh.dp.mall.trade.entity.PurchaseDailyProductStats;
+import xyh.dp.mall.trade.hot.ProductBuyerCount;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 商品每日销售汇总Mapper接口
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Mapper
+public interface PurchaseDailyProductStatsMapper extends BaseMapper<PurchaseDailyProductStats> {
+
+    /**
+     * 累加当日汇总（不存在则插入）
+     * 
+     * @param productId 商品ID
+     * @param supplierId 供应商ID
+     * @param statDate 统计日期
+     * @param quantity 销量
+     * @param amount 销售额
+     * @param newBuyer 是否为该商品当日的新购买人（1/0）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO purchase_daily_product_stats (product_id, supplier_id, stat_date, quantity, amount, buyer_count) " +
+            "VALUES (#{productId}, #{supplierId}, #{statDate}, #{quantity}, #{amount}, #{newBuyer}) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), " +
+            "amount = amount + VALUES(amount), buyer_count = buyer_count + VALUES(buyer_count), " +
+            "supplier_id = COALESCE(supplier_id, VALUES(supplier_id))")
+    int accumulate(@Param("productId") Long productId,
+                   @Param("supplierId") Long supplierId,
+                   @Param("statDate") LocalDate statDate,
+                   @Param("quantity") Integer quantity,
+                   @Param("amount") BigDecimal amount,
+                   @Param("newBuyer") int newBuyer);
+
+    /**
+     * 扣减当日汇总（订单取消时撤销已累加的购买记录），扣减后不小于0
+     * 
+     * @param productId 商品ID
+     * @param statDate 统计日期
+     * @param quantity 销量
+     * @param amount 销售额
+     * @param lostBuyer 该用户当日是否已没有此商品的其他购买记录（1/0）
+     * @return 影响行数
+     */
+    @Update("UPDATE purchase_daily_product_stats SET quantity = GREATEST(quantity - #{quantity}, 0), " +
+            "amount = GREATEST(amount - #{amount}, 0), buyer_count = GREATEST(buyer_count - #{lostBuyer}, 0) " +
+            "WHERE product_id = #{productId} AND stat_date = #{statDate}")
+    int subtract(@Param("productId") Long productId,
+                 @Param("statDate") LocalDate statDate,
+                 @Param("quantity") Integer quantity,
+                 @Param("amount") BigDecimal amount,
+                 @Param("lostBuyer") int lostBuyer);
+
+    /**
+     * 删除某日的汇总（重算前清空，已没有购买记录的商品不残留旧值）
+     * 
+     * @param statDate 统计日期
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM purchase_daily_product_stats WHERE stat_date = #{statDate}")
+    int deleteByDate(@Param("statDate") LocalDate statDate);
+
+    /**
+     * 从购买记录重算指定时间段的每日汇总（幂等），需先删除该时间段的汇总
+     * 
+     * @param from 起始时间（含）
+     * @param to 结束时间（不含）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO purchase_daily_product_stats (product_id, supplier_id, stat_date, quantity, amount, buyer_count) " +
+            "SELECT product_id, MAX(supplier_id), DATE(purchase_time), SUM(quantity), SUM(total_amount), " +
+            "COUNT(DISTINCT user_id) " +
+            "FROM tb_purchase_record WHERE purchase_time >= #{from} AND purchase_time < #{to} " +
+            "GROUP BY product_id, DATE(purchase_time) " +
+            "ON DUPLICATE KEY UPDATE supplier_id = VALUES(supplier_id), quantity = VALUES(quantity), " +
+            "amount = VALUES(amount), buyer_count = VALUES(buyer_count)")
+    int rebuild(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * 汇总指定商品自某日起的每日购买人数
+     * 
+     * @param productIds 商品ID集合
+     * @param since 起始日期（含）
+     * @return 商品购买人数列表
+     */
+    @Select("<script>" +
+            "SELECT product_id AS productId, SUM(buyer_count) AS buyerCount " +
+            "FROM purchase_daily_product_stats WHERE stat_date &gt;= #{since} AND product_id IN " +
+            "<foreach collection='productIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "GROUP BY product_id" +
+            "</script>")
+    List<ProductBuyerCount> sumBuyers(@Param("productIds") Collection<Long> productIds,
+                                      @Param("since") LocalDate since);
+}
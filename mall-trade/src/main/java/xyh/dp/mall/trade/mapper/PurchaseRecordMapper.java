@@ -2,7 +2,19 @@ package xyh.dp.mall.trade.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+import xyh.dp.mall.trade.copurchase.UserProduct;
 import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.hot.DailyBuyer;
+import xyh.dp.mall.trade.hot.HourlySales;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 购买记录Mapper接口
@@ -12,4 +24,92 @@ import xyh.dp.mall.trade.entity.PurchaseRecord;
  */
 @Mapper
 public interface PurchaseRecordMapper extends BaseMapper<PurchaseRecord> {
+
+    /**
+     * 按商品、分类、小时汇总销量和销售额（排行榜重建用）
+     * 
+     * @param since 起始时间
+     * @return 小时汇总列表
+     */
+    @Select("SELECT product_id AS productId, category_id AS categoryId, " +
+            "DATE_FORMAT(purchase_time, '%Y%m%d%H') AS bucket, " +
+            "SUM(quantity) AS quantity, SUM(total_amount) AS amount " +
+            "FROM tb_purchase_record WHERE purchase_time >= #{since} " +
+            "GROUP BY product_id, category_id, DATE_FORMAT(purchase_time, '%Y%m%d%H')")
+    List<HourlySales> sumHourlySales(@Param("since") LocalDateTime since);
+
+    /**
+     * 流式读取每日去重的购买用户（去重购买人数重建用）
+     * 逐行回调，不把整个窗口的结果加载到内存
+     * 
+     * @param since 起始时间
+     * @param handler 逐行处理
+     */
+    @Select("SELECT DISTINCT user_id AS userId, product_id AS productId, category_id AS categoryId, " +
+            "supplier_id AS supplierId, DATE_FORMAT(purchase_time, '%Y%m%d') AS day " +
+            "FROM tb_purchase_record WHERE purchase_time >= #{since}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(DailyBuyer.class)
+    void streamDailyBuyers(@Param("since") LocalDateTime since, ResultHandler<DailyBuyer> handler);
+
+    /**
+     * 查询最大用户ID（共同购买矩阵重建按用户ID分段）
+     * 
+     * @return 最大用户ID，无记录返回null
+     */
+    @Select("SELECT MAX(user_id) FROM tb_purchase_record")
+    Long selectMaxUserId();
+
+    /**
+     * 按用户ID键集分页查询有购买记录的用户（汇总回填用，只访问实际存在的用户）
+     * 
+     * @param afterUserId 上一页最后一个用户ID（不含）
+     * @param limit 每页用户数
+     * @return 用户ID列表，升序
+     */
+    @Select("SELECT DISTINCT user_id FROM tb_purchase_record WHERE user_id > #{afterUserId} " +
+            "ORDER BY user_id LIMIT #{limit}")
+    List<Long> selectUserIdsAfter(@Param("afterUserId") long afterUserId, @Param("limit") int limit);
+
+    /**
+     * 查询用户购买过的商品ID（去重）
+     * 
+     * @param userId 用户ID
+     * @return 商品ID列表
+     */
+    @Select("SELECT DISTINCT product_id FROM tb_purchase_record WHERE user_id = #{userId}")
+    List<Long> selectPurchasedProductIds(@Param("userId") Long userId);
+
+    /**
+     * 查询用户最近购买的商品ID（按最近购买时间倒序，去重）
+     * 
+     * @param userId 用户ID
+     * @param limit 数量
+     * @return 商品ID列表
+     */
+    @Select("SELECT product_id FROM tb_purchase_record WHERE user_id = #{userId} " +
+            "GROUP BY product_id ORDER BY MAX(purchase_time) DESC LIMIT #{limit}")
+    List<Long> selectRecentProductIds(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * 查询最大购买记录ID（共同购买矩阵重建的高水位）
+     * 
+     * @return 最大记录ID，无记录返回null
+     */
+    @Select("SELECT MAX(id) FROM tb_purchase_record")
+    Long selectMaxId();
+
+    /**
+     * 查询用户ID区间内去重的用户-商品对（共同购买矩阵重建用）
+     * 
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId 结束用户ID（不含）
+     * @param maxId 最大记录ID（含），只统计重建开始前已有的记录
+     * @return 用户-商品对，按用户ID、商品ID排序
+     */
+    @Select("SELECT DISTINCT user_id AS userId, product_id AS productId FROM tb_purchase_record " +
+            "WHERE user_id >= #{fromUserId} AND user_id < #{toUserId} AND id <= #{maxId} " +
+            "ORDER BY user_id, product_id")
+    List<UserProduct> selectUserProducts(@Param("fromUserId") long fromUserId, @Param("toUserId") long toUserId,
+                                         @Param("maxId") long maxId);
 }
@@ -0,0 +1,72 @@
+package xyh.dp.mall.trade.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import xyh.dp.mall.trade.entity.PurchaseUserStats;
+
+/**
+ * 用户购买汇总Mapper接口
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Mapper
+public interface PurchaseUserStatsMapper extends BaseMapper<PurchaseUserStats> {
+
+    /**
+     * 初始化用户汇总行（已存在则忽略）
+     * 
+     * @param userId 用户ID
+     * @return 影响行数
+     */
+    @Insert("INSERT IGNORE INTO purchase_user_stats (user_id, total_count, total_amount, product_count) " +
+            "VALUES (#{userId}, 0, 0, 0)")
+    int insertIgnore(@Param("userId") Long userId);
+
+    /**
+     * 加行锁查询用户汇总，同一用户的并发购买串行更新
+     * 
+     * @param userId 用户ID
+     * @return 用户汇总
+     */
+    @Select("SELECT * FROM purchase_user_stats WHERE user_id = #{userId} FOR UPDATE")
+    PurchaseUserStats selectForUpdate(@Param("userId") Long userId);
+
+    /**
+     * 删除用户ID区间内的汇总（重算前清空，已没有购买记录的用户不残留旧值）
+     * 
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId 结束用户ID（不含）
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM purchase_user_stats WHERE user_id >= #{fromUserId} AND user_id < #{toUserId}")
+    int deleteRange(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * 从购买记录重算指定用户ID区间的汇总（幂等），需先删除该区间的汇总
+     * 
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId 结束用户ID（不含）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO purchase_user_stats " +
+            "(user_id, total_count, total_amount, product_count, last_purchase_time, variety_histogram) " +
+            "SELECT r.user_id, r.total_count, r.total_amount, r.product_count, r.last_purchase_time, v.histogram " +
+            "FROM (SELECT user_id, COUNT(*) AS total_count, SUM(total_amount) AS total_amount, " +
+            "      COUNT(DISTINCT product_id) AS product_count, MAX(purchase_time) AS last_purchase_time " +
+            "      FROM tb_purchase_record WHERE user_id >= #{fromUserId} AND user_id < #{toUserId} " +
+            "      GROUP BY user_id) r " +
+            "LEFT JOIN (SELECT user_id, JSON_OBJECTAGG(variety, cnt) AS histogram " +
+            "      FROM (SELECT user_id, variety, COUNT(*) AS cnt FROM tb_purchase_record " +
+            "            WHERE user_id >= #{fromUserId} AND user_id < #{toUserId} AND variety IS NOT NULL " +
+            "            GROUP BY user_id, variety) t " +
+            "      GROUP BY user_id) v ON v.user_id = r.user_id " +
+            "ON DUPLICATE KEY UPDATE total_count = VALUES(total_count), total_amount = VALUES(total_amount), " +
+            "product_count = VALUES(product_count), last_purchase_time = VALUES(last_purchase_time), " +
+            "variety_histogram = VALUES(variety_histogram)")
+    int rebuild(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+}
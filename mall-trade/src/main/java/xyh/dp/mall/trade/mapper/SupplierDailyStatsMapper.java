@@ -0,0 +1,89 @@
+package xyh.dp.mall.trade.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+import xyh.dp.mall.trade.entity.SupplierDailyStats;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 供应商每日销售汇总Mapper接口
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Mapper
+public interface SupplierDailyStatsMapper extends BaseMapper<SupplierDailyStats> {
+
+    /**
+     * 累加当日汇总（不存在则插入），成交订单数加1
+     * 
+     * @param supplierId 供应商ID
+     * @param statDate 统计日期
+     * @param quantity 销量
+     * @param amount 销售额
+     * @param newBuyer 是否为该供应商当日的新购买人（1/0）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO supplier_daily_stats (supplier_id, stat_date, quantity, amount, order_count, buyer_count) " +
+            "VALUES (#{supplierId}, #{statDate}, #{quantity}, #{amount}, 1, #{newBuyer}) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), amount = amount + VALUES(amount), " +
+            "order_count = order_count + 1, buyer_count = buyer_count + VALUES(buyer_count)")
+    int accumulate(@Param("supplierId") Long supplierId,
+                   @Param("statDate") LocalDate statDate,
+                   @Param("quantity") Integer quantity,
+                   @Param("amount") BigDecimal amount,
+                   @Param("newBuyer") int newBuyer);
+
+    /**
+     * 扣减当日汇总（订单取消时撤销已累加的购买记录），成交订单数减1，扣减后不小于0
+     * 
+     * @param supplierId 供应商ID
+     * @param statDate 统计日期
+     * @param quantity 销量
+     * @param amount 销售额
+     * @param lostBuyer 该用户当日是否已没有此供应商的其他购买记录（1/0）
+     * @return 影响行数
+     */
+    @Update("UPDATE supplier_daily_stats SET quantity = GREATEST(quantity - #{quantity}, 0), " +
+            "amount = GREATEST(amount - #{amount}, 0), order_count = GREATEST(order_count - 1, 0), " +
+            "buyer_count = GREATEST(buyer_count - #{lostBuyer}, 0) " +
+            "WHERE supplier_id = #{supplierId} AND stat_date = #{statDate}")
+    int subtract(@Param("supplierId") Long supplierId,
+                 @Param("statDate") LocalDate statDate,
+                 @Param("quantity") Integer quantity,
+                 @Param("amount") BigDecimal amount,
+                 @Param("lostBuyer") int lostBuyer);
+
+    /**
+     * 删除某日的汇总（重算前清空，已没有购买记录的供应商不残留旧值）
+     * 
+     * @param statDate 统计日期
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM supplier_daily_stats WHERE stat_date = #{statDate}")
+    int deleteByDate(@Param("statDate") LocalDate statDate);
+
+    /**
+     * 从购买记录重算指定时间段的每日汇总（幂等），需先删除该时间段的汇总
+     * 
+     * @param from 起始时间（含）
+     * @param to 结束时间（不含）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO supplier_daily_stats (supplier_id, stat_date, quantity, amount, order_count, buyer_count) " +
+            "SELECT supplier_id, DATE(purchase_time), SUM(quantity), SUM(total_amount), COUNT(*), " +
+            "COUNT(DISTINCT user_id) " +
+            "FROM tb_purchase_record WHERE purchase_time >= #{from} AND purchase_time < #{to} " +
+            "AND supplier_id IS NOT NULL " +
+            "GROUP BY supplier_id, DATE(purchase_time) " +
+            "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), amount = VALUES(amount), " +
+            "order_count = VALUES(order_count), buyer_count = VALUES(buyer_count)")
+    int rebuild(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,49 @@
+package xyh.dp.mall.trade.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+import xyh.dp.mall.trade.entity.SupplierOrderStats;
+
+/**
+ * 供应商订单汇总Mapper接口
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Mapper
+public interface SupplierOrderStatsMapper extends BaseMapper<SupplierOrderStats> {
+
+    /**
+     * 调整待支付订单数（不存在则插入），结果不小于0
+     * 
+     * @param supplierId 供应商ID
+     * @param delta 增量（下单+1，取消-1）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO supplier_order_stats (supplier_id, pending_count) " +
+            "VALUES (#{supplierId}, GREATEST(#{delta}, 0)) " +
+            "ON DUPLICATE KEY UPDATE pending_count = GREATEST(CAST(pending_count AS SIGNED) + #{delta}, 0)")
+    int adjustPending(@Param("supplierId") Long supplierId, @Param("delta") int delta);
+
+    /**
+     * 清零所有供应商的待支付订单数（按订单表重算前调用）
+     * 
+     * @return 影响行数
+     */
+    @Update("UPDATE supplier_order_stats SET pending_count = 0 WHERE pending_count <> 0")
+    int resetPending();
+
+    /**
+     * 按订单表重算待支付订单数
+     * 
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO supplier_order_stats (supplier_id, pending_count) " +
+            "SELECT supplier_id, COUNT(*) FROM tb_order WHERE status = 'PENDING' AND supplier_id IS NOT NULL " +
+            "GROUP BY supplier_id " +
+            "ON DUPLICATE KEY UPDATE pending_count = VALUES(pending_count)")
+    int rebuildPending();
+}
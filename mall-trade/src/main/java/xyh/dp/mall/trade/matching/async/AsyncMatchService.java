@@ -2,6 +2,7 @@ package xyh.dp.mall.trade.matching.async;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import xyh.dp.mall.common.exception.BusinessException;
@@ -45,6 +46,14 @@ public class AsyncMatchService {
     private final ProductFeignClient productFeignClient;
     private final MatchScoreCalculator scoreCalculator;
     private final MLHybridMatchService mlHybridMatchService;
+    private final ParallelCandidateScorer candidateScorer;
+    private final MatchCancellationRegistry cancellationRegistry;
+
+    /**
+     * 处理中进度写入Redis的最小间隔（毫秒）
+     */
+    @Value("${matching.task.progress-interval-ms:1000}")
+    private long progressIntervalMs;
 
     /**
      * 提交新的匹配任务
@@ -128,8 +137,12 @@ public class AsyncMatchService {
             throw new BusinessException("Task already finished, cannot cancel");
         }
 
+        // 条件写入：读取之后任务已完成或失败时不覆盖结果；进度哈希由处理节点退出时删除
         task.setStatus(MatchTask.TaskStatus.CANCELLED);
-        taskStore.updateTask(task);
+        if (!taskStore.transition(task, MatchTask.TaskStatus.PENDING, MatchTask.TaskStatus.PROCESSING)) {
+            throw new BusinessException("Task already finished, cannot cancel");
+        }
+        cancellationRegistry.cancel(taskId);
         log.info("Match task cancelled: taskId={}", taskId);
     }
 
@@ -146,6 +159,11 @@ public class AsyncMatchService {
      * 异步处理匹配任务
      * 使用专用线程池执行匹配操作
      *
+     * <p>每个任务对Redis的读写次数与候选商品数无关：取消只读本地登记的标记，
+     * 进度按时间间隔写入进度哈希，任务JSON只在开始处理和结束时各写一次。
+     * 两次写入都是状态条件写入（待处理→处理中、处理中→完成/失败），与取消并发时以先写入的一方为准；
+     * 退出时删除进度哈希，取消之后仍在进行的进度写入不会留下哈希。</p>
+     *
      * @param taskId 要处理的任务ID
      */
     @Async("matchingTaskExecutor")
@@ -153,6 +171,23 @@ public class AsyncMatchService {
         log.info("Starting async matching: taskId={}", taskId);
         long startTime = System.currentTimeMillis();
 
+        // 先登记再读取状态，读取之后发生的取消由通知送达
+        cancellationRegistry.register(taskId);
+        try {
+            processMatchTask(taskId, startTime);
+        } finally {
+            cancellationRegistry.unregister(taskId);
+            taskStore.clearProgress(taskId);
+        }
+    }
+
+    /**
+     * 处理已登记取消标记的匹配任务
+     *
+     * @param taskId    任务ID
+     * @param startTime 开始时间（毫秒）
+     */
+    private void processMatchTask(String taskId, long startTime) {
         MatchTask task = taskStore.getTask(taskId);
         if (task == null) {
             log.warn("Task not found for processing: taskId={}", taskId);
@@ -170,7 +205,7 @@ public class AsyncMatchService {
             PlantingPlan plan = getPlanByPlanId(task.getPlanId());
             if (plan == null) {
                 task.fail("Planting plan not found");
-                taskStore.updateTask(task);
+                taskStore.transition(task, MatchTask.TaskStatus.PENDING);
                 return;
             }
 
@@ -178,39 +213,30 @@ public class AsyncMatchService {
             List<ProductDTO> candidates = getCandidateProducts(plan);
             if (candidates.isEmpty()) {
                 task.fail("No candidate products found");
-                taskStore.updateTask(task);
+                taskStore.transition(task, MatchTask.TaskStatus.PENDING);
                 return;
             }
 
-            // Start processing
+            // Start processing：读取任务之后、开始处理之前到达的取消不被"处理中"覆盖
             task.startProcessing(candidates.size());
-            taskStore.updateTask(task);
-
-            // Calculate scores for all candidates
-            List<MatchFeature> features = new ArrayList<>();
-            int processed = 0;
+            if (!taskStore.transition(task, MatchTask.TaskStatus.PENDING)) {
+                log.info("Task cancelled before processing: taskId={}", taskId);
+                return;
+            }
 
-            for (ProductDTO product : candidates) {
-                // 检查处理过程中任务是否被取消
-                MatchTask currentTask = taskStore.getTask(taskId);
-                if (currentTask != null && currentTask.getStatus() == MatchTask.TaskStatus.CANCELLED) {
+            List<MatchFeature> features;
+            if (mlHybridMatchService.isRuleOnly()) {
+                // 规则引擎模式：评分内核流式筛选，只为前N名生成完整特征和建议描述
+                features = scoreCalculator.rankTopN(plan, candidates, TOP_N, 0);
+                task.updateProgress(candidates.size());
+                if (cancellationRegistry.isCancelled(taskId)) {
                     log.info("Task cancelled during processing: taskId={}", taskId);
                     return;
                 }
-
-                try {
-                    MatchFeature feature = mlHybridMatchService.calculateScore(plan, product);
-                    features.add(feature);
-                } catch (Exception e) {
-                    log.warn("Failed to calculate score for product {}: {}", product.getId(), e.getMessage());
-                }
-
-                processed++;
-                task.updateProgress(processed);
-
-                // Update progress every 10 products
-                if (processed % 10 == 0) {
-                    taskStore.updateTask(task);
+            } else {
+                features = scoreInParallel(taskId, task, plan, candidates);
+                if (features == null) {
+                    return;
                 }
             }
 
@@ -221,7 +247,8 @@ public class AsyncMatchService {
                     features,
                     TOP_N,
                     candidates.size(),
-                    durationMs
+                    durationMs,
+                    mlHybridMatchService::describe
             );
 
             // Set ranking positions
@@ -229,9 +256,12 @@ public class AsyncMatchService {
                 result.getTopMatches().get(i).setRank(i + 1);
             }
 
-            // Complete task
+            // Complete task：只在仍处于处理中时写入结果，已取消的任务不被结果覆盖
             task.complete(result);
-            taskStore.updateTask(task);
+            if (!taskStore.transition(task, MatchTask.TaskStatus.PROCESSING)) {
+                log.info("Task cancelled before completion: taskId={}", taskId);
+                return;
+            }
 
             log.info("Match task completed: taskId={}, matchCount={}, duration={}ms",
                     taskId, result.getMatchCount(), durationMs);
@@ -239,8 +269,52 @@ public class AsyncMatchService {
         } catch (Exception e) {
             log.error("Match task failed: taskId={}, error={}", taskId, e.getMessage(), e);
             task.fail("Matching failed: " + e.getMessage());
-            taskStore.updateTask(task);
+            taskStore.transition(task, MatchTask.TaskStatus.PENDING, MatchTask.TaskStatus.PROCESSING);
+        }
+    }
+
+    /**
+     * ML模式下并行评分全部候选商品
+     * 候选商品在评分线程池上并行计算规则特征（合并为批量推理请求），本线程按顺序收集结果；
+     * 全部候选商品共用一个延迟预算，到期未返回的ML结果以规则引擎得分代替
+     *
+     * @param taskId     任务ID
+     * @param task       任务
+     * @param plan       种植计划
+     * @param candidates 候选商品
+     * @return 全部候选商品的匹配特征（评分失败的除外），任务被取消返回null
+     */
+    private List<MatchFeature> scoreInParallel(String taskId, MatchTask task, PlantingPlan plan,
+                                               List<ProductDTO> candidates) {
+        long deadline = mlHybridMatchService.taskDeadline();
+        ParallelCandidateScorer.Run scoring = candidateScorer.score(plan, candidates, deadline);
+
+        List<MatchFeature> features = new ArrayList<>();
+        long lastProgressWrite = System.currentTimeMillis();
+
+        for (int i = 0; i < candidates.size(); i++) {
+            // 检查处理过程中任务是否被取消（本地标记，取消时任务JSON已由取消方写入）
+            if (cancellationRegistry.isCancelled(taskId)) {
+                scoring.cancel();
+                log.info("Task cancelled during processing: taskId={}", taskId);
+                return null;
+            }
+
+            try {
+                features.add(scoring.result(i).join());
+            } catch (Exception e) {
+                log.warn("Failed to calculate score for product {}: {}", candidates.get(i).getId(), e.getMessage());
+            }
+
+            // 进度取评分线程的完成计数（可能领先于本线程已收集的下标），按时间间隔写入进度哈希
+            task.updateProgress(scoring.completed());
+            long now = System.currentTimeMillis();
+            if (now - lastProgressWrite >= progressIntervalMs) {
+                taskStore.updateProgress(taskId, task.getMatchedProducts(), task.getProgress());
+                lastProgressWrite = now;
+            }
         }
+        return features;
     }
 
     /**
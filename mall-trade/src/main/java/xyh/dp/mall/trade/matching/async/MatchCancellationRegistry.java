@@ -0,0 +1,109 @@
+package xyh.dp.mall.trade.matching.async;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 匹配任务本地取消登记
+ * 本节点正在处理的任务登记一个取消标记，处理过程中只读本地标记，不再逐个候选商品从Redis读取任务判断是否取消
+ *
+ * <p>取消任务时先标记本地（任务恰好在本节点处理时立即生效），再发布取消通知，
+ * 其他节点收到通知后标记各自登记的任务；未在本节点处理的任务忽略通知。
+ * 任务开始处理时先登记再读取任务状态，登记前已取消的任务由状态判断覆盖，登记后的取消由通知覆盖。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MatchCancellationRegistry implements MessageListener {
+
+    /**
+     * 取消通知频道，消息为任务ID
+     */
+    public static final String CHANNEL = "match:task:cancelled";
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 本节点正在处理的任务：任务ID -> 取消标记
+     */
+    private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+
+    /**
+     * 登记本节点开始处理的任务
+     *
+     * @param taskId 任务ID
+     */
+    public void register(String taskId) {
+        running.put(taskId, new AtomicBoolean());
+    }
+
+    /**
+     * 任务处理结束，移除登记
+     *
+     * @param taskId 任务ID
+     */
+    public void unregister(String taskId) {
+        running.remove(taskId);
+    }
+
+    /**
+     * 任务是否已被取消（只读本地标记）
+     *
+     * @param taskId 任务ID
+     * @return 已取消返回true，未登记的任务返回false
+     */
+    public boolean isCancelled(String taskId) {
+        AtomicBoolean cancelled = running.get(taskId);
+        return cancelled != null && cancelled.get();
+    }
+
+    /**
+     * 取消任务：标记本地并通知其他节点
+     *
+     * @param taskId 任务ID
+     */
+    public void cancel(String taskId) {
+        markCancelled(taskId);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, taskId);
+        } catch (Exception e) {
+            log.warn("发布匹配任务取消通知失败: taskId={}, error={}", taskId, e.getMessage());
+        }
+    }
+
+    /**
+     * 收到取消通知
+     *
+     * @param message 消息（任务ID）
+     * @param pattern 订阅模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        markCancelled(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 标记本节点登记的任务为已取消
+     *
+     * @param taskId 任务ID
+     */
+    private void markCancelled(String taskId) {
+        AtomicBoolean cancelled = running.get(taskId);
+        if (cancelled != null) {
+            cancelled.set(true);
+            log.debug("匹配任务已标记取消: taskId={}", taskId);
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package xyh.dp.mall.trade.matching.async;
 
 import lombok.Data;
+import xyh.dp.mall.trade.matching.engine.TopKSelector;
 import xyh.dp.mall.trade.matching.feature.MatchFeature;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 匹配结果实体
@@ -74,30 +75,36 @@ public class MatchResult implements Serializable {
 
     /**
      * 从匹配特征创建结果
+     * 用有界小顶堆选出前N名，不对全部特征排序；得分相同按列表顺序。建议描述只为选出的前N名生成
      *
      * @param planId         种植计划ID
      * @param features       匹配特征列表
      * @param topN           保留的最佳结果数量
      * @param totalEvaluated 已评估商品总数
      * @param durationMs     匹配耗时（毫秒）
+     * @param describer      为选出的匹配特征生成建议描述
      * @return 包含Top-N项的MatchResult
      */
-    public static MatchResult fromFeatures(String planId, List<MatchFeature> features,
-                                            int topN, int totalEvaluated, long durationMs) {
+    public static MatchResult fromFeatures(String planId, List<MatchFeature> features, int topN,
+                                           int totalEvaluated, long durationMs, Consumer<MatchFeature> describer) {
         MatchResult result = new MatchResult();
         result.setPlanId(planId);
         result.setTotalEvaluated(totalEvaluated);
         result.setMatchTime(LocalDateTime.now());
         result.setDurationMs(durationMs);
 
-        // Sort by score descending and take top-N
-        List<MatchResultItem> items = features.stream()
-                .sorted(Comparator.comparing(MatchFeature::getTotalScore).reversed())
-                .limit(topN)
-                .map(MatchResultItem::fromFeature)
-                .toList();
+        // Select top-N by score descending
+        TopKSelector top = new TopKSelector(Math.min(topN, features.size()));
+        for (int i = 0; i < features.size(); i++) {
+            top.offer(i, features.get(i).getTotalScore().doubleValue());
+        }
+        List<MatchResultItem> items = new ArrayList<>(top.size());
+        for (int index : top.sortedIndexes()) {
+            describer.accept(features.get(index));
+            items.add(MatchResultItem.fromFeature(features.get(index)));
+        }
 
-        result.setTopMatches(new ArrayList<>(items));
+        result.setTopMatches(items);
 
         // Set best match
         if (!items.isEmpty()) {
@@ -4,11 +4,17 @@ import com.alibaba.fastjson2.JSON;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.annotation.Bulkhead;
+import xyh.dp.mall.common.concurrent.DependencyBulkhead;
+import xyh.dp.mall.common.exception.BusinessException;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -16,18 +22,49 @@ import java.util.concurrent.ConcurrentHashMap;
  * 匹配任务存储服务
  * 使用Redis进行持久化存储，并提供本地缓存回退
  *
+ * <p>任务整体以JSON保存，只在状态变化时写入（开始处理、完成、失败、取消）；
+ * 处理中的进度单独存放在哈希 match:task:progress:{taskId} 的字段中，按字段HSET更新，
+ * 不再重写整个任务JSON，查询处理中的任务时合并进度字段。</p>
+ *
+ * <p>状态变化通过{@link #transition}条件写入：Lua脚本确认Redis中的当前状态是期望的状态之一后才写入，
+ * 处理节点与取消请求并发时只有一方生效，已取消的任务不会被"处理中"或最终结果覆盖。
+ * Redis不可用时只能对本地缓存中的任务按状态条件替换；
+ * 任务不在本地缓存时无法判断当前状态，抛出异常而不是当作状态不符。</p>
+ *
  * @author mall-cloud
  * @since 1.0.0
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@Bulkhead(DependencyBulkhead.REDIS)
 public class MatchTaskStore {
 
     private static final String TASK_KEY_PREFIX = "match:task:";
+    private static final String PROGRESS_KEY_PREFIX = "match:task:progress:";
     private static final String QUEUE_KEY = "match:queue";
+    private static final String FIELD_MATCHED = "matchedProducts";
+    private static final String FIELD_PROGRESS = "progress";
     private static final Duration TASK_TTL = Duration.ofHours(24);
 
+    /**
+     * KEYS[1]: 任务JSON
+     * ARGV[1]: 期望的当前状态（逗号分隔，首尾带逗号）, ARGV[2]: 新的任务JSON, ARGV[3]: 有效期（秒）
+     * 返回1写入成功，0当前状态不符，-1任务不存在
+     */
+    private static final RedisScript<Long> TRANSITION_SCRIPT = RedisScript.of("""
+            local current = redis.call('GET', KEYS[1])
+            if not current then
+                return -1
+            end
+            local status = cjson.decode(current)['status']
+            if type(status) ~= 'string' or not string.find(ARGV[1], ',' .. status .. ',', 1, true) then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+            return 1
+            """, Long.class);
+
     private final StringRedisTemplate redisTemplate;
 
     /**
@@ -74,7 +111,11 @@ public class MatchTaskStore {
         try {
             String json = redisTemplate.opsForValue().get(key);
             if (json != null) {
-                return JSON.parseObject(json, MatchTask.class);
+                MatchTask task = JSON.parseObject(json, MatchTask.class);
+                if (task.getStatus() == MatchTask.TaskStatus.PROCESSING) {
+                    mergeProgress(task);
+                }
+                return task;
             }
         } catch (Exception e) {
             log.warn("Failed to get task from Redis, checking local cache: {}", e.getMessage());
@@ -91,6 +132,91 @@ public class MatchTaskStore {
         saveTask(task);
     }
 
+    /**
+     * 按状态条件写入任务
+     * Redis中的任务当前状态是expected之一时才写入，用于所有状态变化（开始处理、完成、失败、取消）
+     *
+     * @param task     状态已变更的任务
+     * @param expected 允许的当前状态
+     * @return 写入成功返回true，当前状态不符（如已被取消）或任务不存在返回false
+     * @throws BusinessException Redis不可用且任务不在本地缓存中
+     */
+    public boolean transition(MatchTask task, MatchTask.TaskStatus... expected) {
+        StringBuilder statuses = new StringBuilder(",");
+        for (MatchTask.TaskStatus status : expected) {
+            statuses.append(status.name()).append(',');
+        }
+        try {
+            Long result = redisTemplate.execute(TRANSITION_SCRIPT, List.of(TASK_KEY_PREFIX + task.getTaskId()),
+                    statuses.toString(), JSON.toJSONString(task), String.valueOf(TASK_TTL.toSeconds()));
+            if (result != null && result >= 0) {
+                return result == 1;
+            }
+        } catch (Exception e) {
+            if (!localCache.containsKey(task.getTaskId())) {
+                log.error("Failed to transition task in Redis and task not in local cache: taskId={}, status={}",
+                        task.getTaskId(), task.getStatus(), e);
+                throw new BusinessException(503, "Match task store unavailable, please retry later");
+            }
+            log.warn("Failed to transition task in Redis, using local cache: {}", e.getMessage());
+        }
+        return transitionLocally(task, List.of(expected));
+    }
+
+    /**
+     * 本地缓存中的任务（Redis不可用时保存的）按状态条件替换
+     *
+     * @param task     状态已变更的任务
+     * @param expected 允许的当前状态
+     * @return 替换成功返回true
+     */
+    private boolean transitionLocally(MatchTask task, List<MatchTask.TaskStatus> expected) {
+        boolean[] replaced = new boolean[1];
+        localCache.computeIfPresent(task.getTaskId(), (taskId, cached) -> {
+            replaced[0] = expected.contains(cached.getStatus());
+            return replaced[0] ? task : cached;
+        });
+        return replaced[0];
+    }
+
+    /**
+     * 更新处理中任务的进度（只写进度哈希的两个字段）
+     *
+     * @param taskId          任务ID
+     * @param matchedProducts 已匹配商品数
+     * @param progress        匹配进度(0-100)
+     */
+    public void updateProgress(String taskId, int matchedProducts, int progress) {
+        String key = PROGRESS_KEY_PREFIX + taskId;
+        try {
+            redisTemplate.opsForHash().putAll(key, Map.of(
+                    FIELD_MATCHED, String.valueOf(matchedProducts),
+                    FIELD_PROGRESS, String.valueOf(progress)));
+            redisTemplate.expire(key, TASK_TTL);
+        } catch (Exception e) {
+            log.warn("Failed to update task progress: taskId={}, error={}", taskId, e.getMessage());
+            MatchTask cached = localCache.get(taskId);
+            if (cached != null) {
+                cached.setMatchedProducts(matchedProducts);
+                cached.setProgress(progress);
+            }
+        }
+    }
+
+    /**
+     * 删除进度哈希（任务结束后进度随任务JSON一起保存）
+     * 由处理节点在退出时调用，之后不会再有进度写入重新创建哈希
+     *
+     * @param taskId 任务ID
+     */
+    public void clearProgress(String taskId) {
+        try {
+            redisTemplate.delete(PROGRESS_KEY_PREFIX + taskId);
+        } catch (Exception e) {
+            log.warn("Failed to clear task progress: taskId={}, error={}", taskId, e.getMessage());
+        }
+    }
+
     /**
      * 删除匹配任务
      *
@@ -99,7 +225,7 @@ public class MatchTaskStore {
     public void deleteTask(String taskId) {
         String key = TASK_KEY_PREFIX + taskId;
         try {
-            redisTemplate.delete(key);
+            redisTemplate.delete(List.of(key, PROGRESS_KEY_PREFIX + taskId));
         } catch (Exception e) {
             log.warn("Failed to delete task from Redis: {}", e.getMessage());
         }
@@ -149,6 +275,21 @@ public class MatchTaskStore {
         }
     }
 
+    /**
+     * 用进度哈希中的字段覆盖任务JSON中的进度
+     *
+     * @param task 处理中的任务
+     */
+    private void mergeProgress(MatchTask task) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(PROGRESS_KEY_PREFIX + task.getTaskId());
+        Object matched = fields.get(FIELD_MATCHED);
+        Object progress = fields.get(FIELD_PROGRESS);
+        if (matched != null && progress != null) {
+            task.setMatchedProducts(Integer.valueOf(matched.toString()));
+            task.setProgress(Integer.valueOf(progress.toString()));
+        }
+    }
+
     /**
      * 检查任务是否存在
      *
@@ -0,0 +1,170 @@
+package xyh.dp.mall.trade.matching.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.trade.config.ExecutorProperties;
+import xyh.dp.mall.trade.entity.PlantingPlan;
+import xyh.dp.mall.trade.feign.dto.ProductDTO;
+import xyh.dp.mall.trade.matching.engine.MLHybridMatchService;
+import xyh.dp.mall.trade.matching.feature.MatchFeature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 匹配任务内的候选商品并行评分
+ * 每个任务在共享的工作窃取线程池上启动若干评分线程，从共享游标依次领取候选商品计算规则特征并提交ML评分，
+ * 先算完的线程继续领取，负载自动均衡；大批量候选商品的耗时接近 总CPU时间 / 核数
+ *
+ * <p>单个任务最多同时占用perTaskParallelism个评分线程，其余线程留给并发的其他任务。
+ * 单个候选商品评分失败只让它对应的结果异常完成，不影响其他商品。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class ParallelCandidateScorer {
+
+    private final MLHybridMatchService mlHybridMatchService;
+    private final ForkJoinPool scoringPool;
+    private final ExecutorProperties.Scoring properties;
+
+    /**
+     * 创建并行评分器
+     *
+     * @param mlHybridMatchService 混合匹配服务
+     * @param scoringPool          评分线程池
+     * @param executorProperties   执行器配置
+     */
+    public ParallelCandidateScorer(MLHybridMatchService mlHybridMatchService,
+                                   @Qualifier("matchingScoringPool") ForkJoinPool scoringPool,
+                                   ExecutorProperties executorProperties) {
+        this.mlHybridMatchService = mlHybridMatchService;
+        this.scoringPool = scoringPool;
+        this.properties = executorProperties.getScoring();
+    }
+
+    /**
+     * 开始并行评分，立即返回
+     *
+     * @param plan          种植计划
+     * @param candidates    候选商品
+     * @param deadlineNanos 匹配任务截止时间（ML结果的延迟预算）
+     * @return 评分过程，结果与候选商品一一对应
+     */
+    public Run score(PlantingPlan plan, List<ProductDTO> candidates, long deadlineNanos) {
+        Run run = new Run(candidates.size());
+        int workers = workerCount(candidates.size());
+        for (int i = 0; i < workers; i++) {
+            scoringPool.execute(() -> drain(run, plan, candidates, deadlineNanos));
+        }
+        log.debug("并行评分开始: planId={}, candidates={}, workers={}", plan.getPlanId(), candidates.size(), workers);
+        return run;
+    }
+
+    /**
+     * 计算本任务的评分线程数
+     *
+     * @param candidateCount 候选商品数
+     * @return 线程数（至少1）
+     */
+    int workerCount(int candidateCount) {
+        int perTaskLimit = properties.getPerTaskParallelism() > 0
+                ? properties.getPerTaskParallelism()
+                : Math.max(1, scoringPool.getParallelism() / 2);
+        int minPerWorker = Math.max(1, properties.getMinCandidatesPerWorker());
+        int bySize = (candidateCount + minPerWorker - 1) / minPerWorker;
+        return Math.max(1, Math.min(perTaskLimit, bySize));
+    }
+
+    /**
+     * 评分线程：从游标领取候选商品直到领完或任务取消
+     *
+     * @param run           评分过程
+     * @param plan          种植计划
+     * @param candidates    候选商品
+     * @param deadlineNanos 匹配任务截止时间
+     */
+    private void drain(Run run, PlantingPlan plan, List<ProductDTO> candidates, long deadlineNanos) {
+        int index;
+        while (!run.cancelled && (index = run.cursor.getAndIncrement()) < candidates.size()) {
+            CompletableFuture<MatchFeature> result = run.results.get(index);
+            try {
+                mlHybridMatchService.calculateScoreAsync(plan, candidates.get(index), deadlineNanos)
+                        .whenComplete((feature, error) -> run.complete(result, feature, error));
+            } catch (Exception e) {
+                run.complete(result, null, e);
+            }
+        }
+    }
+
+    /**
+     * 一个匹配任务的评分过程
+     */
+    public static final class Run {
+
+        private final List<CompletableFuture<MatchFeature>> results;
+        private final AtomicInteger cursor = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private volatile boolean cancelled;
+
+        /**
+         * 创建评分过程
+         *
+         * @param size 候选商品数
+         */
+        private Run(int size) {
+            results = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                results.add(new CompletableFuture<>());
+            }
+        }
+
+        /**
+         * 第index个候选商品的评分结果
+         *
+         * @param index 候选商品下标
+         * @return 评分结果，该商品评分失败时异常完成
+         */
+        public CompletableFuture<MatchFeature> result(int index) {
+            return results.get(index);
+        }
+
+        /**
+         * 已完成（含失败）的候选商品数
+         *
+         * @return 完成数
+         */
+        public int completed() {
+            return completed.get();
+        }
+
+        /**
+         * 取消：评分线程不再领取新的候选商品，未开始的结果不会完成
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * 完成一个候选商品
+         *
+         * @param result  结果
+         * @param feature 匹配特征
+         * @param error   异常
+         */
+        private void complete(CompletableFuture<MatchFeature> result, MatchFeature feature, Throwable error) {
+            completed.incrementAndGet();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(feature);
+            }
+        }
+    }
+}
@@ -1,50 +1,51 @@
 package xyh.dp.mall.trade.matching.config;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import xyh.dp.mall.common.concurrent.ContextAwareTaskDecorator;
+import xyh.dp.mall.common.concurrent.ManagedExecutorRegistry;
+import xyh.dp.mall.common.concurrent.VirtualThreadExecutors;
+import xyh.dp.mall.trade.config.ExecutorProperties;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 匹配服务线程池配置
  * 异步匹配任务的专用线程池
  *
+ * <p>匹配任务主要阻塞在Feign、Redis和ML接口调用上，可通过executor.matching.mode=VIRTUAL切换为虚拟线程。
+ * 任务内候选商品的规则评分是CPU计算，交给单独的工作窃取线程池（matchingScoringPool）并行执行。</p>
+ *
  * @author mall-cloud
  * @since 1.0.0
  */
 @Slf4j
 @Configuration
 @EnableAsync
+@RequiredArgsConstructor
 public class MatchingThreadPoolConfig {
 
     /**
-     * 匹配任务核心线程数
-     */
-    private static final int CORE_POOL_SIZE = 4;
-
-    /**
-     * 匹配任务最大线程数
-     */
-    private static final int MAX_POOL_SIZE = 10;
-
-    /**
-     * 待处理任务队列容量
+     * 线程名称前缀
      */
-    private static final int QUEUE_CAPACITY = 100;
+    private static final String THREAD_NAME_PREFIX = "match-async-";
 
     /**
-     * 线程保活时间（秒）
+     * 评分线程名称前缀
      */
-    private static final int KEEP_ALIVE_SECONDS = 60;
+    private static final String SCORING_THREAD_NAME_PREFIX = "match-score-";
 
-    /**
-     * 线程名称前缀
-     */
-    private static final String THREAD_NAME_PREFIX = "match-async-";
+    private final ExecutorProperties executorProperties;
+    private final ContextAwareTaskDecorator contextAwareTaskDecorator;
+    private final ManagedExecutorRegistry executorRegistry;
 
     /**
      * 创建匹配任务专用线程池执行器
@@ -53,14 +54,16 @@ public class MatchingThreadPoolConfig {
      */
     @Bean(name = "matchingTaskExecutor")
     public Executor matchingTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
-        // 核心配置
-        executor.setCorePoolSize(CORE_POOL_SIZE);
-        executor.setMaxPoolSize(MAX_POOL_SIZE);
-        executor.setQueueCapacity(QUEUE_CAPACITY);
-        executor.setKeepAliveSeconds(KEEP_ALIVE_SECONDS);
+        ExecutorProperties.Pool pool = executorProperties.getMatching();
+        if (pool.isVirtual()) {
+            return VirtualThreadExecutors.create("match-vt-", pool.getVirtualConcurrencyLimit(),
+                    30_000L, contextAwareTaskDecorator);
+        }
+
+        // 核心配置（线程数、队列容量）取自executor.matching，可在Nacos中动态调整
+        ThreadPoolTaskExecutor executor = executorRegistry.create("matching", pool);
         executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        executor.setTaskDecorator(contextAwareTaskDecorator);
         
         // 拒绝策略: CallerRunsPolicy确保任务不丢失
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
@@ -73,8 +76,29 @@ public class MatchingThreadPoolConfig {
         executor.initialize();
         
         log.info("匹配线程池初始化完成: coreSize={}, maxSize={}, queueCapacity={}",
-                CORE_POOL_SIZE, MAX_POOL_SIZE, QUEUE_CAPACITY);
+                pool.getCorePoolSize(), pool.getMaxPoolSize(), pool.getQueueCapacity());
         
         return executor;
     }
+
+    /**
+     * 创建候选商品评分线程池
+     * 工作窃取线程池，并行度默认等于CPU核数；单个任务的并行度由ParallelCandidateScorer限制
+     *
+     * @return 评分线程池
+     */
+    @Bean(name = "matchingScoringPool", destroyMethod = "shutdown")
+    public ForkJoinPool matchingScoringPool() {
+        ExecutorProperties.Scoring scoring = executorProperties.getScoring();
+        int parallelism = scoring.getParallelism() > 0 ? scoring.getParallelism() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(SCORING_THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+            return thread;
+        };
+        log.info("匹配评分线程池初始化完成: parallelism={}", parallelism);
+        return new ForkJoinPool(parallelism, threadFactory,
+                (thread, e) -> log.error("匹配评分线程异常: thread={}", thread.getName(), e), true);
+    }
 }
@@ -0,0 +1,32 @@
+package xyh.dp.mall.trade.matching.engine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * ML模型批量推理配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ml.model.batch")
+public class MLBatchProperties {
+
+    /**
+     * 单次批量请求的最大特征数
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * 批次中第一条特征的最长等待时间（毫秒），到时即使未满也发送
+     */
+    private long maxWaitMs = 5;
+
+    /**
+     * 调用方等待预测结果的上限（毫秒，含排队和HTTP调用），超时降级到规则引擎
+     */
+    private long timeoutMs = 3000;
+}
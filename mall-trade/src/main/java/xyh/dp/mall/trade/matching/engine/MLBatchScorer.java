@@ -0,0 +1,198 @@
+package xyh.dp.mall.trade.matching.engine;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import xyh.dp.mall.trade.matching.feature.MatchFeature;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ML模型批量推理
+ * 各匹配任务提交的特征先进入队列，由分发线程攒成批次后一次调用推理服务的/predict/batch，
+ * 再按顺序把结果交还给各调用方；同一任务的全部候选商品和同一时间窗口内其他任务的特征合并为一个请求
+ *
+ * <p>批次在达到maxBatchSize或第一条特征等待满maxWaitMs时发送；HTTP调用在通用异步执行器上进行，
+ * 请求进行中新到达的特征继续攒下一批。调用方最多等待timeoutMs，超时或调用失败由调用方降级。</p>
+ *
+ * <p>每个批次的结果（含耗时）计入{@link MLCircuitBreaker}，熔断期间提交的特征立即以
+ * {@link MLCircuitBreaker.OpenException}失败，不再进入队列。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class MLBatchScorer {
+
+    private final RestTemplate restTemplate;
+    private final MLBatchProperties properties;
+    private final MLCircuitBreaker circuitBreaker;
+    private final Executor asyncExecutor;
+    private final String batchUrl;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+
+    /**
+     * 创建批量推理器并启动分发线程
+     *
+     * @param restTemplate   HTTP客户端
+     * @param properties     批量推理配置
+     * @param circuitBreaker 熔断器
+     * @param mlApiUrl       ML模型API地址
+     * @param asyncExecutor  通用异步执行器（发送批量请求）
+     */
+    public MLBatchScorer(RestTemplate restTemplate, MLBatchProperties properties, MLCircuitBreaker circuitBreaker,
+                         @Value("${ml.model.api-url:http://localhost:5000}") String mlApiUrl,
+                         @Qualifier("asyncExecutor") Executor asyncExecutor) {
+        this.restTemplate = restTemplate;
+        this.properties = properties;
+        this.circuitBreaker = circuitBreaker;
+        this.asyncExecutor = asyncExecutor;
+        this.batchUrl = mlApiUrl + "/predict/batch";
+        this.dispatcher = Thread.ofPlatform().name("ml-batch-dispatcher").daemon().start(this::dispatchLoop);
+    }
+
+    /**
+     * 提交一条特征等待预测
+     *
+     * @param feature 规则引擎计算的匹配特征
+     * @return 预测结果，超时、推理服务失败或熔断中时异常完成
+     */
+    public CompletableFuture<Prediction> submit(MatchFeature feature) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new MLCircuitBreaker.OpenException());
+        }
+        Pending pending = new Pending(toRequest(feature), System.nanoTime(), new CompletableFuture<>());
+        queue.add(pending);
+        return pending.result.orTimeout(properties.getTimeoutMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止分发线程，未发送的特征异常完成
+     */
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.interrupt();
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        IllegalStateException closed = new IllegalStateException("ML批量推理已关闭");
+        remaining.forEach(pending -> pending.result.completeExceptionally(closed));
+    }
+
+    /**
+     * 分发循环：阻塞等待第一条特征，再在剩余等待时间内尽量攒满一批
+     */
+    private void dispatchLoop() {
+        int maxBatchSize = Math.max(properties.getMaxBatchSize(), 1);
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxWaitMs());
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Pending first = queue.take();
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = first.enqueuedAt + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                asyncExecutor.execute(() -> send(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("ML批量推理分发异常", e);
+            }
+        }
+    }
+
+    /**
+     * 发送一个批次并按顺序交还结果
+     *
+     * @param batch 批次
+     */
+    private void send(List<Pending> batch) {
+        try {
+            List<Map<String, Object>> featuresList = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                featuresList.add(pending.request);
+            }
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("features_list", featuresList);
+
+            long start = System.currentTimeMillis();
+            String response = restTemplate.postForObject(batchUrl, requestBody, String.class);
+            JSONArray predictions = response != null ? JSONObject.parseObject(response).getJSONArray("predictions") : null;
+            if (predictions == null || predictions.size() != batch.size()) {
+                throw new IllegalStateException("ML批量推理返回结果数与请求不一致");
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            circuitBreaker.onSuccess(elapsed);
+            log.debug("ML批量推理完成: size={}, 耗时={}ms", batch.size(), elapsed);
+
+            for (int i = 0; i < batch.size(); i++) {
+                JSONObject prediction = predictions.getJSONObject(i);
+                batch.get(i).result.complete(new Prediction(prediction.getDoubleValue("score"),
+                        prediction.getString("match_grade"), prediction.getDoubleValue("confidence")));
+            }
+        } catch (Exception e) {
+            circuitBreaker.onFailure();
+            log.warn("调用ML批量推理失败: size={}, error={}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 构建单条特征的请求体
+     *
+     * @param feature 匹配特征
+     * @return 特征名 -> 得分
+     */
+    private static Map<String, Object> toRequest(MatchFeature feature) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("variety_score", feature.getVarietyScore().doubleValue());
+        request.put("region_score", feature.getRegionScore().doubleValue());
+        request.put("climate_score", feature.getClimateScore().doubleValue());
+        request.put("season_score", feature.getSeasonScore().doubleValue());
+        request.put("quality_score", feature.getQualityScore().doubleValue());
+        request.put("intent_score", feature.getIntentScore().doubleValue());
+        return request;
+    }
+
+    /**
+     * ML模型预测结果
+     *
+     * @param score      综合得分
+     * @param grade      匹配等级
+     * @param confidence 置信度(0-1)
+     */
+    public record Prediction(double score, String grade, double confidence) {
+    }
+
+    /**
+     * 等待发送的特征
+     *
+     * @param request    请求体
+     * @param enqueuedAt 入队时间（纳秒）
+     * @param result     预测结果
+     */
+    private record Pending(Map<String, Object> request, long enqueuedAt, CompletableFuture<Prediction> result) {
+    }
+}
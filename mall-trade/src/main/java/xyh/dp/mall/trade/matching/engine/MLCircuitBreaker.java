@@ -0,0 +1,201 @@
+package xyh.dp.mall.trade.matching.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ML推理服务熔断器
+ * 以一次批量调用为单位统计：连续失败（含超过slowCallMs的慢调用）达到阈值后熔断，
+ * 熔断期间的请求立即失败、由调用方使用规则引擎得分；到期后放行一次试探调用，成功则恢复，失败则继续熔断
+ *
+ * <p>注册Micrometer指标（有MeterRegistry时）：mall.ml.circuit.state（0关闭/1半开/2熔断）、
+ * mall.ml.circuit.transitions（tag state=进入的状态）、mall.ml.circuit.rejected、mall.ml.calls（tag outcome）。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class MLCircuitBreaker {
+
+    private static final String METRIC_PREFIX = "mall.ml.";
+
+    /**
+     * 熔断状态
+     */
+    public enum State {
+        /**
+         * 关闭：正常调用
+         */
+        CLOSED,
+        /**
+         * 半开：放行一次试探调用
+         */
+        HALF_OPEN,
+        /**
+         * 熔断：拒绝调用
+         */
+        OPEN
+    }
+
+    /**
+     * 熔断中拒绝调用
+     */
+    public static class OpenException extends IllegalStateException {
+
+        /**
+         * 创建熔断拒绝异常
+         */
+        public OpenException() {
+            super("ML推理服务熔断中");
+        }
+    }
+
+    private final MLResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openUntilNanos;
+
+    /**
+     * 连续失败次数（受this保护）
+     */
+    private int consecutiveFailures;
+
+    /**
+     * 半开状态下试探调用是否已放行（受this保护）
+     */
+    private boolean trialPermitted;
+
+    /**
+     * 创建熔断器
+     *
+     * @param properties            配置
+     * @param meterRegistryProvider 指标注册表（可选）
+     */
+    public MLCircuitBreaker(MLResilienceProperties properties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            Gauge.builder(METRIC_PREFIX + "circuit.state", this, breaker -> breaker.state.ordinal())
+                    .description("ML推理服务熔断状态（0关闭/1半开/2熔断）").register(meterRegistry);
+            rejectedCounter = Counter.builder(METRIC_PREFIX + "circuit.rejected")
+                    .description("熔断期间被拒绝的调用数").register(meterRegistry);
+        } else {
+            rejectedCounter = null;
+        }
+    }
+
+    /**
+     * 申请一次调用
+     *
+     * @return 允许调用返回true，熔断中返回false
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+                transitionTo(State.HALF_OPEN);
+                trialPermitted = false;
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN && !trialPermitted) {
+                trialPermitted = true;
+                return true;
+            }
+        }
+        if (rejectedCounter != null) {
+            rejectedCounter.increment();
+        }
+        return false;
+    }
+
+    /**
+     * 记录一次成功调用
+     *
+     * @param elapsedMs 调用耗时（毫秒），超过slowCallMs按失败计
+     */
+    public void onSuccess(long elapsedMs) {
+        if (elapsedMs > properties.getSlowCallMs()) {
+            record("slow");
+            failed();
+            return;
+        }
+        record("success");
+        synchronized (this) {
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                transitionTo(State.CLOSED);
+            }
+        }
+    }
+
+    /**
+     * 记录一次失败调用
+     */
+    public void onFailure() {
+        record("failure");
+        failed();
+    }
+
+    /**
+     * 当前状态
+     *
+     * @return 熔断状态
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 累计失败，达到阈值或试探失败时熔断
+     */
+    private synchronized void failed() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= properties.getFailureThreshold())) {
+            openUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getOpenMs());
+            consecutiveFailures = 0;
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * 切换状态
+     *
+     * @param target 目标状态
+     */
+    private void transitionTo(State target) {
+        State previous = state;
+        state = target;
+        if (target == State.OPEN) {
+            log.warn("ML推理服务熔断: {} -> OPEN，{}ms内使用规则引擎得分", previous, properties.getOpenMs());
+        } else {
+            log.info("ML推理服务熔断状态变更: {} -> {}", previous, target);
+        }
+        if (meterRegistry != null) {
+            meterRegistry.counter(METRIC_PREFIX + "circuit.transitions", "state", target.name()).increment();
+        }
+    }
+
+    /**
+     * 记录调用结果
+     *
+     * @param outcome success/failure/slow
+     */
+    private void record(String outcome) {
+        if (meterRegistry != null) {
+            meterRegistry.counter(METRIC_PREFIX + "calls", "outcome", outcome).increment();
+        }
+    }
+}
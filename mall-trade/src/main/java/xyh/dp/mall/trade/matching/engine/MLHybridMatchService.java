@@ -1,27 +1,26 @@
 package xyh.dp.mall.trade.matching.engine;
 
-import com.alibaba.fastjson2.JSONObject;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestClientException;
 import xyh.dp.mall.trade.entity.PlantingPlan;
 import xyh.dp.mall.trade.feign.dto.ProductDTO;
 import xyh.dp.mall.trade.matching.feature.MatchFeature;
+import xyh.dp.mall.trade.matching.model.LocalModelRegistry;
+import xyh.dp.mall.trade.matching.model.TreeEnsembleModel;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ML混合匹配服务
  * 支持规则引擎和机器学习模型的混合使用
  * 
  * 策略：
- * 1. 优先尝试调用ML模型API
- * 2. 如果ML API不可用 → 降级到规则引擎
+ * 1. 优先使用进程内加载的树集成模型；未加载时调用ML模型API（经{@link MLBatchScorer}批量调用）
+ * 2. 如果ML API不可用、超时、熔断中或超出匹配任务的延迟预算 → 降级到规则引擎（规则引擎得分总是先算好）
  * 3. 支持灰度发布：可配置ML模型的流量比例
  * 
  * @author mall-cloud
@@ -33,7 +32,9 @@ import java.util.Map;
 public class MLHybridMatchService {
 
     private final MatchScoreCalculator ruleEngineCalculator;
-    private final RestTemplate restTemplate;
+    private final MLBatchScorer mlBatchScorer;
+    private final LocalModelRegistry localModelRegistry;
+    private final MLResilienceProperties resilienceProperties;
     
     /**
      * ML模型API地址（从配置文件读取）
@@ -66,117 +67,134 @@ public class MLHybridMatchService {
      * @return 匹配特征
      */
     public MatchFeature calculateScore(PlantingPlan plan, ProductDTO product) {
-        // 检查是否应该使用ML模型（基于流量比例）
-        boolean useMl = shouldUseMl();
-        
-        if (useMl) {
-            log.debug("使用ML模型计算匹配得分: planId={}, productId={}", 
-                    plan.getPlanId(), product.getId());
-            
-            // 尝试调用ML模型
-            MatchFeature mlFeature = calculateScoreWithML(plan, product);
-            if (mlFeature != null) {
-                log.info("ML模型预测成功: planId={}, productId={}, score={}", 
-                        plan.getPlanId(), product.getId(), mlFeature.getTotalScore());
-                return mlFeature;
-            }
-            
-            // ML模型失败，降级到规则引擎
-            log.warn("ML模型失败，降级到规则引擎: planId={}, productId={}", 
-                    plan.getPlanId(), product.getId());
+        MatchFeature feature = calculateScoreAsync(plan, product, taskDeadline()).join();
+        describe(feature);
+        return feature;
+    }
+
+    /**
+     * 为匹配特征生成建议描述
+     * 异步评分不生成描述，只为最终返回的结果调用；已有描述的不重复生成
+     *
+     * @param feature 匹配特征
+     */
+    public void describe(MatchFeature feature) {
+        if (feature.getRecommendation() != null) {
+            return;
         }
-        
-        // 使用规则引擎计算
-        log.debug("使用规则引擎计算匹配得分: planId={}, productId={}", 
-                plan.getPlanId(), product.getId());
-        return ruleEngineCalculator.calculateScore(plan, product);
+        if (feature.getMlConfidence() != null) {
+            feature.setRecommendation(generateMLRecommendation(feature, feature.getMlConfidence()));
+        } else {
+            ruleEngineCalculator.describe(feature);
+        }
+    }
+
+    /**
+     * 是否只使用规则引擎（ML未启用或流量比例为0，默认配置）
+     * 此时批量匹配可直接走{@link MatchScoreCalculator#rankTopN}评分内核，不必逐个候选商品计算完整特征
+     *
+     * @return 只使用规则引擎返回true
+     */
+    public boolean isRuleOnly() {
+        return !mlEnabled || mlTrafficRatio <= 0;
+    }
+
+    /**
+     * 从现在开始计算的匹配任务截止时间
+     *
+     * @return 截止时间（System.nanoTime()口径）
+     */
+    public long taskDeadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(resilienceProperties.getTaskBudgetMs());
     }
 
     /**
-     * 使用ML模型计算匹配得分
+     * 异步混合计算匹配得分
+     * 规则引擎特征立即计算；走ML模型的特征提交到{@link MLBatchScorer}，与同一时间窗口内的其他特征合并为一次批量请求。
+     * 一次提交全部候选商品再逐个等待结果，整个匹配任务只需约一次推理往返。
+     * 同一任务的候选商品共用一个截止时间，到期仍未拿到ML结果的候选商品直接采用规则引擎结果
      * 
      * @param plan 种植计划
      * @param product 商品信息
-     * @return 匹配特征，失败返回null
+     * @param deadlineNanos 匹配任务截止时间（{@link #taskDeadline()}）
+     * @return 匹配特征（不含建议描述，见{@link #describe}），ML模型失败、熔断或超出截止时间时为规则引擎结果（不会异常完成）
      */
-    private MatchFeature calculateScoreWithML(PlantingPlan plan, ProductDTO product) {
-        if (!mlEnabled) {
-            log.debug("ML模型已禁用");
-            return null;
+    public CompletableFuture<MatchFeature> calculateScoreAsync(PlantingPlan plan, ProductDTO product, long deadlineNanos) {
+        // 先用规则引擎计算一次，获取完整特征（包含硬性约束判断）；建议描述只为返回的结果生成
+        MatchFeature feature = ruleEngineCalculator.calculateFeatures(plan, product);
+
+        // 检查是否应该使用ML模型（基于流量比例）；存在硬性不匹配时直接返回规则引擎结果
+        if (!shouldUseMl() || ruleEngineCalculator.isHardMismatch(feature)) {
+            return CompletableFuture.completedFuture(feature);
         }
-        
-        try {
-            // 1. 先用规则引擎计算一次，获取完整特征（包含硬性约束判断）
-            MatchFeature feature = ruleEngineCalculator.calculateScore(plan, product);
-
-            // 如果存在硬性不匹配，直接返回规则引擎结果，不再调用ML
-            if (ruleEngineCalculator.isHardMismatch(feature)) {
-                log.debug("存在硬性不匹配，跳过ML模型: planId={}, productId={}",
-                        plan.getPlanId(), product.getId());
-                return feature;
-            }
-            
-            // 2. 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("variety_score", feature.getVarietyScore().doubleValue());
-            requestBody.put("region_score", feature.getRegionScore().doubleValue());
-            requestBody.put("climate_score", feature.getClimateScore().doubleValue());
-            requestBody.put("season_score", feature.getSeasonScore().doubleValue());
-            requestBody.put("quality_score", feature.getQualityScore().doubleValue());
-            requestBody.put("intent_score", feature.getIntentScore().doubleValue());
-            
-            // 3. 调用ML API
-            String predictUrl = mlApiUrl + "/api/predict";
-            log.debug("调用ML API: url={}, feature={}", predictUrl, requestBody);
-            
-            String response = restTemplate.postForObject(predictUrl, requestBody, String.class);
-            
-            if (response == null) {
-                log.error("ML API返回null");
-                return null;
-            }
-            
-            // 4. 解析响应
-            JSONObject jsonResponse = JSONObject.parseObject(response);
-            
-            if (jsonResponse.containsKey("error")) {
-                log.error("ML API返回错误: {}", jsonResponse.getString("error"));
-                return null;
-            }
-            
-            // 5. 更新特征
-            BigDecimal mlScore = new BigDecimal(jsonResponse.getDouble("score"));
-            String mlGrade = jsonResponse.getString("grade");
-            
-            feature.setTotalScore(mlScore);
-            feature.setMatchGrade(mlGrade);
-            feature.setRecommendation(generateMLRecommendation(feature, jsonResponse));
-            
-            log.debug("ML模型预测结果: score={}, grade={}", mlScore, mlGrade);
-            
-            return feature;
-            
-        } catch (RestClientException e) {
-            log.warn("调用ML API失败（连接错误）: {}", e.getMessage());
-            return null;
-        } catch (Exception e) {
-            log.error("调用ML API异常: {}", e.getMessage(), e);
-            return null;
+
+        // 进程内模型只给出匹配概率，得分和等级沿用规则引擎（与推理服务的加权得分公式一致）
+        TreeEnsembleModel localModel = localModelRegistry.current();
+        if (localModel != null) {
+            feature.setMlConfidence(localModel.predict(toScores(feature), 0));
+            return CompletableFuture.completedFuture(feature);
+        }
+
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+            return CompletableFuture.completedFuture(feature);
         }
+
+        log.debug("使用ML模型计算匹配得分: planId={}, productId={}", plan.getPlanId(), product.getId());
+        // 到截止时间以null完成，之后到达的ML结果被丢弃，不会再改写已交出的规则引擎特征
+        return mlBatchScorer.submit(feature)
+                .completeOnTimeout(null, remainingNanos, TimeUnit.NANOSECONDS)
+                .handle((prediction, error) -> {
+                    if (error != null) {
+                        // ML模型失败，降级到规则引擎；熔断中的拒绝已由熔断器记录，不逐条告警
+                        if (!(error instanceof MLCircuitBreaker.OpenException)) {
+                            log.warn("ML模型失败，降级到规则引擎: planId={}, productId={}, error={}",
+                                    plan.getPlanId(), product.getId(), error.getMessage());
+                        }
+                        return feature;
+                    }
+                    if (prediction == null) {
+                        log.debug("ML模型超出匹配任务延迟预算，采用规则引擎得分: planId={}, productId={}",
+                                plan.getPlanId(), product.getId());
+                        return feature;
+                    }
+                    feature.setTotalScore(BigDecimal.valueOf(prediction.score()));
+                    feature.setMatchGrade(prediction.grade());
+                    feature.setMlConfidence(prediction.confidence());
+                    log.debug("ML模型预测结果: planId={}, productId={}, score={}, grade={}",
+                            plan.getPlanId(), product.getId(), prediction.score(), prediction.grade());
+                    return feature;
+                });
+    }
+
+    /**
+     * 匹配特征转换为模型输入
+     * 
+     * @param feature 匹配特征
+     * @return 特征得分数组，下标见{@link MatchFeature#VARIETY}等
+     */
+    private static double[] toScores(MatchFeature feature) {
+        double[] scores = new double[MatchFeature.FEATURE_COUNT];
+        scores[MatchFeature.VARIETY] = feature.getVarietyScore().doubleValue();
+        scores[MatchFeature.REGION] = feature.getRegionScore().doubleValue();
+        scores[MatchFeature.CLIMATE] = feature.getClimateScore().doubleValue();
+        scores[MatchFeature.SEASON] = feature.getSeasonScore().doubleValue();
+        scores[MatchFeature.QUALITY] = feature.getQualityScore().doubleValue();
+        scores[MatchFeature.INTENT] = feature.getIntentScore().doubleValue();
+        return scores;
     }
 
     /**
      * 根据ML模型响应生成建议
      * 
      * @param feature 匹配特征
-     * @param jsonResponse ML模型的JSON响应
+     * @param confidence ML模型的置信度(0-1)
      * @return 建议文本
      */
-    private String generateMLRecommendation(MatchFeature feature, JSONObject jsonResponse) {
+    private String generateMLRecommendation(MatchFeature feature, double confidence) {
         StringBuilder sb = new StringBuilder();
         
         // ML模型的置信度
-        double confidence = jsonResponse.getDoubleValue("confidence");
         sb.append("ML模型预测置信度: ").append(String.format("%.2f%%", confidence * 100)).append("。");
         
         // 等级评价
@@ -220,10 +238,15 @@ public class MLHybridMatchService {
      * @return 配置信息
      */
     public MLModelConfig getModelConfig() {
+        TreeEnsembleModel localModel = localModelRegistry.current();
         return MLModelConfig.builder()
                 .mlEnabled(mlEnabled)
                 .mlApiUrl(mlApiUrl)
                 .mlTrafficRatio(mlTrafficRatio)
+                .localModel(localModel != null
+                        ? String.format("%s v%d（%d棵树）",
+                                localModel.modelName(), localModel.version(), localModel.treeCount())
+                        : null)
                 .description(String.format(
                     "ML模型%s，流量比例: %d%%（%d%%规则引擎 + %d%%ML模型）",
                     mlEnabled ? "已启用" : "已禁用",
@@ -243,6 +266,11 @@ public class MLHybridMatchService {
         private boolean mlEnabled;
         private String mlApiUrl;
         private int mlTrafficRatio;
+
+        /**
+         * 进程内推理模型，未加载为null（使用推理服务）
+         */
+        private String localModel;
         private String description;
     }
 }
@@ -0,0 +1,37 @@
+package xyh.dp.mall.trade.matching.engine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * ML模型调用的延迟预算与熔断配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ml.model.resilience")
+public class MLResilienceProperties {
+
+    /**
+     * 单个匹配任务等待ML结果的总预算（毫秒），到期未返回的候选商品使用规则引擎得分
+     */
+    private long taskBudgetMs = 2000;
+
+    /**
+     * 连续失败多少次批量调用后熔断
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * 熔断持续时间（毫秒），到期后放行一次试探调用
+     */
+    private long openMs = 30000;
+
+    /**
+     * 批量调用超过该耗时（毫秒）按失败计入熔断统计（结果仍然交还调用方）
+     */
+    private long slowCallMs = 1000;
+}
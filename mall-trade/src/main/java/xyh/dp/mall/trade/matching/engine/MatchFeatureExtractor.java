@@ -7,19 +7,24 @@ import org.springframework.util.StringUtils;
 import xyh.dp.mall.trade.entity.PlantingPlan;
 import xyh.dp.mall.trade.feign.dto.ProductDTO;
 import xyh.dp.mall.trade.matching.feature.MatchFeature;
-import xyh.dp.mall.trade.matching.feature.RegionClimateData;
+import xyh.dp.mall.trade.matching.region.ClimateDataset;
+import xyh.dp.mall.trade.matching.region.RegionDirectory;
+import xyh.dp.mall.trade.matching.region.RegionKnowledgeBase;
+import xyh.dp.mall.trade.matching.variety.VarietySimilarityService;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.Month;
-import java.util.Arrays;
 import java.util.List;
 
 /**
  * 匹配特征提取器
  * 从种植计划和商品中提取6维特征向量
  * 
+ * <p>各特征以double计算：{@link #extractScores}直接写入评分内核的特征数组，
+ * {@link #extractFeatures}在其基础上转换为两位小数的BigDecimal，两条路径得分一致。</p>
+ * 
  * @author mall-cloud
  * @since 1.0.0
  */
@@ -28,8 +33,24 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MatchFeatureExtractor {
 
-    private static final BigDecimal HUNDRED = new BigDecimal("100");
-    private static final BigDecimal ZERO = BigDecimal.ZERO;
+    /**
+     * 四季顺序（相邻季节匹配用）
+     */
+    private static final String[] SEASON_ORDER = {"春季", "夏季", "秋季", "冬季"};
+
+    /**
+     * 用途关键词映射（每行第一个为用途类别）
+     */
+    private static final String[][] USAGE_KEYWORDS = {
+        {"工艺品制作", "工艺", "手工", "艺术", "装饰", "观赏"},
+        {"食用", "食用加工", "鲜食", "餐饮", "美食", "营养"},
+        {"鲜食销售", "新鲜", "鲜果", "采摘", "直销"},
+        {"粮食储备", "粮食", "储存", "加工", "饲料"},
+        {"观赏", "园艺", "绿化", "盆栽", "庭院"}
+    };
+
+    private final VarietySimilarityService varietySimilarityService;
+    private final RegionDirectory regionDirectory;
 
     /**
      * 提取匹配特征
@@ -48,41 +69,79 @@ public class MatchFeatureExtractor {
                 .supplierId(product.getSupplierId())
                 .price(product.getPrice())
                 .stock(product.getStock())
-                .varietyScore(calculateVarietyScore(plan.getVariety(), product.getVariety()))
-                .regionScore(calculateRegionScore(plan.getRegion(), product.getRegions()))
-                .climateScore(calculateClimateScore(plan.getRegion(), product))
-                .seasonScore(calculateSeasonScore(plan.getPlantingDate(), product.getPlantingSeasons()))
-                .qualityScore(calculateQualityScore(product))
-                .intentScore(calculateIntentScore(plan.getTargetUsage(), product.getDescription()))
+                .varietyScore(toDecimal(calculateVarietyScore(plan.getVariety(), product.getVariety())))
+                .regionScore(toDecimal(calculateRegionScore(plan.getRegion(), product.getRegions())))
+                .climateScore(toDecimal(calculateClimateScore(plan.getRegion(), plan.getPlantingDate(), product)))
+                .seasonScore(toDecimal(calculateSeasonScore(plan.getPlantingDate(), product.getPlantingSeasons())))
+                .qualityScore(toDecimal(calculateQualityScore(product)))
+                .intentScore(toDecimal(calculateIntentScore(plan.getTargetUsage(), product.getDescription())))
                 .build();
     }
 
+    /**
+     * 提取匹配特征到double数组（评分内核使用，不创建BigDecimal和MatchFeature）
+     * 写入scores[offset, offset + {@link MatchFeature#FEATURE_COUNT})，下标见{@link MatchFeature#VARIETY}等
+     * 
+     * @param plan 种植计划
+     * @param product 商品信息
+     * @param scores 特征数组
+     * @param offset 写入起始位置
+     */
+    public void extractScores(PlantingPlan plan, ProductDTO product, double[] scores, int offset) {
+        extractBaseScores(plan, product, scores, offset);
+        extractContextScores(plan, product, scores, offset);
+    }
+
+    /**
+     * 提取计算量小的特征：硬性约束特征（品种、区域、季节）和质量特征
+     * 流式筛选时先算这部分，硬性不匹配的商品不再计算其余特征
+     * 
+     * @param plan 种植计划
+     * @param product 商品信息
+     * @param scores 特征数组
+     * @param offset 写入起始位置
+     */
+    public void extractBaseScores(PlantingPlan plan, ProductDTO product, double[] scores, int offset) {
+        scores[offset + MatchFeature.VARIETY] = calculateVarietyScore(plan.getVariety(), product.getVariety());
+        scores[offset + MatchFeature.REGION] = calculateRegionScore(plan.getRegion(), product.getRegions());
+        scores[offset + MatchFeature.SEASON] = calculateSeasonScore(plan.getPlantingDate(), product.getPlantingSeasons());
+        scores[offset + MatchFeature.QUALITY] = calculateQualityScore(product);
+    }
+
+    /**
+     * 提取计算量大的特征：气候（区域知识库和月度气候数据查询）和意图（描述关键词匹配）
+     * 流式筛选时只为得分上界还能进入前N名的商品计算
+     * 
+     * @param plan 种植计划
+     * @param product 商品信息
+     * @param scores 特征数组
+     * @param offset 写入起始位置
+     */
+    public void extractContextScores(PlantingPlan plan, ProductDTO product, double[] scores, int offset) {
+        scores[offset + MatchFeature.CLIMATE] = calculateClimateScore(plan.getRegion(), plan.getPlantingDate(), product);
+        scores[offset + MatchFeature.INTENT] = calculateIntentScore(plan.getTargetUsage(), product.getDescription());
+    }
+
+    /**
+     * 特征得分转换为两位小数
+     * 
+     * @param score 得分
+     * @return 得分(保留2位小数)
+     */
+    private static BigDecimal toDecimal(double score) {
+        return BigDecimal.valueOf(score).setScale(2, RoundingMode.HALF_UP);
+    }
+
     /**
      * 特征1: 品种一致性得分
-     * 使用编辑距离算法计算相似度
+     * 使用编辑距离算法计算相似度，按品种对缓存
      * 
      * @param planVariety 种植计划品种
      * @param productVariety 商品品种
      * @return 得分(0-100)
      */
-    private BigDecimal calculateVarietyScore(String planVariety, String productVariety) {
-        if (!StringUtils.hasText(planVariety) || !StringUtils.hasText(productVariety)) {
-            return ZERO;
-        }
-
-        // 完全匹配
-        if (planVariety.equals(productVariety)) {
-            return HUNDRED;
-        }
-
-        // 包含匹配
-        if (planVariety.contains(productVariety) || productVariety.contains(planVariety)) {
-            return new BigDecimal("85");
-        }
-
-        // 相似度计算（基于编辑距离）
-        double similarity = calculateStringSimilarity(planVariety, productVariety);
-        return new BigDecimal(similarity * 100).setScale(2, RoundingMode.HALF_UP);
+    private double calculateVarietyScore(String planVariety, String productVariety) {
+        return varietySimilarityService.score(planVariety, productVariety);
     }
 
     /**
@@ -92,88 +151,94 @@ public class MatchFeatureExtractor {
      * @param productRegions 商品适配区域列表
      * @return 得分(0-100)
      */
-    private BigDecimal calculateRegionScore(String planRegion, List<String> productRegions) {
+    private double calculateRegionScore(String planRegion, List<String> productRegions) {
         if (!StringUtils.hasText(planRegion) || productRegions == null || productRegions.isEmpty()) {
-            return new BigDecimal("50"); // 无区域信息时给默认分
+            return 50; // 无区域信息时给默认分
         }
 
         // 精确匹配
         for (String region : productRegions) {
             if (planRegion.contains(region) || region.contains(planRegion)) {
-                return HUNDRED;
+                return 100;
             }
         }
 
         // 大区匹配（如"山东菏泽"匹配"华东"）
+        RegionKnowledgeBase regions = regionDirectory.current();
         for (String region : productRegions) {
-            if (RegionClimateData.belongsToMajorRegion(planRegion, region)) {
-                return new BigDecimal("80");
+            if (regions.belongsToMajorRegion(planRegion, region)) {
+                return 80;
             }
         }
 
         // 无匹配
-        return new BigDecimal("30");
+        return 30;
     }
 
     /**
      * 特征3: 气候匹配得分
-     * 根据区域气候与商品种植环境要求匹配
+     * 根据区域气候与商品种植环境要求匹配；月度气候数据收录了该区域时使用种植月份的数据，否则使用年均值
      * 
      * @param planRegion 种植区域
+     * @param plantingDate 种植时间
      * @param product 商品信息
      * @return 得分(0-100)
      */
-    private BigDecimal calculateClimateScore(String planRegion, ProductDTO product) {
-        RegionClimateData climate = RegionClimateData.getByRegion(planRegion);
-        
-        BigDecimal score = new BigDecimal("100");
-        int penaltyCount = 0;
+    private double calculateClimateScore(String planRegion, LocalDate plantingDate, ProductDTO product) {
+        RegionKnowledgeBase regions = regionDirectory.current();
+        ClimateDataset monthly = regionDirectory.climateDataset();
+        int record = plantingDate != null ? regions.monthlyRecordOf(planRegion, monthly) : ClimateDataset.NONE;
+        double regionTemp;
+        double regionHumidity;
+        String lightCondition;
+        if (record != ClimateDataset.NONE) {
+            int month = plantingDate.getMonthValue();
+            regionTemp = monthly.avgTemperature(record, month);
+            regionHumidity = monthly.avgHumidity(record, month);
+            lightCondition = monthly.lightCondition(record, month);
+        } else {
+            int climate = regions.climateOf(planRegion);
+            regionTemp = regions.avgTemperature(climate);
+            regionHumidity = regions.avgHumidity(climate);
+            lightCondition = regions.lightCondition(climate);
+        }
+
+        double score = 100;
 
         // 温度匹配
         if (product.getMinTemperature() != null && product.getMaxTemperature() != null) {
-            BigDecimal regionTemp = climate.getAvgTemperature();
-            if (regionTemp.compareTo(product.getMinTemperature()) < 0 || 
-                regionTemp.compareTo(product.getMaxTemperature()) > 0) {
+            double minTemp = product.getMinTemperature().doubleValue();
+            double maxTemp = product.getMaxTemperature().doubleValue();
+            if (regionTemp < minTemp || regionTemp > maxTemp) {
                 // 超出范围，计算偏离程度
-                BigDecimal deviation;
-                if (regionTemp.compareTo(product.getMinTemperature()) < 0) {
-                    deviation = product.getMinTemperature().subtract(regionTemp);
-                } else {
-                    deviation = regionTemp.subtract(product.getMaxTemperature());
-                }
+                double deviation = regionTemp < minTemp ? minTemp - regionTemp : regionTemp - maxTemp;
                 // 每偏离1度扣5分，最多扣30分
-                BigDecimal penalty = deviation.multiply(new BigDecimal("5")).min(new BigDecimal("30"));
-                score = score.subtract(penalty);
-                penaltyCount++;
+                score -= Math.min(deviation * 5, 30);
             }
         }
 
         // 湿度匹配
         if (product.getMinHumidity() != null && product.getMaxHumidity() != null) {
-            BigDecimal regionHumidity = climate.getAvgHumidity();
-            if (regionHumidity.compareTo(product.getMinHumidity()) < 0 || 
-                regionHumidity.compareTo(product.getMaxHumidity()) > 0) {
-                score = score.subtract(new BigDecimal("15"));
-                penaltyCount++;
+            if (regionHumidity < product.getMinHumidity().doubleValue() || 
+                regionHumidity > product.getMaxHumidity().doubleValue()) {
+                score -= 15;
             }
         }
 
         // 光照匹配
-        if (StringUtils.hasText(product.getLightRequirement()) && 
-            StringUtils.hasText(climate.getLightCondition())) {
-            if (!product.getLightRequirement().equals(climate.getLightCondition())) {
+        if (StringUtils.hasText(product.getLightRequirement())) {
+            if (!product.getLightRequirement().equals(lightCondition)) {
                 // 不完全匹配，但不完全不兼容
-                if (!"SHADE".equals(climate.getLightCondition()) || 
+                if (!"SHADE".equals(lightCondition) || 
                     !"FULL_SUN".equals(product.getLightRequirement())) {
-                    score = score.subtract(new BigDecimal("10"));
+                    score -= 10;
                 } else {
-                    score = score.subtract(new BigDecimal("25"));
+                    score -= 25;
                 }
-                penaltyCount++;
             }
         }
 
-        return score.max(ZERO);
+        return Math.max(score, 0);
     }
 
     /**
@@ -183,37 +248,36 @@ public class MatchFeatureExtractor {
      * @param plantingSeasons 适宜种植季节
      * @return 得分(0-100)
      */
-    private BigDecimal calculateSeasonScore(LocalDate plantingDate, List<String> plantingSeasons) {
+    private double calculateSeasonScore(LocalDate plantingDate, List<String> plantingSeasons) {
         if (plantingDate == null) {
-            return new BigDecimal("50");
+            return 50;
         }
 
         String currentSeason = getSeasonFromDate(plantingDate);
         
         if (plantingSeasons == null || plantingSeasons.isEmpty()) {
-            return new BigDecimal("60"); // 无季节信息时给默认分
+            return 60; // 无季节信息时给默认分
         }
 
         // 精确季节匹配
         for (String season : plantingSeasons) {
             if (currentSeason.equals(season)) {
-                return HUNDRED;
+                return 100;
             }
         }
 
         // 相邻季节匹配
-        String[] seasonOrder = {"春季", "夏季", "秋季", "冬季"};
-        int currentIndex = Arrays.asList(seasonOrder).indexOf(currentSeason);
+        int currentIndex = seasonIndex(currentSeason);
         for (String season : plantingSeasons) {
-            int seasonIndex = Arrays.asList(seasonOrder).indexOf(season);
+            int seasonIndex = seasonIndex(season);
             if (Math.abs(currentIndex - seasonIndex) == 1 || 
                 (currentIndex == 0 && seasonIndex == 3) || 
                 (currentIndex == 3 && seasonIndex == 0)) {
-                return new BigDecimal("70");
+                return 70;
             }
         }
 
-        return new BigDecimal("40");
+        return 40;
     }
 
     /**
@@ -223,48 +287,48 @@ public class MatchFeatureExtractor {
      * @param product 商品信息
      * @return 得分(0-100)
      */
-    private BigDecimal calculateQualityScore(ProductDTO product) {
-        BigDecimal score = ZERO;
+    private double calculateQualityScore(ProductDTO product) {
+        double score = 0;
         int factorCount = 0;
 
         // 发芽率（权重40%）
         if (product.getGerminationRate() != null) {
-            score = score.add(product.getGerminationRate().multiply(new BigDecimal("0.4")));
+            score += product.getGerminationRate().doubleValue() * 0.4;
             factorCount++;
         }
 
         // 品种纯度（权重30%）
         if (product.getPurity() != null) {
-            score = score.add(product.getPurity().multiply(new BigDecimal("0.3")));
+            score += product.getPurity().doubleValue() * 0.3;
             factorCount++;
         }
 
         // 种植难度（权重30%）
         if (StringUtils.hasText(product.getDifficulty())) {
-            BigDecimal difficultyScore;
+            double difficultyScore;
             switch (product.getDifficulty()) {
                 case "EASY":
-                    difficultyScore = HUNDRED;
+                    difficultyScore = 100;
                     break;
                 case "MEDIUM":
-                    difficultyScore = new BigDecimal("70");
+                    difficultyScore = 70;
                     break;
                 case "HARD":
-                    difficultyScore = new BigDecimal("50");
+                    difficultyScore = 50;
                     break;
                 default:
-                    difficultyScore = new BigDecimal("60");
+                    difficultyScore = 60;
             }
-            score = score.add(difficultyScore.multiply(new BigDecimal("0.3")));
+            score += difficultyScore * 0.3;
             factorCount++;
         }
 
         // 如果没有任何质量指标，返回默认分
         if (factorCount == 0) {
-            return new BigDecimal("60");
+            return 60;
         }
 
-        return score.setScale(2, RoundingMode.HALF_UP);
+        return score;
     }
 
     /**
@@ -275,23 +339,14 @@ public class MatchFeatureExtractor {
      * @param description 商品描述
      * @return 得分(0-100)
      */
-    private BigDecimal calculateIntentScore(String targetUsage, String description) {
+    private double calculateIntentScore(String targetUsage, String description) {
         if (!StringUtils.hasText(targetUsage)) {
-            return new BigDecimal("50");
+            return 50;
         }
 
-        // 用途关键词映射
-        String[][] usageKeywords = {
-            {"工艺品制作", "工艺", "手工", "艺术", "装饰", "观赏"},
-            {"食用", "食用加工", "鲜食", "餐饮", "美食", "营养"},
-            {"鲜食销售", "新鲜", "鲜果", "采摘", "直销"},
-            {"粮食储备", "粮食", "储存", "加工", "饲料"},
-            {"观赏", "园艺", "绿化", "盆栽", "庭院"}
-        };
-
         // 查找匹配的用途类别
         String[] matchedKeywords = null;
-        for (String[] keywords : usageKeywords) {
+        for (String[] keywords : USAGE_KEYWORDS) {
             for (String keyword : keywords) {
                 if (targetUsage.contains(keyword)) {
                     matchedKeywords = keywords;
@@ -302,12 +357,12 @@ public class MatchFeatureExtractor {
         }
 
         if (matchedKeywords == null) {
-            return new BigDecimal("50");
+            return 50;
         }
 
         // 检查商品描述中是否包含匹配的关键词
         if (!StringUtils.hasText(description)) {
-            return new BigDecimal("60");
+            return 60;
         }
 
         int matchCount = 0;
@@ -318,12 +373,27 @@ public class MatchFeatureExtractor {
         }
 
         if (matchCount >= 2) {
-            return HUNDRED;
+            return 100;
         } else if (matchCount == 1) {
-            return new BigDecimal("80");
+            return 80;
         } else {
-            return new BigDecimal("50");
+            return 50;
+        }
+    }
+
+    /**
+     * 季节在四季中的顺序
+     * 
+     * @param season 季节名称
+     * @return 顺序(0-3)，未知季节返回-1
+     */
+    private static int seasonIndex(String season) {
+        for (int i = 0; i < SEASON_ORDER.length; i++) {
+            if (SEASON_ORDER[i].equals(season)) {
+                return i;
+            }
         }
+        return -1;
     }
 
     /**
@@ -351,47 +421,4 @@ public class MatchFeatureExtractor {
                 return "冬季";
         }
     }
-
-    /**
-     * 计算字符串相似度（基于Levenshtein距离）
-     * 
-     * @param s1 字符串1
-     * @param s2 字符串2
-     * @return 相似度(0-1)
-     */
-    private double calculateStringSimilarity(String s1, String s2) {
-        int distance = levenshteinDistance(s1, s2);
-        int maxLength = Math.max(s1.length(), s2.length());
-        if (maxLength == 0) {
-            return 1.0;
-        }
-        return 1.0 - (double) distance / maxLength;
-    }
-
-    /**
-     * 计算Levenshtein编辑距离
-     * 
-     * @param s1 字符串1
-     * @param s2 字符串2
-     * @return 编辑距离
-     */
-    private int levenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-
-        for (int i = 0; i <= s1.length(); i++) {
-            dp[i][0] = i;
-        }
-        for (int j = 0; j <= s2.length(); j++) {
-            dp[0][j] = j;
-        }
-
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                int cost = (s1.charAt(i - 1) == s2.charAt(j - 1)) ? 0 : 1;
-                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
-            }
-        }
-
-        return dp[s1.length()][s2.length()];
-    }
 }
@@ -19,6 +19,12 @@ import java.util.stream.Collectors;
  * 匹配评分计算器
  * 规则引擎 + 加权评分实现MVP版本
  * 
+ * <p>批量推荐走评分内核：每个候选商品的特征写入复用的double数组，与预先归一化的权重数组加权求和，
+ * 只维护前N名的下标；BigDecimal特征、匹配等级和建议文本只为最终的前N名生成。</p>
+ * 
+ * <p>候选商品流式筛选：先算品种、区域、季节和质量特征，硬性不匹配直接淘汰；
+ * 再以气候和意图按满分计的得分上界与当前第N名比较，进不了前N名的商品不再计算这两项特征。</p>
+ * 
  * @author mall-cloud
  * @since 1.0.0
  */
@@ -29,6 +35,31 @@ public class MatchScoreCalculator {
 
     private static final BigDecimal HARD_MISMATCH_THRESHOLD = new BigDecimal("40");
 
+    /**
+     * 硬性不匹配阈值（评分内核使用）
+     */
+    private static final double HARD_MISMATCH_SCORE = 40;
+
+    /**
+     * 推荐商品的最低得分
+     */
+    private static final double RECOMMEND_MIN_SCORE = 60;
+
+    /**
+     * 单项特征满分
+     */
+    private static final double MAX_FEATURE_SCORE = 100;
+
+    /**
+     * 建议描述中视为优势的最低得分
+     */
+    private static final BigDecimal STRENGTH_SCORE = new BigDecimal("80");
+
+    /**
+     * 建议描述中视为不足的得分上限（不含）
+     */
+    private static final BigDecimal WEAKNESS_SCORE = new BigDecimal("50");
+
     private final MatchFeatureExtractor featureExtractor;
     private final FeatureWeight featureWeight;
 
@@ -40,6 +71,32 @@ public class MatchScoreCalculator {
      * @return 完整的匹配特征（包含加权总分）
      */
     public MatchFeature calculateScore(PlantingPlan plan, ProductDTO product) {
+        MatchFeature feature = calculateFeatures(plan, product);
+        describe(feature);
+        return feature;
+    }
+
+    /**
+     * 为规则引擎的匹配特征生成建议描述
+     * 批量评分只为最终返回的结果调用
+     * 
+     * @param feature 已计算总分和等级的匹配特征
+     */
+    public void describe(MatchFeature feature) {
+        feature.setRecommendation(isHardMismatch(feature)
+                ? "品种/区域/季节存在硬性不匹配，不推荐该商品。"
+                : generateRecommendation(feature));
+    }
+
+    /**
+     * 计算单个商品的匹配特征、加权总分和等级，不生成建议描述
+     * 供只需要特征快照的场景（埋点）使用
+     * 
+     * @param plan 种植计划
+     * @param product 商品信息
+     * @return 匹配特征（建议描述为空）
+     */
+    public MatchFeature calculateFeatures(PlantingPlan plan, ProductDTO product) {
         // 提取特征
         MatchFeature feature = featureExtractor.extractFeatures(plan, product);
 
@@ -47,9 +104,8 @@ public class MatchScoreCalculator {
         if (isHardMismatch(feature)) {
             feature.setTotalScore(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP));
             feature.setMatchGrade("D");
-            feature.setRecommendation("品种/区域/季节存在硬性不匹配，不推荐该商品。");
 
-            log.info("硬性不匹配: planId={}, productId={}, varietyScore={}, regionScore={}, seasonScore={}",
+            log.debug("硬性不匹配: planId={}, productId={}, varietyScore={}, regionScore={}, seasonScore={}",
                     plan.getPlanId(), product.getId(),
                     feature.getVarietyScore(), feature.getRegionScore(), feature.getSeasonScore());
             return feature;
@@ -70,9 +126,8 @@ public class MatchScoreCalculator {
         // 设置总分和等级
         feature.setTotalScore(totalScore.setScale(2, RoundingMode.HALF_UP));
         feature.setMatchGrade(feature.calculateGrade());
-        feature.setRecommendation(generateRecommendation(feature));
         
-        log.info("计算匹配得分: planId={}, productId={}, totalScore={}, grade={}", 
+        log.debug("计算匹配得分: planId={}, productId={}, totalScore={}, grade={}", 
                 plan.getPlanId(), product.getId(), feature.getTotalScore(), feature.getMatchGrade());
         
         return feature;
@@ -102,6 +157,118 @@ public class MatchScoreCalculator {
                 || season.compareTo(HARD_MISMATCH_THRESHOLD) < 0;
     }
 
+    /**
+     * 评分内核：判断特征数组中的一个商品是否存在硬性不匹配
+     * 
+     * @param scores 特征数组
+     * @param offset 商品特征起始位置
+     * @return 存在硬性不匹配返回true
+     */
+    public static boolean isHardMismatch(double[] scores, int offset) {
+        return scores[offset + MatchFeature.VARIETY] < HARD_MISMATCH_SCORE
+                || scores[offset + MatchFeature.REGION] < HARD_MISMATCH_SCORE
+                || scores[offset + MatchFeature.SEASON] < HARD_MISMATCH_SCORE;
+    }
+
+    /**
+     * 评分内核：计算特征数组中一个商品的加权总分
+     * 结果四舍五入到两位小数，与{@link #calculateScore}的总分一致
+     * 
+     * @param scores 特征数组
+     * @param offset 商品特征起始位置
+     * @param weights 归一化的权重数组
+     * @return 加权总分，硬性不匹配返回0
+     */
+    public static double weightedScore(double[] scores, int offset, double[] weights) {
+        if (isHardMismatch(scores, offset)) {
+            return 0;
+        }
+        double total = 0;
+        for (int i = 0; i < MatchFeature.FEATURE_COUNT; i++) {
+            total += scores[offset + i] * weights[i];
+        }
+        return round(total);
+    }
+
+    /**
+     * 评分内核：只用先算的特征（品种、区域、季节、质量）求加权总分的上界，气候和意图按满分计
+     * 
+     * @param scores 特征数组（只读取先算的特征）
+     * @param offset 商品特征起始位置
+     * @param weights 归一化的权重数组
+     * @return 加权总分上界（与{@link #weightedScore}同样四舍五入）
+     */
+    public static double upperBound(double[] scores, int offset, double[] weights) {
+        double total = scores[offset + MatchFeature.VARIETY] * weights[MatchFeature.VARIETY]
+                + scores[offset + MatchFeature.REGION] * weights[MatchFeature.REGION]
+                + scores[offset + MatchFeature.SEASON] * weights[MatchFeature.SEASON]
+                + scores[offset + MatchFeature.QUALITY] * weights[MatchFeature.QUALITY]
+                + MAX_FEATURE_SCORE * (weights[MatchFeature.CLIMATE] + weights[MatchFeature.INTENT]);
+        return round(total);
+    }
+
+    /**
+     * 四舍五入到两位小数
+     * 
+     * @param total 总分
+     * @return 两位小数的总分
+     */
+    private static double round(double total) {
+        return Math.round(total * 100) / 100.0;
+    }
+
+    /**
+     * 用评分内核流式筛选前N名，只为前N名生成完整匹配特征
+     * 候选商品逐个经过：先算特征 → 硬性不匹配淘汰 → 得分上界剪枝 → 补算气候和意图特征 → 有界小顶堆
+     * 
+     * @param plan 种植计划
+     * @param products 商品列表
+     * @param limit 返回数量限制
+     * @param minScore 最低得分（含）
+     * @return 按匹配度排序的匹配特征列表，得分相同按商品列表顺序
+     */
+    public List<MatchFeature> rankTopN(PlantingPlan plan, List<ProductDTO> products, int limit, double minScore) {
+        if (products == null || products.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        double[] weights = featureWeight.normalizedWeights();
+        double[] scores = new double[MatchFeature.FEATURE_COUNT];
+        TopKSelector top = new TopKSelector(Math.min(limit, products.size()));
+        int pruned = 0;
+
+        for (int i = 0; i < products.size(); i++) {
+            ProductDTO product = products.get(i);
+            featureExtractor.extractBaseScores(plan, product, scores, 0);
+            double total = 0;
+            if (!isHardMismatch(scores, 0)) {
+                double bound = upperBound(scores, 0, weights);
+                if (bound < minScore || !top.accepts(bound)) {
+                    pruned++;
+                    continue;
+                }
+                featureExtractor.extractContextScores(plan, product, scores, 0);
+                total = weightedScore(scores, 0, weights);
+            }
+            if (total >= minScore) {
+                top.offer(i, total);
+            }
+        }
+        log.debug("流式筛选前N名: planId={}, candidates={}, pruned={}", plan.getPlanId(), products.size(), pruned);
+
+        BigDecimal min = BigDecimal.valueOf(minScore);
+        int[] topIndexes = top.sortedIndexes();
+        List<MatchFeature> ranked = new ArrayList<>(topIndexes.length);
+        for (int index : topIndexes) {
+            MatchFeature feature = calculateScore(plan, products.get(index));
+            if (feature.getTotalScore().compareTo(min) >= 0) {
+                ranked.add(feature);
+            }
+        }
+        ranked.sort(Comparator.comparing(MatchFeature::getTotalScore).reversed());
+        return ranked;
+    }
+
     /**
      * 批量计算匹配得分并排序
      * 
@@ -114,10 +281,13 @@ public class MatchScoreCalculator {
             return new ArrayList<>();
         }
         
-        return products.stream()
-                .map(product -> calculateScore(plan, product))
+        // 全部商品都会返回，先排序再生成建议描述
+        List<MatchFeature> ranked = products.stream()
+                .map(product -> calculateFeatures(plan, product))
                 .sorted(Comparator.comparing(MatchFeature::getTotalScore).reversed())
                 .collect(Collectors.toList());
+        ranked.forEach(this::describe);
+        return ranked;
     }
 
     /**
@@ -128,7 +298,7 @@ public class MatchScoreCalculator {
      * @return 最佳匹配特征
      */
     public MatchFeature findBestMatch(PlantingPlan plan, List<ProductDTO> products) {
-        List<MatchFeature> rankedFeatures = calculateAndRankScores(plan, products);
+        List<MatchFeature> rankedFeatures = rankTopN(plan, products, 1, 0);
         return rankedFeatures.isEmpty() ? null : rankedFeatures.get(0);
     }
 
@@ -141,10 +311,7 @@ public class MatchScoreCalculator {
      * @return 推荐的匹配特征列表
      */
     public List<MatchFeature> getRecommendations(PlantingPlan plan, List<ProductDTO> products, int limit) {
-        return calculateAndRankScores(plan, products).stream()
-                .filter(f -> f.getTotalScore().compareTo(new BigDecimal("60")) >= 0)
-                .limit(limit)
-                .collect(Collectors.toList());
+        return rankTopN(plan, products, limit, RECOMMEND_MIN_SCORE);
     }
 
     /**
@@ -160,39 +327,39 @@ public class MatchScoreCalculator {
         List<String> strengths = new ArrayList<>();
         List<String> weaknesses = new ArrayList<>();
         
-        if (feature.getVarietyScore().compareTo(new BigDecimal("80")) >= 0) {
+        if (feature.getVarietyScore().compareTo(STRENGTH_SCORE) >= 0) {
             strengths.add("品种高度匹配");
-        } else if (feature.getVarietyScore().compareTo(new BigDecimal("50")) < 0) {
+        } else if (feature.getVarietyScore().compareTo(WEAKNESS_SCORE) < 0) {
             weaknesses.add("品种匹配度较低");
         }
         
-        if (feature.getRegionScore().compareTo(new BigDecimal("80")) >= 0) {
+        if (feature.getRegionScore().compareTo(STRENGTH_SCORE) >= 0) {
             strengths.add("区域适配性好");
-        } else if (feature.getRegionScore().compareTo(new BigDecimal("50")) < 0) {
+        } else if (feature.getRegionScore().compareTo(WEAKNESS_SCORE) < 0) {
             weaknesses.add("区域适配性不足");
         }
         
-        if (feature.getClimateScore().compareTo(new BigDecimal("80")) >= 0) {
+        if (feature.getClimateScore().compareTo(STRENGTH_SCORE) >= 0) {
             strengths.add("气候条件适宜");
-        } else if (feature.getClimateScore().compareTo(new BigDecimal("50")) < 0) {
+        } else if (feature.getClimateScore().compareTo(WEAKNESS_SCORE) < 0) {
             weaknesses.add("气候条件可能不适宜");
         }
         
-        if (feature.getSeasonScore().compareTo(new BigDecimal("80")) >= 0) {
+        if (feature.getSeasonScore().compareTo(STRENGTH_SCORE) >= 0) {
             strengths.add("种植季节适合");
-        } else if (feature.getSeasonScore().compareTo(new BigDecimal("50")) < 0) {
+        } else if (feature.getSeasonScore().compareTo(WEAKNESS_SCORE) < 0) {
             weaknesses.add("种植季节可能不匹配");
         }
         
-        if (feature.getQualityScore().compareTo(new BigDecimal("80")) >= 0) {
+        if (feature.getQualityScore().compareTo(STRENGTH_SCORE) >= 0) {
             strengths.add("种子质量优良");
-        } else if (feature.getQualityScore().compareTo(new BigDecimal("50")) < 0) {
+        } else if (feature.getQualityScore().compareTo(WEAKNESS_SCORE) < 0) {
             weaknesses.add("种子质量一般");
         }
         
-        if (feature.getIntentScore().compareTo(new BigDecimal("80")) >= 0) {
+        if (feature.getIntentScore().compareTo(STRENGTH_SCORE) >= 0) {
             strengths.add("用途匹配度高");
-        } else if (feature.getIntentScore().compareTo(new BigDecimal("50")) < 0) {
+        } else if (feature.getIntentScore().compareTo(WEAKNESS_SCORE) < 0) {
             weaknesses.add("用途匹配度较低");
         }
         
@@ -0,0 +1,171 @@
+package xyh.dp.mall.trade.matching.engine;
+
+/**
+ * 前K名选择器（有界小顶堆）
+ * 按列表顺序逐个提交候选下标和得分，只保留得分最高的K个，不对全部候选排序；
+ * 堆顶是当前第K名，新候选不超过它即被丢弃。得分相同时列表中靠前的候选排在前面
+ *
+ * <p>候选必须按下标递增提交；不是线程安全的。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public final class TopKSelector {
+
+    private final int[] indexes;
+    private final double[] scores;
+    private int size;
+
+    /**
+     * 创建选择器
+     *
+     * @param capacity 保留数量K
+     */
+    public TopKSelector(int capacity) {
+        int k = Math.max(capacity, 0);
+        this.indexes = new int[k];
+        this.scores = new double[k];
+    }
+
+    /**
+     * 得分为score的新候选能否进入前K名
+     * 可用得分上界判断，上界都进不去的候选不必计算精确得分
+     *
+     * @param score 得分（或得分上界）
+     * @return 能进入返回true
+     */
+    public boolean accepts(double score) {
+        return size < indexes.length || (size > 0 && score > scores[0]);
+    }
+
+    /**
+     * 提交一个候选
+     *
+     * @param index 候选下标
+     * @param score 得分
+     * @return 进入前K名返回true
+     */
+    public boolean offer(int index, double score) {
+        if (!accepts(score)) {
+            return false;
+        }
+        if (size < indexes.length) {
+            indexes[size] = index;
+            scores[size] = score;
+            siftUp(size++);
+        } else {
+            indexes[0] = index;
+            scores[0] = score;
+            siftDown(0);
+        }
+        return true;
+    }
+
+    /**
+     * 当前保留的候选数
+     *
+     * @return 数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按得分降序（同分按下标升序）返回保留的候选下标
+     *
+     * @return 候选下标
+     */
+    public int[] sortedIndexes() {
+        int[] heapIndexes = indexes.clone();
+        double[] heapScores = scores.clone();
+        int[] sorted = new int[size];
+        // 依次弹出堆顶（当前最差），从后往前填充
+        for (int remaining = size; remaining > 0; remaining--) {
+            sorted[remaining - 1] = heapIndexes[0];
+            heapIndexes[0] = heapIndexes[remaining - 1];
+            heapScores[0] = heapScores[remaining - 1];
+            siftDown(heapIndexes, heapScores, 0, remaining - 1);
+        }
+        return sorted;
+    }
+
+    /**
+     * 新加入的候选上浮
+     *
+     * @param position 堆中位置
+     */
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!worse(indexes, scores, position, parent)) {
+                break;
+            }
+            swap(indexes, scores, position, parent);
+            position = parent;
+        }
+    }
+
+    /**
+     * 替换后的堆顶下沉
+     *
+     * @param position 堆中位置
+     */
+    private void siftDown(int position) {
+        siftDown(indexes, scores, position, size);
+    }
+
+    /**
+     * 在指定的堆数组上下沉
+     *
+     * @param indexes  候选下标
+     * @param scores   得分
+     * @param position 堆中位置
+     * @param size     堆大小
+     */
+    private static void siftDown(int[] indexes, double[] scores, int position, int size) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && worse(indexes, scores, child + 1, child)) {
+                child++;
+            }
+            if (!worse(indexes, scores, child, position)) {
+                return;
+            }
+            swap(indexes, scores, position, child);
+            position = child;
+        }
+    }
+
+    /**
+     * a是否比b差：得分更低，或同分但在列表中更靠后
+     *
+     * @param indexes 候选下标
+     * @param scores  得分
+     * @param a       堆中位置a
+     * @param b       堆中位置b
+     * @return a更差返回true
+     */
+    private static boolean worse(int[] indexes, double[] scores, int a, int b) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && indexes[a] > indexes[b]);
+    }
+
+    /**
+     * 交换堆中两个位置
+     *
+     * @param indexes 候选下标
+     * @param scores  得分
+     * @param a       堆中位置a
+     * @param b       堆中位置b
+     */
+    private static void swap(int[] indexes, double[] scores, int a, int b) {
+        int index = indexes[a];
+        indexes[a] = indexes[b];
+        indexes[b] = index;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
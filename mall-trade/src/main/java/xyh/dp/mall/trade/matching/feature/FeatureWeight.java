@@ -1,15 +1,24 @@
 package xyh.dp.mall.trade.matching.feature;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * 特征权重配置
  * 可通过配置文件动态调整各特征的权重
  * 
+ * <p>归一化结果在首次使用时计算并缓存，配置刷新重新绑定权重后自动失效，
+ * 评分时不再为每个商品重新归一化。</p>
+ * 
  * @author mall-cloud
  * @since 1.0.0
  */
@@ -48,6 +57,15 @@ public class FeatureWeight {
      */
     private BigDecimal intent = new BigDecimal("0.10");
 
+    /**
+     * 归一化结果缓存，任一权重对象被替换后重新计算
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile Normalized normalized;
+
     /**
      * 验证权重总和是否为1
      * 
@@ -60,22 +78,91 @@ public class FeatureWeight {
 
     /**
      * 获取归一化后的权重
-     * 如果权重总和不为1，则进行归一化
+     * 如果权重总和不为1，则进行归一化；结果被缓存共享，调用方不应修改
      * 
      * @return 归一化的权重
      */
     public FeatureWeight normalize() {
+        return normalized().weight();
+    }
+
+    /**
+     * 获取归一化后的权重数组（评分内核使用）
+     * 下标与{@link MatchFeature#VARIETY}等特征下标一致；结果被缓存共享，调用方不应修改
+     * 
+     * @return 归一化的权重数组
+     */
+    public double[] normalizedWeights() {
+        return normalized().weights();
+    }
+
+    /**
+     * 获取或计算归一化结果
+     * 
+     * @return 归一化结果
+     */
+    private Normalized normalized() {
+        Normalized current = normalized;
+        if (current == null || !current.isFor(this)) {
+            current = computeNormalized();
+            normalized = current;
+        }
+        return current;
+    }
+
+    /**
+     * 计算归一化结果
+     * 
+     * @return 归一化结果
+     */
+    private Normalized computeNormalized() {
         BigDecimal total = variety.add(region).add(climate).add(season).add(quality).add(intent);
         if (total.compareTo(BigDecimal.ZERO) == 0) {
             total = BigDecimal.ONE;
         }
-        FeatureWeight normalized = new FeatureWeight();
-        normalized.setVariety(variety.divide(total, 4, java.math.RoundingMode.HALF_UP));
-        normalized.setRegion(region.divide(total, 4, java.math.RoundingMode.HALF_UP));
-        normalized.setClimate(climate.divide(total, 4, java.math.RoundingMode.HALF_UP));
-        normalized.setSeason(season.divide(total, 4, java.math.RoundingMode.HALF_UP));
-        normalized.setQuality(quality.divide(total, 4, java.math.RoundingMode.HALF_UP));
-        normalized.setIntent(intent.divide(total, 4, java.math.RoundingMode.HALF_UP));
-        return normalized;
+        FeatureWeight weight = new FeatureWeight();
+        weight.variety = variety.divide(total, 4, RoundingMode.HALF_UP);
+        weight.region = region.divide(total, 4, RoundingMode.HALF_UP);
+        weight.climate = climate.divide(total, 4, RoundingMode.HALF_UP);
+        weight.season = season.divide(total, 4, RoundingMode.HALF_UP);
+        weight.quality = quality.divide(total, 4, RoundingMode.HALF_UP);
+        weight.intent = intent.divide(total, 4, RoundingMode.HALF_UP);
+
+        double[] weights = new double[MatchFeature.FEATURE_COUNT];
+        weights[MatchFeature.VARIETY] = weight.variety.doubleValue();
+        weights[MatchFeature.REGION] = weight.region.doubleValue();
+        weights[MatchFeature.CLIMATE] = weight.climate.doubleValue();
+        weights[MatchFeature.SEASON] = weight.season.doubleValue();
+        weights[MatchFeature.QUALITY] = weight.quality.doubleValue();
+        weights[MatchFeature.INTENT] = weight.intent.doubleValue();
+        return new Normalized(this.variety, this.region, this.climate, this.season, this.quality, this.intent,
+                weight, weights);
+    }
+
+    /**
+     * 归一化结果
+     * 
+     * @param variety 计算时的品种一致性权重
+     * @param region 计算时的区域适配权重
+     * @param climate 计算时的气候匹配权重
+     * @param season 计算时的季节匹配权重
+     * @param quality 计算时的种子质量权重
+     * @param intent 计算时的供需意图权重
+     * @param weight 归一化的权重
+     * @param weights 归一化的权重数组
+     */
+    private record Normalized(BigDecimal variety, BigDecimal region, BigDecimal climate, BigDecimal season,
+                              BigDecimal quality, BigDecimal intent, FeatureWeight weight, double[] weights) {
+
+        /**
+         * 判断是否由当前权重计算得到（按引用比较，配置重新绑定会替换权重对象）
+         * 
+         * @param source 权重配置
+         * @return 是返回true
+         */
+        boolean isFor(FeatureWeight source) {
+            return variety == source.variety && region == source.region && climate == source.climate
+                    && season == source.season && quality == source.quality && intent == source.intent;
+        }
     }
 }
@@ -25,6 +25,41 @@ public class MatchFeature implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * 特征维数（评分内核中每个商品占用的double数）
+     */
+    public static final int FEATURE_COUNT = 6;
+
+    /**
+     * 评分内核特征下标：品种一致性
+     */
+    public static final int VARIETY = 0;
+
+    /**
+     * 评分内核特征下标：区域适配
+     */
+    public static final int REGION = 1;
+
+    /**
+     * 评分内核特征下标：气候匹配
+     */
+    public static final int CLIMATE = 2;
+
+    /**
+     * 评分内核特征下标：季节匹配
+     */
+    public static final int SEASON = 3;
+
+    /**
+     * 评分内核特征下标：种子质量
+     */
+    public static final int QUALITY = 4;
+
+    /**
+     * 评分内核特征下标：供需意图
+     */
+    public static final int INTENT = 5;
+
     // ==================== 关联ID ====================
 
     @Schema(description = "种植计划ID")
@@ -109,6 +144,13 @@ public class MatchFeature implements Serializable {
     @Schema(description = "匹配建议描述")
     private String recommendation;
 
+    /**
+     * ML模型预测置信度(0-1)，规则引擎结果为null
+     * 建议描述只为返回的结果生成，评分时先记下置信度
+     */
+    @Schema(description = "ML模型预测置信度(0-1)，规则引擎结果为null")
+    private Double mlConfidence;
+
     /**
      * 根据总分计算匹配等级
      * 
@@ -0,0 +1,27 @@
+package xyh.dp.mall.trade.matching.model;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 进程内推理模型配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ml.model.local")
+public class LocalModelProperties {
+
+    /**
+     * 树集成模型文件路径（train_matching_model.py导出的tree_ensemble_*.json），为空时不启用进程内推理
+     */
+    private String path;
+
+    /**
+     * 检查模型文件更新的间隔（毫秒）
+     */
+    private long reloadIntervalMs = 30000;
+}
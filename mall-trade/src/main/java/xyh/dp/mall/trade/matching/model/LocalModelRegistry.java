@@ -0,0 +1,92 @@
+package xyh.dp.mall.trade.matching.model;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * 进程内推理模型注册表
+ * 持有当前的{@link TreeEnsembleModel}，定期检查模型文件的修改时间，变化后重新加载并整体替换；
+ * 推理方拿到的模型是不可变的，替换过程中的预测不受影响
+ *
+ * <p>模型文件替换应先写临时文件再改名，避免读到写了一半的文件。加载失败只记录日志，继续使用旧模型
+ * （没有旧模型时由调用方降级到推理服务），同一个修改时间的文件不重复尝试。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class LocalModelRegistry {
+
+    private final LocalModelProperties properties;
+
+    private volatile TreeEnsembleModel current;
+
+    /**
+     * 最近一次尝试加载的文件修改时间
+     */
+    private volatile FileTime attemptedModifiedTime;
+
+    /**
+     * 创建注册表并尝试加载模型
+     *
+     * @param properties 配置
+     */
+    public LocalModelRegistry(LocalModelProperties properties) {
+        this.properties = properties;
+        reload();
+    }
+
+    /**
+     * 当前模型
+     *
+     * @return 树集成模型，未配置或未加载成功返回null
+     */
+    public TreeEnsembleModel current() {
+        return current;
+    }
+
+    /**
+     * 模型文件修改后重新加载
+     *
+     * @return 是否替换了模型
+     */
+    @Scheduled(fixedDelayString = "${ml.model.local.reload-interval-ms:30000}")
+    public boolean reload() {
+        if (!StringUtils.hasText(properties.getPath())) {
+            return false;
+        }
+        Path file = Paths.get(properties.getPath());
+        try {
+            if (!Files.exists(file)) {
+                return false;
+            }
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.equals(attemptedModifiedTime)) {
+                return false;
+            }
+            attemptedModifiedTime = modified;
+            long start = System.nanoTime();
+            TreeEnsembleModel loaded = TreeEnsembleModel.parse(Files.readString(file, StandardCharsets.UTF_8));
+            TreeEnsembleModel previous = current;
+            current = loaded;
+            log.info("进程内推理模型已加载: model={}, version={}, trees={}, 上一版本={}, 耗时={}ms",
+                    loaded.modelName(), loaded.version(), loaded.treeCount(),
+                    previous != null ? previous.version() : null, (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("加载进程内推理模型失败，继续使用{}: file={}",
+                    current != null ? "版本" + current.version() : "推理服务", file, e);
+            return false;
+        }
+    }
+}
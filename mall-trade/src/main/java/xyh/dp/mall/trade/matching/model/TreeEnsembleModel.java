@@ -0,0 +1,183 @@
+package xyh.dp.mall.trade.matching.model;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import xyh.dp.mall.trade.matching.feature.MatchFeature;
+
+import java.util.List;
+
+/**
+ * 树集成模型（进程内推理，不可变）
+ * 加载ml/train_matching_model.py导出的展开JSON（RandomForest或二分类GradientBoosting），
+ * 全部树的节点拼接为基本类型数组，推理只沿各树走一条路径，不创建对象，单次预测在微秒级
+ *
+ * <p>导出时标准化器已折算进分裂阈值，输入直接使用原始特征得分(0-100)，
+ * 特征顺序与{@link MatchFeature#VARIETY}等下标一致。
+ * 节点按sklearn的深度优先编号，子节点编号总是大于父节点，加载时校验以保证推理必然终止。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public final class TreeEnsembleModel {
+
+    /**
+     * 导出文件的特征列顺序
+     */
+    private static final List<String> FEATURE_COLUMNS = List.of(
+            "variety_score", "region_score", "climate_score", "season_score", "quality_score", "intent_score");
+
+    private static final String FORMAT = "tree-ensemble";
+    private static final String AGGREGATION_AVERAGE = "average";
+    private static final String AGGREGATION_LOGISTIC = "logistic";
+    private static final int LEAF = -1;
+
+    private final long version;
+    private final String modelName;
+    private final boolean logistic;
+    private final double baseScore;
+
+    private final int[] roots;
+    private final int[] feature;
+    private final double[] threshold;
+    private final int[] left;
+    private final int[] right;
+    private final double[] value;
+
+    private TreeEnsembleModel(long version, String modelName, boolean logistic, double baseScore, int[] roots,
+                              int[] feature, double[] threshold, int[] left, int[] right, double[] value) {
+        this.version = version;
+        this.modelName = modelName;
+        this.logistic = logistic;
+        this.baseScore = baseScore;
+        this.roots = roots;
+        this.feature = feature;
+        this.threshold = threshold;
+        this.left = left;
+        this.right = right;
+        this.value = value;
+    }
+
+    /**
+     * 解析导出的JSON
+     *
+     * @param json 模型JSON
+     * @return 树集成模型
+     * @throws IllegalArgumentException 格式不支持或节点结构错误
+     */
+    public static TreeEnsembleModel parse(String json) {
+        JSONObject document = JSONObject.parseObject(json);
+        if (document == null || !FORMAT.equals(document.getString("format"))) {
+            throw new IllegalArgumentException("不是树集成模型文件");
+        }
+        if (!FEATURE_COLUMNS.equals(document.getList("feature_columns", String.class))) {
+            throw new IllegalArgumentException("特征列与匹配特征不一致: " + document.get("feature_columns"));
+        }
+        String aggregation = document.getString("aggregation");
+        if (!AGGREGATION_AVERAGE.equals(aggregation) && !AGGREGATION_LOGISTIC.equals(aggregation)) {
+            throw new IllegalArgumentException("不支持的聚合方式: " + aggregation);
+        }
+        JSONArray trees = document.getJSONArray("trees");
+        if (trees == null || trees.isEmpty()) {
+            throw new IllegalArgumentException("模型不包含树");
+        }
+
+        int nodeCount = 0;
+        for (int t = 0; t < trees.size(); t++) {
+            JSONArray nodes = trees.getJSONObject(t).getJSONArray("feature");
+            if (nodes == null || nodes.isEmpty()) {
+                throw new IllegalArgumentException("第" + t + "棵树没有节点");
+            }
+            nodeCount += nodes.size();
+        }
+        int[] roots = new int[trees.size()];
+        int[] feature = new int[nodeCount];
+        double[] threshold = new double[nodeCount];
+        int[] left = new int[nodeCount];
+        int[] right = new int[nodeCount];
+        double[] value = new double[nodeCount];
+
+        int base = 0;
+        for (int t = 0; t < trees.size(); t++) {
+            JSONObject tree = trees.getJSONObject(t);
+            int size = tree.getJSONArray("feature").size();
+            int[] treeFeature = tree.getObject("feature", int[].class);
+            double[] treeThreshold = tree.getObject("threshold", double[].class);
+            int[] treeLeft = tree.getObject("left", int[].class);
+            int[] treeRight = tree.getObject("right", int[].class);
+            double[] treeValue = tree.getObject("value", double[].class);
+            if (treeThreshold == null || treeLeft == null || treeRight == null || treeValue == null
+                    || treeThreshold.length != size || treeLeft.length != size
+                    || treeRight.length != size || treeValue.length != size) {
+                throw new IllegalArgumentException("第" + t + "棵树的节点数组长度不一致");
+            }
+            roots[t] = base;
+            for (int node = 0; node < size; node++) {
+                int i = base + node;
+                if (treeLeft[node] < 0) {
+                    feature[i] = LEAF;
+                } else {
+                    if (treeFeature[node] < 0 || treeFeature[node] >= MatchFeature.FEATURE_COUNT
+                            || treeLeft[node] <= node || treeLeft[node] >= size
+                            || treeRight[node] <= node || treeRight[node] >= size) {
+                        throw new IllegalArgumentException("第" + t + "棵树的节点" + node + "结构错误");
+                    }
+                    feature[i] = treeFeature[node];
+                    left[i] = base + treeLeft[node];
+                    right[i] = base + treeRight[node];
+                }
+                threshold[i] = treeThreshold[node];
+                value[i] = treeValue[node];
+            }
+            base += size;
+        }
+        return new TreeEnsembleModel(document.getLongValue("version"), document.getString("model_name"),
+                AGGREGATION_LOGISTIC.equals(aggregation), document.getDoubleValue("base_score"),
+                roots, feature, threshold, left, right, value);
+    }
+
+    /**
+     * 预测匹配概率
+     *
+     * @param scores 特征得分数组
+     * @param offset 起始位置，读取scores[offset, offset + {@link MatchFeature#FEATURE_COUNT})
+     * @return 正类概率(0-1)
+     */
+    public double predict(double[] scores, int offset) {
+        double sum = 0;
+        for (int root : roots) {
+            int node = root;
+            while (feature[node] != LEAF) {
+                node = scores[offset + feature[node]] <= threshold[node] ? left[node] : right[node];
+            }
+            sum += value[node];
+        }
+        return logistic ? 1 / (1 + Math.exp(-(baseScore + sum))) : sum / roots.length;
+    }
+
+    /**
+     * 模型版本
+     *
+     * @return 版本号（导出时间戳）
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 模型名称
+     *
+     * @return 模型名称
+     */
+    public String modelName() {
+        return modelName;
+    }
+
+    /**
+     * 树的数量
+     *
+     * @return 树数量
+     */
+    public int treeCount() {
+        return roots.length;
+    }
+}
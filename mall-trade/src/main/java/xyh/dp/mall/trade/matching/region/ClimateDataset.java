@@ -0,0 +1,251 @@
+package xyh.dp.mall.trade.matching.region;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 区域月度气候数据集（定长二进制文件，内存映射只读访问）
+ * 每个行政区划代码一条记录，记录内按月存放平均温度、平均湿度和光照条件；
+ * 查询只做缓冲区上的绝对位置读取，不创建对象，数据量增长（上千个县）也不占用堆内存
+ *
+ * <p>文件布局（大端序）：
+ * <pre>
+ * 文件头   magic(int) version(int) count(int) recordSize(int)
+ * 索引     count个 [行政区划代码(int), 记录偏移量(int)]，按代码升序
+ * 记录     count个，每条12个月 × [温度×10(short), 湿度%(byte), 光照编码(byte)]
+ * </pre></p>
+ *
+ * <p>源数据为CSV（行政区划代码,月份,平均温度,平均湿度,光照条件，"# version=N"声明版本），
+ * 由{@link #compile}编译为二进制文件，每个代码必须包含12个月的数据。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public final class ClimateDataset {
+
+    /**
+     * 未收录
+     */
+    public static final int NONE = -1;
+
+    /**
+     * 空数据集（月度数据不可用时使用）
+     */
+    public static final ClimateDataset EMPTY = new ClimateDataset(ByteBuffer.allocate(0), 0, 0);
+
+    private static final int MAGIC = 0x434C4D31;
+    private static final int HEADER_SIZE = 16;
+    private static final int INDEX_ENTRY_SIZE = 8;
+    private static final int MONTHS = 12;
+    private static final int MONTH_SIZE = 4;
+    private static final int RECORD_SIZE = MONTHS * MONTH_SIZE;
+    private static final String VERSION_PREFIX = "# version=";
+
+    private final ByteBuffer buffer;
+    private final long version;
+    private final int count;
+
+    private ClimateDataset(ByteBuffer buffer, long version, int count) {
+        this.buffer = buffer;
+        this.version = version;
+        this.count = count;
+    }
+
+    /**
+     * 映射二进制数据文件
+     *
+     * @param file 数据文件
+     * @return 数据集
+     * @throws IOException              读取失败
+     * @throws IllegalArgumentException 文件格式错误
+     */
+    public static ClimateDataset open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("不是月度气候数据文件: " + file);
+        }
+        int count = buffer.getInt(8);
+        if (buffer.getInt(12) != RECORD_SIZE
+                || buffer.capacity() != HEADER_SIZE + (long) count * (INDEX_ENTRY_SIZE + RECORD_SIZE)) {
+            throw new IllegalArgumentException("月度气候数据文件已损坏: " + file);
+        }
+        return new ClimateDataset(buffer, buffer.getInt(4), count);
+    }
+
+    /**
+     * 把CSV源数据编译为二进制数据文件（先写临时文件再原子改名，不影响正在映射旧文件的读取方）
+     *
+     * @param lines  CSV源数据的行
+     * @param target 目标文件
+     * @throws IOException              写入失败
+     * @throws IllegalArgumentException 源数据格式错误或月份不全
+     */
+    public static void compile(List<String> lines, Path target) throws IOException {
+        int version = 0;
+        Map<Integer, byte[]> records = new TreeMap<>();
+        for (int lineNo = 1; lineNo <= lines.size(); lineNo++) {
+            String line = lines.get(lineNo - 1).strip();
+            if (line.startsWith(VERSION_PREFIX)) {
+                version = Integer.parseInt(line.substring(VERSION_PREFIX.length()).strip());
+                continue;
+            }
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            try {
+                if (fields.length != 5) {
+                    throw new IllegalArgumentException("字段数应为5");
+                }
+                int month = Integer.parseInt(fields[1]);
+                if (month < 1 || month > MONTHS) {
+                    throw new IllegalArgumentException("月份超出范围: " + month);
+                }
+                ByteBuffer record = ByteBuffer.wrap(records.computeIfAbsent(Integer.parseInt(fields[0]),
+                        code -> new byte[RECORD_SIZE]));
+                int position = (month - 1) * MONTH_SIZE;
+                record.putShort(position, (short) Math.round(Double.parseDouble(fields[2]) * 10));
+                record.put(position + 2, (byte) Math.round(Double.parseDouble(fields[3])));
+                // 光照编码从1开始存放，0表示该月未填写
+                record.put(position + 3, (byte) (lightCode(fields[4]) + 1));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("月度气候数据第" + lineNo + "行格式错误: " + line, e);
+            }
+        }
+        for (Map.Entry<Integer, byte[]> entry : records.entrySet()) {
+            byte[] record = entry.getValue();
+            for (int month = 0; month < MONTHS; month++) {
+                if (record[month * MONTH_SIZE + 3] == 0) {
+                    throw new IllegalArgumentException("月度气候数据缺少月份: code=" + entry.getKey()
+                            + ", month=" + (month + 1));
+                }
+                record[month * MONTH_SIZE + 3]--;
+            }
+        }
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(version);
+            out.writeInt(records.size());
+            out.writeInt(RECORD_SIZE);
+            int offset = HEADER_SIZE + records.size() * INDEX_ENTRY_SIZE;
+            for (Integer code : records.keySet()) {
+                out.writeInt(code);
+                out.writeInt(offset);
+                offset += RECORD_SIZE;
+            }
+            for (byte[] record : records.values()) {
+                out.write(record);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 数据版本
+     *
+     * @return 版本号
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 收录的区域数
+     *
+     * @return 记录数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 按行政区划代码查找记录（在索引上二分查找）
+     *
+     * @param regionCode 行政区划代码
+     * @return 记录偏移量，未收录返回{@link #NONE}
+     */
+    public int find(int regionCode) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = HEADER_SIZE + mid * INDEX_ENTRY_SIZE;
+            int code = buffer.getInt(entry);
+            if (code < regionCode) {
+                low = mid + 1;
+            } else if (code > regionCode) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(entry + 4);
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 月平均温度(℃)
+     *
+     * @param record 记录偏移量
+     * @param month  月份(1-12)
+     * @return 平均温度
+     */
+    public double avgTemperature(int record, int month) {
+        return buffer.getShort(record + (month - 1) * MONTH_SIZE) / 10.0;
+    }
+
+    /**
+     * 月平均湿度(%)
+     *
+     * @param record 记录偏移量
+     * @param month  月份(1-12)
+     * @return 平均湿度
+     */
+    public double avgHumidity(int record, int month) {
+        return buffer.get(record + (month - 1) * MONTH_SIZE + 2) & 0xFF;
+    }
+
+    /**
+     * 月主要光照条件
+     *
+     * @param record 记录偏移量
+     * @param month  月份(1-12)
+     * @return 光照条件（FULL_SUN/PARTIAL_SUN/SHADE）
+     */
+    public String lightCondition(int record, int month) {
+        return RegionKnowledgeBase.LIGHT_CONDITIONS[buffer.get(record + (month - 1) * MONTH_SIZE + 3)];
+    }
+
+    /**
+     * 光照条件编码
+     *
+     * @param lightCondition 光照条件
+     * @return 编码
+     * @throws IllegalArgumentException 未知光照条件
+     */
+    private static int lightCode(String lightCondition) {
+        String[] values = RegionKnowledgeBase.LIGHT_CONDITIONS;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(lightCondition)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("未知光照条件: " + lightCondition);
+    }
+}
@@ -0,0 +1,209 @@
+package xyh.dp.mall.trade.matching.region;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * 区域目录
+ * 持有当前的{@link RegionKnowledgeBase}和{@link ClimateDataset}，定期检查数据文件，版本号更高时整体替换；
+ * 查询方拿到的知识库和数据集是不可变的，替换过程中的查询不受影响
+ *
+ * <p>每次检查先比较文件的修改时间和大小，与上次读取时相同则跳过，不重复解析知识库或重新映射数据集；
+ * 无法取得修改时间的资源（如jar内的文件）每次都读取。</p>
+ *
+ * <p>月度气候数据集优先使用配置的二进制文件（可在线替换）；未配置时启动时把内置的CSV源数据编译到临时目录，
+ * 内置数据不会变化，不参与重新加载。</p>
+ *
+ * <p>启动时数据文件无法加载直接失败；之后的重新加载失败只记录日志，继续使用旧数据。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class RegionDirectory {
+
+    private final RegionProperties properties;
+    private final ResourceLoader resourceLoader;
+
+    private volatile RegionKnowledgeBase current;
+    private volatile ClimateDataset monthly;
+
+    /**
+     * 上次读取的区域数据文件状态，只在重新加载线程中访问
+     */
+    private FileStamp locationStamp;
+
+    /**
+     * 上次映射的月度气候数据文件状态，只在重新加载线程中访问
+     */
+    private FileStamp climateStamp;
+
+    /**
+     * 创建区域目录并加载数据文件
+     *
+     * @param properties     配置
+     * @param resourceLoader 资源加载器
+     * @throws IllegalStateException 数据文件无法加载
+     */
+    public RegionDirectory(RegionProperties properties, ResourceLoader resourceLoader) {
+        this.properties = properties;
+        this.resourceLoader = resourceLoader;
+        try {
+            this.locationStamp = stamp(resourceLoader.getResource(properties.getLocation()));
+            this.current = RegionKnowledgeBase.parse(readLines(properties.getLocation()));
+            if (StringUtils.hasText(properties.getClimateDataset())) {
+                this.climateStamp = stamp(Paths.get(properties.getClimateDataset()));
+            }
+            this.monthly = loadMonthly();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("加载区域数据失败: " + properties.getLocation(), e);
+        }
+        log.info("区域数据加载完成: location={}, version={}, 月度气候区域数={}",
+                properties.getLocation(), current.version(), monthly.size());
+    }
+
+    /**
+     * 当前知识库
+     *
+     * @return 区域知识库（不可变）
+     */
+    public RegionKnowledgeBase current() {
+        return current;
+    }
+
+    /**
+     * 当前月度气候数据集
+     *
+     * @return 月度气候数据集（只读）
+     */
+    public ClimateDataset climateDataset() {
+        return monthly;
+    }
+
+    /**
+     * 检查数据文件，文件有变化且版本号更高时替换
+     * 状态在读取前取得，读取期间文件被改写时下次检查仍会发现变化；读取失败不记录状态，下次重试
+     *
+     * @return 是否有数据被替换
+     */
+    @Scheduled(fixedDelayString = "${matching.region.reload-interval-ms:60000}")
+    public boolean reload() {
+        boolean swapped = false;
+        FileStamp stamp = stamp(resourceLoader.getResource(properties.getLocation()));
+        if (stamp == null || !stamp.equals(locationStamp)) {
+            try {
+                RegionKnowledgeBase loaded = RegionKnowledgeBase.parse(readLines(properties.getLocation()));
+                locationStamp = stamp;
+                long previous = current.version();
+                if (loaded.version() > previous) {
+                    current = loaded;
+                    swapped = true;
+                    log.info("区域数据已更新: version {} -> {}", previous, loaded.version());
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("重新加载区域数据失败，继续使用旧数据: location={}", properties.getLocation(), e);
+            }
+        }
+        if (StringUtils.hasText(properties.getClimateDataset())) {
+            Path file = Paths.get(properties.getClimateDataset());
+            FileStamp climate = stamp(file);
+            if (climate == null || !climate.equals(climateStamp)) {
+                try {
+                    ClimateDataset loaded = ClimateDataset.open(file);
+                    climateStamp = climate;
+                    long previous = monthly.version();
+                    if (loaded.version() > previous) {
+                        monthly = loaded;
+                        swapped = true;
+                        log.info("月度气候数据已更新: version {} -> {}", previous, loaded.version());
+                    }
+                } catch (IOException | IllegalArgumentException e) {
+                    log.warn("重新加载月度气候数据失败，继续使用旧数据: file={}", file, e);
+                }
+            }
+        }
+        return swapped;
+    }
+
+    /**
+     * 加载月度气候数据集
+     *
+     * @return 月度气候数据集
+     * @throws IOException 读取或编译失败
+     */
+    private ClimateDataset loadMonthly() throws IOException {
+        if (StringUtils.hasText(properties.getClimateDataset())) {
+            return ClimateDataset.open(Paths.get(properties.getClimateDataset()));
+        }
+        Path compiled = Files.createTempFile("climate-monthly", ".bin");
+        compiled.toFile().deleteOnExit();
+        ClimateDataset.compile(readLines(properties.getClimateSource()), compiled);
+        return ClimateDataset.open(compiled);
+    }
+
+    /**
+     * 资源的修改时间和大小
+     *
+     * @param resource 资源
+     * @return 文件状态，无法取得时返回null
+     */
+    private static FileStamp stamp(Resource resource) {
+        try {
+            return new FileStamp(resource.lastModified(), resource.contentLength());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 文件的修改时间和大小
+     *
+     * @param file 文件
+     * @return 文件状态，无法取得时返回null
+     */
+    private static FileStamp stamp(Path file) {
+        try {
+            return new FileStamp(Files.getLastModifiedTime(file).toMillis(), Files.size(file));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取文本资源
+     *
+     * @param location 资源位置
+     * @return 行
+     * @throws IOException 读取失败
+     */
+    private List<String> readLines(String location) throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+
+    /**
+     * 数据文件状态
+     *
+     * @param modified 修改时间（毫秒）
+     * @param size     大小（字节）
+     */
+    private record FileStamp(long modified, long size) {
+    }
+}
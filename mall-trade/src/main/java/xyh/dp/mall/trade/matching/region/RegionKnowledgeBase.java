@@ -0,0 +1,405 @@
+package xyh.dp.mall.trade.matching.region;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 区域知识库（不可变）
+ * 省、市、县名称及别名建成前缀树，每个节点预先记录所属大区和气候记录下标；
+ * 气候记录按列存为基本类型数组。区域查询沿前缀树走一遍，耗时只与区域名长度有关
+ *
+ * <p>查询取最长的已知前缀："山东菏泽牡丹区"命中"山东菏泽"，"山东济南"命中"山东"；
+ * 区域名是已知名称的前缀（如"山"）时取该子树中的第一条记录；都未命中时使用默认气候。</p>
+ *
+ * <p>数据文件每行：名称,行政区划代码,所属大区,平均温度,平均湿度,光照条件,适宜种植季节(;分隔),别名(;分隔)，
+ * 以#开头的行为注释，其中"# version=N"声明数据版本；名称为"默认"的行是默认气候。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public final class RegionKnowledgeBase {
+
+    /**
+     * 大区名称，下标即大区编码
+     */
+    private static final String[] MAJOR_REGIONS = {"华北", "华东", "华中", "华南", "西南", "西北", "东北"};
+
+    /**
+     * 光照条件，下标即编码（{@link ClimateDataset}共用）
+     */
+    static final String[] LIGHT_CONDITIONS = {"FULL_SUN", "PARTIAL_SUN", "SHADE"};
+
+    /**
+     * 种植季节，下标即季节位
+     */
+    private static final String[] SEASONS = {"春季", "夏季", "秋季", "冬季"};
+
+    private static final String DEFAULT_NAME = "默认";
+    private static final String VERSION_PREFIX = "# version=";
+    private static final int NONE = -1;
+
+    private final long version;
+    private final Node root;
+    private final int defaultClimate;
+
+    private final String[] names;
+    private final double[] temperatures;
+    private final double[] humidities;
+    private final byte[] lights;
+    private final byte[] seasonMasks;
+
+    private RegionKnowledgeBase(long version, Node root, int defaultClimate, List<String> names,
+                                double[] temperatures, double[] humidities, byte[] lights, byte[] seasonMasks) {
+        this.version = version;
+        this.root = root;
+        this.defaultClimate = defaultClimate;
+        this.names = names.toArray(new String[0]);
+        this.temperatures = temperatures;
+        this.humidities = humidities;
+        this.lights = lights;
+        this.seasonMasks = seasonMasks;
+    }
+
+    /**
+     * 解析数据文件
+     *
+     * @param lines 数据文件的行
+     * @return 区域知识库
+     * @throws IllegalArgumentException 数据格式错误或缺少默认气候
+     */
+    public static RegionKnowledgeBase parse(List<String> lines) {
+        long version = 0;
+        Builder rootBuilder = new Builder();
+        List<String> names = new ArrayList<>();
+        List<double[]> climates = new ArrayList<>();
+        List<byte[]> codes = new ArrayList<>();
+        int defaultClimate = NONE;
+
+        for (int lineNo = 1; lineNo <= lines.size(); lineNo++) {
+            String line = lines.get(lineNo - 1).strip();
+            if (line.startsWith(VERSION_PREFIX)) {
+                version = Long.parseLong(line.substring(VERSION_PREFIX.length()).strip());
+                continue;
+            }
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 8 || fields[0].isEmpty()) {
+                throw new IllegalArgumentException("区域数据第" + lineNo + "行格式错误: " + line);
+            }
+            try {
+                int climate = NONE;
+                if (!fields[3].isEmpty()) {
+                    climate = names.size();
+                    names.add(fields[0]);
+                    climates.add(new double[]{Double.parseDouble(fields[3]), Double.parseDouble(fields[4])});
+                    codes.add(new byte[]{(byte) indexOf(LIGHT_CONDITIONS, fields[5]), seasonMask(fields[6])});
+                }
+                if (DEFAULT_NAME.equals(fields[0])) {
+                    defaultClimate = climate;
+                    continue;
+                }
+                int regionCode = fields[1].isEmpty() ? NONE : Integer.parseInt(fields[1]);
+                int majorRegion = fields[2].isEmpty() ? NONE : indexOf(MAJOR_REGIONS, fields[2]);
+                rootBuilder.insert(fields[0], climate, regionCode, majorRegion);
+                for (String alias : fields[7].split(";")) {
+                    if (!alias.isEmpty()) {
+                        rootBuilder.insert(alias, climate, regionCode, majorRegion);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("区域数据第" + lineNo + "行格式错误: " + line, e);
+            }
+        }
+        if (defaultClimate == NONE) {
+            throw new IllegalArgumentException("区域数据缺少默认气候");
+        }
+
+        int size = names.size();
+        double[] temperatures = new double[size];
+        double[] humidities = new double[size];
+        byte[] lights = new byte[size];
+        byte[] seasonMasks = new byte[size];
+        for (int i = 0; i < size; i++) {
+            temperatures[i] = climates.get(i)[0];
+            humidities[i] = climates.get(i)[1];
+            lights[i] = codes.get(i)[0];
+            seasonMasks[i] = codes.get(i)[1];
+        }
+        return new RegionKnowledgeBase(version, rootBuilder.build(), defaultClimate, names,
+                temperatures, humidities, lights, seasonMasks);
+    }
+
+    /**
+     * 数据版本
+     *
+     * @return 版本号
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 查询区域的气候记录
+     *
+     * @param region 区域名称
+     * @return 气候记录下标，未命中返回默认气候
+     */
+    public int climateOf(String region) {
+        if (region == null) {
+            return defaultClimate;
+        }
+        Node node = root;
+        int found = NONE;
+        for (int i = 0; i < region.length() && node != null; i++) {
+            node = node.child(region.charAt(i));
+            if (node != null && node.climate != NONE) {
+                found = node.climate;
+            }
+        }
+        if (found != NONE) {
+            return found;
+        }
+        if (node != null && node != root && node.firstClimate != NONE) {
+            return node.firstClimate;
+        }
+        return defaultClimate;
+    }
+
+    /**
+     * 查询区域的月度气候记录
+     * 沿最长前缀逐级取行政区划代码，使用月度数据集中收录的最具体的一级（县 > 市 > 省）
+     *
+     * @param region  区域名称
+     * @param monthly 月度气候数据集
+     * @return 记录偏移量，未收录返回{@link ClimateDataset#NONE}
+     */
+    public int monthlyRecordOf(String region, ClimateDataset monthly) {
+        if (region == null) {
+            return ClimateDataset.NONE;
+        }
+        Node node = root;
+        int found = ClimateDataset.NONE;
+        for (int i = 0; i < region.length(); i++) {
+            node = node.child(region.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.regionCode != NONE) {
+                int record = monthly.find(node.regionCode);
+                if (record != ClimateDataset.NONE) {
+                    found = record;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 检查区域是否属于某个大区
+     *
+     * @param region 具体区域
+     * @param majorRegion 大区名称（如"华北"、"华东"）
+     * @return 是否属于
+     */
+    public boolean belongsToMajorRegion(String region, String majorRegion) {
+        if (region == null || majorRegion == null) {
+            return false;
+        }
+        int expected = indexOfOrNone(MAJOR_REGIONS, majorRegion);
+        if (expected == NONE) {
+            return false;
+        }
+        Node node = root;
+        int found = NONE;
+        for (int i = 0; i < region.length(); i++) {
+            node = node.child(region.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.majorRegion != NONE) {
+                found = node.majorRegion;
+            }
+        }
+        return found == expected;
+    }
+
+    /**
+     * 气候记录的区域名称
+     *
+     * @param climate 气候记录下标
+     * @return 区域名称
+     */
+    public String name(int climate) {
+        return names[climate];
+    }
+
+    /**
+     * 平均温度(℃)
+     *
+     * @param climate 气候记录下标
+     * @return 平均温度
+     */
+    public double avgTemperature(int climate) {
+        return temperatures[climate];
+    }
+
+    /**
+     * 平均湿度(%)
+     *
+     * @param climate 气候记录下标
+     * @return 平均湿度
+     */
+    public double avgHumidity(int climate) {
+        return humidities[climate];
+    }
+
+    /**
+     * 主要光照条件
+     *
+     * @param climate 气候记录下标
+     * @return 光照条件（FULL_SUN/PARTIAL_SUN/SHADE）
+     */
+    public String lightCondition(int climate) {
+        return LIGHT_CONDITIONS[lights[climate]];
+    }
+
+    /**
+     * 是否适宜在某季节种植
+     *
+     * @param climate 气候记录下标
+     * @param season 季节名称
+     * @return 适宜返回true
+     */
+    public boolean suitsSeason(int climate, String season) {
+        int bit = indexOfOrNone(SEASONS, season);
+        return bit != NONE && (seasonMasks[climate] & (1 << bit)) != 0;
+    }
+
+    /**
+     * 季节位图
+     *
+     * @param seasons 季节（;分隔）
+     * @return 位图
+     */
+    private static byte seasonMask(String seasons) {
+        int mask = 0;
+        for (String season : seasons.split(";")) {
+            if (!season.isEmpty()) {
+                mask |= 1 << indexOf(SEASONS, season);
+            }
+        }
+        return (byte) mask;
+    }
+
+    /**
+     * 查找编码
+     *
+     * @param values 取值表
+     * @param value 取值
+     * @return 下标
+     * @throws IllegalArgumentException 未知取值
+     */
+    private static int indexOf(String[] values, String value) {
+        int index = indexOfOrNone(values, value);
+        if (index == NONE) {
+            throw new IllegalArgumentException("未知取值: " + value + "，可选: " + Arrays.toString(values));
+        }
+        return index;
+    }
+
+    /**
+     * 查找编码
+     *
+     * @param values 取值表
+     * @param value 取值
+     * @return 下标，未知取值返回-1
+     */
+    private static int indexOfOrNone(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 前缀树节点（不可变），子节点按字符排序后二分查找
+     */
+    private static final class Node {
+
+        private final char[] labels;
+        private final Node[] children;
+        private final int climate;
+        private final int regionCode;
+        private final int majorRegion;
+
+        /**
+         * 子树中的第一条气候记录（区域名是已知名称的前缀时使用）
+         */
+        private final int firstClimate;
+
+        private Node(char[] labels, Node[] children, int climate, int regionCode, int majorRegion,
+                     int firstClimate) {
+            this.labels = labels;
+            this.children = children;
+            this.climate = climate;
+            this.regionCode = regionCode;
+            this.majorRegion = majorRegion;
+            this.firstClimate = firstClimate;
+        }
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    /**
+     * 前缀树构建节点
+     */
+    private static final class Builder {
+
+        private final Map<Character, Builder> children = new TreeMap<>();
+        private int climate = NONE;
+        private int regionCode = NONE;
+        private int majorRegion = NONE;
+
+        private void insert(String name, int climate, int regionCode, int majorRegion) {
+            Builder node = this;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.children.computeIfAbsent(name.charAt(i), c -> new Builder());
+            }
+            if (climate != NONE) {
+                node.climate = climate;
+            }
+            if (regionCode != NONE) {
+                node.regionCode = regionCode;
+            }
+            if (majorRegion != NONE) {
+                node.majorRegion = majorRegion;
+            }
+        }
+
+        private Node build() {
+            char[] labels = new char[children.size()];
+            Node[] built = new Node[children.size()];
+            int firstClimate = climate;
+            int i = 0;
+            for (Map.Entry<Character, Builder> entry : children.entrySet()) {
+                labels[i] = entry.getKey();
+                built[i] = entry.getValue().build();
+                if (firstClimate == NONE) {
+                    firstClimate = built[i].firstClimate;
+                }
+                i++;
+            }
+            return new Node(labels, built, climate, regionCode, majorRegion, firstClimate);
+        }
+    }
+}
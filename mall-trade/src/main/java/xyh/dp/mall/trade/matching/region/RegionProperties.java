@@ -0,0 +1,37 @@
+package xyh.dp.mall.trade.matching.region;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 区域知识库配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "matching.region")
+public class RegionProperties {
+
+    /**
+     * 区域数据文件位置（classpath:或file:前缀）
+     */
+    private String location = "classpath:region/regions.csv";
+
+    /**
+     * 检查数据文件更新的间隔（毫秒）
+     */
+    private long reloadIntervalMs = 60000;
+
+    /**
+     * 月度气候二进制数据文件路径，为空时启动时把climateSource编译到临时目录使用
+     */
+    private String climateDataset;
+
+    /**
+     * 内置的月度气候源数据（CSV）
+     */
+    private String climateSource = "classpath:region/climate-monthly.csv";
+}
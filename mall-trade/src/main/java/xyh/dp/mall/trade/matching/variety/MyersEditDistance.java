@@ -0,0 +1,113 @@
+package xyh.dp.mall.trade.matching.variety;
+
+/**
+ * 位并行编辑距离（Myers/Hyyrö算法）
+ * 较短的字符串作为模式串，每个字符占long的一位，文本串每个字符用常数次位运算推进一整列，
+ * 不分配(m+1)×(n+1)矩阵；模式串超过64个字符时退化为两行动态规划
+ *
+ * <p>品种名通常是几个汉字，按UTF-16字符比较，与原矩阵实现的结果一致。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public final class MyersEditDistance {
+
+    /**
+     * 位并行支持的最长模式串
+     */
+    private static final int MAX_PATTERN_LENGTH = Long.SIZE;
+
+    private MyersEditDistance() {
+    }
+
+    /**
+     * 计算Levenshtein编辑距离
+     *
+     * @param s1 字符串1
+     * @param s2 字符串2
+     * @return 编辑距离
+     */
+    public static int distance(String s1, String s2) {
+        String pattern = s1.length() <= s2.length() ? s1 : s2;
+        String text = pattern == s1 ? s2 : s1;
+        int m = pattern.length();
+        if (m == 0) {
+            return text.length();
+        }
+        if (m > MAX_PATTERN_LENGTH) {
+            return twoRowDistance(pattern, text);
+        }
+
+        // 模式串中每个不同字符的出现位置
+        char[] chars = new char[m];
+        long[] masks = new long[m];
+        int distinct = 0;
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(i);
+            int k = 0;
+            while (k < distinct && chars[k] != c) {
+                k++;
+            }
+            if (k == distinct) {
+                chars[distinct++] = c;
+            }
+            masks[k] |= 1L << i;
+        }
+
+        long last = 1L << (m - 1);
+        long pv = m == MAX_PATTERN_LENGTH ? -1L : (1L << m) - 1;
+        long mv = 0;
+        int score = m;
+        for (int j = 0; j < text.length(); j++) {
+            char c = text.charAt(j);
+            long eq = 0;
+            for (int k = 0; k < distinct; k++) {
+                if (chars[k] == c) {
+                    eq = masks[k];
+                    break;
+                }
+            }
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            // 第0行D[0][j] = j，水平差恒为+1
+            ph = (ph << 1) | 1;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return score;
+    }
+
+    /**
+     * 两行动态规划（长模式串回退）
+     *
+     * @param s1 字符串1
+     * @param s2 字符串2
+     * @return 编辑距离
+     */
+    private static int twoRowDistance(String s1, String s2) {
+        int[] previous = new int[s2.length() + 1];
+        int[] current = new int[s2.length() + 1];
+        for (int j = 0; j <= s2.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= s1.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= s2.length(); j++) {
+                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[s2.length()];
+    }
+}
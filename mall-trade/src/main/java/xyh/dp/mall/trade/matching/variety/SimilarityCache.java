@@ -0,0 +1,92 @@
+package xyh.dp.mall.trade.matching.variety;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 品种相似度缓存
+ * 以两个字典ID为键的定长直接映射表：每个槽位是一个long，高32位为ID对，低32位为float得分，
+ * 读写都是单次原子操作，无锁、无装箱；槽位冲突时新值覆盖旧值，内存占用固定
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public class SimilarityCache {
+
+    /**
+     * 空槽位（ID从1开始，有效键不为0）
+     */
+    private static final long EMPTY = 0L;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    /**
+     * 创建相似度缓存
+     *
+     * @param capacity 槽位数，向上取整为2的幂
+     */
+    public SimilarityCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 查询缓存的得分
+     *
+     * @param id1 品种ID
+     * @param id2 另一个品种ID
+     * @return 得分，未缓存返回NaN
+     */
+    public float get(int id1, int id2) {
+        int key = key(id1, id2);
+        long entry = slots.get(slot(key));
+        if (entry == EMPTY || (int) (entry >>> 32) != key) {
+            return Float.NaN;
+        }
+        return Float.intBitsToFloat((int) entry);
+    }
+
+    /**
+     * 写入得分
+     *
+     * @param id1 品种ID
+     * @param id2 另一个品种ID
+     * @param score 得分
+     */
+    public void put(int id1, int id2, float score) {
+        int key = key(id1, id2);
+        slots.set(slot(key), ((long) key << 32) | (Float.floatToRawIntBits(score) & 0xFFFFFFFFL));
+    }
+
+    /**
+     * 槽位数
+     *
+     * @return 槽位数
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * ID对（与顺序无关）
+     *
+     * @param id1 品种ID
+     * @param id2 另一个品种ID
+     * @return 32位键
+     */
+    private static int key(int id1, int id2) {
+        return id1 <= id2 ? (id1 << 16) | id2 : (id2 << 16) | id1;
+    }
+
+    /**
+     * 槽位下标
+     *
+     * @param key 键
+     * @return 下标
+     */
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,71 @@
+package xyh.dp.mall.trade.matching.variety;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 品种名字典
+ * 把品种名驻留为从1开始的连续整数ID，供相似度缓存按ID对查找；
+ * 品种名来自有限的词表，字典达到容量上限后不再收录新名字
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public class VarietyDictionary {
+
+    /**
+     * 未收录（字典已满）
+     */
+    public static final int ABSENT = -1;
+
+    /**
+     * ID上限（相似度缓存用16位存储每个ID）
+     */
+    public static final int MAX_CAPACITY = 0xFFFF;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final int capacity;
+
+    /**
+     * 创建品种名字典
+     *
+     * @param capacity 最多收录的品种名数，不超过{@link #MAX_CAPACITY}
+     */
+    public VarietyDictionary(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("字典容量必须在1-" + MAX_CAPACITY + "之间: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * 查询或分配品种名ID
+     *
+     * @param variety 品种名
+     * @return ID（1..capacity），字典已满且未收录返回{@link #ABSENT}
+     */
+    public int intern(String variety) {
+        Integer id = ids.get(variety);
+        if (id != null) {
+            return id;
+        }
+        if (ids.size() >= capacity) {
+            return ABSENT;
+        }
+        id = ids.computeIfAbsent(variety, name -> {
+            int next = nextId.getAndIncrement();
+            return next <= capacity ? next : null;
+        });
+        return id != null ? id : ABSENT;
+    }
+
+    /**
+     * 已收录的品种名数
+     *
+     * @return 品种名数
+     */
+    public int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,27 @@
+package xyh.dp.mall.trade.matching.variety;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 品种相似度配置
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "matching.variety")
+public class VarietySimilarityProperties {
+
+    /**
+     * 品种名字典容量，超出的品种名不缓存、每次直接计算（最大65535）
+     */
+    private int dictionarySize = 8192;
+
+    /**
+     * 相似度缓存槽位数（每个槽位8字节）
+     */
+    private int cacheSize = 1 << 16;
+}
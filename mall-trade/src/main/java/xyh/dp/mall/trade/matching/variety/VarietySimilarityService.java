@@ -0,0 +1,90 @@
+package xyh.dp.mall.trade.matching.variety;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 品种相似度服务
+ * 计算种植计划品种与商品品种的一致性得分：完全相同100分，互相包含85分，否则按编辑距离相似度折算
+ *
+ * <p>品种名先驻留到{@link VarietyDictionary}，得分按ID对缓存在{@link SimilarityCache}中，
+ * 同一组计划×商品品种重复比较时只是一次数组读取；编辑距离用{@link MyersEditDistance}位并行计算。
+ * 字典已满时不缓存，直接计算。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Component
+public class VarietySimilarityService {
+
+    private final VarietyDictionary dictionary;
+    private final SimilarityCache cache;
+
+    /**
+     * 创建品种相似度服务
+     *
+     * @param properties 配置
+     */
+    public VarietySimilarityService(VarietySimilarityProperties properties) {
+        this.dictionary = new VarietyDictionary(properties.getDictionarySize());
+        this.cache = new SimilarityCache(properties.getCacheSize());
+    }
+
+    /**
+     * 计算品种一致性得分
+     *
+     * @param planVariety 种植计划品种
+     * @param productVariety 商品品种
+     * @return 得分(0-100)
+     */
+    public double score(String planVariety, String productVariety) {
+        if (!StringUtils.hasText(planVariety) || !StringUtils.hasText(productVariety)) {
+            return 0;
+        }
+        int planId = dictionary.intern(planVariety);
+        int productId = dictionary.intern(productVariety);
+        if (planId == VarietyDictionary.ABSENT || productId == VarietyDictionary.ABSENT) {
+            return compute(planVariety, productVariety);
+        }
+        float cached = cache.get(planId, productId);
+        if (!Float.isNaN(cached)) {
+            return cached;
+        }
+        float score = compute(planVariety, productVariety);
+        cache.put(planId, productId, score);
+        return score;
+    }
+
+    /**
+     * 已收录的品种名数
+     *
+     * @return 品种名数
+     */
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * 计算得分（以float精度返回，缓存命中与否结果一致）
+     *
+     * @param planVariety 种植计划品种
+     * @param productVariety 商品品种
+     * @return 得分(0-100)
+     */
+    private static float compute(String planVariety, String productVariety) {
+        // 完全匹配
+        if (planVariety.equals(productVariety)) {
+            return 100;
+        }
+
+        // 包含匹配
+        if (planVariety.contains(productVariety) || productVariety.contains(planVariety)) {
+            return 85;
+        }
+
+        // 相似度计算（基于编辑距离）
+        int distance = MyersEditDistance.distance(planVariety, productVariety);
+        int maxLength = Math.max(planVariety.length(), productVariety.length());
+        return (float) ((1.0 - (double) distance / maxLength) * 100);
+    }
+}
@@ -0,0 +1,43 @@
+package xyh.dp.mall.trade.profile;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户购买画像
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class PurchaseProfile {
+
+    /**
+     * 总购买次数
+     */
+    private long totalCount;
+
+    /**
+     * 总购买金额
+     */
+    private BigDecimal totalAmount;
+
+    /**
+     * 购买过的商品种类数
+     */
+    private long productCount;
+
+    /**
+     * 最近一次购买时间
+     */
+    private LocalDateTime lastPurchaseTime;
+
+    /**
+     * 最常购买的品种（按次数降序）
+     */
+    private List<Map.Entry<String, Long>> topVarieties;
+}
@@ -0,0 +1,307 @@
+package xyh.dp.mall.trade.profile;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.TypeReference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import xyh.dp.mall.common.annotation.Bulkhead;
+import xyh.dp.mall.common.concurrent.DependencyBulkhead;
+import xyh.dp.mall.common.util.AfterCommit;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.entity.PurchaseUserStats;
+import xyh.dp.mall.trade.mapper.PurchaseUserStatsMapper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户购买画像缓存
+ * 每个用户一个Hash保存汇总指标、一个ZSET保存品种购买次数，购买记录提交后增量更新
+ *
+ * <p>key结构（花括号为集群hash tag，保证同一用户的两个key在同一slot以便Lua脚本同时操作）：
+ * - purchase:profile:{userId}          Hash：totalCount、totalAmount（分）、productCount、lastPurchaseTime（毫秒）
+ * - purchase:profile:{userId}:variety  ZSET：member为品种，score为购买次数，只保留次数最多的前50个</p>
+ *
+ * <p>画像不存在时增量更新直接跳过，读取时从用户汇总表（purchase_user_stats）加载，
+ * 因此Redis只保存近期活跃用户。加载与增量更新并发时可能漏计一次，通过重建修复。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Bulkhead(DependencyBulkhead.REDIS)
+public class PurchaseProfileStore {
+
+    static final String KEY_PREFIX = "purchase:profile:";
+
+    private static final String TOTAL_COUNT = "totalCount";
+    private static final String TOTAL_AMOUNT = "totalAmount";
+    private static final String PRODUCT_COUNT = "productCount";
+    private static final String LAST_PURCHASE_TIME = "lastPurchaseTime";
+
+    private static final int MAX_VARIETIES = 50;
+    private static final int TOP_VARIETIES = 5;
+    private static final Duration PROFILE_TTL = Duration.ofDays(30);
+
+    /**
+     * KEYS[1]: 画像Hash, KEYS[2]: 品种ZSET
+     * ARGV[1]: 金额（分）, ARGV[2]: 是否新商品（0/1）, ARGV[3]: 购买时间（毫秒）, ARGV[4]: 品种（可为空）,
+     * ARGV[5]: 有效期（秒）, ARGV[6]: 品种保留数
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            redis.call('HINCRBY', KEYS[1], 'totalCount', 1)
+            redis.call('HINCRBY', KEYS[1], 'totalAmount', ARGV[1])
+            redis.call('HINCRBY', KEYS[1], 'productCount', ARGV[2])
+            local last = tonumber(redis.call('HGET', KEYS[1], 'lastPurchaseTime') or '0')
+            if tonumber(ARGV[3]) > last then
+                redis.call('HSET', KEYS[1], 'lastPurchaseTime', ARGV[3])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[5])
+            if ARGV[4] ~= '' then
+                redis.call('ZINCRBY', KEYS[2], 1, ARGV[4])
+                redis.call('ZREMRANGEBYRANK', KEYS[2], 0, -tonumber(ARGV[6]) - 1)
+                redis.call('EXPIRE', KEYS[2], ARGV[5])
+            end
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PurchaseUserStatsMapper userStatsMapper;
+
+    /**
+     * 记录一次购买
+     * 经{@link AfterCommit}在事务提交后更新
+     *
+     * @param record     已写入的购买记录
+     * @param newProduct 是否为该用户首次购买此商品
+     */
+    public void record(PurchaseRecord record, boolean newProduct) {
+        AfterCommit.run(() -> increment(record, newProduct));
+    }
+
+    /**
+     * 查询用户购买画像
+     * 缓存中不存在时从用户汇总表加载
+     *
+     * @param userId 用户ID
+     * @return 购买画像
+     */
+    public PurchaseProfile get(Long userId) {
+        String hashKey = hashKey(userId);
+        String varietyKey = varietyKey(userId);
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForHash().entries(hashKey);
+                ops.opsForZSet().reverseRangeWithScores(varietyKey, 0, TOP_VARIETIES - 1);
+                return null;
+            }
+        });
+
+        Map<?, ?> fields = (Map<?, ?>) results.get(0);
+        if (fields == null || fields.isEmpty()) {
+            return load(userId);
+        }
+        @SuppressWarnings("unchecked")
+        Set<ZSetOperations.TypedTuple<String>> varieties = (Set<ZSetOperations.TypedTuple<String>>) results.get(1);
+
+        PurchaseProfile profile = new PurchaseProfile();
+        profile.setTotalCount(parseLong(fields.get(TOTAL_COUNT)));
+        profile.setTotalAmount(BigDecimal.valueOf(parseLong(fields.get(TOTAL_AMOUNT)), 2));
+        profile.setProductCount(parseLong(fields.get(PRODUCT_COUNT)));
+        long lastPurchaseMillis = parseLong(fields.get(LAST_PURCHASE_TIME));
+        profile.setLastPurchaseTime(lastPurchaseMillis > 0 ? toDateTime(lastPurchaseMillis) : null);
+        List<Map.Entry<String, Long>> topVarieties = new ArrayList<>();
+        if (varieties != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : varieties) {
+                topVarieties.add(Map.entry(tuple.getValue(),
+                        tuple.getScore() != null ? tuple.getScore().longValue() : 0L));
+            }
+        }
+        profile.setTopVarieties(topVarieties);
+        return profile;
+    }
+
+    /**
+     * 删除用户画像，下次读取时从用户汇总表重新加载
+     *
+     * @param userIds 用户ID集合
+     */
+    public void evict(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(userIds.size() * 2);
+        for (Long userId : userIds) {
+            keys.add(hashKey(userId));
+            keys.add(varietyKey(userId));
+        }
+        redisTemplate.delete(keys);
+    }
+
+    /**
+     * 执行增量更新
+     *
+     * @param record     购买记录
+     * @param newProduct 是否为该用户首次购买此商品
+     */
+    private void increment(PurchaseRecord record, boolean newProduct) {
+        try {
+            LocalDateTime purchaseTime = record.getPurchaseTime() != null ? record.getPurchaseTime() : LocalDateTime.now();
+            redisTemplate.execute(INCREMENT_SCRIPT,
+                    List.of(hashKey(record.getUserId()), varietyKey(record.getUserId())),
+                    String.valueOf(toCents(record.getTotalAmount())),
+                    newProduct ? "1" : "0",
+                    String.valueOf(toMillis(purchaseTime)),
+                    StringUtils.hasText(record.getVariety()) ? record.getVariety() : "",
+                    String.valueOf(PROFILE_TTL.toSeconds()),
+                    String.valueOf(MAX_VARIETIES));
+        } catch (Exception e) {
+            log.warn("更新用户购买画像失败: userId={}", record.getUserId(), e);
+        }
+    }
+
+    /**
+     * 从用户汇总表加载画像并写入缓存
+     * 没有购买记录的用户同样写入全0画像，后续购买直接增量更新
+     *
+     * @param userId 用户ID
+     * @return 购买画像
+     */
+    private PurchaseProfile load(Long userId) {
+        PurchaseUserStats stats = userStatsMapper.selectById(userId);
+        Map<String, Long> histogram = stats != null && StringUtils.hasText(stats.getVarietyHistogram())
+                ? JSON.parseObject(stats.getVarietyHistogram(), new TypeReference<Map<String, Long>>() {
+                })
+                : new HashMap<>();
+
+        PurchaseProfile profile = new PurchaseProfile();
+        profile.setTotalCount(stats != null ? stats.getTotalCount() : 0);
+        profile.setTotalAmount(stats != null ? stats.getTotalAmount() : BigDecimal.ZERO);
+        profile.setProductCount(stats != null ? stats.getProductCount() : 0);
+        profile.setLastPurchaseTime(stats != null ? stats.getLastPurchaseTime() : null);
+        profile.setTopVarieties(histogram.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_VARIETIES)
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .toList());
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put(TOTAL_COUNT, String.valueOf(profile.getTotalCount()));
+        fields.put(TOTAL_AMOUNT, String.valueOf(toCents(profile.getTotalAmount())));
+        fields.put(PRODUCT_COUNT, String.valueOf(profile.getProductCount()));
+        fields.put(LAST_PURCHASE_TIME, String.valueOf(profile.getLastPurchaseTime() != null
+                ? toMillis(profile.getLastPurchaseTime()) : 0L));
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        histogram.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(MAX_VARIETIES)
+                .forEach(entry -> tuples.add(new DefaultTypedTuple<>(entry.getKey(), entry.getValue().doubleValue())));
+
+        String hashKey = hashKey(userId);
+        String varietyKey = varietyKey(userId);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.delete(varietyKey);
+                ops.opsForHash().putAll(hashKey, fields);
+                ops.expire(hashKey, PROFILE_TTL);
+                if (!tuples.isEmpty()) {
+                    ops.opsForZSet().add(varietyKey, tuples);
+                    ops.expire(varietyKey, PROFILE_TTL);
+                }
+                return null;
+            }
+        });
+        return profile;
+    }
+
+    /**
+     * 画像Hash key
+     *
+     * @param userId 用户ID
+     * @return key
+     */
+    static String hashKey(Long userId) {
+        return KEY_PREFIX + "{" + userId + "}";
+    }
+
+    /**
+     * 品种ZSET key
+     *
+     * @param userId 用户ID
+     * @return key
+     */
+    static String varietyKey(Long userId) {
+        return KEY_PREFIX + "{" + userId + "}:variety";
+    }
+
+    /**
+     * 金额转换为分
+     *
+     * @param amount 金额
+     * @return 分
+     */
+    private static long toCents(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0L;
+    }
+
+    /**
+     * 时间转换为毫秒时间戳
+     *
+     * @param time 时间
+     * @return 毫秒时间戳
+     */
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 毫秒时间戳转换为时间
+     *
+     * @param millis 毫秒时间戳
+     * @return 时间
+     */
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 解析Hash字段
+     *
+     * @param value 字段值
+     * @return long值，为空返回0
+     */
+    private static long parseLong(Object value) {
+        return value != null ? Long.parseLong(value.toString()) : 0L;
+    }
+}
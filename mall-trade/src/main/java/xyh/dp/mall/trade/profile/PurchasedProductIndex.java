@@ -0,0 +1,347 @@
+package xyh.dp.mall.trade.profile;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.util.AfterCommit;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户已购商品索引
+ * 每个用户一个Roaring位图保存购买过的商品ID，"是否购买过"和"已购商品列表"直接由位图得到
+ *
+ * <p>读取顺序：本地LRU缓存 → Redis（purchase:products:{userId}，序列化后的位图） → 购买记录（SELECT DISTINCT）。
+ * 位图在本地按不可变对象使用，更新时复制后替换，读取无需加锁。</p>
+ *
+ * <p>Redis中的位图只用比较并交换（Lua脚本比较当前值后写入）更新：购买记录提交后读取位图、加入商品、
+ * 以读到的值为期望值写回，期间被其他节点改过则重读重试，并发购买不会互相覆盖；
+ * 位图不存在时从已提交的购买记录加载后以"不存在"为期望值创建，读取时的冷加载同样如此，
+ * 冷加载读到的旧快照不会覆盖写入方已创建的位图，先创建的旧快照也会被写入方的重试补上新商品。
+ * 订单取消且用户已没有该商品的其他购买记录时，同样以比较并交换从位图中移除该商品。</p>
+ *
+ * <p>更新后发布变更通知，各节点收到通知后丢弃本地副本；本地副本另有1分钟有效期，通知丢失时也不会长期读到旧数据。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PurchasedProductIndex implements MessageListener {
+
+    /**
+     * 变更通知频道，消息为用户ID
+     */
+    public static final String CHANNEL = "purchase:products:changed";
+
+    static final String KEY_PREFIX = "purchase:products:";
+
+    private static final int LOCAL_MAX_USERS = 10_000;
+    private static final long LOCAL_TTL_MILLIS = 60_000;
+    private static final Duration REDIS_TTL = Duration.ofDays(7);
+    private static final int MAX_CAS_ATTEMPTS = 16;
+    private static final byte[] ABSENT = new byte[0];
+
+    /**
+     * KEYS[1]: 已购商品位图
+     * ARGV[1]: 期望的当前值（空串表示不存在）, ARGV[2]: 新值, ARGV[3]: 有效期（秒）
+     */
+    private static final RedisScript<Long> CAS_SCRIPT = RedisScript.of("""
+            local current = redis.call('GET', KEYS[1])
+            if (current or '') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PurchaseRecordMapper purchaseRecordMapper;
+
+    /**
+     * 本地LRU缓存：用户ID -> 位图
+     */
+    private final Map<Long, CachedBitmap> localCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedBitmap> eldest) {
+            return size() > LOCAL_MAX_USERS;
+        }
+    };
+
+    /**
+     * 判断用户是否购买过商品
+     *
+     * @param userId    用户ID
+     * @param productId 商品ID
+     * @return 购买过返回true
+     */
+    public boolean contains(Long userId, Long productId) {
+        return productId != null && productId > 0 && productId <= Integer.MAX_VALUE
+                && bitmap(userId).contains(productId.intValue());
+    }
+
+    /**
+     * 查询用户购买过的商品ID（升序）
+     *
+     * @param userId 用户ID
+     * @return 商品ID列表
+     */
+    public List<Long> productIds(Long userId) {
+        RoaringBitmap bitmap = bitmap(userId);
+        List<Long> productIds = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int productId) -> productIds.add((long) productId));
+        return productIds;
+    }
+
+    /**
+     * 记录一次购买
+     * 经{@link AfterCommit}在事务提交后更新
+     *
+     * @param record 已写入的购买记录
+     */
+    public void record(PurchaseRecord record) {
+        if (record.getUserId() == null || record.getProductId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> update(record.getUserId(), record.getProductId(), true));
+    }
+
+    /**
+     * 撤销一次购买（订单取消）
+     * 用户已没有该商品的其他购买记录时，经{@link AfterCommit}在事务提交后从位图中移除
+     *
+     * @param record     已删除的购买记录
+     * @param lastRecord 是否为该用户此商品的最后一条购买记录
+     */
+    public void revoke(PurchaseRecord record, boolean lastRecord) {
+        if (!lastRecord || record.getUserId() == null || record.getProductId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> update(record.getUserId(), record.getProductId(), false));
+    }
+
+    /**
+     * 处理变更通知：丢弃本地副本
+     *
+     * @param message 通知消息
+     * @param pattern 订阅模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Long userId = Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8));
+            synchronized (localCache) {
+                localCache.remove(userId);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("已购商品变更通知格式错误: {}", new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 获取用户位图
+     *
+     * @param userId 用户ID
+     * @return 位图（只读）
+     */
+    private RoaringBitmap bitmap(Long userId) {
+        long now = System.currentTimeMillis();
+        synchronized (localCache) {
+            CachedBitmap cached = localCache.get(userId);
+            if (cached != null && cached.expireAt() > now) {
+                return cached.bitmap();
+            }
+        }
+
+        byte[] current = readRedis(userId);
+        RoaringBitmap bitmap = deserialize(userId, current);
+        if (bitmap == null) {
+            bitmap = load(userId);
+            try {
+                if (!compareAndSet(userId, current, bitmap)) {
+                    // 其他节点已写入（可能含本次加载之后提交的购买），以Redis中的为准
+                    RoaringBitmap latest = deserialize(userId, readRedis(userId));
+                    if (latest != null) {
+                        bitmap = latest;
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("写入已购商品位图失败: userId={}", userId, e);
+            }
+        }
+        putLocal(userId, bitmap);
+        return bitmap;
+    }
+
+    /**
+     * 从购买记录加载位图
+     *
+     * @param userId 用户ID
+     * @return 位图
+     */
+    private RoaringBitmap load(Long userId) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (Long productId : purchaseRecordMapper.selectPurchasedProductIds(userId)) {
+            if (productId != null && productId > 0 && productId <= Integer.MAX_VALUE) {
+                bitmap.add(productId.intValue());
+            }
+        }
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    /**
+     * 把商品加入或移出Redis中的位图并通知各节点
+     *
+     * @param userId    用户ID
+     * @param productId 商品ID
+     * @param add       true加入，false移出
+     */
+    private void update(Long userId, Long productId, boolean add) {
+        try {
+            if (productId > 0 && productId <= Integer.MAX_VALUE) {
+                updateRedis(userId, productId.intValue(), add);
+            }
+            synchronized (localCache) {
+                localCache.remove(userId);
+            }
+            redisTemplate.convertAndSend(CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("更新已购商品索引失败: userId={}, productId={}", userId, productId, e);
+        }
+    }
+
+    /**
+     * 比较并交换方式把商品加入或移出Redis中的位图
+     * 加入时位图不存在则从购买记录加载（本次购买已提交，加载结果包含它）；移出时位图不存在无需处理，
+     * 下次读取从已提交的购买记录加载。重试多次仍冲突则删除位图，下次读取时重新加载
+     *
+     * @param userId    用户ID
+     * @param productId 商品ID
+     * @param add       true加入，false移出
+     */
+    private void updateRedis(Long userId, int productId, boolean add) {
+        for (int attempt = 0; attempt < MAX_CAS_ATTEMPTS; attempt++) {
+            byte[] current = readRedis(userId);
+            RoaringBitmap bitmap = deserialize(userId, current);
+            if (bitmap == null) {
+                if (!add) {
+                    return;
+                }
+                bitmap = load(userId);
+            } else if (bitmap.contains(productId) == add) {
+                return;
+            }
+            if (add) {
+                bitmap.add(productId);
+            } else {
+                bitmap.remove(productId);
+            }
+            bitmap.runOptimize();
+            if (compareAndSet(userId, current, bitmap)) {
+                return;
+            }
+        }
+        log.warn("已购商品位图更新冲突过多，删除后重新加载: userId={}", userId);
+        redisTemplate.delete(KEY_PREFIX + userId);
+    }
+
+    /**
+     * 从Redis读取位图的序列化值
+     *
+     * @param userId 用户ID
+     * @return 序列化值，不存在返回null
+     */
+    private byte[] readRedis(Long userId) {
+        byte[] key = key(userId);
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+    }
+
+    /**
+     * 解析位图
+     *
+     * @param userId 用户ID
+     * @param bytes  序列化值
+     * @return 位图（新对象，可修改），不存在或无法解析返回null
+     */
+    private RoaringBitmap deserialize(Long userId, byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            bitmap.deserialize(ByteBuffer.wrap(bytes));
+            return bitmap;
+        } catch (Exception e) {
+            log.warn("已购商品位图解析失败，重新加载: userId={}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Redis中的值仍为expected时写入新位图
+     *
+     * @param userId   用户ID
+     * @param expected 读到的序列化值，null表示不存在
+     * @param bitmap   新位图
+     * @return 写入成功返回true，期间被其他节点修改返回false
+     */
+    private boolean compareAndSet(Long userId, byte[] expected, RoaringBitmap bitmap) {
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+        byte[] script = CAS_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        byte[] key = key(userId);
+        byte[] ttl = String.valueOf(REDIS_TTL.toSeconds()).getBytes(StandardCharsets.UTF_8);
+        byte[][] keysAndArgs = {key, expected != null ? expected : ABSENT, buffer.array(), ttl};
+        Long result = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                .eval(script, ReturnType.INTEGER, 1, keysAndArgs));
+        return Long.valueOf(1L).equals(result);
+    }
+
+    /**
+     * 放入本地缓存
+     *
+     * @param userId 用户ID
+     * @param bitmap 位图
+     */
+    private void putLocal(Long userId, RoaringBitmap bitmap) {
+        synchronized (localCache) {
+            localCache.put(userId, new CachedBitmap(bitmap, System.currentTimeMillis() + LOCAL_TTL_MILLIS));
+        }
+    }
+
+    /**
+     * Redis key
+     *
+     * @param userId 用户ID
+     * @return key
+     */
+    private static byte[] key(Long userId) {
+        return (KEY_PREFIX + userId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 本地缓存条目
+     *
+     * @param bitmap   位图（只读）
+     * @param expireAt 过期时间（毫秒）
+     */
+    private record CachedBitmap(RoaringBitmap bitmap, long expireAt) {
+    }
+}
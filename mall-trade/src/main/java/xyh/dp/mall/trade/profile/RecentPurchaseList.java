@@ -0,0 +1,157 @@
+package xyh.dp.mall.trade.profile;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.annotation.Bulkhead;
+import xyh.dp.mall.common.concurrent.DependencyBulkhead;
+import xyh.dp.mall.common.util.AfterCommit;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 用户最近购买商品列表（最近买过）
+ * 每个用户一个Redis List：purchase:recent:{userId}，按最近购买时间从新到旧保存商品ID，去重，最多50个
+ *
+ * <p>购买记录提交后用Lua脚本原子地去重、插入表头并截断；列表不存在时跳过，
+ * 读取时再从购买记录加载。没有购买记录的用户不写缓存。
+ * 订单取消后，用户已没有该商品的其他购买记录时LREM移除该商品，否则删除列表，下次读取按购买记录重新排序加载。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Bulkhead(DependencyBulkhead.REDIS)
+public class RecentPurchaseList {
+
+    static final String KEY_PREFIX = "purchase:recent:";
+
+    /**
+     * 每个用户保留的商品数
+     */
+    public static final int MAX_SIZE = 50;
+
+    private static final Duration TTL = Duration.ofDays(90);
+
+    /**
+     * KEYS[1]: 最近购买列表
+     * ARGV[1]: 商品ID, ARGV[2]: 保留数, ARGV[3]: 有效期（秒）
+     */
+    private static final RedisScript<Long> PUSH_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            redis.call('LREM', KEYS[1], 0, ARGV[1])
+            redis.call('LPUSH', KEYS[1], ARGV[1])
+            redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[2]) - 1)
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PurchaseRecordMapper purchaseRecordMapper;
+
+    /**
+     * 记录一次购买
+     * 经{@link AfterCommit}在事务提交后更新
+     *
+     * @param record 已写入的购买记录
+     */
+    public void record(PurchaseRecord record) {
+        if (record.getUserId() == null || record.getProductId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> push(record.getUserId(), record.getProductId()));
+    }
+
+    /**
+     * 撤销一次购买（订单取消）
+     * 经{@link AfterCommit}在事务提交后更新
+     *
+     * @param record     已删除的购买记录
+     * @param lastRecord 是否为该用户此商品的最后一条购买记录
+     */
+    public void revoke(PurchaseRecord record, boolean lastRecord) {
+        if (record.getUserId() == null || record.getProductId() == null) {
+            return;
+        }
+        String key = key(record.getUserId());
+        AfterCommit.run(() -> {
+            if (lastRecord) {
+                redisTemplate.opsForList().remove(key, 0, String.valueOf(record.getProductId()));
+            } else {
+                // 仍有其他购买记录，但被取消的购买可能把它排在了表头，删除后按购买记录重新加载
+                redisTemplate.delete(key);
+            }
+        });
+    }
+
+    /**
+     * 查询用户最近购买的商品ID
+     * 缓存中不存在时从购买记录加载
+     *
+     * @param userId 用户ID
+     * @param limit  数量（不超过50）
+     * @return 商品ID列表，从新到旧
+     */
+    public List<Long> get(Long userId, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_SIZE);
+        List<String> cached = redisTemplate.opsForList().range(key(userId), 0, size - 1L);
+        if (cached != null && !cached.isEmpty()) {
+            return cached.stream().map(Long::valueOf).toList();
+        }
+
+        List<Long> productIds = purchaseRecordMapper.selectRecentProductIds(userId, MAX_SIZE);
+        if (!productIds.isEmpty()) {
+            String key = key(userId);
+            List<String> values = productIds.stream().map(String::valueOf).toList();
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.delete(key);
+                    ops.opsForList().rightPushAll(key, values);
+                    ops.expire(key, TTL);
+                    return null;
+                }
+            });
+        }
+        return productIds.size() > size ? productIds.subList(0, size) : productIds;
+    }
+
+    /**
+     * 把商品移到列表表头
+     *
+     * @param userId    用户ID
+     * @param productId 商品ID
+     */
+    private void push(Long userId, Long productId) {
+        try {
+            redisTemplate.execute(PUSH_SCRIPT, List.of(key(userId)),
+                    String.valueOf(productId), String.valueOf(MAX_SIZE), String.valueOf(TTL.toSeconds()));
+        } catch (Exception e) {
+            log.warn("更新最近购买列表失败: userId={}, productId={}", userId, productId, e);
+        }
+    }
+
+    /**
+     * Redis key
+     *
+     * @param userId 用户ID
+     * @return key
+     */
+    static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
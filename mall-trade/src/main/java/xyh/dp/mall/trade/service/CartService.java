@@ -1,31 +1,52 @@
 package xyh.dp.mall.trade.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import xyh.dp.mall.common.context.UserContextHolder;
 import xyh.dp.mall.common.exception.BusinessException;
 import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.common.snapshot.ProductSnapshot;
+import xyh.dp.mall.trade.cart.CartStoreProperties;
+import xyh.dp.mall.trade.cart.RedisCartStore;
 import xyh.dp.mall.trade.dto.AddCartItemDTO;
+import xyh.dp.mall.trade.dto.BatchCartDTO;
+import xyh.dp.mall.trade.dto.CartOperationDTO;
 import xyh.dp.mall.trade.dto.UpdateCartItemDTO;
 import xyh.dp.mall.trade.entity.CartItem;
 import xyh.dp.mall.trade.feign.ProductFeignClient;
 import xyh.dp.mall.trade.feign.dto.ProductDTO;
 import xyh.dp.mall.trade.mapper.CartItemMapper;
+import xyh.dp.mall.trade.snapshot.ProductSnapshotCache;
 import xyh.dp.mall.trade.vo.CartItemVO;
 import xyh.dp.mall.trade.vo.CartSummaryVO;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * 购物车服务
  * 
+ * <p>cart.store.mode=REDIS时购物车读写走{@link RedisCartStore}，由后台任务异步批量落库；
+ * 该模式下下发的购物车项ID即商品ID。从MYSQL切换过来时，客户端可能仍持有旧的tb_cart_item行ID，
+ * 这类ID必须显式标记legacyRowId=true，按当前用户的行ID查出对应商品后再操作；未标记的ID一律视为商品ID。
+ * 行ID与商品ID都是自增值、取值范围重叠，不根据ID是否在购物车中猜测其类型。</p>
+ * 
+ * <p>各方法最多执行一条写SQL，不声明事务，避免Redis模式下也占用数据库连接；
+ * 批量操作仅在MySQL模式下通过编程式事务包裹多条SQL。</p>
+ * 
  * @author mall-cloud
  * @since 1.0.0
  */
@@ -36,6 +57,10 @@ public class CartService {
     
     private final CartItemMapper cartItemMapper;
     private final ProductFeignClient productFeignClient;
+    private final RedisCartStore redisCartStore;
+    private final CartStoreProperties cartStoreProperties;
+    private final ProductSnapshotCache productSnapshotCache;
+    private final TransactionTemplate transactionTemplate;
     
     /**
      * 添加商品到购物车
@@ -44,7 +69,6 @@ public class CartService {
      * @param dto 添加购物车请求
      * @return 购物车项ID
      */
-    @Transactional(rollbackFor = Exception.class)
     public Long addToCart(AddCartItemDTO dto) {
         Long userId = UserContextHolder.getUserId();
         log.info("添加购物车: userId={}, productId={}, quantity={}", userId, dto.getProductId(), dto.getQuantity());
@@ -67,6 +91,12 @@ public class CartService {
             throw new BusinessException("库存不足");
         }
         
+        if (cartStoreProperties.isRedisMode()) {
+            long quantity = redisCartStore.add(userId, product, dto.getQuantity());
+            log.info("购物车更新成功: productId={}, quantity={}", dto.getProductId(), quantity);
+            return dto.getProductId();
+        }
+        
         // 检查是否已存在
         LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(CartItem::getUserId, userId)
@@ -116,14 +146,24 @@ public class CartService {
         log.info("查询购物车: userId={}", userId);
         
         // 查询购物车项
-        LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(CartItem::getUserId, userId)
-                    .orderByDesc(CartItem::getCreateTime);
-        List<CartItem> cartItems = cartItemMapper.selectList(queryWrapper);
+        List<CartItem> cartItems;
+        if (cartStoreProperties.isRedisMode()) {
+            cartItems = redisCartStore.getItems(userId);
+        } else {
+            LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.eq(CartItem::getUserId, userId)
+                        .orderByDesc(CartItem::getCreateTime);
+            cartItems = cartItemMapper.selectList(queryWrapper);
+        }
+        
+        // 批量获取最新商品快照（本地快照优先，仅缺失时远程查询）
+        List<Long> productIds = cartItems.stream()
+                .map(CartItem::getProductId)
+                .collect(Collectors.toList());
+        Map<Long, ProductSnapshot> snapshots = productSnapshotCache.getSnapshots(productIds);
         
-        // 转换为VO并查询最新商品信息
         List<CartItemVO> itemVOList = cartItems.stream()
-                .map(this::convertToVO)
+                .map(cartItem -> convertToVO(cartItem, snapshots.get(cartItem.getProductId())))
                 .collect(Collectors.toList());
         
         // 计算汇总信息
@@ -158,11 +198,19 @@ public class CartService {
      * 
      * @param dto 更新请求
      */
-    @Transactional(rollbackFor = Exception.class)
     public void updateQuantity(UpdateCartItemDTO dto) {
         Long userId = UserContextHolder.getUserId();
         log.info("更新购物车数量: userId={}, cartItemId={}, quantity={}", userId, dto.getId(), dto.getQuantity());
         
+        if (cartStoreProperties.isRedisMode()) {
+            Long productId = toRedisItemId(userId, dto.getId(), dto.getLegacyRowId());
+            checkStock(productId, dto.getQuantity());
+            if (!redisCartStore.updateQuantity(userId, productId, dto.getQuantity())) {
+                throw new BusinessException("购物车项不存在");
+            }
+            return;
+        }
+        
         CartItem cartItem = cartItemMapper.selectById(dto.getId());
         if (cartItem == null) {
             throw new BusinessException("购物车项不存在");
@@ -174,13 +222,7 @@ public class CartService {
         }
         
         // 查询商品库存
-        Result<ProductDTO> productResult = productFeignClient.getProductById(cartItem.getProductId());
-        if (productResult.isSuccess() && productResult.getData() != null) {
-            ProductDTO product = productResult.getData();
-            if (dto.getQuantity() > product.getStock()) {
-                throw new BusinessException("库存不足，当前库存: " + product.getStock());
-            }
-        }
+        checkStock(cartItem.getProductId(), dto.getQuantity());
         
         cartItem.setQuantity(dto.getQuantity());
         cartItem.setUpdateTime(LocalDateTime.now());
@@ -194,12 +236,20 @@ public class CartService {
      * 
      * @param cartItemId 购物车项ID
      * @param selected 是否选中
+     * @param legacyRowId cartItemId是否为切换到Redis模式前下发的tb_cart_item行ID
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void toggleSelected(Long cartItemId, Boolean selected) {
+    public void toggleSelected(Long cartItemId, Boolean selected, Boolean legacyRowId) {
         Long userId = UserContextHolder.getUserId();
         log.info("切换购物车选中状态: userId={}, cartItemId={}, selected={}", userId, cartItemId, selected);
         
+        if (cartStoreProperties.isRedisMode()) {
+            Long productId = toRedisItemId(userId, cartItemId, legacyRowId);
+            if (!redisCartStore.setSelected(userId, productId, Boolean.TRUE.equals(selected))) {
+                throw new BusinessException("购物车项不存在");
+            }
+            return;
+        }
+        
         CartItem cartItem = cartItemMapper.selectById(cartItemId);
         if (cartItem == null) {
             throw new BusinessException("购物车项不存在");
@@ -221,34 +271,43 @@ public class CartService {
      * 
      * @param selected 是否全选
      */
-    @Transactional(rollbackFor = Exception.class)
     public void selectAll(Boolean selected) {
         Long userId = UserContextHolder.getUserId();
         log.info("购物车全选/全不选: userId={}, selected={}", userId, selected);
         
-        LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(CartItem::getUserId, userId);
-        List<CartItem> cartItems = cartItemMapper.selectList(queryWrapper);
-        
-        for (CartItem item : cartItems) {
-            item.setSelected(selected);
-            item.setUpdateTime(LocalDateTime.now());
-            cartItemMapper.updateById(item);
+        if (cartStoreProperties.isRedisMode()) {
+            long count = redisCartStore.selectAll(userId, Boolean.TRUE.equals(selected));
+            log.info("购物车全选/全不选完成: count={}", count);
+            return;
         }
         
-        log.info("购物车全选/全不选完成: count={}", cartItems.size());
+        // 单条UPDATE完成，避免逐条更新
+        LambdaUpdateWrapper<CartItem> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(CartItem::getUserId, userId)
+                     .set(CartItem::getSelected, selected)
+                     .set(CartItem::getUpdateTime, LocalDateTime.now());
+        int count = cartItemMapper.update(updateWrapper);
+        
+        log.info("购物车全选/全不选完成: count={}", count);
     }
     
     /**
      * 删除购物车项
      * 
      * @param cartItemId 购物车项ID
+     * @param legacyRowId cartItemId是否为切换到Redis模式前下发的tb_cart_item行ID
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void removeItem(Long cartItemId) {
+    public void removeItem(Long cartItemId, Boolean legacyRowId) {
         Long userId = UserContextHolder.getUserId();
         log.info("删除购物车项: userId={}, cartItemId={}", userId, cartItemId);
         
+        if (cartStoreProperties.isRedisMode()) {
+            if (!redisCartStore.remove(userId, toRedisItemId(userId, cartItemId, legacyRowId))) {
+                throw new BusinessException("购物车项不存在");
+            }
+            return;
+        }
+        
         CartItem cartItem = cartItemMapper.selectById(cartItemId);
         if (cartItem == null) {
             throw new BusinessException("购物车项不存在");
@@ -265,11 +324,16 @@ public class CartService {
     /**
      * 清空购物车
      */
-    @Transactional(rollbackFor = Exception.class)
     public void clearCart() {
         Long userId = UserContextHolder.getUserId();
         log.info("清空购物车: userId={}", userId);
         
+        if (cartStoreProperties.isRedisMode()) {
+            redisCartStore.clear(userId);
+            log.info("购物车清空成功");
+            return;
+        }
+        
         LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(CartItem::getUserId, userId);
         cartItemMapper.delete(queryWrapper);
@@ -280,11 +344,16 @@ public class CartService {
     /**
      * 删除选中的购物车项
      */
-    @Transactional(rollbackFor = Exception.class)
     public void removeSelectedItems() {
         Long userId = UserContextHolder.getUserId();
         log.info("删除选中的购物车项: userId={}", userId);
         
+        if (cartStoreProperties.isRedisMode()) {
+            long count = redisCartStore.removeSelected(userId);
+            log.info("选中的购物车项删除成功: count={}", count);
+            return;
+        }
+        
         LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(CartItem::getUserId, userId)
                     .eq(CartItem::getSelected, true);
@@ -293,13 +362,377 @@ public class CartService {
         log.info("选中的购物车项删除成功");
     }
     
+    /**
+     * 批量操作购物车
+     * 同一购物车项的多次操作以最后一次为准，删除优先；同一商品的多次加入数量累加；同一商品既加入又修改数量时整批拒绝。
+     * 涉及的商品通过一次批量查询校验，MySQL模式下同类修改合并为一条SQL并在同一事务中执行。
+     * 
+     * @param dto 批量操作请求
+     * @return 操作后的购物车汇总
+     */
+    public CartSummaryVO batchUpdate(BatchCartDTO dto) {
+        Long userId = UserContextHolder.getUserId();
+        log.info("批量操作购物车: userId={}, operations={}", userId, dto.getOperations().size());
+        
+        Map<Long, Long> legacyIds = loadLegacyProductIds(userId, dto.getOperations());
+        Map<Long, Integer> adds = new LinkedHashMap<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        Map<Long, Boolean> selections = new LinkedHashMap<>();
+        Set<Long> removals = new LinkedHashSet<>();
+        for (CartOperationDTO operation : dto.getOperations()) {
+            switch (operation.getType()) {
+                case "ADD" -> adds.merge(requireField(operation.getProductId(), "商品ID"),
+                        requireField(operation.getQuantity(), "数量"), Integer::sum);
+                case "UPDATE" -> quantities.put(itemKey(operation, legacyIds),
+                        requireField(operation.getQuantity(), "数量"));
+                case "SELECT" -> selections.put(itemKey(operation, legacyIds),
+                        Boolean.TRUE.equals(operation.getSelected()));
+                case "REMOVE" -> removals.add(itemKey(operation, legacyIds));
+                default -> throw new BusinessException("操作类型不正确: " + operation.getType());
+            }
+        }
+        quantities.keySet().removeAll(removals);
+        selections.keySet().removeAll(removals);
+        
+        if (cartStoreProperties.isRedisMode()) {
+            applyBatchToRedis(userId, adds, quantities, selections, removals);
+        } else {
+            applyBatchToDatabase(userId, adds, quantities, selections, removals);
+        }
+        
+        log.info("批量操作购物车完成: add={}, update={}, select={}, remove={}",
+                adds.size(), quantities.size(), selections.size(), removals.size());
+        return getCartSummary();
+    }
+    
+    /**
+     * Redis模式下执行批量操作（购物车项ID即商品ID，标记为旧行ID的已在解析时转换）
+     * 商品信息校验后由一个脚本原子执行全部修改，脚本内再次校验购物车项存在和库存，任一失败整批不生效
+     * 
+     * @param userId 用户ID
+     * @param adds 商品ID -> 增加数量
+     * @param quantities 购物车项ID -> 新数量
+     * @param selections 购物车项ID -> 是否选中
+     * @param removals 待删除的购物车项ID
+     */
+    private void applyBatchToRedis(Long userId, Map<Long, Integer> adds, Map<Long, Integer> quantities,
+                                   Map<Long, Boolean> selections, Set<Long> removals) {
+        Set<Long> existing = new HashSet<>();
+        for (CartItem item : redisCartStore.getItems(userId)) {
+            existing.add(item.getProductId());
+        }
+        requireExisting(existing, quantities.keySet(), selections.keySet(), removals);
+        rejectAddAndUpdate(adds.keySet(), quantities.keySet());
+        
+        Set<Long> productIds = new HashSet<>(adds.keySet());
+        productIds.addAll(quantities.keySet());
+        Map<Long, ProductDTO> products = loadProducts(productIds);
+        adds.forEach((productId, quantity) -> requireAvailable(productId, products.get(productId), quantity));
+        quantities.forEach((productId, quantity) -> checkStock(products.get(productId), quantity));
+        
+        redisCartStore.applyBatch(userId, removals, adds, products, quantities, selections);
+    }
+    
+    /**
+     * 转换Redis模式下的购物车项ID
+     * 未标记的ID即商品ID；标记为旧行ID的，只按当前用户的tb_cart_item行查出对应商品
+     * 
+     * @param userId 用户ID
+     * @param cartItemId 购物车项ID
+     * @param legacyRowId 是否为切换前下发的tb_cart_item行ID
+     * @return 商品ID
+     */
+    private Long toRedisItemId(Long userId, Long cartItemId, Boolean legacyRowId) {
+        if (!Boolean.TRUE.equals(legacyRowId)) {
+            return cartItemId;
+        }
+        Long productId = loadLegacyProductIds(userId, Set.of(cartItemId)).get(cartItemId);
+        if (productId == null) {
+            throw new BusinessException("购物车项不存在");
+        }
+        return productId;
+    }
+    
+    /**
+     * 批量操作中标记为旧行ID的操作，在Redis模式下一次查出对应商品ID
+     * 
+     * @param userId 用户ID
+     * @param operations 操作列表
+     * @return 行ID -> 商品ID，MySQL模式下（ID本就是行ID）返回空Map
+     */
+    private Map<Long, Long> loadLegacyProductIds(Long userId, List<CartOperationDTO> operations) {
+        if (!cartStoreProperties.isRedisMode()) {
+            return Map.of();
+        }
+        Set<Long> rowIds = operations.stream()
+                .filter(operation -> Boolean.TRUE.equals(operation.getLegacyRowId()) && operation.getId() != null)
+                .map(CartOperationDTO::getId)
+                .collect(Collectors.toSet());
+        return rowIds.isEmpty() ? Map.of() : loadLegacyProductIds(userId, rowIds);
+    }
+    
+    /**
+     * 按旧的tb_cart_item行ID查询商品ID，只返回属于当前用户的行
+     * 
+     * @param userId 用户ID
+     * @param cartItemIds 行ID集合
+     * @return 行ID -> 商品ID
+     */
+    private Map<Long, Long> loadLegacyProductIds(Long userId, Set<Long> cartItemIds) {
+        LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(CartItem::getUserId, userId)
+                    .in(CartItem::getId, cartItemIds);
+        Map<Long, Long> productIds = new HashMap<>();
+        for (CartItem row : cartItemMapper.selectList(queryWrapper)) {
+            productIds.put(row.getId(), row.getProductId());
+        }
+        return productIds;
+    }
+    
+    /**
+     * 批量操作的购物车项键：Redis模式下标记为旧行ID的转换为商品ID，其余原样使用
+     * 
+     * @param operation 操作
+     * @param legacyIds 行ID -> 商品ID
+     * @return 购物车项键
+     */
+    private Long itemKey(CartOperationDTO operation, Map<Long, Long> legacyIds) {
+        Long id = requireField(operation.getId(), "购物车项ID");
+        if (!Boolean.TRUE.equals(operation.getLegacyRowId()) || !cartStoreProperties.isRedisMode()) {
+            return id;
+        }
+        Long productId = legacyIds.get(id);
+        if (productId == null) {
+            throw new BusinessException("购物车项不存在: " + id);
+        }
+        return productId;
+    }
+    
+    /**
+     * MySQL模式下执行批量操作
+     * 一次查询用户购物车校验归属，删除、改数量、改选中各一条SQL，新增批量插入
+     * 
+     * @param userId 用户ID
+     * @param adds 商品ID -> 增加数量
+     * @param quantities 购物车项ID -> 新数量
+     * @param selections 购物车项ID -> 是否选中
+     * @param removals 待删除的购物车项ID
+     */
+    private void applyBatchToDatabase(Long userId, Map<Long, Integer> adds, Map<Long, Integer> quantities,
+                                      Map<Long, Boolean> selections, Set<Long> removals) {
+        LambdaQueryWrapper<CartItem> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(CartItem::getUserId, userId);
+        Map<Long, CartItem> rowsById = new HashMap<>();
+        Map<Long, CartItem> rowsByProductId = new HashMap<>();
+        for (CartItem row : cartItemMapper.selectList(queryWrapper)) {
+            rowsById.put(row.getId(), row);
+            rowsByProductId.put(row.getProductId(), row);
+        }
+        requireExisting(rowsById.keySet(), quantities.keySet(), selections.keySet(), removals);
+        rejectAddAndUpdate(adds.keySet(), quantities.keySet().stream()
+                .map(id -> rowsById.get(id).getProductId())
+                .collect(Collectors.toSet()));
+        
+        // 已在购物车中的商品，加入转为数量修改
+        Map<Long, Integer> newItems = new LinkedHashMap<>();
+        adds.forEach((productId, quantity) -> {
+            CartItem row = rowsByProductId.get(productId);
+            if (row != null && !removals.contains(row.getId())) {
+                quantities.put(row.getId(), quantities.getOrDefault(row.getId(), row.getQuantity()) + quantity);
+            } else {
+                newItems.put(productId, quantity);
+            }
+        });
+        
+        Set<Long> productIds = new HashSet<>(newItems.keySet());
+        quantities.keySet().forEach(id -> productIds.add(rowsById.get(id).getProductId()));
+        Map<Long, ProductDTO> products = loadProducts(productIds);
+        
+        List<CartItem> updates = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> {
+            checkStock(products.get(rowsById.get(id).getProductId()), quantity);
+            CartItem item = new CartItem();
+            item.setId(id);
+            item.setQuantity(quantity);
+            updates.add(item);
+        });
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<CartItem> inserts = new ArrayList<>(newItems.size());
+        newItems.forEach((productId, quantity) -> {
+            ProductDTO product = products.get(productId);
+            requireAvailable(productId, product, quantity);
+            CartItem cartItem = new CartItem();
+            cartItem.setUserId(userId);
+            cartItem.setProductId(productId);
+            cartItem.setProductName(product.getName());
+            cartItem.setProductImage(product.getMainImage());
+            cartItem.setPrice(product.getPrice());
+            cartItem.setQuantity(quantity);
+            cartItem.setSelected(true);
+            cartItem.setCreateTime(now);
+            cartItem.setUpdateTime(now);
+            inserts.add(cartItem);
+        });
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!removals.isEmpty()) {
+                LambdaQueryWrapper<CartItem> deleteWrapper = new LambdaQueryWrapper<>();
+                deleteWrapper.eq(CartItem::getUserId, userId)
+                             .in(CartItem::getId, removals);
+                cartItemMapper.delete(deleteWrapper);
+            }
+            if (!updates.isEmpty()) {
+                cartItemMapper.batchUpdateQuantity(userId, updates);
+            }
+            for (Boolean selected : new HashSet<>(selections.values())) {
+                List<Long> ids = selections.entrySet().stream()
+                        .filter(entry -> entry.getValue().equals(selected))
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+                LambdaUpdateWrapper<CartItem> updateWrapper = new LambdaUpdateWrapper<>();
+                updateWrapper.eq(CartItem::getUserId, userId)
+                             .in(CartItem::getId, ids)
+                             .set(CartItem::getSelected, selected)
+                             .set(CartItem::getUpdateTime, now);
+                cartItemMapper.update(updateWrapper);
+            }
+            if (!inserts.isEmpty()) {
+                cartItemMapper.insert(inserts);
+            }
+        });
+    }
+    
+    /**
+     * 批量查询商品信息
+     * 商品服务不可用时整批失败，不把全部商品当作不存在
+     * 
+     * @param productIds 商品ID集合
+     * @return 商品ID -> 商品信息，不存在的商品不在结果中
+     * @throws BusinessException 商品服务不可用
+     */
+    private Map<Long, ProductDTO> loadProducts(Set<Long> productIds) {
+        Map<Long, ProductDTO> products = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return products;
+        }
+        Result<List<ProductDTO>> result;
+        try {
+            result = productFeignClient.getProductsByIds(new ArrayList<>(productIds));
+        } catch (Exception e) {
+            log.warn("批量查询商品信息失败: count={}", productIds.size(), e);
+            throw new BusinessException(503, "商品服务暂时不可用，请稍后重试");
+        }
+        if (!result.isSuccess() || result.getData() == null) {
+            log.warn("批量查询商品信息失败: count={}, message={}", productIds.size(), result.getMessage());
+            throw new BusinessException(503, "商品服务暂时不可用，请稍后重试");
+        }
+        for (ProductDTO product : result.getData()) {
+            products.put(product.getId(), product);
+        }
+        return products;
+    }
+    
+    /**
+     * 校验新加入的商品存在、已上架且库存充足
+     * 
+     * @param productId 商品ID
+     * @param product 商品信息
+     * @param quantity 加入后的数量
+     */
+    private void requireAvailable(Long productId, ProductDTO product, int quantity) {
+        if (product == null) {
+            throw new BusinessException("商品不存在: " + productId);
+        }
+        if (!"ON_SALE".equals(product.getStatus())) {
+            throw new BusinessException("商品已下架: " + product.getName());
+        }
+        if (product.getStock() < quantity) {
+            throw new BusinessException("库存不足: " + product.getName());
+        }
+    }
+    
+    /**
+     * 校验购物车项ID都属于当前用户
+     * 
+     * @param existing 当前用户的购物车项ID
+     * @param idGroups 待操作的购物车项ID
+     */
+    @SafeVarargs
+    private void requireExisting(Set<Long> existing, Set<Long>... idGroups) {
+        for (Set<Long> ids : idGroups) {
+            for (Long id : ids) {
+                if (!existing.contains(id)) {
+                    throw new BusinessException("购物车项不存在: " + id);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 同一商品不能在一次批量操作中既加入又修改数量
+     * 两种存储对两者的先后处理不同（Redis脚本中修改数量覆盖加入，MySQL中加入累加到修改后的数量），统一拒绝
+     * 
+     * @param addedProductIds 加入的商品ID
+     * @param updatedProductIds 修改数量的商品ID
+     */
+    private void rejectAddAndUpdate(Set<Long> addedProductIds, Set<Long> updatedProductIds) {
+        for (Long productId : addedProductIds) {
+            if (updatedProductIds.contains(productId)) {
+                throw new BusinessException("同一商品不能在一次批量操作中同时加入和修改数量: " + productId);
+            }
+        }
+    }
+    
+    /**
+     * 校验必填字段
+     * 
+     * @param value 字段值
+     * @param name 字段名
+     * @param <T> 字段类型
+     * @return 字段值
+     */
+    private <T> T requireField(T value, String name) {
+        if (value == null) {
+            throw new BusinessException(name + "不能为空");
+        }
+        return value;
+    }
+    
+    /**
+     * 校验库存是否满足购买数量
+     * 商品服务不可用时不拦截，下单时会再次校验
+     * 
+     * @param productId 商品ID
+     * @param quantity 购买数量
+     */
+    private void checkStock(Long productId, Integer quantity) {
+        Result<ProductDTO> productResult = productFeignClient.getProductById(productId);
+        if (productResult.isSuccess()) {
+            checkStock(productResult.getData(), quantity);
+        }
+    }
+    
+    /**
+     * 校验库存是否满足购买数量
+     * 
+     * @param product 商品信息，为null时不拦截
+     * @param quantity 购买数量
+     */
+    private void checkStock(ProductDTO product, Integer quantity) {
+        if (product != null && quantity > product.getStock()) {
+            throw new BusinessException("库存不足，当前库存: " + product.getStock());
+        }
+    }
+    
     /**
      * 将CartItem转换为CartItemVO
      * 
      * @param cartItem 购物车项实体
+     * @param snapshot 最新商品快照，获取失败时为null
      * @return 购物车项VO
      */
-    private CartItemVO convertToVO(CartItem cartItem) {
+    private CartItemVO convertToVO(CartItem cartItem, ProductSnapshot snapshot) {
         CartItemVO vo = new CartItemVO();
         
         vo.setId(cartItem.getId());
@@ -316,25 +749,20 @@ public class CartService {
         BigDecimal subtotal = cartItem.getPrice().multiply(new BigDecimal(cartItem.getQuantity()));
         vo.setSubtotal(subtotal);
         
-        // 查询最新商品信息（库存、状态）
-        try {
-            Result<ProductDTO> productResult = productFeignClient.getProductById(cartItem.getProductId());
-            if (productResult.isSuccess() && productResult.getData() != null) {
-                ProductDTO product = productResult.getData();
-                vo.setStock(product.getStock());
-                vo.setStatus(product.getStatus());
-                
-                // 如果价格变动，更新购物车中的价格
-                if (product.getPrice().compareTo(cartItem.getPrice()) != 0) {
-                    vo.setPrice(product.getPrice());
-                    vo.setSubtotal(product.getPrice().multiply(new BigDecimal(cartItem.getQuantity())));
-                }
-            }
-        } catch (Exception e) {
-            log.warn("查询商品信息失败: productId={}", cartItem.getProductId(), e);
+        if (snapshot == null) {
             // 查询失败时使用购物车中的数据
             vo.setStock(0);
             vo.setStatus("UNKNOWN");
+            return vo;
+        }
+        
+        vo.setStock(snapshot.getStock());
+        vo.setStatus(snapshot.getStatus());
+        
+        // 如果价格变动，更新购物车中的价格
+        if (snapshot.getPrice().compareTo(cartItem.getPrice()) != 0) {
+            vo.setPrice(snapshot.getPrice());
+            vo.setSubtotal(snapshot.getPrice().multiply(new BigDecimal(cartItem.getQuantity())));
         }
         
         return vo;
@@ -1,26 +1,48 @@
 package xyh.dp.mall.trade.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.alibaba.fastjson2.JSON;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import xyh.dp.mall.common.exception.BusinessException;
 import xyh.dp.mall.common.result.Result;
-import xyh.dp.mall.trade.entity.PurchaseRecord;
 import xyh.dp.mall.trade.feign.ProductFeignClient;
 import xyh.dp.mall.trade.feign.dto.ProductDTO;
-import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+import xyh.dp.mall.trade.hot.HotLeaderboardProperties;
+import xyh.dp.mall.trade.hot.LeaderboardEntry;
+import xyh.dp.mall.trade.hot.SalesLeaderboard;
+import xyh.dp.mall.trade.hot.TrendingEntry;
+import xyh.dp.mall.trade.hot.TrendingProperties;
+import xyh.dp.mall.trade.hot.TrendingTracker;
+import xyh.dp.mall.trade.hot.UniqueBuyerCounter;
 import xyh.dp.mall.trade.vo.HotProductVO;
+import xyh.dp.mall.trade.vo.TrendingProductVO;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 热销商品服务
  * 统计一周内的热销商品
  * 
+ * <p>全站榜单前50名按10/20/50切片缓存（与mall-job定时任务写入同一组key），
+ * 读取时缓存超过刷新周期先返回旧数据并在后台刷新，启动后预热。</p>
+ * 
+ * <p>排名来自Redis小时桶滑动窗口榜单（{@link SalesLeaderboard}），
+ * 商品详情一次批量查询，购买人数来自HyperLogLog（{@link UniqueBuyerCounter}）。
+ * 近期热点（最近多人买）来自各节点草图合并后的时间衰减榜单（{@link TrendingTracker}）。</p>
+ * 
  * @author mall-cloud
  * @since 1.0.0
  */
@@ -29,8 +51,28 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class HotProductService {
 
-    private final PurchaseRecordMapper purchaseRecordMapper;
+    /**
+     * 热销榜单缓存key前缀，与mall-job的HotProductCacheTask保持一致
+     */
+    static final String CACHE_KEY_PREFIX = "hot_products:weekly:top_";
+    static final int[] CACHE_SIZES = {10, 20, 50};
+
+    private static final Pattern WINDOW_PATTERN = Pattern.compile("^(\\d{1,6})([mh])$");
+
+    private final PurchaseStatsService purchaseStatsService;
     private final ProductFeignClient productFeignClient;
+    private final SalesLeaderboard salesLeaderboard;
+    private final HotLeaderboardProperties leaderboardProperties;
+    private final UniqueBuyerCounter uniqueBuyerCounter;
+    private final TrendingTracker trendingTracker;
+    private final TrendingProperties trendingProperties;
+    private final StringRedisTemplate redisTemplate;
+
+    @Qualifier("asyncExecutor")
+    private final Executor asyncExecutor;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
 
     /**
      * 查询一周内的热销商品排行（前10）
@@ -43,92 +85,60 @@ public class HotProductService {
 
     /**
      * 查询一周内的热销商品排行
+     * 优先读取缓存：缓存过期前直接返回并在后台刷新，缓存缺失时同步计算一次；超过50名直接计算
      * 
      * @param topN 返回前N个商品
      * @return 热销商品列表
      */
     public List<HotProductVO> getWeeklyHotProducts(Integer topN) {
-        log.info("查询一周热销商品排行, topN={}", topN);
-
-        // 计算一周前的时间
-        LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
-
-        // 查询一周内的所有购买记录
-        LambdaQueryWrapper<PurchaseRecord> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.ge(PurchaseRecord::getPurchaseTime, oneWeekAgo)
-                .orderByDesc(PurchaseRecord::getPurchaseTime);
-
-        List<PurchaseRecord> records = purchaseRecordMapper.selectList(queryWrapper);
-
-        if (records.isEmpty()) {
-            log.info("一周内没有购买记录");
-            return Collections.emptyList();
+        Integer cacheSize = Arrays.stream(CACHE_SIZES).filter(size -> size >= topN).boxed().findFirst().orElse(null);
+        if (cacheSize == null) {
+            return computeWeeklyHotProducts(topN);
         }
 
-        log.info("一周内共有 {} 条购买记录", records.size());
-
-        // 按商品ID分组统计
-        Map<Long, List<PurchaseRecord>> groupedByProduct = records.stream()
-                .collect(Collectors.groupingBy(PurchaseRecord::getProductId));
-
-        // 构建热销商品统计数据
-        List<HotProductVO> hotProducts = new ArrayList<>();
-
-        for (Map.Entry<Long, List<PurchaseRecord>> entry : groupedByProduct.entrySet()) {
-            Long productId = entry.getKey();
-            List<PurchaseRecord> productRecords = entry.getValue();
-
-            // 统计该商品的销量、购买人数、销售额
-            int weekSales = productRecords.stream()
-                    .mapToInt(PurchaseRecord::getQuantity)
-                    .sum();
-
-            long weekBuyerCount = productRecords.stream()
-                    .map(PurchaseRecord::getUserId)
-                    .distinct()
-                    .count();
-
-            BigDecimal weekTotalAmount = productRecords.stream()
-                    .map(PurchaseRecord::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            // 获取第一条记录作为商品基础信息
-            PurchaseRecord firstRecord = productRecords.get(0);
-
-            HotProductVO vo = new HotProductVO();
-            vo.setProductId(productId);
-            vo.setProductName(firstRecord.getProductName());
-            vo.setCategoryId(firstRecord.getCategoryId());
-            vo.setCategoryName(firstRecord.getCategoryName());
-            vo.setVariety(firstRecord.getVariety());
-            vo.setOrigin(firstRecord.getOrigin());
-            vo.setPrice(firstRecord.getPrice());
-            vo.setSupplierId(firstRecord.getSupplierId());
-            vo.setWeekSales(weekSales);
-            vo.setWeekBuyerCount((int) weekBuyerCount);
-            vo.setWeekTotalAmount(weekTotalAmount);
-
-            hotProducts.add(vo);
+        String cacheKey = CACHE_KEY_PREFIX + cacheSize;
+        String cached = readCache(cacheKey);
+        if (cached == null) {
+            return slice(refreshCacheOnMiss(), topN);
         }
-
-        // 按销量降序排序，取前N个
-        List<HotProductVO> topProducts = hotProducts.stream()
-                .sorted(Comparator.comparingInt(HotProductVO::getWeekSales).reversed())
-                .limit(topN)
-                .collect(Collectors.toList());
-
-        // 设置排名
-        for (int i = 0; i < topProducts.size(); i++) {
-            topProducts.get(i).setRank(i + 1);
+        if (isStale(cacheKey)) {
+            refreshCacheAsync();
         }
+        return slice(JSON.parseArray(cached, HotProductVO.class), topN);
+    }
+
+    /**
+     * 实时计算一周内的热销商品排行（不读缓存）
+     * 
+     * @param topN 返回前N个商品
+     * @return 热销商品列表
+     */
+    public List<HotProductVO> computeWeeklyHotProducts(Integer topN) {
+        log.info("计算一周热销商品排行, topN={}", topN);
 
-        // 补充商品的实时信息（主图、库存）
-        enrichProductInfo(topProducts);
+        List<HotProductVO> topProducts = buildHotProducts(salesLeaderboard.top(SalesLeaderboard.GLOBAL_SCOPE, topN));
 
         log.info("一周热销商品排行统计完成, 共 {} 个商品", topProducts.size());
         return topProducts;
     }
 
+    /**
+     * 启动后预热热销榜单缓存，已有缓存时跳过
+     * 排在销量榜单重建之后执行
+     */
+    @Order
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmCache() {
+        try {
+            if (readCache(CACHE_KEY_PREFIX + CACHE_SIZES[CACHE_SIZES.length - 1]) == null) {
+                List<HotProductVO> top = refreshCache();
+                log.info("热销榜单缓存预热完成, 共 {} 个商品", top.size());
+            }
+        } catch (Exception e) {
+            log.warn("热销榜单缓存预热失败", e);
+        }
+    }
+
     /**
      * 查询指定分类的一周热销商品
      * 
@@ -139,95 +149,278 @@ public class HotProductService {
     public List<HotProductVO> getWeeklyHotProductsByCategory(Long categoryId, Integer topN) {
         log.info("查询分类热销商品, categoryId={}, topN={}", categoryId, topN);
 
-        LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
-
-        LambdaQueryWrapper<PurchaseRecord> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.ge(PurchaseRecord::getPurchaseTime, oneWeekAgo)
-                .eq(PurchaseRecord::getCategoryId, categoryId)
-                .orderByDesc(PurchaseRecord::getPurchaseTime);
-
-        List<PurchaseRecord> records = purchaseRecordMapper.selectList(queryWrapper);
+        return buildHotProducts(salesLeaderboard.top(SalesLeaderboard.categoryScope(categoryId), topN));
+    }
 
-        if (records.isEmpty()) {
+    /**
+     * 查询近期热点商品（最近多人买）
+     * 
+     * @param window 时间窗口，如 30m、1h
+     * @param topN 返回前N个商品
+     * @return 按热度降序的商品列表
+     */
+    public List<TrendingProductVO> getTrendingProducts(String window, Integer topN) {
+        List<TrendingEntry> entries = trendingTracker.top(parseWindow(window), topN);
+        if (entries.isEmpty()) {
             return Collections.emptyList();
         }
 
-        // 按商品ID分组统计
-        Map<Long, List<PurchaseRecord>> groupedByProduct = records.stream()
-                .collect(Collectors.groupingBy(PurchaseRecord::getProductId));
-
-        List<HotProductVO> hotProducts = new ArrayList<>();
-
-        for (Map.Entry<Long, List<PurchaseRecord>> entry : groupedByProduct.entrySet()) {
-            Long productId = entry.getKey();
-            List<PurchaseRecord> productRecords = entry.getValue();
+        Map<Long, ProductDTO> products = loadProducts(entries.stream().map(TrendingEntry::getProductId).toList());
+        List<TrendingProductVO> trending = new ArrayList<>(entries.size());
+        for (TrendingEntry entry : entries) {
+            TrendingProductVO vo = new TrendingProductVO();
+            vo.setRank(trending.size() + 1);
+            vo.setProductId(entry.getProductId());
+            vo.setScore(Math.round(entry.getScore() * 100) / 100D);
+
+            ProductDTO product = products.get(entry.getProductId());
+            if (product != null) {
+                vo.setProductName(product.getName());
+                vo.setProductImage(product.getMainImage());
+                vo.setCategoryId(product.getCategoryId());
+                vo.setPrice(product.getPrice());
+                vo.setStock(product.getStock());
+            }
+            trending.add(vo);
+        }
+        return trending;
+    }
 
-            int weekSales = productRecords.stream()
-                    .mapToInt(PurchaseRecord::getQuantity)
-                    .sum();
+    /**
+     * 解析时间窗口
+     * 数字最多6位，超长数字按格式错误处理，不会解析溢出
+     * 
+     * @param window 时间窗口，如 30m、1h
+     * @return 窗口时长
+     * @throws BusinessException 格式错误或超出上限
+     */
+    private Duration parseWindow(String window) {
+        Matcher matcher = WINDOW_PATTERN.matcher(window == null ? "" : window.trim());
+        if (!matcher.matches()) {
+            throw new BusinessException("时间窗口格式错误，示例：30m、1h");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        Duration duration = "h".equals(matcher.group(2)) ? Duration.ofHours(amount) : Duration.ofMinutes(amount);
+        if (duration.isZero() || duration.toMinutes() > trendingProperties.getMaxWindowMinutes()) {
+            throw new BusinessException("时间窗口必须在1-" + trendingProperties.getMaxWindowMinutes() + "分钟之间");
+        }
+        return duration;
+    }
 
-            long weekBuyerCount = productRecords.stream()
-                    .map(PurchaseRecord::getUserId)
-                    .distinct()
-                    .count();
+    /**
+     * 计算前50名并按10/20/50切片写入缓存
+     * 
+     * @return 前50名
+     */
+    private List<HotProductVO> refreshCache() {
+        int maxSize = CACHE_SIZES[CACHE_SIZES.length - 1];
+        List<HotProductVO> top = computeWeeklyHotProducts(maxSize);
+        try {
+            Duration ttl = Duration.ofMinutes(leaderboardProperties.getCacheTtlMinutes());
+            for (int size : CACHE_SIZES) {
+                redisTemplate.opsForValue().set(CACHE_KEY_PREFIX + size, JSON.toJSONString(slice(top, size)), ttl);
+            }
+        } catch (Exception e) {
+            log.warn("写入热销榜单缓存失败", e);
+        }
+        return top;
+    }
 
-            BigDecimal weekTotalAmount = productRecords.stream()
-                    .map(PurchaseRecord::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * 缓存缺失时同步刷新，同一时刻只有一个请求计算，其余请求等待后读取结果
+     * 
+     * @return 前50名
+     */
+    private List<HotProductVO> refreshCacheOnMiss() {
+        refreshLock.lock();
+        try {
+            String cached = readCache(CACHE_KEY_PREFIX + CACHE_SIZES[CACHE_SIZES.length - 1]);
+            if (cached != null) {
+                return JSON.parseArray(cached, HotProductVO.class);
+            }
+            return refreshCache();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
 
-            PurchaseRecord firstRecord = productRecords.get(0);
+    /**
+     * 后台刷新缓存，同一时刻最多一个刷新任务
+     */
+    private void refreshCacheAsync() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            asyncExecutor.execute(() -> {
+                try {
+                    refreshCache();
+                } catch (Exception e) {
+                    log.warn("后台刷新热销榜单缓存失败", e);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (Exception e) {
+            refreshing.set(false);
+            log.warn("提交热销榜单缓存刷新任务失败", e);
+        }
+    }
 
-            HotProductVO vo = new HotProductVO();
-            vo.setProductId(productId);
-            vo.setProductName(firstRecord.getProductName());
-            vo.setCategoryId(firstRecord.getCategoryId());
-            vo.setCategoryName(firstRecord.getCategoryName());
-            vo.setVariety(firstRecord.getVariety());
-            vo.setOrigin(firstRecord.getOrigin());
-            vo.setPrice(firstRecord.getPrice());
-            vo.setSupplierId(firstRecord.getSupplierId());
-            vo.setWeekSales(weekSales);
-            vo.setWeekBuyerCount((int) weekBuyerCount);
-            vo.setWeekTotalAmount(weekTotalAmount);
+    /**
+     * 读取缓存，Redis异常视为缺失
+     * 
+     * @param cacheKey 缓存key
+     * @return 缓存的JSON，不存在返回null
+     */
+    private String readCache(String cacheKey) {
+        try {
+            return redisTemplate.opsForValue().get(cacheKey);
+        } catch (Exception e) {
+            log.warn("读取热销榜单缓存失败, key: {}", cacheKey, e);
+            return null;
+        }
+    }
 
-            hotProducts.add(vo);
+    /**
+     * 根据剩余有效期判断缓存是否已超过刷新周期
+     * 
+     * @param cacheKey 缓存key
+     * @return 已过期返回true
+     */
+    private boolean isStale(String cacheKey) {
+        try {
+            Long remaining = redisTemplate.getExpire(cacheKey, TimeUnit.SECONDS);
+            if (remaining == null || remaining == -2) {
+                return false;
+            }
+            if (remaining == -1) {
+                // 没有设置有效期，无法判断写入时间
+                return true;
+            }
+            long age = leaderboardProperties.getCacheTtlMinutes() * 60L - remaining;
+            return age > leaderboardProperties.getCacheStaleMinutes() * 60L;
+        } catch (Exception e) {
+            log.warn("查询热销榜单缓存有效期失败, key: {}", cacheKey, e);
+            return false;
         }
+    }
 
-        List<HotProductVO> topProducts = hotProducts.stream()
-                .sorted(Comparator.comparingInt(HotProductVO::getWeekSales).reversed())
-                .limit(topN)
-                .collect(Collectors.toList());
+    /**
+     * 截取前N个
+     * 
+     * @param products 按排名排序的商品
+     * @param topN 数量
+     * @return 前N个商品
+     */
+    private List<HotProductVO> slice(List<HotProductVO> products, int topN) {
+        return products.size() <= topN ? products : new ArrayList<>(products.subList(0, topN));
+    }
 
-        for (int i = 0; i < topProducts.size(); i++) {
-            topProducts.get(i).setRank(i + 1);
+    /**
+     * 根据榜单条目构建热销商品列表
+     * 
+     * @param entries 按销量降序的榜单条目
+     * @return 热销商品列表
+     */
+    private List<HotProductVO> buildHotProducts(List<LeaderboardEntry> entries) {
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
         }
 
-        enrichProductInfo(topProducts);
+        List<Long> productIds = entries.stream().map(LeaderboardEntry::getProductId).toList();
+        Map<Long, ProductDTO> products = loadProducts(productIds);
+        Map<Long, Integer> buyerCounts = countBuyers(productIds);
 
-        return topProducts;
+        List<HotProductVO> hotProducts = new ArrayList<>(entries.size());
+        for (LeaderboardEntry entry : entries) {
+            HotProductVO vo = new HotProductVO();
+            vo.setRank(hotProducts.size() + 1);
+            vo.setProductId(entry.getProductId());
+            vo.setWeekSales(entry.getSales());
+            vo.setWeekTotalAmount(entry.getAmount());
+            vo.setWeekBuyerCount(buyerCounts.getOrDefault(entry.getProductId(), 0));
+
+            ProductDTO product = products.get(entry.getProductId());
+            if (product != null) {
+                vo.setProductName(product.getName());
+                vo.setProductImage(product.getMainImage());
+                vo.setCategoryId(product.getCategoryId());
+                vo.setCategoryName(product.getCategoryName());
+                vo.setVariety(product.getVariety());
+                vo.setOrigin(product.getOrigin());
+                vo.setPrice(product.getPrice());
+                vo.setStock(product.getStock());
+                vo.setSupplierId(product.getSupplierId());
+            }
+            hotProducts.add(vo);
+        }
+        return hotProducts;
     }
 
     /**
-     * 补充商品的实时信息（主图、库存）
-     * 通过Feign调用商品服务获取最新数据
+     * 批量查询商品的实时信息（名称、主图、库存、价格等）
      * 
-     * @param hotProducts 热销商品列表
+     * @param productIds 商品ID列表
+     * @return 商品ID -> 商品信息，查询失败返回空Map
      */
-    private void enrichProductInfo(List<HotProductVO> hotProducts) {
-        for (HotProductVO vo : hotProducts) {
-            try {
-                Result<ProductDTO> result = productFeignClient.getProductById(vo.getProductId());
-                if (result.isSuccess() && result.getData() != null) {
-                    ProductDTO product = result.getData();
-                    vo.setProductImage(product.getMainImage());
-                    vo.setStock(product.getStock());
-                    
-                    // 更新价格（可能有变动）
-                    vo.setPrice(product.getPrice());
+    private Map<Long, ProductDTO> loadProducts(List<Long> productIds) {
+        Map<Long, ProductDTO> products = new HashMap<>();
+        try {
+            Result<List<ProductDTO>> result = productFeignClient.getProductsByIds(productIds);
+            if (result.isSuccess() && result.getData() != null) {
+                for (ProductDTO product : result.getData()) {
+                    products.put(product.getId(), product);
                 }
-            } catch (Exception e) {
-                log.warn("获取商品信息失败, productId: {}", vo.getProductId(), e);
             }
+        } catch (Exception e) {
+            log.warn("批量获取商品信息失败, count: {}", productIds.size(), e);
+        }
+        return products;
+    }
+
+    /**
+     * 统计上榜商品窗口内的去重购买人数
+     * 优先使用HyperLogLog（跨天去重，误差约0.81%）；Redis不可用时回退到每日汇总相加
+     * 
+     * @param productIds 商品ID列表
+     * @return 商品ID -> 购买人数
+     */
+    private Map<Long, Integer> countBuyers(List<Long> productIds) {
+        try {
+            Map<Long, Integer> buyerCounts = new HashMap<>();
+            uniqueBuyerCounter.countWindow(UniqueBuyerCounter.PRODUCT, productIds)
+                    .forEach((productId, count) -> buyerCounts.put(productId, count.intValue()));
+            return buyerCounts;
+        } catch (Exception e) {
+            log.warn("查询去重购买人数失败，回退到每日汇总, count: {}", productIds.size(), e);
+        }
+        try {
+            int days = Math.max(1, leaderboardProperties.getWindowHours() / 24);
+            return purchaseStatsService.sumBuyers(productIds, days);
+        } catch (Exception e) {
+            log.warn("统计购买人数失败, count: {}", productIds.size(), e);
+            return Collections.emptyMap();
         }
     }
+
+    /**
+     * 查询分类一周内的去重购买人数
+     * 
+     * @param categoryId 分类ID
+     * @return 去重购买人数
+     */
+    public long getWeeklyCategoryBuyerCount(Long categoryId) {
+        return uniqueBuyerCounter.countWindow(UniqueBuyerCounter.CATEGORY, categoryId);
+    }
+
+    /**
+     * 查询供应商一周内的去重购买人数
+     * 
+     * @param supplierId 供应商ID
+     * @return 去重购买人数
+     */
+    public long getWeeklySupplierBuyerCount(Long supplierId) {
+        return uniqueBuyerCounter.countWindow(UniqueBuyerCounter.SUPPLIER, supplierId);
+    }
 }
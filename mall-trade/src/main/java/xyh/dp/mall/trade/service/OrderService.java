@@ -1,5 +1,7 @@
 package xyh.dp.mall.trade.service;
 
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONReader;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.RequiredArgsConstructor;
@@ -12,17 +14,24 @@ import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import xyh.dp.mall.common.exception.BusinessException;
 import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.trade.archive.PartitionArchiver;
+import xyh.dp.mall.trade.archive.PartitionedTable;
 import xyh.dp.mall.trade.dto.CreateOrderDTO;
 import xyh.dp.mall.trade.entity.Order;
 import xyh.dp.mall.trade.entity.PurchaseRecord;
 import xyh.dp.mall.trade.feign.ProductFeignClient;
 import xyh.dp.mall.trade.feign.dto.ProductDTO;
 import xyh.dp.mall.trade.mapper.OrderMapper;
+import xyh.dp.mall.trade.mapper.OrderNoMapper;
 import xyh.dp.mall.trade.vo.OrderVO;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
@@ -42,9 +51,27 @@ import java.util.stream.Collectors;
 public class OrderService {
     // TODO 折扣功能，部分商品添加特价等活动折扣
 
+    /**
+     * 订单号长度：ORD + 14位时间 + 4位随机数
+     */
+    private static final int ORDER_NO_LENGTH = 21;
+
+    /**
+     * 订单号时间与创建时间的最大偏差
+     */
+    private static final Duration ORDER_TIME_TOLERANCE = Duration.ofMinutes(5);
+
+    /**
+     * 订单号重复时最多重新生成的次数
+     */
+    private static final int ORDER_NO_ATTEMPTS = 5;
+
     private final OrderMapper orderMapper;
+    private final OrderNoMapper orderNoMapper;
     private final ProductFeignClient productFeignClient;
     private final PurchaseRecordService purchaseRecordService;
+    private final SupplierDashboardService supplierDashboardService;
+    private final PartitionArchiver partitionArchiver;
     
     @Qualifier("orderExecutor")
     private final Executor orderExecutor;
@@ -68,15 +95,17 @@ public class OrderService {
         // 1. 并行执行：查询商品信息 + 预扣库存
         ProductDTO product = executePreOrderTasks(productId, quantity);
         
-        // 2. 生成订单号
-        String orderNo = generateOrderNo();
+        // 2. 生成并登记订单号（创建时间取整到秒，与DATETIME列和订单号中的时间一致）
+        LocalDateTime createTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        String orderNo = reserveOrderNo(createTime);
         
         // 3. 计算订单总金额
         BigDecimal totalAmount = product.getPrice().multiply(new BigDecimal(quantity));
         
         // 4. 创建订单
-        Order order = buildOrder(createOrderDTO, orderNo, product, totalAmount);
+        Order order = buildOrder(createOrderDTO, orderNo, createTime, product, totalAmount);
         orderMapper.insert(order);
+        supplierDashboardService.recordOrderCreated(order);
         log.info("创建订单成功, orderNo: {}, userId: {}, productId: {}", 
                 orderNo, createOrderDTO.getUserId(), productId);
         
@@ -215,7 +244,8 @@ public class OrderService {
             record.setOrderNo(order.getOrderNo());
             record.setProductId(product.getId());
             record.setProductName(product.getName());
-            // categoryId和categoryName留空，需要时再通过Feign查询
+            record.setCategoryId(product.getCategoryId());
+            record.setCategoryName(product.getCategoryName());
             record.setVariety(product.getVariety());
             record.setOrigin(product.getOrigin());
             record.setPrice(order.getPrice());
@@ -224,7 +254,7 @@ public class OrderService {
             record.setSupplierId(product.getSupplierId());
             record.setPurchaseTime(order.getPayTime() != null ? order.getPayTime() : LocalDateTime.now());
             
-            purchaseRecordService.savePurchaseRecord(record);
+            purchaseRecordService.saveOrderPurchaseRecord(order, record);
         } catch (Exception e) {
             log.error("保存购买记录失败, orderId: {}", order.getId(), e);
         }
@@ -235,16 +265,18 @@ public class OrderService {
      * 
      * @param createOrderDTO 创建订单请求
      * @param orderNo 订单号
+     * @param createTime 创建时间（与订单号登记的时间一致）
      * @param product 商品信息
      * @param totalAmount 订单总额
      * @return 订单实体
      */
-    private Order buildOrder(CreateOrderDTO createOrderDTO, String orderNo, 
+    private Order buildOrder(CreateOrderDTO createOrderDTO, String orderNo, LocalDateTime createTime,
                               ProductDTO product, BigDecimal totalAmount) {
         Order order = new Order();
         order.setOrderNo(orderNo);
         order.setUserId(createOrderDTO.getUserId());
         order.setProductId(createOrderDTO.getProductId());
+        order.setSupplierId(product.getSupplierId());
         order.setProductName(product.getName());
         order.setProductImage(product.getMainImage());
         order.setPrice(product.getPrice());
@@ -255,8 +287,8 @@ public class OrderService {
         order.setReceiverAddress(createOrderDTO.getReceiverAddress());
         order.setRemark(createOrderDTO.getRemark());
         order.setStatus("PENDING");
-        order.setCreateTime(LocalDateTime.now());
-        order.setUpdateTime(LocalDateTime.now());
+        order.setCreateTime(createTime);
+        order.setUpdateTime(createTime);
         return order;
     }
 
@@ -303,8 +335,18 @@ public class OrderService {
     public OrderVO getByOrderNo(String orderNo) {
         LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Order::getOrderNo, orderNo);
+        LocalDateTime orderTime = limitToOrderTime(queryWrapper, orderNo);
         Order order = orderMapper.selectOne(queryWrapper);
         
+        // 在线库中不存在时查找归档
+        if (order == null && orderTime != null) {
+            List<JSONObject> archived = partitionArchiver.read(PartitionedTable.ORDER,
+                    YearMonth.from(orderTime), "order_no", orderNo, 1);
+            if (!archived.isEmpty()) {
+                order = archived.get(0).to(Order.class, JSONReader.Feature.SupportSmartMatch);
+            }
+        }
+        
         if (order == null) {
             throw new BusinessException("订单不存在");
         }
@@ -314,7 +356,7 @@ public class OrderService {
 
     /**
      * 取消订单
-     * 取消订单时需要恢复库存
+     * 取消订单时需要恢复库存，并撤销订单的购买记录及其累加的销售汇总
      * 
      * @param orderNo 订单号
      * @param userId 用户ID
@@ -325,6 +367,7 @@ public class OrderService {
         LambdaQueryWrapper<Order> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Order::getOrderNo, orderNo);
         queryWrapper.eq(Order::getUserId, userId);
+        limitToOrderTime(queryWrapper, orderNo);
         Order order = orderMapper.selectOne(queryWrapper);
         
         if (order == null) {
@@ -335,9 +378,15 @@ public class OrderService {
             throw new BusinessException("只能取消待支付订单");
         }
         
+        // 条件更新：并发取消时只有改到该行的请求执行后续的计数、撤销和恢复库存
+        LocalDateTime now = LocalDateTime.now();
+        if (orderMapper.cancelPending(order.getId(), order.getCreateTime(), now) != 1) {
+            throw new BusinessException("只能取消待支付订单");
+        }
         order.setStatus("CANCELLED");
-        order.setUpdateTime(LocalDateTime.now());
-        orderMapper.updateById(order);
+        order.setUpdateTime(now);
+        supplierDashboardService.recordOrderCancelled(order);
+        purchaseRecordService.revokeOrderPurchaseRecords(order);
         
         // 恢复库存
         tryRestoreStock(order.getProductId(), order.getQuantity());
@@ -345,17 +394,89 @@ public class OrderService {
         log.info("取消订单成功, orderNo: {}", orderNo);
     }
 
+    /**
+     * 生成订单号并在登记表中占用
+     * 订单表按月分区后唯一键含create_time，只在同一创建时间内唯一；订单号的全局唯一由不分区的登记表保证，
+     * 同一秒内随机数重复时重新生成
+     * 
+     * @param createTime 订单创建时间
+     * @return 订单号
+     * @throws BusinessException 多次生成的订单号均已被占用
+     */
+    String reserveOrderNo(LocalDateTime createTime) {
+        for (int attempt = 0; attempt < ORDER_NO_ATTEMPTS; attempt++) {
+            String orderNo = generateOrderNo(createTime);
+            if (orderNoMapper.insertIgnore(orderNo, createTime) == 1) {
+                return orderNo;
+            }
+            log.warn("订单号重复，重新生成: {}", orderNo);
+        }
+        throw new BusinessException("订单号生成失败，请稍后重试");
+    }
+
     /**
      * 生成订单号
      * 
+     * @param createTime 订单创建时间
      * @return 订单号
      */
-    private String generateOrderNo() {
-        String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+    private String generateOrderNo(LocalDateTime createTime) {
+        String date = createTime.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
         int random = new Random().nextInt(10000);
         return "ORD" + date + String.format("%04d", random);
     }
 
+    /**
+     * 从订单号解析下单时间
+     * 订单号格式为 ORD + yyyyMMddHHmmss + 4位随机数，历史数据等其他格式返回null
+     * 
+     * @param orderNo 订单号
+     * @return 下单时间（秒），无法解析返回null
+     */
+    private static LocalDateTime parseOrderTime(String orderNo) {
+        if (orderNo == null || orderNo.length() != ORDER_NO_LENGTH || !orderNo.startsWith("ORD")) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(orderNo.substring(3, 17), DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 按订单号限定创建时间，使查询只访问对应的月分区
+     * 登记表中有订单创建时间时精确匹配；没有时（登记表启用前的订单、登记已随归档清理）按订单号中的时间限定范围
+     * 
+     * @param queryWrapper 查询条件
+     * @param orderNo 订单号
+     * @return 订单创建时间（或订单号中的下单时间），都没有返回null
+     */
+    private LocalDateTime limitToOrderTime(LambdaQueryWrapper<Order> queryWrapper, String orderNo) {
+        LocalDateTime createTime = orderNoMapper.selectCreateTime(orderNo);
+        if (createTime != null) {
+            queryWrapper.eq(Order::getCreateTime, createTime);
+            return createTime;
+        }
+        LocalDateTime orderTime = parseOrderTime(orderNo);
+        limitToOrderTime(queryWrapper, orderTime);
+        return orderTime;
+    }
+
+    /**
+     * 按下单时间限定创建时间范围，使查询只访问对应的月分区
+     * 订单号在写入订单前生成，创建时间与之相差很小，前后各留出余量
+     * 
+     * @param queryWrapper 查询条件
+     * @param orderTime 下单时间，为null不限定
+     */
+    private static void limitToOrderTime(LambdaQueryWrapper<Order> queryWrapper, LocalDateTime orderTime) {
+        if (orderTime != null) {
+            queryWrapper.ge(Order::getCreateTime, orderTime.minus(ORDER_TIME_TOLERANCE))
+                        .lt(Order::getCreateTime, orderTime.plus(ORDER_TIME_TOLERANCE));
+        }
+    }
+
     /**
      * 获取异常根因消息
      * 
@@ -7,11 +7,27 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import xyh.dp.mall.common.context.UserContextHolder;
+import xyh.dp.mall.common.exception.BusinessException;
+import xyh.dp.mall.trade.copurchase.CoPurchaseIndex;
+import xyh.dp.mall.trade.copurchase.Neighbours;
+import xyh.dp.mall.trade.entity.Order;
 import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.entity.PurchaseUserStats;
+import xyh.dp.mall.trade.hot.SalesLeaderboard;
+import xyh.dp.mall.trade.hot.TrendingTracker;
+import xyh.dp.mall.trade.hot.UniqueBuyerCounter;
+import xyh.dp.mall.trade.mapper.OrderMapper;
 import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+import xyh.dp.mall.trade.profile.PurchaseProfile;
+import xyh.dp.mall.trade.profile.PurchaseProfileStore;
+import xyh.dp.mall.trade.profile.PurchasedProductIndex;
+import xyh.dp.mall.trade.profile.RecentPurchaseList;
+import xyh.dp.mall.trade.vo.AlsoBoughtVO;
 import xyh.dp.mall.trade.vo.PurchaseRecordVO;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +45,15 @@ import java.util.stream.Collectors;
 public class PurchaseRecordService {
     
     private final PurchaseRecordMapper purchaseRecordMapper;
+    private final OrderMapper orderMapper;
+    private final SalesLeaderboard salesLeaderboard;
+    private final UniqueBuyerCounter uniqueBuyerCounter;
+    private final TrendingTracker trendingTracker;
+    private final PurchaseStatsService purchaseStatsService;
+    private final PurchaseProfileStore purchaseProfileStore;
+    private final PurchasedProductIndex purchasedProductIndex;
+    private final RecentPurchaseList recentPurchaseList;
+    private final CoPurchaseIndex coPurchaseIndex;
     
     /**
      * 保存购买记录
@@ -43,10 +68,73 @@ public class PurchaseRecordService {
         
         purchaseRecord.setCreateTime(LocalDateTime.now());
         purchaseRecordMapper.insert(purchaseRecord);
+        boolean newProduct = purchaseStatsService.accumulate(purchaseRecord);
+        purchaseProfileStore.record(purchaseRecord, newProduct);
+        purchasedProductIndex.record(purchaseRecord);
+        recentPurchaseList.record(purchaseRecord);
+        coPurchaseIndex.record(purchaseRecord, newProduct);
+        salesLeaderboard.record(purchaseRecord);
+        uniqueBuyerCounter.record(purchaseRecord);
+        trendingTracker.record(purchaseRecord);
         
         log.info("购买记录保存成功: id={}", purchaseRecord.getId());
     }
     
+    /**
+     * 保存订单的购买记录
+     * 先锁定订单行再检查状态，与取消订单互斥：订单已取消时不再写入，取消在写入之后时由取消撤销
+     * 
+     * @param order 订单
+     * @param purchaseRecord 购买记录
+     * @return 已保存返回true，订单已取消或不存在返回false
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public boolean saveOrderPurchaseRecord(Order order, PurchaseRecord purchaseRecord) {
+        String status = orderMapper.selectStatusForUpdate(order.getId(), order.getCreateTime());
+        if (status == null || "CANCELLED".equals(status)) {
+            log.info("订单已取消，不保存购买记录: orderNo={}, status={}", order.getOrderNo(), status);
+            return false;
+        }
+        savePurchaseRecord(purchaseRecord);
+        return true;
+    }
+    
+    /**
+     * 撤销订单的购买记录
+     * 删除购买记录并扣减已累加的汇总，需在取消订单的事务中调用（订单行已加锁）。
+     * 已购商品位图、最近购买列表、共同购买矩阵和销量榜小时桶在事务提交后同步撤销；
+     * 购买人数（HyperLogLog）和近期热点为近似统计，无法扣减，不回退
+     * 
+     * @param order 已取消的订单
+     * @return 撤销的购买记录数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int revokeOrderPurchaseRecords(Order order) {
+        LambdaQueryWrapper<PurchaseRecord> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(PurchaseRecord::getUserId, order.getUserId())
+                    .eq(PurchaseRecord::getProductId, order.getProductId())
+                    .eq(PurchaseRecord::getOrderNo, order.getOrderNo())
+                    .ge(order.getCreateTime() != null, PurchaseRecord::getPurchaseTime, order.getCreateTime())
+                    // 加锁读取最新提交的数据，不使用事务开始时的快照，避免漏掉取消前刚提交的购买记录
+                    .last("FOR UPDATE");
+        List<PurchaseRecord> records = purchaseRecordMapper.selectList(queryWrapper);
+        for (PurchaseRecord record : records) {
+            LambdaQueryWrapper<PurchaseRecord> deleteWrapper = new LambdaQueryWrapper<>();
+            deleteWrapper.eq(PurchaseRecord::getId, record.getId())
+                         .eq(PurchaseRecord::getPurchaseTime, record.getPurchaseTime());
+            purchaseRecordMapper.delete(deleteWrapper);
+            boolean lastRecord = purchaseStatsService.subtract(record);
+            purchasedProductIndex.revoke(record, lastRecord);
+            recentPurchaseList.revoke(record, lastRecord);
+            coPurchaseIndex.revoke(record, lastRecord);
+            salesLeaderboard.revoke(record);
+        }
+        if (!records.isEmpty()) {
+            log.info("撤销订单购买记录: orderNo={}, count={}", order.getOrderNo(), records.size());
+        }
+        return records.size();
+    }
+    
     /**
      * 分页查询用户的购买记录
      * 
@@ -77,6 +165,7 @@ public class PurchaseRecordService {
     
     /**
      * 查询用户的购买统计
+     * 读取Redis中的用户购买画像，与购买记录数量无关；Redis不可用时读取用户汇总表
      * 
      * @return 购买统计数据
      */
@@ -84,56 +173,58 @@ public class PurchaseRecordService {
         Long userId = UserContextHolder.getUserId();
         log.info("查询购买统计: userId={}", userId);
         
-        LambdaQueryWrapper<PurchaseRecord> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(PurchaseRecord::getUserId, userId);
-        
-        List<PurchaseRecord> records = purchaseRecordMapper.selectList(queryWrapper);
+        PurchaseProfile profile;
+        try {
+            profile = purchaseProfileStore.get(userId);
+        } catch (Exception e) {
+            log.warn("读取用户购买画像失败，回退到用户汇总表: userId={}", userId, e);
+            profile = loadProfile(userId);
+        }
         
         Map<String, Object> statistics = new HashMap<>();
         
         // 总购买次数
-        statistics.put("totalCount", records.size());
+        statistics.put("totalCount", profile.getTotalCount());
         
         // 总购买金额
-        double totalAmount = records.stream()
-                .mapToDouble(r -> r.getTotalAmount().doubleValue())
-                .sum();
-        statistics.put("totalAmount", totalAmount);
+        statistics.put("totalAmount", profile.getTotalAmount().doubleValue());
         
         // 购买的商品种类数
-        long productCount = records.stream()
-                .map(PurchaseRecord::getProductId)
-                .distinct()
-                .count();
-        statistics.put("productCount", productCount);
+        statistics.put("productCount", profile.getProductCount());
         
         // 最近一次购买时间
-        LocalDateTime lastPurchaseTime = records.stream()
-                .map(PurchaseRecord::getPurchaseTime)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-        statistics.put("lastPurchaseTime", lastPurchaseTime);
+        statistics.put("lastPurchaseTime", profile.getLastPurchaseTime());
         
         // 最常购买的品种(Top 5)
-        Map<String, Long> varietyCount = records.stream()
-                .filter(r -> r.getVariety() != null)
-                .collect(Collectors.groupingBy(
-                        PurchaseRecord::getVariety,
-                        Collectors.counting()
-                ));
-        
-        List<Map.Entry<String, Long>> topVarieties = varietyCount.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(5)
-                .toList();
-        
-        statistics.put("topVarieties", topVarieties);
+        statistics.put("topVarieties", profile.getTopVarieties());
         
         return statistics;
     }
     
+    /**
+     * 从用户汇总表构建购买画像
+     * 
+     * @param userId 用户ID
+     * @return 购买画像
+     */
+    private PurchaseProfile loadProfile(Long userId) {
+        PurchaseUserStats stats = purchaseStatsService.getUserStats(userId);
+        PurchaseProfile profile = new PurchaseProfile();
+        profile.setTotalCount(stats != null ? stats.getTotalCount() : 0);
+        profile.setTotalAmount(stats != null ? stats.getTotalAmount() : BigDecimal.ZERO);
+        profile.setProductCount(stats != null ? stats.getProductCount() : 0);
+        profile.setLastPurchaseTime(stats != null ? stats.getLastPurchaseTime() : null);
+        profile.setTopVarieties(stats == null ? List.of()
+                : purchaseStatsService.parseHistogram(stats.getVarietyHistogram()).entrySet().stream()
+                        .limit(5)
+                        .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                        .toList());
+        return profile;
+    }
+    
     /**
      * 查询用户是否购买过某商品
+     * 读取用户已购商品位图；索引不可用时查询购买记录
      * 
      * @param productId 商品ID
      * @return 是否购买过
@@ -141,29 +232,71 @@ public class PurchaseRecordService {
     public boolean hasPurchased(Long productId) {
         Long userId = UserContextHolder.getUserId();
         
+        try {
+            return purchasedProductIndex.contains(userId, productId);
+        } catch (Exception e) {
+            log.warn("读取已购商品索引失败，回退到购买记录: userId={}", userId, e);
+        }
+        
         LambdaQueryWrapper<PurchaseRecord> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(PurchaseRecord::getUserId, userId)
                     .eq(PurchaseRecord::getProductId, productId);
         
-        return purchaseRecordMapper.selectCount(queryWrapper) > 0;
+        return purchaseRecordMapper.exists(queryWrapper);
     }
     
     /**
      * 查询用户购买过的商品ID列表
+     * 读取用户已购商品位图；索引不可用时查询购买记录
      * 
-     * @return 商品ID列表
+     * @return 商品ID列表（升序）
      */
     public List<Long> getMyPurchasedProductIds() {
         Long userId = UserContextHolder.getUserId();
         
-        LambdaQueryWrapper<PurchaseRecord> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(PurchaseRecord::getUserId, userId)
-                    .select(PurchaseRecord::getProductId);
+        try {
+            return purchasedProductIndex.productIds(userId);
+        } catch (Exception e) {
+            log.warn("读取已购商品索引失败，回退到购买记录: userId={}", userId, e);
+        }
         
-        return purchaseRecordMapper.selectList(queryWrapper).stream()
-                .map(PurchaseRecord::getProductId)
-                .distinct()
-                .collect(Collectors.toList());
+        return purchaseRecordMapper.selectPurchasedProductIds(userId);
+    }
+    
+    /**
+     * 查询用户最近购买的商品ID（最近买过）
+     * 
+     * @param limit 数量
+     * @return 商品ID列表，从新到旧
+     */
+    public List<Long> getMyRecentProductIds(Integer limit) {
+        Long userId = UserContextHolder.getUserId();
+        
+        try {
+            return recentPurchaseList.get(userId, limit);
+        } catch (Exception e) {
+            log.warn("读取最近购买列表失败，回退到购买记录: userId={}", userId, e);
+        }
+        
+        return purchaseRecordMapper.selectRecentProductIds(userId, Math.min(Math.max(limit, 1), RecentPurchaseList.MAX_SIZE));
+    }
+    
+    /**
+     * 查询买了该商品的用户还买了哪些商品
+     * 只读取本地共同购买快照
+     * 
+     * @param productId 商品ID
+     * @param limit 数量
+     * @return 按共同购买人数降序的商品
+     */
+    public List<AlsoBoughtVO> getAlsoBought(Long productId, Integer limit) {
+        Neighbours neighbours = coPurchaseIndex.neighbours(productId);
+        int size = Math.min(Math.max(limit, 0), neighbours.size());
+        List<AlsoBoughtVO> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new AlsoBoughtVO(neighbours.productId(i), neighbours.count(i)));
+        }
+        return result;
     }
     
     /**
@@ -0,0 +1,418 @@
+package xyh.dp.mall.trade.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.TypeReference;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import xyh.dp.mall.common.exception.BusinessException;
+import xyh.dp.mall.common.util.AfterCommit;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.entity.PurchaseUserStats;
+import xyh.dp.mall.trade.hot.ProductBuyerCount;
+import xyh.dp.mall.trade.mapper.PurchaseBuyerMarkerMapper;
+import xyh.dp.mall.trade.mapper.PurchaseDailyProductStatsMapper;
+import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+import xyh.dp.mall.trade.mapper.PurchaseUserStatsMapper;
+import xyh.dp.mall.trade.mapper.SupplierDailyStatsMapper;
+import xyh.dp.mall.trade.mapper.SupplierOrderStatsMapper;
+import xyh.dp.mall.trade.profile.PurchaseProfileStore;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 购买汇总服务
+ * 维护商品每日汇总（purchase_daily_product_stats）、供应商每日汇总（supplier_daily_stats）
+ * 和用户汇总（purchase_user_stats），使热销榜单、供应商看板和用户统计不再扫描原始购买记录
+ * 
+ * <p>增量更新与购买记录写入在同一事务中执行：商品每日汇总用INSERT ... ON DUPLICATE KEY UPDATE累加；
+ * 用户汇总先加行锁再在内存中合并品种分布。去重类指标（当日购买人数、商品种类数）
+ * 通过INSERT IGNORE写入去重标记行（{@link PurchaseBuyerMarkerMapper}），按影响行数判断是否首次出现，
+ * 同一用户并发购买时只有一次计为首次。当日购买人标记只保留今天和昨天，
+ * 更早日期的迟到记录（如补录的历史购买）改为查询购买记录判断当日是否已购买过，不因标记已清理而重复计数。</p>
+ * 
+ * <p>订单取消时删除其购买记录并按相同规则扣减汇总，供应商看板的销售额、销量随之减少。</p>
+ * 
+ * <p>回填按日期/用户ID区间在一个事务中先删除再用INSERT ... SELECT重算，可重复执行，
+ * 已没有购买记录的商品、供应商、用户不残留旧值；用户按实际存在的用户ID键集分页，不遍历空的ID区间。
+ * 用户汇总同时是Redis购买画像（{@link PurchaseProfileStore}）的加载来源，重建画像即重算汇总后删除缓存。</p>
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PurchaseStatsService {
+
+    /**
+     * 用户汇总回填每页的用户数
+     */
+    private static final int USER_BACKFILL_PAGE = 1000;
+
+    /**
+     * 当日购买人标记保留天数（含今天）
+     */
+    private static final int MARKER_KEEP_DAYS = 2;
+
+    /**
+     * 清理标记每批删除的行数
+     */
+    private static final int MARKER_PURGE_BATCH = 5000;
+
+    private final PurchaseRecordMapper purchaseRecordMapper;
+    private final PurchaseDailyProductStatsMapper dailyProductStatsMapper;
+    private final PurchaseUserStatsMapper userStatsMapper;
+    private final SupplierDailyStatsMapper supplierDailyStatsMapper;
+    private final SupplierOrderStatsMapper supplierOrderStatsMapper;
+    private final PurchaseBuyerMarkerMapper buyerMarkerMapper;
+    private final PurchaseProfileStore profileStore;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 购买记录写入后累加汇总
+     * 需在写入购买记录的事务中调用
+     * 
+     * @param record 已写入的购买记录
+     * @return 是否为该用户首次购买此商品
+     */
+    public boolean accumulate(PurchaseRecord record) {
+        LocalDateTime purchaseTime = record.getPurchaseTime() != null ? record.getPurchaseTime() : LocalDateTime.now();
+        LocalDate statDate = purchaseTime.toLocalDate();
+        BigDecimal amount = record.getTotalAmount() != null ? record.getTotalAmount() : BigDecimal.ZERO;
+
+        // 商品每日汇总（标记已清理的日期改为查询当日的其他购买记录）
+        LocalDateTime dayStart = statDate.atStartOfDay();
+        LocalDateTime dayEnd = statDate.plusDays(1).atStartOfDay();
+        boolean markerKept = !statDate.isBefore(markerKeptSince());
+        boolean newBuyer = markerKept
+                ? buyerMarkerMapper.insertProductBuyer(statDate, record.getProductId(), record.getUserId()) > 0
+                : !hasOtherRecord(record, dayStart, dayEnd);
+        dailyProductStatsMapper.accumulate(record.getProductId(), record.getSupplierId(), statDate,
+                record.getQuantity(), amount, newBuyer ? 1 : 0);
+
+        // 供应商每日汇总
+        if (record.getSupplierId() != null) {
+            boolean newSupplierBuyer = markerKept
+                    ? buyerMarkerMapper.insertSupplierBuyer(statDate, record.getSupplierId(), record.getUserId()) > 0
+                    : !hasOtherSupplierRecord(record, dayStart, dayEnd);
+            supplierDailyStatsMapper.accumulate(record.getSupplierId(), statDate, record.getQuantity(), amount,
+                    newSupplierBuyer ? 1 : 0);
+        }
+
+        // 用户汇总
+        boolean newProduct = buyerMarkerMapper.insertUserProduct(record.getUserId(), record.getProductId()) > 0;
+        userStatsMapper.insertIgnore(record.getUserId());
+        PurchaseUserStats stats = userStatsMapper.selectForUpdate(record.getUserId());
+        stats.setTotalCount(stats.getTotalCount() + 1);
+        stats.setTotalAmount(stats.getTotalAmount().add(amount));
+        if (newProduct) {
+            stats.setProductCount(stats.getProductCount() + 1);
+        }
+        if (stats.getLastPurchaseTime() == null || purchaseTime.isAfter(stats.getLastPurchaseTime())) {
+            stats.setLastPurchaseTime(purchaseTime);
+        }
+        if (StringUtils.hasText(record.getVariety())) {
+            Map<String, Long> histogram = parseHistogram(stats.getVarietyHistogram());
+            histogram.merge(record.getVariety(), 1L, Long::sum);
+            stats.setVarietyHistogram(JSON.toJSONString(histogram));
+        }
+        stats.setUpdateTime(LocalDateTime.now());
+        userStatsMapper.updateById(stats);
+        return newProduct;
+    }
+
+    /**
+     * 撤销购买记录已累加的汇总（订单取消时调用）
+     * 需在删除购买记录的事务中调用；去重类指标在用户当天/历史已没有其他相同记录时才扣减。
+     * 最近购买时间不回退，偏差由回填校正；Redis购买画像在事务提交后删除，下次读取时重新加载
+     * 
+     * @param record 已删除的购买记录
+     * @return 该用户是否已没有此商品的其他购买记录
+     */
+    public boolean subtract(PurchaseRecord record) {
+        LocalDateTime purchaseTime = record.getPurchaseTime();
+        LocalDate statDate = purchaseTime.toLocalDate();
+        BigDecimal amount = record.getTotalAmount() != null ? record.getTotalAmount() : BigDecimal.ZERO;
+
+        // 商品每日汇总
+        LocalDateTime dayStart = statDate.atStartOfDay();
+        LocalDateTime dayEnd = statDate.plusDays(1).atStartOfDay();
+        boolean boughtToday = hasOtherRecord(record, dayStart, dayEnd);
+        if (!boughtToday) {
+            buyerMarkerMapper.deleteProductBuyer(statDate, record.getProductId(), record.getUserId());
+        }
+        dailyProductStatsMapper.subtract(record.getProductId(), statDate, record.getQuantity(), amount,
+                boughtToday ? 0 : 1);
+
+        // 供应商每日汇总
+        if (record.getSupplierId() != null) {
+            boolean boughtFromSupplierToday = boughtToday || hasOtherSupplierRecord(record, dayStart, dayEnd);
+            if (!boughtFromSupplierToday) {
+                buyerMarkerMapper.deleteSupplierBuyer(statDate, record.getSupplierId(), record.getUserId());
+            }
+            supplierDailyStatsMapper.subtract(record.getSupplierId(), statDate, record.getQuantity(), amount,
+                    boughtFromSupplierToday ? 0 : 1);
+        }
+
+        // 用户汇总
+        boolean lastRecord = !hasOtherRecord(record, null, null);
+        boolean lostProduct = lastRecord
+                && buyerMarkerMapper.deleteUserProduct(record.getUserId(), record.getProductId()) > 0;
+        PurchaseUserStats stats = userStatsMapper.selectForUpdate(record.getUserId());
+        if (stats == null) {
+            return lastRecord;
+        }
+        stats.setTotalCount(Math.max(stats.getTotalCount() - 1, 0));
+        stats.setTotalAmount(stats.getTotalAmount().subtract(amount).max(BigDecimal.ZERO));
+        if (lostProduct && stats.getProductCount() > 0) {
+            stats.setProductCount(stats.getProductCount() - 1);
+        }
+        if (StringUtils.hasText(record.getVariety())) {
+            Map<String, Long> histogram = parseHistogram(stats.getVarietyHistogram());
+            histogram.computeIfPresent(record.getVariety(), (variety, count) -> count > 1 ? count - 1 : null);
+            stats.setVarietyHistogram(JSON.toJSONString(histogram));
+        }
+        stats.setUpdateTime(LocalDateTime.now());
+        userStatsMapper.updateById(stats);
+        AfterCommit.run(() -> profileStore.evict(List.of(record.getUserId())));
+        return lastRecord;
+    }
+
+    /**
+     * 查询用户汇总
+     * 
+     * @param userId 用户ID
+     * @return 用户汇总，没有购买记录返回null
+     */
+    public PurchaseUserStats getUserStats(Long userId) {
+        return userStatsMapper.selectById(userId);
+    }
+
+    /**
+     * 汇总商品最近若干天的购买人数（每个商品最多读取days行）
+     * 按天去重后相加，跨天重复购买的用户会重复计数
+     * 
+     * @param productIds 商品ID集合
+     * @param days 天数（含今天）
+     * @return 商品ID -> 购买人数
+     */
+    public Map<Long, Integer> sumBuyers(Collection<Long> productIds, int days) {
+        Map<Long, Integer> buyerCounts = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return buyerCounts;
+        }
+        LocalDate since = LocalDate.now().minusDays(days - 1L);
+        for (ProductBuyerCount count : dailyProductStatsMapper.sumBuyers(productIds, since)) {
+            buyerCounts.put(count.getProductId(), count.getBuyerCount());
+        }
+        return buyerCounts;
+    }
+
+    /**
+     * 解析品种分布
+     * 
+     * @param json 品种分布JSON
+     * @return 品种 -> 购买次数（按次数降序）
+     */
+    public Map<String, Long> parseHistogram(String json) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        if (StringUtils.hasText(json)) {
+            Map<String, Long> parsed = JSON.parseObject(json, new TypeReference<Map<String, Long>>() {
+            });
+            parsed.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .forEach(entry -> histogram.put(entry.getKey(), entry.getValue()));
+        }
+        return histogram;
+    }
+
+    /**
+     * 从购买记录回填汇总
+     * 商品、供应商每日汇总只重算今天之前的日期（今天的数据仍在增量累加），
+     * 用户汇总和供应商待支付订单数全量重算
+     * 
+     * @param days 回填最近多少天的每日汇总
+     * @return 回填结果：[商品每日汇总行数, 用户汇总行数, 供应商每日汇总行数]
+     */
+    public int[] backfill(int days) {
+        if (days <= 0 || days > 3650) {
+            throw new BusinessException("回填天数必须在1-3650之间");
+        }
+        log.info("开始回填购买汇总: days={}", days);
+        long start = System.currentTimeMillis();
+
+        int dailyRows = 0;
+        int supplierRows = 0;
+        LocalDate today = LocalDate.now();
+        for (LocalDate date = today.minusDays(days); date.isBefore(today); date = date.plusDays(1)) {
+            int[] rows = rebuildDay(date);
+            dailyRows += rows[0];
+            supplierRows += rows[1];
+        }
+        supplierOrderStatsMapper.resetPending();
+        supplierOrderStatsMapper.rebuildPending();
+
+        int userRows = rebuildUserStats(false);
+
+        log.info("购买汇总回填完成: dailyRows={}, userRows={}, supplierRows={}, 耗时={}ms",
+                dailyRows, userRows, supplierRows, System.currentTimeMillis() - start);
+        return new int[]{dailyRows, userRows, supplierRows};
+    }
+
+    /**
+     * 重建用户购买画像
+     * 先从购买记录重算用户汇总，再删除Redis中的画像，下次读取时重新加载
+     * 
+     * @param userId 用户ID，为null时重建所有用户
+     * @return 重算的用户汇总行数
+     */
+    public int rebuildProfiles(Long userId) {
+        if (userId != null) {
+            int rows = rebuildUserRange(userId, userId + 1);
+            profileStore.evict(List.of(userId));
+            log.info("用户购买画像重建完成: userId={}", userId);
+            return rows;
+        }
+
+        log.info("开始重建所有用户购买画像");
+        int rows = rebuildUserStats(true);
+        log.info("所有用户购买画像重建完成: rows={}", rows);
+        return rows;
+    }
+
+    /**
+     * 定时清理过期的当日购买人标记，只保留今天和昨天（跨零点的购买仍按购买日期标记）
+     */
+    @Scheduled(cron = "${purchase.stats.marker-purge-cron:0 45 3 * * ?}")
+    public void purgeDayBuyerMarkers() {
+        LocalDate before = markerKeptSince();
+        int products = 0;
+        int deleted;
+        do {
+            deleted = buyerMarkerMapper.deleteProductBuyersBefore(before, MARKER_PURGE_BATCH);
+            products += deleted;
+        } while (deleted == MARKER_PURGE_BATCH);
+        int suppliers = 0;
+        do {
+            deleted = buyerMarkerMapper.deleteSupplierBuyersBefore(before, MARKER_PURGE_BATCH);
+            suppliers += deleted;
+        } while (deleted == MARKER_PURGE_BATCH);
+        log.info("清理当日购买人标记完成: before={}, products={}, suppliers={}", before, products, suppliers);
+    }
+
+    /**
+     * 当日购买人标记仍保留的最早日期（今天和昨天）
+     * 
+     * @return 日期
+     */
+    private static LocalDate markerKeptSince() {
+        return LocalDate.now().minusDays(MARKER_KEEP_DAYS - 1L);
+    }
+
+    /**
+     * 在一个事务中删除并重算某日的商品、供应商每日汇总
+     * 
+     * @param date 日期
+     * @return [商品每日汇总行数, 供应商每日汇总行数]
+     */
+    private int[] rebuildDay(LocalDate date) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime from = date.atStartOfDay();
+            LocalDateTime to = date.plusDays(1).atStartOfDay();
+            dailyProductStatsMapper.deleteByDate(date);
+            supplierDailyStatsMapper.deleteByDate(date);
+            return new int[]{dailyProductStatsMapper.rebuild(from, to), supplierDailyStatsMapper.rebuild(from, to)};
+        });
+    }
+
+    /**
+     * 按用户ID键集分页重算所有用户汇总和已购商品标记
+     * 每页取实际存在的用户，重算区间从上一页之后到本页最大用户ID（最后一页到ID上限），
+     * 区间首尾相接，页之间和末尾已没有购买记录的用户也被清除；稀疏的用户ID不产生空查询
+     * 
+     * @param evictProfiles 是否同时删除这些用户的Redis画像
+     * @return 重算的用户汇总行数
+     */
+    private int rebuildUserStats(boolean evictProfiles) {
+        int rows = 0;
+        long afterUserId = 0L;
+        List<Long> userIds;
+        do {
+            userIds = purchaseRecordMapper.selectUserIdsAfter(afterUserId, USER_BACKFILL_PAGE);
+            long toUserId = userIds.size() == USER_BACKFILL_PAGE
+                    ? userIds.get(userIds.size() - 1) + 1
+                    : Long.MAX_VALUE;
+            rows += rebuildUserRange(afterUserId + 1, toUserId);
+            if (evictProfiles && !userIds.isEmpty()) {
+                profileStore.evict(userIds);
+            }
+            afterUserId = toUserId - 1;
+        } while (userIds.size() == USER_BACKFILL_PAGE);
+        return rows;
+    }
+
+    /**
+     * 在一个事务中删除并重算用户ID区间内的用户汇总和已购商品标记
+     * 
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId 结束用户ID（不含）
+     * @return 重算的用户汇总行数
+     */
+    private int rebuildUserRange(long fromUserId, long toUserId) {
+        Integer rows = transactionTemplate.execute(status -> {
+            userStatsMapper.deleteRange(fromUserId, toUserId);
+            buyerMarkerMapper.deleteUserProducts(fromUserId, toUserId);
+            buyerMarkerMapper.rebuildUserProducts(fromUserId, toUserId);
+            return userStatsMapper.rebuild(fromUserId, toUserId);
+        });
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * 判断同一用户是否已有同一商品的其他购买记录
+     * 
+     * @param record 购买记录
+     * @param from 起始时间（含），为null不限
+     * @param to 结束时间（不含），为null不限
+     * @return 存在返回true
+     */
+    private boolean hasOtherRecord(PurchaseRecord record, LocalDateTime from, LocalDateTime to) {
+        LambdaQueryWrapper<PurchaseRecord> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(PurchaseRecord::getUserId, record.getUserId())
+                    .eq(PurchaseRecord::getProductId, record.getProductId())
+                    .ne(PurchaseRecord::getId, record.getId())
+                    .ge(from != null, PurchaseRecord::getPurchaseTime, from)
+                    .lt(to != null, PurchaseRecord::getPurchaseTime, to);
+        return purchaseRecordMapper.exists(queryWrapper);
+    }
+
+    /**
+     * 判断同一用户当天是否已有同一供应商其他商品的购买记录
+     * 
+     * @param record 购买记录
+     * @param from 起始时间（含）
+     * @param to 结束时间（不含）
+     * @return 存在返回true
+     */
+    private boolean hasOtherSupplierRecord(PurchaseRecord record, LocalDateTime from, LocalDateTime to) {
+        LambdaQueryWrapper<PurchaseRecord> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(PurchaseRecord::getUserId, record.getUserId())
+                    .eq(PurchaseRecord::getSupplierId, record.getSupplierId())
+                    .ne(PurchaseRecord::getId, record.getId())
+                    .ge(PurchaseRecord::getPurchaseTime, from)
+                    .lt(PurchaseRecord::getPurchaseTime, to);
+        return purchaseRecordMapper.exists(queryWrapper);
+    }
+}
@@ -0,0 +1,171 @@
+package xyh.dp.mall.trade.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import xyh.dp.mall.common.context.UserContextHolder;
+import xyh.dp.mall.common.exception.BusinessException;
+import xyh.dp.mall.trade.entity.Order;
+import xyh.dp.mall.trade.entity.PurchaseDailyProductStats;
+import xyh.dp.mall.trade.entity.SupplierDailyStats;
+import xyh.dp.mall.trade.entity.SupplierOrderStats;
+import xyh.dp.mall.trade.mapper.PurchaseDailyProductStatsMapper;
+import xyh.dp.mall.trade.mapper.SupplierDailyStatsMapper;
+import xyh.dp.mall.trade.mapper.SupplierOrderStatsMapper;
+import xyh.dp.mall.trade.vo.SupplierDailySalesVO;
+import xyh.dp.mall.trade.vo.SupplierDashboardVO;
+import xyh.dp.mall.trade.vo.SupplierProductSalesVO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 供应商销售看板服务
+ * 看板只读取增量维护的汇总表，不扫描订单和购买记录：
+ * 每日销售来自supplier_daily_stats（每个供应商每天一行），商品销售来自purchase_daily_product_stats
+ * （按supplier_id + stat_date索引），待支付订单数来自supplier_order_stats（每个供应商一行）
+ * 
+ * <p>销售汇总由{@link PurchaseStatsService}在写入购买记录的事务中累加；
+ * 待支付订单数在下单、取消订单的事务中加减。汇总出现偏差时通过购买汇总回填重算。</p>
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SupplierDashboardService {
+
+    /**
+     * 看板最大统计天数
+     */
+    private static final int MAX_DAYS = 90;
+
+    private final SupplierDailyStatsMapper supplierDailyStatsMapper;
+    private final SupplierOrderStatsMapper supplierOrderStatsMapper;
+    private final PurchaseDailyProductStatsMapper dailyProductStatsMapper;
+
+    /**
+     * 订单创建后累加供应商待支付订单数
+     * 需在创建订单的事务中调用
+     * 
+     * @param order 已写入的订单
+     */
+    public void recordOrderCreated(Order order) {
+        if (order.getSupplierId() != null) {
+            supplierOrderStatsMapper.adjustPending(order.getSupplierId(), 1);
+        }
+    }
+
+    /**
+     * 订单取消后扣减供应商待支付订单数
+     * 需在取消订单的事务中调用
+     * 
+     * @param order 已取消的订单
+     */
+    public void recordOrderCancelled(Order order) {
+        if (order.getSupplierId() != null) {
+            supplierOrderStatsMapper.adjustPending(order.getSupplierId(), -1);
+        }
+    }
+
+    /**
+     * 查询当前供应商的销售看板
+     * 
+     * @param days 统计最近多少天（含今天）
+     * @return 销售看板
+     */
+    public SupplierDashboardVO getDashboard(Integer days) {
+        if (days == null || days <= 0 || days > MAX_DAYS) {
+            throw new BusinessException("统计天数必须在1-" + MAX_DAYS + "之间");
+        }
+        if (!UserContextHolder.isSupplier()) {
+            throw new BusinessException("只有供应商可以查看销售看板");
+        }
+        Long supplierId = UserContextHolder.getUserId();
+        LocalDate since = LocalDate.now().minusDays(days - 1L);
+
+        SupplierDashboardVO dashboard = new SupplierDashboardVO();
+        dashboard.setSupplierId(supplierId);
+        dashboard.setDays(days);
+        fillDaily(dashboard, supplierId, since);
+        dashboard.setProducts(sumProducts(supplierId, since));
+
+        SupplierOrderStats orderStats = supplierOrderStatsMapper.selectById(supplierId);
+        dashboard.setPendingOrders(orderStats != null ? orderStats.getPendingCount() : 0);
+        return dashboard;
+    }
+
+    /**
+     * 读取每日销售并计算合计
+     * 
+     * @param dashboard 看板
+     * @param supplierId 供应商ID
+     * @param since 起始日期（含）
+     */
+    private void fillDaily(SupplierDashboardVO dashboard, Long supplierId, LocalDate since) {
+        LambdaQueryWrapper<SupplierDailyStats> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(SupplierDailyStats::getSupplierId, supplierId)
+                    .ge(SupplierDailyStats::getStatDate, since)
+                    .orderByAsc(SupplierDailyStats::getStatDate);
+
+        List<SupplierDailySalesVO> daily = new ArrayList<>();
+        int totalQuantity = 0;
+        int totalOrders = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (SupplierDailyStats stats : supplierDailyStatsMapper.selectList(queryWrapper)) {
+            SupplierDailySalesVO vo = new SupplierDailySalesVO();
+            vo.setDate(stats.getStatDate());
+            vo.setQuantity(stats.getQuantity());
+            vo.setAmount(stats.getAmount());
+            vo.setOrderCount(stats.getOrderCount());
+            vo.setBuyerCount(stats.getBuyerCount());
+            daily.add(vo);
+            totalQuantity += stats.getQuantity();
+            totalOrders += stats.getOrderCount();
+            totalAmount = totalAmount.add(stats.getAmount());
+        }
+        dashboard.setDaily(daily);
+        dashboard.setTotalQuantity(totalQuantity);
+        dashboard.setTotalOrders(totalOrders);
+        dashboard.setTotalAmount(totalAmount);
+    }
+
+    /**
+     * 按商品合计销售
+     * 
+     * @param supplierId 供应商ID
+     * @param since 起始日期（含）
+     * @return 商品销售（按销售额降序）
+     */
+    private List<SupplierProductSalesVO> sumProducts(Long supplierId, LocalDate since) {
+        LambdaQueryWrapper<PurchaseDailyProductStats> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(PurchaseDailyProductStats::getSupplierId, supplierId)
+                    .ge(PurchaseDailyProductStats::getStatDate, since);
+
+        Map<Long, SupplierProductSalesVO> products = new LinkedHashMap<>();
+        for (PurchaseDailyProductStats stats : dailyProductStatsMapper.selectList(queryWrapper)) {
+            SupplierProductSalesVO vo = products.computeIfAbsent(stats.getProductId(), productId -> {
+                SupplierProductSalesVO created = new SupplierProductSalesVO();
+                created.setProductId(productId);
+                created.setQuantity(0);
+                created.setAmount(BigDecimal.ZERO);
+                created.setBuyerCount(0);
+                return created;
+            });
+            vo.setQuantity(vo.getQuantity() + stats.getQuantity());
+            vo.setAmount(vo.getAmount().add(stats.getAmount()));
+            vo.setBuyerCount(vo.getBuyerCount() + stats.getBuyerCount());
+        }
+        List<SupplierProductSalesVO> list = new ArrayList<>(products.values());
+        list.sort(Comparator.comparing(SupplierProductSalesVO::getAmount).reversed()
+                .thenComparing(SupplierProductSalesVO::getProductId));
+        return list;
+    }
+}
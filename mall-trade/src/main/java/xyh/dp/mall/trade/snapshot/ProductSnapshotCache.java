@@ -0,0 +1,199 @@
+package xyh.dp.mall.trade.snapshot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.common.snapshot.ProductSnapshot;
+import xyh.dp.mall.trade.feign.ProductFeignClient;
+import xyh.dp.mall.trade.feign.dto.ProductDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品快照本地缓存
+ * 订阅商品服务发布的变更通知维护本地快照，购物车汇总等场景批量读取，不再逐个远程查询
+ *
+ * <p>读取顺序：本地快照 → Redis最新快照Hash（一次HMGET） → 商品服务（剩余缺失的商品一次批量查询）。</p>
+ *
+ * <p>通知版本号全局连续，发现跳号（通知丢失）或定时检查发现序列已超前时，只将本地快照标记为失效，
+ * 不清空：失效的快照在下次读取时与未命中的商品一起从Redis批量刷新，未被读取的快照不产生额外请求，
+ * 一次丢失通知不会让全部热点商品同时回源。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSnapshotCache implements MessageListener {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductFeignClient productFeignClient;
+
+    private final ProductSnapshotMap snapshots = new ProductSnapshotMap(1024);
+
+    /**
+     * 已处理的最大版本号，-1表示尚未同步
+     */
+    private final AtomicLong lastSeq = new AtomicLong(-1);
+
+    /**
+     * 处理商品变更通知
+     *
+     * @param message 通知消息
+     * @param pattern 订阅模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        ProductSnapshot snapshot = ProductSnapshot.decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (snapshot == null) {
+            log.warn("商品快照通知格式错误: {}", new String(message.getBody(), StandardCharsets.UTF_8));
+            return;
+        }
+        long previous = lastSeq.getAndAccumulate(snapshot.getVersion(), Math::max);
+        if (previous >= 0 && snapshot.getVersion() > previous + 1) {
+            markStale("通知跳号: last=" + previous + ", current=" + snapshot.getVersion());
+        }
+        snapshots.put(snapshot);
+    }
+
+    /**
+     * 定时比对全局序列，补偿订阅断开期间丢失的通知
+     */
+    @Scheduled(fixedDelayString = "${product.snapshot.check-interval-ms:5000}")
+    public void checkSequence() {
+        try {
+            String value = redisTemplate.opsForValue().get(ProductSnapshot.SEQ_KEY);
+            long remote = value != null ? Long.parseLong(value) : 0L;
+            long previous = lastSeq.getAndAccumulate(remote, Math::max);
+            if (previous >= 0 && remote > previous) {
+                markStale("序列超前: last=" + previous + ", remote=" + remote);
+            }
+        } catch (Exception e) {
+            log.warn("商品快照序列检查失败", e);
+        }
+    }
+
+    /**
+     * 批量获取商品快照
+     *
+     * @param productIds 商品ID集合
+     * @return 商品ID -> 快照，获取不到的商品不在结果中
+     */
+    public Map<Long, ProductSnapshot> getSnapshots(Collection<Long> productIds) {
+        // 在读取数据源之前取得当前代，加载期间再次失效时写回的数据仍视为失效
+        long generation = snapshots.generation();
+        Map<Long, ProductSnapshot> result = new HashMap<>(productIds.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            ProductSnapshot snapshot = snapshots.getFresh(productId);
+            if (snapshot != null) {
+                result.put(productId, snapshot);
+            } else {
+                misses.add(productId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        List<Long> remoteMisses = loadFromRedis(misses, generation, result);
+        if (!remoteMisses.isEmpty()) {
+            for (ProductSnapshot snapshot : loadFromProductService(remoteMisses)) {
+                snapshots.put(snapshot, generation);
+                result.put(snapshot.getId(), snapshot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 当前本地快照数量
+     *
+     * @return 数量
+     */
+    public int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * 从Redis最新快照Hash批量加载
+     *
+     * @param productIds 商品ID列表
+     * @param generation 读取前的代
+     * @param result     结果
+     * @return Redis中也没有的商品ID
+     */
+    private List<Long> loadFromRedis(List<Long> productIds, long generation, Map<Long, ProductSnapshot> result) {
+        List<Object> fields = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            fields.add(String.valueOf(productId));
+        }
+        List<Object> values;
+        try {
+            values = redisTemplate.opsForHash().multiGet(ProductSnapshot.HASH_KEY, fields);
+        } catch (Exception e) {
+            log.warn("读取商品快照失败: count={}", productIds.size(), e);
+            return productIds;
+        }
+
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            ProductSnapshot snapshot = ProductSnapshot.decode((String) values.get(i));
+            if (snapshot == null) {
+                misses.add(productIds.get(i));
+                continue;
+            }
+            snapshots.put(snapshot, generation);
+            result.put(productIds.get(i), snapshot);
+        }
+        return misses;
+    }
+
+    /**
+     * 从商品服务批量加载（无版本信息，版本号记为0）
+     *
+     * @param productIds 商品ID列表
+     * @return 快照列表，查询失败返回空列表
+     */
+    private List<ProductSnapshot> loadFromProductService(List<Long> productIds) {
+        List<ProductSnapshot> loaded = new ArrayList<>(productIds.size());
+        try {
+            Result<List<ProductDTO>> productResult = productFeignClient.getProductsByIds(productIds);
+            if (productResult.isSuccess() && productResult.getData() != null) {
+                for (ProductDTO product : productResult.getData()) {
+                    if (product.getId() == null) {
+                        continue;
+                    }
+                    loaded.add(new ProductSnapshot(product.getId(), 0L, product.getPrice(),
+                            product.getStock() != null ? product.getStock() : 0, product.getStatus()));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("批量查询商品信息失败: count={}", productIds.size(), e);
+        }
+        return loaded;
+    }
+
+    /**
+     * 将本地快照标记为失效
+     *
+     * @param reason 原因
+     */
+    private void markStale(String reason) {
+        snapshots.markStale();
+        log.warn("商品快照已标记失效，读取时从Redis刷新: {}", reason);
+    }
+}
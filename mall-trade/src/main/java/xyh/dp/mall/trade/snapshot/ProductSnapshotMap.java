@@ -0,0 +1,296 @@
+package xyh.dp.mall.trade.snapshot;
+
+import xyh.dp.mall.common.snapshot.ProductSnapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 以long商品ID为键的商品快照表
+ * 开放寻址（线性探测）+ 列式基本类型数组，避免Long装箱和每个商品一个对象的内存开销
+ *
+ * <p>读多写少：读使用StampedLock乐观读，写（变更通知、补偿加载）加写锁。
+ * 价格以"分"存储为long，状态编码为byte。</p>
+ *
+ * <p>每个条目记录写入时的代（generation）。发现通知丢失时只需递增当前代（{@link #markStale()}），
+ * 旧代条目保留在表中但不再由{@link #getFresh(long)}返回，由调用方按需重新加载后以新代写回。</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+public class ProductSnapshotMap {
+
+    /**
+     * 空槽位标记（商品ID均为正数）
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * 已知状态，下标即编码
+     */
+    private static final String[] STATUSES = {"UNKNOWN", "ON_SALE", "OFF_SALE", "DELETED"};
+
+    private final StampedLock lock = new StampedLock();
+
+    private volatile Table table;
+
+    /**
+     * 当前代，标记失效时递增
+     */
+    private volatile long generation;
+
+    /**
+     * 创建快照表
+     *
+     * @param expectedSize 预计商品数
+     */
+    public ProductSnapshotMap(int expectedSize) {
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    /**
+     * 查询商品快照
+     *
+     * @param productId 商品ID
+     * @return 快照，不存在返回null
+     */
+    public ProductSnapshot get(long productId) {
+        return get(productId, Long.MIN_VALUE);
+    }
+
+    /**
+     * 查询当前代的商品快照
+     *
+     * @param productId 商品ID
+     * @return 快照，不存在或已标记失效返回null
+     */
+    public ProductSnapshot getFresh(long productId) {
+        return get(productId, generation);
+    }
+
+    /**
+     * 写入快照（当前代），仅当版本不低于已有版本时覆盖
+     *
+     * @param snapshot 快照
+     * @return 是否写入
+     */
+    public boolean put(ProductSnapshot snapshot) {
+        return put(snapshot, generation);
+    }
+
+    /**
+     * 写入快照，仅当版本不低于已有版本时覆盖
+     * 补偿加载应传入读取数据源之前的代，避免加载期间发生的失效标记被旧数据覆盖
+     *
+     * @param snapshot   快照
+     * @param generation 快照所属的代
+     * @return 是否写入
+     */
+    public boolean put(ProductSnapshot snapshot, long generation) {
+        if (snapshot.getId() <= 0 || snapshot.getPrice() == null) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            if ((current.size + 1) * 2 > current.keys.length) {
+                current = current.resize();
+                table = current;
+            }
+            return current.put(snapshot, generation);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 当前代
+     *
+     * @return 当前代
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * 将全部快照标记为失效，条目保留，重新加载前不再由{@link #getFresh(long)}返回
+     */
+    public void markStale() {
+        long stamp = lock.writeLock();
+        try {
+            generation++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 清空全部快照
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new Table(table.keys.length);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 查询不早于指定代的商品快照
+     *
+     * @param productId     商品ID
+     * @param minGeneration 最早的代
+     * @return 快照，不存在或早于指定代返回null
+     */
+    private ProductSnapshot get(long productId, long minGeneration) {
+        long stamp = lock.tryOptimisticRead();
+        ProductSnapshot snapshot = table.get(productId, minGeneration);
+        if (lock.validate(stamp)) {
+            return snapshot;
+        }
+        stamp = lock.readLock();
+        try {
+            return table.get(productId, minGeneration);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 快照数量
+     *
+     * @return 数量
+     */
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * 计算容量（2的幂，负载因子0.5）
+     *
+     * @param expectedSize 预计元素数
+     * @return 容量
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        return Math.max(capacity, 16);
+    }
+
+    /**
+     * 商品ID散列
+     *
+     * @param productId 商品ID
+     * @return 散列值
+     */
+    private static int hash(long productId) {
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 状态编码
+     *
+     * @param status 状态
+     * @return 编码
+     */
+    private static byte encodeStatus(String status) {
+        for (byte i = 1; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 一组同代的列式数组，扩容时整体替换，保证乐观读看到的数组长度一致
+     */
+    private static final class Table {
+
+        private final long[] keys;
+        private final long[] versions;
+        private final long[] priceCents;
+        private final int[] stocks;
+        private final byte[] statuses;
+        private final long[] generations;
+        private final int mask;
+        private int size;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            versions = new long[capacity];
+            priceCents = new long[capacity];
+            stocks = new int[capacity];
+            statuses = new byte[capacity];
+            generations = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        private ProductSnapshot get(long productId, long minGeneration) {
+            int index = hash(productId) & mask;
+            for (int probes = 0; probes < keys.length; probes++) {
+                long key = keys[index];
+                if (key == productId) {
+                    if (generations[index] < minGeneration) {
+                        return null;
+                    }
+                    return new ProductSnapshot(productId, versions[index], BigDecimal.valueOf(priceCents[index], 2),
+                            stocks[index], STATUSES[statuses[index]]);
+                }
+                if (key == EMPTY) {
+                    return null;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private boolean put(ProductSnapshot snapshot, long generation) {
+            long productId = snapshot.getId();
+            int index = hash(productId) & mask;
+            while (keys[index] != EMPTY && keys[index] != productId) {
+                index = (index + 1) & mask;
+            }
+            if (keys[index] == productId) {
+                if (versions[index] > snapshot.getVersion()) {
+                    return false;
+                }
+                if (versions[index] == snapshot.getVersion()) {
+                    // 同一版本重复写入不降低已确认的代
+                    generation = Math.max(generation, generations[index]);
+                }
+            } else {
+                size++;
+            }
+            generations[index] = generation;
+            versions[index] = snapshot.getVersion();
+            priceCents[index] = snapshot.getPrice().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+            stocks[index] = snapshot.getStock();
+            statuses[index] = encodeStatus(snapshot.getStatus());
+            keys[index] = productId;
+            return true;
+        }
+
+        private Table resize() {
+            Table resized = new Table(keys.length << 1);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    int index = hash(keys[i]) & resized.mask;
+                    while (resized.keys[index] != EMPTY) {
+                        index = (index + 1) & resized.mask;
+                    }
+                    resized.keys[index] = keys[i];
+                    resized.versions[index] = versions[i];
+                    resized.priceCents[index] = priceCents[i];
+                    resized.stocks[index] = stocks[i];
+                    resized.statuses[index] = statuses[i];
+                    resized.generations[index] = generations[i];
+                    resized.size++;
+                }
+            }
+            return resized;
+        }
+    }
+}
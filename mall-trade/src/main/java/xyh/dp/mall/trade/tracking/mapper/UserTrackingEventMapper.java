@@ -1,6 +1,7 @@
 package xyh.dp.mall.trade.tracking.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -75,4 +76,15 @@ public interface UserTrackingEventMapper extends BaseMapper<UserTrackingEvent> {
      */
     @Select("SELECT COUNT(*) FROM user_tracking_event WHERE plan_id = #{planId}")
     int countEventsByPlan(@Param("planId") String planId);
+
+    /**
+     * 登记事件ID
+     * user_tracking_event按事件时间分区后唯一键必须包含event_time，事件ID的全局唯一由不分区的登记表保证
+     * 
+     * @param eventId 事件ID
+     * @param createTime 登记时间
+     * @return 登记成功返回1，事件ID已存在返回0
+     */
+    @Insert("INSERT IGNORE INTO user_tracking_event_id (event_id, create_time) VALUES (#{eventId}, #{createTime})")
+    int insertEventId(@Param("eventId") String eventId, @Param("createTime") LocalDateTime createTime);
 }
@@ -41,8 +41,14 @@ public class TrackingService {
             "MATCH_CONFIRM", "ORDER_CREATE", "ORDER_PAY"
     );
 
+    /**
+     * 事件ID重复时最多重新生成的次数
+     */
+    private static final int EVENT_ID_ATTEMPTS = 3;
+
     /**
      * 记录埋点事件
+     * 用户信息由orderExecutor的ContextAwareTaskDecorator从调用线程传递到异步线程
      * 
      * @param dto 埋点事件数据
      */
@@ -67,7 +73,7 @@ public class TrackingService {
                     .extData(dto.getExtData())
                     .build();
 
-            eventMapper.insert(event);
+            insertWithUniqueId(event);
             log.debug("埋点事件记录成功: eventId={}, eventType={}", event.getEventId(), event.getEventType());
         } catch (Exception e) {
             log.error("埋点事件记录失败: {}", e.getMessage(), e);
@@ -85,8 +91,8 @@ public class TrackingService {
     @Transactional(rollbackFor = Exception.class)
     public void trackMatchEvent(TrackingEventDTO dto, PlantingPlan plan, ProductDTO product) {
         try {
-            // 计算匹配特征
-            MatchFeature feature = scoreCalculator.calculateScore(plan, product);
+            // 计算匹配特征（埋点只记录特征和得分，不生成建议描述）
+            MatchFeature feature = scoreCalculator.calculateFeatures(plan, product);
 
             UserTrackingEvent event = UserTrackingEvent.builder()
                     .eventId(generateEventId())
@@ -115,7 +121,7 @@ public class TrackingService {
                     .extData(dto.getExtData())
                     .build();
 
-            eventMapper.insert(event);
+            insertWithUniqueId(event);
             log.info("匹配埋点事件记录成功: eventId={}, planId={}, productId={}, isPositive={}", 
                     event.getEventId(), dto.getPlanId(), dto.getProductId(), event.getIsPositive());
         } catch (Exception e) {
@@ -160,7 +166,7 @@ public class TrackingService {
                     .extData(dto.getExtData())
                     .build();
 
-            eventMapper.insert(event);
+            insertWithUniqueId(event);
             log.info("匹配埋点事件记录成功: eventId={}, planId={}, productId={}, totalScore={}, isPositive={}", 
                     event.getEventId(), feature.getPlanId(), feature.getProductId(), 
                     feature.getTotalScore(), event.getIsPositive());
@@ -169,6 +175,26 @@ public class TrackingService {
         }
     }
 
+    /**
+     * 登记事件ID后写入事件
+     * 事件表按事件时间分区，唯一键含event_time，不能保证事件ID全局唯一；
+     * 先在不分区的登记表中占用事件ID，已被占用时重新生成
+     * 
+     * @param event 埋点事件
+     * @throws IllegalStateException 多次生成的事件ID均已被占用
+     */
+    private void insertWithUniqueId(UserTrackingEvent event) {
+        for (int attempt = 0; attempt < EVENT_ID_ATTEMPTS; attempt++) {
+            if (eventMapper.insertEventId(event.getEventId(), event.getCreateTime()) == 1) {
+                eventMapper.insert(event);
+                return;
+            }
+            log.warn("事件ID重复，重新生成: eventId={}", event.getEventId());
+            event.setEventId(generateEventId());
+        }
+        throw new IllegalStateException("事件ID生成失败");
+    }
+
     /**
      * 生成事件ID
      * 
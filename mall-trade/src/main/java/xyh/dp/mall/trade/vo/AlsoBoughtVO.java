@@ -0,0 +1,31 @@
+package xyh.dp.mall.trade.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 买了还买商品VO
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlsoBoughtVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 同时购买过两个商品的用户数
+     */
+    private Integer buyerCount;
+}
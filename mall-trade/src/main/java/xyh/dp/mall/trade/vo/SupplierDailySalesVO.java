@@ -0,0 +1,44 @@
+package xyh.dp.mall.trade.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 供应商每日销售VO
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class SupplierDailySalesVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 日期
+     */
+    private LocalDate date;
+
+    /**
+     * 销量
+     */
+    private Integer quantity;
+
+    /**
+     * 销售额
+     */
+    private BigDecimal amount;
+
+    /**
+     * 成交订单数
+     */
+    private Integer orderCount;
+
+    /**
+     * 去重购买人数
+     */
+    private Integer buyerCount;
+}
@@ -0,0 +1,59 @@
+package xyh.dp.mall.trade.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 供应商销售看板VO
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class SupplierDashboardVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 供应商ID
+     */
+    private Long supplierId;
+
+    /**
+     * 统计天数（含今天）
+     */
+    private Integer days;
+
+    /**
+     * 总销量
+     */
+    private Integer totalQuantity;
+
+    /**
+     * 总销售额
+     */
+    private BigDecimal totalAmount;
+
+    /**
+     * 总成交订单数
+     */
+    private Integer totalOrders;
+
+    /**
+     * 当前待支付订单数
+     */
+    private Integer pendingOrders;
+
+    /**
+     * 每日销售（按日期升序，没有销售的日期不返回）
+     */
+    private List<SupplierDailySalesVO> daily;
+
+    /**
+     * 商品销售（按销售额降序）
+     */
+    private List<SupplierProductSalesVO> products;
+}
@@ -0,0 +1,38 @@
+package xyh.dp.mall.trade.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 供应商商品销售VO
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class SupplierProductSalesVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 销量
+     */
+    private Integer quantity;
+
+    /**
+     * 销售额
+     */
+    private BigDecimal amount;
+
+    /**
+     * 购买人数（按天去重后相加）
+     */
+    private Integer buyerCount;
+}
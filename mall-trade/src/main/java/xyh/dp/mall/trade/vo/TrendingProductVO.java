@@ -0,0 +1,58 @@
+package xyh.dp.mall.trade.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 近期热点商品VO
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@Data
+public class TrendingProductVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 排名（1开始）
+     */
+    private Integer rank;
+
+    /**
+     * 商品ID
+     */
+    private Long productId;
+
+    /**
+     * 商品名称
+     */
+    private String productName;
+
+    /**
+     * 商品主图
+     */
+    private String productImage;
+
+    /**
+     * 商品分类ID
+     */
+    private Long categoryId;
+
+    /**
+     * 商品价格
+     */
+    private BigDecimal price;
+
+    /**
+     * 商品库存
+     */
+    private Integer stock;
+
+    /**
+     * 时间衰减后的热度分（近似购买次数）
+     */
+    private Double score;
+}
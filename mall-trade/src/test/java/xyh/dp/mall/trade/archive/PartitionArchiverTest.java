@@ -0,0 +1,169 @@
+package xyh.dp.mall.trade.archive;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import xyh.dp.mall.common.exception.BusinessException;
+import xyh.dp.mall.trade.mapper.PartitionMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PartitionArchiver 冷分区归档单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PartitionArchiver 冷分区归档测试")
+class PartitionArchiverTest {
+
+    private static final String TABLE = "tb_order";
+    private static final String PARTITION = "p202001";
+
+    @Mock
+    private PartitionMapper partitionMapper;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @TempDir
+    private Path directory;
+
+    private ArchiveProperties properties;
+
+    private PartitionArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ArchiveProperties();
+        properties.setEnabled(true);
+        properties.setSharedStorage(true);
+        properties.setDirectory(directory.toString());
+        properties.setShards(8);
+        archiver = new PartitionArchiver(partitionMapper, properties, redisTemplate);
+    }
+
+    @Test
+    @DisplayName("冷分区按订单号分片导出，按订单号读取只读对应分片")
+    void archive_shouldShardByOrderNoAndReadBack() throws Exception {
+        // Given - 3个用户的4个订单
+        List<Map<String, Object>> rows = List.of(
+                Map.of("id", 1L, "order_no", "O1", "user_id", 7L),
+                Map.of("id", 2L, "order_no", "O2", "user_id", 8L),
+                Map.of("id", 3L, "order_no", "O3", "user_id", 7L),
+                Map.of("id", 4L, "order_no", "O4", "user_id", 9L));
+        when(partitionMapper.selectPartitionNames(TABLE))
+                .thenReturn(List.of(PARTITION, PartitionedTable.MAX_PARTITION));
+        when(partitionMapper.countPartition(TABLE, PARTITION)).thenReturn(4L);
+        when(partitionMapper.selectChunk(eq(TABLE), eq(PARTITION), anyLong(), anyInt())).thenReturn(rows);
+
+        // When
+        int archived = archiver.archive(PartitionedTable.ORDER);
+
+        // Then - 分区导出为8个分片文件后删除
+        assertThat(archived).isEqualTo(1);
+        verify(partitionMapper).dropPartition(TABLE, PARTITION);
+        Path partitionDirectory = directory.resolve(TABLE).resolve(PARTITION);
+        try (Stream<Path> files = Files.list(partitionDirectory)) {
+            assertThat(files.count()).isEqualTo(8);
+        }
+
+        // 按分片列读取
+        List<JSONObject> byOrderNo = archiver.read(PartitionedTable.ORDER, YearMonth.of(2020, 1),
+                "order_no", "O3", 10);
+        assertThat(byOrderNo).extracting(row -> row.getLong("id")).containsExactly(3L);
+
+        // 按其他列读取扫描全部分片
+        List<JSONObject> byUser = archiver.read(PartitionedTable.ORDER, YearMonth.of(2020, 1),
+                "user_id", 7L, 10);
+        assertThat(byUser).extracting(row -> row.getString("order_no")).containsExactlyInAnyOrder("O1", "O3");
+    }
+
+    @Test
+    @DisplayName("购买记录表即使配置了保留月数也不归档")
+    void archive_purchaseRecord_shouldNeverArchive() {
+        // Given
+        properties.getRetainMonths().put(PartitionedTable.PURCHASE_RECORD.getTableName(), 1);
+
+        // When
+        int archived = archiver.archive(PartitionedTable.PURCHASE_RECORD);
+
+        // Then
+        assertThat(archived).isZero();
+        verify(partitionMapper, never()).dropPartition(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("未归档的月份返回空列表")
+    void read_notArchived_shouldReturnEmpty() {
+        assertThat(archiver.read(PartitionedTable.ORDER, YearMonth.of(2020, 2), "order_no", "O1", 10))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("归档目录不存在时读取失败，不当作未归档")
+    void read_missingDirectory_shouldFail() {
+        // Given - 共享存储未挂载
+        properties.setDirectory(directory.resolve("unmounted").toString());
+
+        // When & Then
+        assertThatThrownBy(() -> archiver.read(PartitionedTable.ORDER, YearMonth.of(2020, 1), "order_no", "O1", 10))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("读取归档数据失败");
+    }
+
+    @Test
+    @DisplayName("启用归档但未确认共享存储时启动失败")
+    void validateStorage_notShared_shouldFail() {
+        // Given
+        properties.setSharedStorage(false);
+
+        // When & Then
+        assertThatThrownBy(() -> archiver.validateStorage())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("维护完成后按令牌释放锁，不直接删除")
+    void maintain_shouldReleaseLockByToken() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("archive:lock"), anyString(), any(Duration.class))).thenReturn(true);
+
+        // When
+        archiver.maintain();
+
+        // Then
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("archive:lock")), anyString());
+        verify(redisTemplate, never()).delete(anyString());
+    }
+}
@@ -0,0 +1,150 @@
+package xyh.dp.mall.trade.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+import xyh.dp.mall.trade.entity.PlantingPlan;
+import xyh.dp.mall.trade.feign.dto.ProductDTO;
+import xyh.dp.mall.trade.matching.engine.MatchFeatureExtractor;
+import xyh.dp.mall.trade.matching.engine.MatchScoreCalculator;
+import xyh.dp.mall.trade.matching.feature.FeatureWeight;
+import xyh.dp.mall.trade.matching.feature.MatchFeature;
+import xyh.dp.mall.trade.matching.region.RegionDirectory;
+import xyh.dp.mall.trade.matching.region.RegionProperties;
+import xyh.dp.mall.trade.matching.variety.VarietySimilarityProperties;
+import xyh.dp.mall.trade.matching.variety.VarietySimilarityService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 匹配评分基准测试
+ * 对比推荐列表（得分>=60的前N个）在BigDecimal全量评分与评分内核两条路径下的耗时
+ *
+ * <p>旧路径：每个候选商品生成BigDecimal特征、加权总分、等级和建议文本，全量排序后截取前N；
+ * 新路径：{@link MatchScoreCalculator#getRecommendations}，候选商品只在double数组上评分，
+ * 只为前N名生成完整特征。候选商品随机组合品种、区域、季节和质量指标，种子固定。</p>
+ *
+ * <p>运行方式：在IDE中直接运行main方法，或
+ * {@code mvn -pl mall-trade test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=xyh.dp.mall.trade.benchmark.MatchScoringBenchmark}</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MatchScoringBenchmark {
+
+    /**
+     * 推荐数量
+     */
+    private static final int TOP_N = 5;
+
+    /**
+     * 推荐商品的最低得分
+     */
+    private static final BigDecimal MIN_SCORE = new BigDecimal("60");
+
+    private static final String[] VARIETIES = {"济麦22", "济麦23", "郑麦9023", "矮抗58", "百农207", "周麦27"};
+    private static final String[] REGIONS = {"山东", "华东", "华北", "河南", "东北", "华南"};
+    private static final String[] SEASONS = {"春季", "夏季", "秋季", "冬季"};
+    private static final String[] DIFFICULTIES = {"EASY", "MEDIUM", "HARD"};
+    private static final String[] DESCRIPTIONS = {"高产抗病，适合食用加工", "适合粮食储备和饲料加工", "观赏价值高，适合园艺绿化"};
+
+    @Param({"10000"})
+    private int candidates;
+
+    private MatchScoreCalculator calculator;
+    private PlantingPlan plan;
+    private List<ProductDTO> products;
+
+    /**
+     * 构建评分器和候选商品
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        MatchFeatureExtractor extractor = new MatchFeatureExtractor(
+                new VarietySimilarityService(new VarietySimilarityProperties()),
+                new RegionDirectory(new RegionProperties(), new DefaultResourceLoader()));
+        calculator = new MatchScoreCalculator(extractor, new FeatureWeight());
+
+        plan = new PlantingPlan();
+        plan.setPlanId("PLAN_BENCH");
+        plan.setVariety("济麦22");
+        plan.setRegion("山东菏泽");
+        plan.setPlantingDate(LocalDate.of(2025, 3, 15));
+        plan.setTargetUsage("食用加工");
+
+        Random random = new Random(42);
+        products = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setId((long) i);
+            product.setName("种子" + i);
+            product.setVariety(VARIETIES[random.nextInt(VARIETIES.length)]);
+            product.setRegions(List.of(REGIONS[random.nextInt(REGIONS.length)], REGIONS[random.nextInt(REGIONS.length)]));
+            product.setPlantingSeasons(List.of(SEASONS[random.nextInt(SEASONS.length)]));
+            product.setGerminationRate(BigDecimal.valueOf(80 + random.nextInt(200) / 10.0));
+            product.setPurity(BigDecimal.valueOf(90 + random.nextInt(100) / 10.0));
+            product.setDifficulty(DIFFICULTIES[random.nextInt(DIFFICULTIES.length)]);
+            product.setMinTemperature(BigDecimal.valueOf(5 + random.nextInt(10)));
+            product.setMaxTemperature(BigDecimal.valueOf(20 + random.nextInt(10)));
+            product.setMinHumidity(BigDecimal.valueOf(40 + random.nextInt(20)));
+            product.setMaxHumidity(BigDecimal.valueOf(65 + random.nextInt(20)));
+            product.setLightRequirement(random.nextBoolean() ? "FULL_SUN" : "PARTIAL_SUN");
+            product.setDescription(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]);
+            product.setPrice(BigDecimal.valueOf(10 + random.nextInt(90)));
+            products.add(product);
+        }
+    }
+
+    /**
+     * 旧路径：全部候选商品生成完整特征后排序截取
+     *
+     * @return 推荐列表
+     */
+    @Benchmark
+    public List<MatchFeature> bigDecimalPath() {
+        return calculator.calculateAndRankScores(plan, products).stream()
+                .filter(feature -> feature.getTotalScore().compareTo(MIN_SCORE) >= 0)
+                .limit(TOP_N)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 新路径：评分内核筛选前N名
+     *
+     * @return 推荐列表
+     */
+    @Benchmark
+    public List<MatchFeature> primitiveKernel() {
+        return calculator.getRecommendations(plan, products, TOP_N);
+    }
+
+    /**
+     * 运行基准测试
+     *
+     * @param args 启动参数
+     * @throws RunnerException 运行失败
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MatchScoringBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,173 @@
+package xyh.dp.mall.trade.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import xyh.dp.mall.common.concurrent.ContextAwareTaskDecorator;
+import xyh.dp.mall.common.concurrent.ExecutorMode;
+import xyh.dp.mall.common.concurrent.VirtualThreadExecutors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单执行器吞吐量基准测试
+ * 对比orderExecutor在平台线程池与虚拟线程模式下的下单吞吐量
+ *
+ * <p>模拟OrderService.createOrder的执行路径：
+ * 1. 在orderExecutor上并行执行"查询商品"和"扣减库存"两个Feign调用
+ * 2. 请求线程等待两者完成后写入订单
+ * 3. 事务提交后在orderExecutor上异步执行"增加销量+保存购买记录"
+ * 阻塞I/O以sleep模拟，延迟取自本地压测的P50。</p>
+ *
+ * <p>运行方式：在IDE中直接运行main方法，或
+ * {@code mvn -pl mall-trade test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=xyh.dp.mall.trade.benchmark.OrderExecutorBenchmark}</p>
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class OrderExecutorBenchmark {
+
+    /**
+     * 每次基准操作模拟的并发下单数
+     */
+    private static final int CONCURRENT_ORDERS = 500;
+
+    /**
+     * 查询商品Feign调用耗时（毫秒）
+     */
+    private static final long PRODUCT_QUERY_MS = 8;
+
+    /**
+     * 扣减库存Feign调用耗时（毫秒）
+     */
+    private static final long STOCK_DEDUCT_MS = 12;
+
+    /**
+     * 订单写库耗时（毫秒）
+     */
+    private static final long ORDER_INSERT_MS = 3;
+
+    /**
+     * 提交后处理（增加销量+保存购买记录）耗时（毫秒）
+     */
+    private static final long AFTER_COMMIT_MS = 10;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private ExecutorMode mode;
+
+    private Executor orderExecutor;
+
+    /**
+     * 模拟Tomcat请求线程（固定200个平台线程）
+     */
+    private ExecutorService requestThreads;
+
+    /**
+     * 按ThreadPoolConfig的配置构建被测执行器
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        requestThreads = Executors.newFixedThreadPool(200);
+        if (mode == ExecutorMode.VIRTUAL) {
+            orderExecutor = VirtualThreadExecutors.create("order-vt-", 200, 60_000L,
+                    new ContextAwareTaskDecorator());
+            return;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(10);
+        executor.setMaxPoolSize(50);
+        executor.setQueueCapacity(200);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("order-async-");
+        executor.setTaskDecorator(new ContextAwareTaskDecorator());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        orderExecutor = executor;
+    }
+
+    /**
+     * 释放执行器
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requestThreads.shutdownNow();
+        if (orderExecutor instanceof ThreadPoolTaskExecutor executor) {
+            executor.shutdown();
+        } else if (orderExecutor instanceof SimpleAsyncTaskExecutor executor) {
+            executor.close();
+        }
+    }
+
+    /**
+     * 并发创建一批订单，吞吐量单位为"批/秒"（乘以CONCURRENT_ORDERS即为订单/秒）
+     *
+     * @return 成功创建的订单数
+     */
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_ORDERS)
+    public int createOrders() {
+        CompletableFuture<?>[] orders = new CompletableFuture<?>[CONCURRENT_ORDERS];
+        for (int i = 0; i < CONCURRENT_ORDERS; i++) {
+            orders[i] = CompletableFuture.runAsync(this::createOrder, requestThreads);
+        }
+        CompletableFuture.allOf(orders).join();
+        return orders.length;
+    }
+
+    /**
+     * 模拟单个订单的创建流程
+     */
+    private void createOrder() {
+        CompletableFuture<Void> productFuture = CompletableFuture.runAsync(
+                () -> sleep(PRODUCT_QUERY_MS), orderExecutor);
+        CompletableFuture<Void> deductFuture = CompletableFuture.runAsync(
+                () -> sleep(STOCK_DEDUCT_MS), orderExecutor);
+        CompletableFuture.allOf(productFuture, deductFuture).join();
+
+        sleep(ORDER_INSERT_MS);
+
+        CompletableFuture.runAsync(() -> sleep(AFTER_COMMIT_MS), orderExecutor);
+    }
+
+    /**
+     * 模拟阻塞I/O
+     *
+     * @param millis 阻塞时长（毫秒）
+     */
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 运行基准测试
+     *
+     * @param args 启动参数
+     * @throws RunnerException 运行失败
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderExecutorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,96 @@
+package xyh.dp.mall.trade.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyh.dp.mall.trade.mapper.CartItemMapper;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * CartWriteBehindFlusher 购物车异步落库单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CartWriteBehindFlusher 购物车异步落库测试")
+class CartWriteBehindFlusherTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private CartItemMapper cartItemMapper;
+
+    @Mock
+    private CartStoreProperties properties;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private CartWriteBehindFlusher flusher;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+    }
+
+    @Test
+    @DisplayName("待落库集合为空时不抢锁")
+    void flush_nothingDirty_shouldSkipLock() {
+        // Given
+        when(setOperations.size(RedisCartStore.DIRTY_KEY)).thenReturn(0L);
+
+        // When
+        flusher.flush();
+
+        // Then
+        verify(redisTemplate, never()).opsForValue();
+        verify(setOperations, never()).pop(anyString(), any(Long.class));
+    }
+
+    @Test
+    @DisplayName("有待落库用户时加锁取出，完成后按令牌释放锁")
+    @SuppressWarnings("unchecked")
+    void flush_dirty_shouldLockAndDrain() {
+        // Given
+        when(setOperations.size(RedisCartStore.DIRTY_KEY)).thenReturn(1L);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("cart:flush:lock"), anyString(), any(Duration.class))).thenReturn(true);
+        when(properties.getFlushMaxBatches()).thenReturn(1);
+        when(properties.getFlushBatchSize()).thenReturn(100);
+        when(setOperations.pop(RedisCartStore.DIRTY_KEY, 100L)).thenReturn(List.of());
+
+        // When
+        flusher.flush();
+
+        // Then
+        verify(setOperations).pop(RedisCartStore.DIRTY_KEY, 100L);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("cart:flush:lock")), anyString());
+    }
+}
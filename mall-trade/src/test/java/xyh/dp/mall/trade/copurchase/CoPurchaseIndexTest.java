@@ -0,0 +1,128 @@
+package xyh.dp.mall.trade.copurchase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+import xyh.dp.mall.trade.profile.PurchasedProductIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * CoPurchaseIndex 共同购买索引单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CoPurchaseIndex 共同购买索引测试")
+class CoPurchaseIndexTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private PurchaseRecordMapper purchaseRecordMapper;
+
+    @Mock
+    private PurchasedProductIndex purchasedProductIndex;
+
+    private CoPurchaseIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CoPurchaseIndex(redisTemplate, purchaseRecordMapper, purchasedProductIndex,
+                new CoPurchaseProperties(), Runnable::run);
+    }
+
+    @Test
+    @DisplayName("重建期间收到的通知只回放高水位之后的购买，不与扫描结果重复累加")
+    void rebuild_shouldReplayOnlyNotificationsAboveHighWaterMark() {
+        // Given - 高水位为记录10；扫描过程中收到记录9（已在扫描结果中）和记录11（扫描之后）的通知
+        when(purchaseRecordMapper.selectMaxId()).thenReturn(10L);
+        when(purchaseRecordMapper.selectMaxUserId()).thenReturn(1L);
+        when(purchaseRecordMapper.selectUserProducts(anyLong(), anyLong(), eq(10L))).thenAnswer(invocation -> {
+            deliver("9|2|1");
+            deliver("11|3|2,1");
+            return List.of(userProduct(1L, 1L), userProduct(1L, 2L));
+        });
+
+        // When
+        index.rebuild();
+
+        // Then
+        Neighbours neighbours = index.neighbours(1L);
+        assertThat(neighbours.size()).isEqualTo(2);
+        assertThat(neighbours.count(0)).isEqualTo(1);
+        assertThat(neighbours.count(1)).isEqualTo(1);
+        assertThat(index.neighbours(3L).size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("非重建期间的通知直接累加，缺少记录ID的消息被忽略")
+    void onMessage_shouldAccumulateAndIgnoreMalformed() {
+        // When
+        deliver("6|2|1");
+        deliver("7|3|1");
+        deliver("1|4");
+        index.prune();
+
+        // Then
+        Neighbours neighbours = index.neighbours(1L);
+        assertThat(neighbours.size()).isEqualTo(2);
+        assertThat(index.neighbours(4L).size()).isZero();
+    }
+
+    @Test
+    @DisplayName("撤销通知从矩阵中扣减，计数归零的邻居不再出现")
+    void onMessage_revokeShouldDecrement() {
+        // Given
+        deliver("5|2|1");
+        deliver("6|3|1,2");
+
+        // When - 记录5所在订单取消
+        deliver("-5|2|1,3");
+        index.prune();
+
+        // Then
+        assertThat(index.neighbours(1L).productId(0)).isEqualTo(3L);
+        assertThat(index.neighbours(1L).size()).isEqualTo(1);
+        assertThat(index.neighbours(2L).size()).isZero();
+        assertThat(index.neighbours(3L).size()).isEqualTo(1);
+    }
+
+    /**
+     * 投递共同购买通知
+     *
+     * @param body 通知消息
+     */
+    private void deliver(String body) {
+        index.onMessage(new DefaultMessage(CoPurchaseIndex.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    /**
+     * 构建用户-商品对
+     *
+     * @param userId    用户ID
+     * @param productId 商品ID
+     * @return 用户-商品对
+     */
+    private static UserProduct userProduct(Long userId, Long productId) {
+        UserProduct row = new UserProduct();
+        row.setUserId(userId);
+        row.setProductId(productId);
+        return row;
+    }
+}
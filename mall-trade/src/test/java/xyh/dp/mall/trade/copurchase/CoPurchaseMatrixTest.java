@@ -0,0 +1,120 @@
+package xyh.dp.mall.trade.copurchase;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CoPurchaseMatrix 共同购买矩阵单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("CoPurchaseMatrix 共同购买矩阵测试")
+class CoPurchaseMatrixTest {
+
+    @Test
+    @DisplayName("增量更新 - 新商品与已购商品对称累加")
+    void add_shouldIncrementSymmetrically() {
+        CoPurchaseMatrix matrix = new CoPurchaseMatrix();
+
+        matrix.add(1L, new long[]{2L, 3L});
+        matrix.add(2L, new long[]{1L, 3L});
+
+        assertThat(matrix.count(1L, 2L)).isEqualTo(2);
+        assertThat(matrix.count(2L, 1L)).isEqualTo(2);
+        assertThat(matrix.count(1L, 3L)).isEqualTo(1);
+        assertThat(matrix.count(3L, 2L)).isEqualTo(1);
+        assertThat(matrix.count(1L, 1L)).isZero();
+    }
+
+    @Test
+    @DisplayName("撤销 - 对称减1，计数归零的邻居和空行被移除")
+    void remove_shouldDecrementSymmetrically() {
+        CoPurchaseMatrix matrix = new CoPurchaseMatrix();
+        matrix.add(1L, new long[]{2L, 3L});
+        matrix.add(4L, new long[]{1L});
+        matrix.add(4L, new long[]{1L});
+
+        matrix.remove(1L, new long[]{2L, 4L});
+
+        assertThat(matrix.count(1L, 2L)).isZero();
+        assertThat(matrix.count(2L, 1L)).isZero();
+        assertThat(matrix.count(1L, 3L)).isEqualTo(1);
+        assertThat(matrix.count(4L, 1L)).isEqualTo(1);
+        assertThat(matrix.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("计数表 - 移除键后同一探测链上的其他键仍可查到")
+    void longIntHashMap_shouldKeepProbeChainAfterRemove() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (long key = 1; key <= 200; key++) {
+            map.addTo(key, (int) key);
+        }
+        for (long key = 1; key <= 200; key += 2) {
+            map.addTo(key, (int) -key);
+        }
+
+        assertThat(map.size()).isEqualTo(100);
+        for (long key = 1; key <= 200; key++) {
+            assertThat(map.get(key)).isEqualTo(key % 2 == 0 ? (int) key : 0);
+        }
+    }
+
+    @Test
+    @DisplayName("重建 - 用户已购商品两两累加")
+    void addBasket_shouldIncrementAllPairs() {
+        CoPurchaseMatrix matrix = new CoPurchaseMatrix();
+
+        matrix.addBasket(new long[]{1L, 2L, 3L, 0L}, 3);
+        matrix.addBasket(new long[]{1L, 3L}, 2);
+
+        assertThat(matrix.count(1L, 3L)).isEqualTo(2);
+        assertThat(matrix.count(3L, 1L)).isEqualTo(2);
+        assertThat(matrix.count(2L, 3L)).isEqualTo(1);
+        assertThat(matrix.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("剪枝 - 每行只保留计数最大的邻居，快照按计数降序")
+    void prune_shouldKeepTopNeighbours() {
+        CoPurchaseMatrix matrix = new CoPurchaseMatrix();
+        for (long other = 2; other <= 100; other++) {
+            for (int i = 0; i < other; i++) {
+                matrix.add(1L, new long[]{other});
+            }
+        }
+
+        Map<Long, Neighbours> snapshot = matrix.prune(10, 3);
+
+        Neighbours neighbours = snapshot.get(1L);
+        assertThat(neighbours.size()).isEqualTo(3);
+        assertThat(neighbours.productId(0)).isEqualTo(100L);
+        assertThat(neighbours.count(0)).isEqualTo(100);
+        assertThat(neighbours.productId(2)).isEqualTo(98L);
+        assertThat(matrix.count(1L, 91L)).isEqualTo(91);
+        assertThat(matrix.count(1L, 90L)).isZero();
+    }
+
+    @Test
+    @DisplayName("计数表 - 扩容后计数不丢失，同计数按商品ID升序")
+    void longIntHashMap_shouldSurviveRehash() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (long key = 1; key <= 1000; key++) {
+            map.addTo(key, 1);
+        }
+        map.addTo(500L, 2);
+
+        assertThat(map.size()).isEqualTo(1000);
+        assertThat(map.get(500L)).isEqualTo(3);
+        assertThat(map.get(1001L)).isZero();
+        Neighbours top = map.top(3);
+        assertThat(top.productId(0)).isEqualTo(500L);
+        assertThat(top.productId(1)).isEqualTo(1L);
+        assertThat(top.productId(2)).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,73 @@
+package xyh.dp.mall.trade.hot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TrendingSketch 热点商品计数草图单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("TrendingSketch 热点商品计数草图测试")
+class TrendingSketchTest {
+
+    @Test
+    @DisplayName("大量长尾商品中保留高频商品，估计值不小于真实值")
+    void testHeavyHittersRetained() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 16);
+        for (int round = 0; round < 200; round++) {
+            for (long productId = 5001; productId <= 5005; productId++) {
+                sketch.add(productId, 1);
+            }
+            for (int i = 0; i < 5; i++) {
+                sketch.add(1 + (round * 5 + i) % 1000, 1);
+            }
+        }
+
+        Map<Long, Long> snapshot = sketch.snapshot();
+
+        assertThat(snapshot).containsKeys(5001L, 5002L, 5003L, 5004L, 5005L);
+        assertThat(snapshot.size()).isLessThanOrEqualTo(16);
+        for (long productId = 5001; productId <= 5005; productId++) {
+            assertThat(snapshot.get(productId)).isGreaterThanOrEqualTo(200L);
+        }
+    }
+
+    @Test
+    @DisplayName("多线程并发累加不丢失计数")
+    void testConcurrentAdd() throws InterruptedException {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 16);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    sketch.add(42L, 1);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(sketch.estimate(42L)).isEqualTo(80_000L);
+        assertThat(sketch.snapshot()).containsEntry(42L, 80_000L);
+    }
+
+    @Test
+    @DisplayName("清空后计数和候选集归零")
+    void testClear() {
+        TrendingSketch sketch = new TrendingSketch(4, 1024, 16);
+        sketch.add(7L, 3);
+
+        sketch.clear();
+
+        assertThat(sketch.snapshot()).isEmpty();
+        assertThat(sketch.estimate(7L)).isZero();
+    }
+}
@@ -0,0 +1,117 @@
+package xyh.dp.mall.trade.hot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TrendingTracker 近期热点上报单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("TrendingTracker 近期热点上报测试")
+class TrendingTrackerTest {
+
+    @Test
+    @DisplayName("上报与写入并发时不丢失计数")
+    @SuppressWarnings("unchecked")
+    void flush_concurrentWithRecord_shouldKeepAllCounts() throws Exception {
+        // Given - 上报到Redis的计数按商品累加
+        ConcurrentHashMap<String, Double> reported = new ConcurrentHashMap<>();
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        RedisOperations<String, String> operations = mock(RedisOperations.class);
+        ZSetOperations<String, String> zSetOperations = mock(ZSetOperations.class);
+        when(operations.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.incrementScore(anyString(), anyString(), anyDouble())).thenAnswer(invocation -> {
+            reported.merge(invocation.getArgument(1), invocation.<Double>getArgument(2), Double::sum);
+            return 0D;
+        });
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(operations);
+            return List.of();
+        });
+        TrendingTracker tracker = new TrendingTracker(redisTemplate, new TrendingProperties());
+
+        // When - 4个线程各记录3个商品共30000次，同时反复上报
+        int threads = 4;
+        int perThread = 30000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                PurchaseRecord record = new PurchaseRecord();
+                for (int i = 0; i < perThread; i++) {
+                    record.setProductId(1L + i % 3);
+                    tracker.record(record);
+                }
+                done.countDown();
+            });
+        }
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            tracker.flush();
+        }
+        tracker.flush();
+        executor.shutdown();
+
+        // Then
+        double total = reported.values().stream().mapToDouble(Double::doubleValue).sum();
+        assertThat(total).isEqualTo(threads * perThread);
+        assertThat(reported).containsOnlyKeys("1", "2", "3");
+    }
+
+    @Test
+    @DisplayName("窗口内没有购买时写入空标记，一个上报周期内不再重算")
+    @SuppressWarnings("unchecked")
+    void top_emptyWindow_shouldCacheEmptyMarker() {
+        // Given
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ZSetOperations<String, String> zSetOperations = mock(ZSetOperations.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        String resultKey = "hot:{trending}:window:60";
+        when(redisTemplate.hasKey(resultKey)).thenReturn(false);
+        when(redisTemplate.hasKey(TrendingTracker.emptyKey(resultKey))).thenReturn(false, true);
+        when(zSetOperations.unionAndStore(anyString(), anyList(), eq(resultKey), any(Aggregate.class),
+                any(Weights.class))).thenReturn(0L);
+        TrendingTracker tracker = new TrendingTracker(redisTemplate, new TrendingProperties());
+
+        // When
+        List<TrendingEntry> first = tracker.top(Duration.ofHours(1), 10);
+        List<TrendingEntry> second = tracker.top(Duration.ofHours(1), 10);
+
+        // Then - 只汇总一次
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        verify(valueOperations).set(eq(TrendingTracker.emptyKey(resultKey)), eq("1"), any(Duration.class));
+        verify(zSetOperations, times(1)).unionAndStore(anyString(), anyList(), eq(resultKey),
+                any(Aggregate.class), any(Weights.class));
+    }
+}
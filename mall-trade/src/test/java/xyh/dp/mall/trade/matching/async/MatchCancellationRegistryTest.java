@@ -0,0 +1,87 @@
+package xyh.dp.mall.trade.matching.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+/**
+ * MatchCancellationRegistry 匹配任务本地取消登记单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MatchCancellationRegistry 匹配任务本地取消登记测试")
+class MatchCancellationRegistryTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @InjectMocks
+    private MatchCancellationRegistry registry;
+
+    @Test
+    @DisplayName("本节点取消 - 立即标记本地任务并发布通知")
+    void cancel_shouldMarkLocalAndPublish() {
+        // Given
+        registry.register("MATCH001");
+
+        // When
+        registry.cancel("MATCH001");
+
+        // Then
+        assertThat(registry.isCancelled("MATCH001")).isTrue();
+        verify(redisTemplate).convertAndSend(MatchCancellationRegistry.CHANNEL, "MATCH001");
+    }
+
+    @Test
+    @DisplayName("收到其他节点的通知 - 只标记本节点登记的任务")
+    void onMessage_shouldMarkRegisteredTaskOnly() {
+        // Given
+        registry.register("MATCH001");
+
+        // When
+        registry.onMessage(message("MATCH001"), null);
+        registry.onMessage(message("MATCH002"), null);
+
+        // Then
+        assertThat(registry.isCancelled("MATCH001")).isTrue();
+        assertThat(registry.isCancelled("MATCH002")).isFalse();
+    }
+
+    @Test
+    @DisplayName("任务结束后移除登记，重新登记的任务不继承取消标记")
+    void unregister_shouldDropFlag() {
+        // Given
+        registry.register("MATCH001");
+        registry.onMessage(message("MATCH001"), null);
+
+        // When
+        registry.unregister("MATCH001");
+        registry.register("MATCH001");
+
+        // Then
+        assertThat(registry.isCancelled("MATCH001")).isFalse();
+    }
+
+    /**
+     * 构建取消通知
+     *
+     * @param taskId 任务ID
+     * @return 消息
+     */
+    private static DefaultMessage message(String taskId) {
+        return new DefaultMessage(MatchCancellationRegistry.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                taskId.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,47 @@
+package xyh.dp.mall.trade.matching.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import xyh.dp.mall.trade.matching.feature.MatchFeature;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MatchResult 匹配结果单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("MatchResult 匹配结果测试")
+class MatchResultTest {
+
+    @Test
+    @DisplayName("只为选出的前N名生成建议描述")
+    void fromFeatures_shouldDescribeOnlyTopN() {
+        // Given - 10个候选商品，得分10~100
+        List<MatchFeature> features = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            features.add(MatchFeature.builder()
+                    .productId((long) i)
+                    .totalScore(BigDecimal.valueOf(i * 10L))
+                    .build());
+        }
+        List<Long> described = new ArrayList<>();
+
+        // When
+        MatchResult result = MatchResult.fromFeatures("PLAN001", features, 3, 10, 5L, feature -> {
+            described.add(feature.getProductId());
+            feature.setRecommendation("建议" + feature.getProductId());
+        });
+
+        // Then
+        assertThat(described).containsExactly(10L, 9L, 8L);
+        assertThat(result.getTopMatches()).extracting(MatchResult.MatchResultItem::getRecommendation)
+                .containsExactly("建议10", "建议9", "建议8");
+        assertThat(features.get(0).getRecommendation()).isNull();
+    }
+}
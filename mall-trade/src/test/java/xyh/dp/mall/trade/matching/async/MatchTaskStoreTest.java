@@ -0,0 +1,95 @@
+package xyh.dp.mall.trade.matching.async;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import xyh.dp.mall.common.exception.BusinessException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * MatchTaskStore 匹配任务状态条件写入单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MatchTaskStore 状态条件写入测试")
+class MatchTaskStoreTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @InjectMocks
+    private MatchTaskStore taskStore;
+
+    @Test
+    @DisplayName("按期望状态调用脚本，当前状态不符时不写入")
+    @SuppressWarnings("unchecked")
+    void transition_shouldPassExpectedStatuses() {
+        // Given - 脚本返回0：任务已被取消
+        MatchTask task = MatchTask.createPending("MATCH1", "PLAN1", "FARMER1");
+        task.startProcessing(10);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("match:task:MATCH1")),
+                eq(",PENDING,"), anyString(), anyString())).thenReturn(0L);
+
+        // When/Then
+        assertThat(taskStore.transition(task, MatchTask.TaskStatus.PENDING)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Redis不可用时按本地缓存中的状态条件替换")
+    @SuppressWarnings("unchecked")
+    void transition_redisDown_shouldCompareLocalCache() {
+        // Given - 任务保存在本地缓存
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        MatchTask pending = MatchTask.createPending("MATCH2", "PLAN1", "FARMER1");
+        taskStore.saveTask(pending);
+
+        // When - 先取消，再尝试开始处理
+        MatchTask cancelled = MatchTask.createPending("MATCH2", "PLAN1", "FARMER1");
+        cancelled.setStatus(MatchTask.TaskStatus.CANCELLED);
+        boolean cancelApplied = taskStore.transition(cancelled,
+                MatchTask.TaskStatus.PENDING, MatchTask.TaskStatus.PROCESSING);
+        MatchTask processing = MatchTask.createPending("MATCH2", "PLAN1", "FARMER1");
+        processing.startProcessing(10);
+        boolean startApplied = taskStore.transition(processing, MatchTask.TaskStatus.PENDING);
+
+        // Then
+        assertThat(cancelApplied).isTrue();
+        assertThat(startApplied).isFalse();
+        assertThat(taskStore.getTask("MATCH2").getStatus()).isEqualTo(MatchTask.TaskStatus.CANCELLED);
+    }
+
+    @Test
+    @DisplayName("Redis不可用且任务不在本地缓存时抛出异常，不当作状态不符")
+    @SuppressWarnings("unchecked")
+    void transition_redisDownNotCached_shouldThrow() {
+        // Given - 任务保存在Redis中，本地缓存没有
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        MatchTask cancelled = MatchTask.createPending("MATCH3", "PLAN1", "FARMER1");
+        cancelled.setStatus(MatchTask.TaskStatus.CANCELLED);
+
+        // When/Then
+        assertThatThrownBy(() -> taskStore.transition(cancelled,
+                MatchTask.TaskStatus.PENDING, MatchTask.TaskStatus.PROCESSING))
+                .isInstanceOf(BusinessException.class);
+    }
+}
@@ -0,0 +1,145 @@
+package xyh.dp.mall.trade.matching.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import xyh.dp.mall.trade.config.ExecutorProperties;
+import xyh.dp.mall.trade.entity.PlantingPlan;
+import xyh.dp.mall.trade.feign.dto.ProductDTO;
+import xyh.dp.mall.trade.matching.engine.MLHybridMatchService;
+import xyh.dp.mall.trade.matching.feature.MatchFeature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * ParallelCandidateScorer 候选商品并行评分单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ParallelCandidateScorer 候选商品并行评分测试")
+class ParallelCandidateScorerTest {
+
+    @Mock
+    private MLHybridMatchService mlHybridMatchService;
+
+    private ForkJoinPool scoringPool;
+    private ExecutorProperties executorProperties;
+    private PlantingPlan plan;
+
+    @BeforeEach
+    void setUp() {
+        scoringPool = new ForkJoinPool(4);
+        executorProperties = new ExecutorProperties();
+        executorProperties.getScoring().setMinCandidatesPerWorker(1);
+        plan = new PlantingPlan();
+        plan.setPlanId("PLAN_PARALLEL");
+    }
+
+    @AfterEach
+    void tearDown() {
+        scoringPool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("结果与候选商品一一对应，单个商品失败不影响其他商品")
+    void score_shouldKeepOrderAndIsolateFailures() throws Exception {
+        // Given - 第3个商品评分抛出异常
+        when(mlHybridMatchService.calculateScoreAsync(any(), any(), anyLong())).thenAnswer(invocation -> {
+            ProductDTO product = invocation.getArgument(1);
+            if (product.getId() == 3L) {
+                throw new IllegalStateException("特征计算失败");
+            }
+            return CompletableFuture.completedFuture(MatchFeature.builder().productId(product.getId()).build());
+        });
+        List<ProductDTO> candidates = products(50);
+        ParallelCandidateScorer scorer = new ParallelCandidateScorer(mlHybridMatchService, scoringPool, executorProperties);
+
+        // When
+        ParallelCandidateScorer.Run run = scorer.score(plan, candidates, Long.MAX_VALUE);
+
+        // Then
+        for (int i = 0; i < candidates.size(); i++) {
+            if (i == 2) {
+                int index = i;
+                assertThatThrownBy(() -> run.result(index).get(1, TimeUnit.SECONDS))
+                        .isInstanceOf(ExecutionException.class)
+                        .hasCauseInstanceOf(IllegalStateException.class);
+            } else {
+                assertThat(run.result(i).get(1, TimeUnit.SECONDS).getProductId()).isEqualTo(i + 1L);
+            }
+        }
+        assertThat(run.completed()).isEqualTo(candidates.size());
+    }
+
+    @Test
+    @DisplayName("单个任务同时占用的评分线程数不超过perTaskParallelism")
+    void score_shouldLimitPerTaskParallelism() throws Exception {
+        // Given
+        executorProperties.getScoring().setPerTaskParallelism(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(mlHybridMatchService.calculateScoreAsync(any(), any(), anyLong())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return CompletableFuture.completedFuture(MatchFeature.builder().build());
+        });
+        List<ProductDTO> candidates = products(40);
+        ParallelCandidateScorer scorer = new ParallelCandidateScorer(mlHybridMatchService, scoringPool, executorProperties);
+
+        // When
+        ParallelCandidateScorer.Run run = scorer.score(plan, candidates, Long.MAX_VALUE);
+        run.result(candidates.size() - 1).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(maxRunning.get()).isBetween(1, 2);
+    }
+
+    @Test
+    @DisplayName("评分线程数按候选商品数和单任务上限计算")
+    void workerCount_shouldRespectSizeAndLimit() {
+        // Given - 默认单任务上限为并行度的一半
+        executorProperties.getScoring().setMinCandidatesPerWorker(16);
+        ParallelCandidateScorer scorer = new ParallelCandidateScorer(mlHybridMatchService, scoringPool, executorProperties);
+
+        // When/Then
+        assertThat(scorer.workerCount(0)).isEqualTo(1);
+        assertThat(scorer.workerCount(10)).isEqualTo(1);
+        assertThat(scorer.workerCount(17)).isEqualTo(2);
+        assertThat(scorer.workerCount(1000)).isEqualTo(2);
+    }
+
+    /**
+     * 构建候选商品，ID从1开始
+     *
+     * @param count 数量
+     * @return 候选商品
+     */
+    private static List<ProductDTO> products(int count) {
+        List<ProductDTO> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setId((long) i);
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,191 @@
+package xyh.dp.mall.trade.matching.engine;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import xyh.dp.mall.trade.matching.feature.MatchFeature;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * MLBatchScorer ML模型批量推理单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MLBatchScorer ML模型批量推理测试")
+class MLBatchScorerTest {
+
+    private static final String BATCH_URL = "http://ml/predict/batch";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private MLCircuitBreaker circuitBreaker;
+
+    private MLBatchScorer scorer;
+
+    @AfterEach
+    void tearDown() {
+        scorer.shutdown();
+    }
+
+    @Test
+    @DisplayName("合并发送 - 多条特征一次请求，结果按顺序交还")
+    void submit_shouldBatchAndMapResultsInOrder() throws Exception {
+        // Given - 等待时间足够长，批次只在攒满3条时发送
+        scorer = createScorer(3, 10_000);
+        when(restTemplate.postForObject(eq(BATCH_URL), any(), eq(String.class)))
+                .thenAnswer(invocation -> echo(invocation.getArgument(1)));
+
+        // When
+        CompletableFuture<MLBatchScorer.Prediction> first = scorer.submit(feature(10));
+        CompletableFuture<MLBatchScorer.Prediction> second = scorer.submit(feature(20));
+        CompletableFuture<MLBatchScorer.Prediction> third = scorer.submit(feature(30));
+
+        // Then
+        assertThat(first.get(1, TimeUnit.SECONDS).score()).isEqualTo(10);
+        assertThat(second.get(1, TimeUnit.SECONDS).score()).isEqualTo(20);
+        assertThat(third.get(1, TimeUnit.SECONDS).grade()).isEqualTo("B");
+        verify(restTemplate, times(1)).postForObject(eq(BATCH_URL), any(), eq(String.class));
+    }
+
+    @Test
+    @DisplayName("批次上限 - 超过maxBatchSize拆成多次请求，未满的批次等待超时后发送")
+    void submit_shouldCapBatchSize() throws Exception {
+        // Given
+        scorer = createScorer(2, 50);
+        when(restTemplate.postForObject(eq(BATCH_URL), any(), eq(String.class)))
+                .thenAnswer(invocation -> echo(invocation.getArgument(1)));
+
+        // When
+        List<CompletableFuture<MLBatchScorer.Prediction>> results = List.of(
+                scorer.submit(feature(10)), scorer.submit(feature(20)), scorer.submit(feature(30)));
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(results.get(2).get().score()).isEqualTo(30);
+        verify(restTemplate, times(2)).postForObject(eq(BATCH_URL), any(), eq(String.class));
+    }
+
+    @Test
+    @DisplayName("调用失败 - 批次内的全部调用方异常完成")
+    void submit_serviceDown_shouldCompleteExceptionally() {
+        // Given
+        scorer = createScorer(2, 10_000);
+        when(restTemplate.postForObject(eq(BATCH_URL), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        // When
+        CompletableFuture<MLBatchScorer.Prediction> first = scorer.submit(feature(10));
+        CompletableFuture<MLBatchScorer.Prediction> second = scorer.submit(feature(20));
+
+        // Then
+        assertThatThrownBy(() -> first.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ResourceAccessException.class);
+        assertThatThrownBy(() -> second.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+    }
+
+    @Test
+    @DisplayName("熔断 - 连续失败达到阈值后不再调用推理服务，提交立即失败")
+    void submit_afterConsecutiveFailures_shouldFailFast() {
+        // Given - 每批1条，连续失败2次熔断
+        scorer = createScorer(1, 10_000);
+        when(restTemplate.postForObject(eq(BATCH_URL), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+        assertThatThrownBy(() -> scorer.submit(feature(10)).get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThatThrownBy(() -> scorer.submit(feature(20)).get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+
+        // When
+        CompletableFuture<MLBatchScorer.Prediction> rejected = scorer.submit(feature(30));
+
+        // Then
+        assertThat(circuitBreaker.getState()).isEqualTo(MLCircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> rejected.get(1, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(MLCircuitBreaker.OpenException.class);
+        verify(restTemplate, times(2)).postForObject(eq(BATCH_URL), any(), eq(String.class));
+    }
+
+    /**
+     * 创建批量推理器，HTTP调用在分发线程上直接执行
+     *
+     * @param maxBatchSize 批次上限
+     * @param maxWaitMs    最长等待时间
+     * @return 批量推理器
+     */
+    private MLBatchScorer createScorer(int maxBatchSize, long maxWaitMs) {
+        MLBatchProperties properties = new MLBatchProperties();
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setMaxWaitMs(maxWaitMs);
+        properties.setTimeoutMs(30_000);
+        MLResilienceProperties resilienceProperties = new MLResilienceProperties();
+        resilienceProperties.setFailureThreshold(2);
+        resilienceProperties.setSlowCallMs(10_000);
+        circuitBreaker = new MLCircuitBreaker(resilienceProperties, meterRegistryProvider);
+        return new MLBatchScorer(restTemplate, properties, circuitBreaker, "http://ml", Runnable::run);
+    }
+
+    /**
+     * 模拟推理服务：以品种得分作为综合得分返回
+     *
+     * @param body 批量请求体
+     * @return 响应JSON
+     */
+    @SuppressWarnings("unchecked")
+    private static String echo(Object body) {
+        List<Map<String, Object>> featuresList =
+                (List<Map<String, Object>>) ((Map<String, Object>) body).get("features_list");
+        JSONArray predictions = new JSONArray();
+        for (Map<String, Object> features : featuresList) {
+            predictions.add(new JSONObject()
+                    .fluentPut("score", features.get("variety_score"))
+                    .fluentPut("match_grade", "B")
+                    .fluentPut("confidence", 0.8));
+        }
+        return new JSONObject().fluentPut("predictions", predictions).toJSONString();
+    }
+
+    /**
+     * 构建匹配特征
+     *
+     * @param varietyScore 品种得分
+     * @return 匹配特征
+     */
+    private static MatchFeature feature(int varietyScore) {
+        BigDecimal score = new BigDecimal("80");
+        return MatchFeature.builder()
+                .varietyScore(BigDecimal.valueOf(varietyScore))
+                .regionScore(score)
+                .climateScore(score)
+                .seasonScore(score)
+                .qualityScore(score)
+                .intentScore(score)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package xyh.dp.mall.trade.matching.engine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * MLCircuitBreaker ML推理服务熔断器单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MLCircuitBreaker ML推理服务熔断器测试")
+class MLCircuitBreakerTest {
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private MLResilienceProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MLResilienceProperties();
+        properties.setFailureThreshold(3);
+        properties.setOpenMs(60_000);
+        properties.setSlowCallMs(500);
+    }
+
+    @Test
+    @DisplayName("连续失败 - 达到阈值后熔断并拒绝调用，中间成功则重新计数")
+    void onFailure_consecutiveFailures_shouldOpen() {
+        // Given
+        MLCircuitBreaker breaker = new MLCircuitBreaker(properties, meterRegistryProvider);
+
+        // When
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess(10);
+        breaker.onFailure();
+        breaker.onFailure();
+
+        // Then - 成功重置了计数，仍为关闭
+        assertThat(breaker.getState()).isEqualTo(MLCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        // When
+        breaker.onFailure();
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(MLCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    @DisplayName("慢调用 - 超过slowCallMs按失败计")
+    void onSuccess_slowCall_shouldCountAsFailure() {
+        // Given
+        MLCircuitBreaker breaker = new MLCircuitBreaker(properties, meterRegistryProvider);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            breaker.onSuccess(800);
+        }
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(MLCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    @DisplayName("半开 - 熔断到期后只放行一次试探，成功则恢复，失败则再次熔断")
+    void tryAcquire_afterOpenPeriod_shouldAllowSingleTrial() {
+        // Given - 熔断时间为0，熔断后立即可以试探
+        properties.setOpenMs(0);
+        MLCircuitBreaker breaker = new MLCircuitBreaker(properties, meterRegistryProvider);
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+
+        // When & Then - 只放行一次试探
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(MLCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        // When & Then - 试探失败再次熔断
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(MLCircuitBreaker.State.OPEN);
+
+        // When & Then - 再次试探成功后恢复
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess(10);
+        assertThat(breaker.getState()).isEqualTo(MLCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("指标 - 注册熔断状态、状态变更和拒绝次数")
+    void metrics_shouldRecordStateAndRejections() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(registry);
+        MLCircuitBreaker breaker = new MLCircuitBreaker(properties, meterRegistryProvider);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        breaker.tryAcquire();
+
+        // Then
+        assertThat(registry.get("mall.ml.circuit.state").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("mall.ml.circuit.transitions").tag("state", "OPEN").counter().count()).isEqualTo(1);
+        assertThat(registry.get("mall.ml.circuit.rejected").counter().count()).isEqualTo(1);
+        assertThat(registry.get("mall.ml.calls").tag("outcome", "failure").counter().count()).isEqualTo(3);
+    }
+}
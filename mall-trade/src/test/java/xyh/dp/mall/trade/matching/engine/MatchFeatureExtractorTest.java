@@ -6,10 +6,16 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.DefaultResourceLoader;
 import xyh.dp.mall.trade.entity.PlantingPlan;
 import xyh.dp.mall.trade.feign.dto.ProductDTO;
 import xyh.dp.mall.trade.matching.feature.MatchFeature;
+import xyh.dp.mall.trade.matching.region.RegionDirectory;
+import xyh.dp.mall.trade.matching.region.RegionProperties;
+import xyh.dp.mall.trade.matching.variety.VarietySimilarityProperties;
+import xyh.dp.mall.trade.matching.variety.VarietySimilarityService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -29,6 +35,14 @@ import static org.assertj.core.api.Assertions.assertThat;
 @DisplayName("MatchFeatureExtractor 特征提取器测试")
 class MatchFeatureExtractorTest {
 
+    @Spy
+    private VarietySimilarityService varietySimilarityService =
+            new VarietySimilarityService(new VarietySimilarityProperties());
+
+    @Spy
+    private RegionDirectory regionDirectory =
+            new RegionDirectory(new RegionProperties(), new DefaultResourceLoader());
+
     @InjectMocks
     private MatchFeatureExtractor featureExtractor;
 
@@ -285,6 +299,25 @@ class MatchFeatureExtractorTest {
             // Then
             assertThat(result.getClimateScore()).isGreaterThanOrEqualTo(new BigDecimal("70"));
         }
+
+        /**
+         * 测试按种植月份取月度气候
+         */
+        @Test
+        @DisplayName("使用种植月份的气候数据")
+        void climateScore_shouldUsePlantingMonth() {
+            // Given - 菏泽1月平均温度0.7℃，低于商品最低温度10℃
+            testPlan.setPlantingDate(LocalDate.of(2025, 1, 10));
+
+            // When
+            MatchFeature january = featureExtractor.extractFeatures(testPlan, testProduct);
+            testPlan.setPlantingDate(LocalDate.of(2025, 4, 10));
+            MatchFeature april = featureExtractor.extractFeatures(testPlan, testProduct);
+
+            // Then
+            assertThat(january.getClimateScore()).isEqualByComparingTo(new BigDecimal("70"));
+            assertThat(april.getClimateScore()).isEqualByComparingTo(new BigDecimal("100"));
+        }
     }
 
     @Nested
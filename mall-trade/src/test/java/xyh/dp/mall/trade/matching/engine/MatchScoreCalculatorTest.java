@@ -20,6 +20,11 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -156,6 +161,25 @@ class MatchScoreCalculatorTest {
             assertThat(result.getRecommendation()).isNotNull();
             assertThat(result.getRecommendation()).isNotEmpty();
         }
+
+        /**
+         * 测试只计算特征和得分
+         */
+        @Test
+        @DisplayName("calculateFeatures应计算总分和等级但不生成建议")
+        void calculateFeatures_shouldSkipRecommendation() {
+            // Given
+            when(featureExtractor.extractFeatures(any(), any())).thenReturn(testFeature);
+            when(featureWeight.normalize()).thenReturn(normalizedWeight);
+
+            // When
+            MatchFeature result = matchScoreCalculator.calculateFeatures(testPlan, testProduct);
+
+            // Then
+            assertThat(result.getTotalScore()).isEqualByComparingTo(new BigDecimal("86.70"));
+            assertThat(result.getMatchGrade()).isNotNull();
+            assertThat(result.getRecommendation()).isNull();
+        }
     }
 
     @Nested
@@ -253,6 +277,7 @@ class MatchScoreCalculatorTest {
                     .intentScore(new BigDecimal("75"))
                     .build();
 
+            stubScores(90, 80, 85, 90, 88, 75);
             when(featureExtractor.extractFeatures(any(), any())).thenReturn(feature1);
             when(featureWeight.normalize()).thenReturn(normalizedWeight);
 
@@ -299,6 +324,7 @@ class MatchScoreCalculatorTest {
                     .intentScore(new BigDecimal("75"))
                     .build();
 
+            stubScores(90, 80, 85, 90, 88, 75);
             when(featureExtractor.extractFeatures(any(), any())).thenReturn(highScoreFeature);
             when(featureWeight.normalize()).thenReturn(normalizedWeight);
 
@@ -319,6 +345,7 @@ class MatchScoreCalculatorTest {
         @DisplayName("应限制返回数量")
         void getRecommendations_shouldLimitResults() {
             // Given
+            stubScores(95, 80, 85, 90, 88, 75);
             when(featureExtractor.extractFeatures(any(), any())).thenReturn(testFeature);
             when(featureWeight.normalize()).thenReturn(normalizedWeight);
 
@@ -331,7 +358,177 @@ class MatchScoreCalculatorTest {
 
             // Then
             assertThat(result).hasSizeLessThanOrEqualTo(3);
+            verify(featureExtractor, times(3)).extractFeatures(any(), any());
+        }
+
+        /**
+         * 测试低分商品不生成完整特征
+         */
+        @Test
+        @DisplayName("得分<60的商品不应生成完整特征和建议")
+        void getRecommendations_lowScore_shouldNotMaterialize() {
+            // Given
+            stubScores(50, 50, 50, 50, 50, 50);
+
+            // When
+            List<MatchFeature> result = matchScoreCalculator.getRecommendations(
+                    testPlan, Arrays.asList(testProduct, testProduct2), 5);
+
+            // Then
+            assertThat(result).isEmpty();
+            verify(featureExtractor, never()).extractFeatures(any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("评分内核测试")
+    class ScoringKernelTest {
+
+        /**
+         * 测试内核总分与BigDecimal路径一致
+         */
+        @Test
+        @DisplayName("加权总分应与calculateScore一致")
+        void weightedScore_shouldMatchBigDecimalPath() {
+            // Given
+            double[] scores = {0, 95, 80, 85, 90, 88, 75};
+            double[] weights = {0.25, 0.20, 0.15, 0.15, 0.15, 0.10};
+
+            // When
+            double total = MatchScoreCalculator.weightedScore(scores, 1, weights);
+
+            // Then
+            // 95*0.25 + 80*0.20 + 85*0.15 + 90*0.15 + 88*0.15 + 75*0.10 = 86.70
+            assertThat(total).isEqualTo(86.70);
+        }
+
+        /**
+         * 测试硬性不匹配
+         */
+        @Test
+        @DisplayName("品种、区域或季节低于40分时总分为0")
+        void weightedScore_hardMismatch_shouldReturnZero() {
+            // Given
+            double[] scores = {95, 80, 85, 39.99, 88, 75};
+            double[] weights = {0.25, 0.20, 0.15, 0.15, 0.15, 0.10};
+
+            // When/Then
+            assertThat(MatchScoreCalculator.isHardMismatch(scores, 0)).isTrue();
+            assertThat(MatchScoreCalculator.weightedScore(scores, 0, weights)).isZero();
         }
+
+        /**
+         * 测试前N名按得分排序、同分保持列表顺序
+         */
+        @Test
+        @DisplayName("前N名应按得分降序，同分保持商品列表顺序")
+        void rankTopN_shouldKeepBestInOrder() {
+            // Given
+            double[][] candidates = {
+                    {70, 70, 70, 70, 70, 70},
+                    {90, 90, 90, 90, 90, 90},
+                    {80, 80, 80, 80, 80, 80},
+                    {90, 90, 90, 90, 90, 90}
+            };
+            int[] call = {0};
+            doAnswer(invocation -> {
+                double[] scores = invocation.getArgument(2);
+                int offset = invocation.getArgument(3);
+                System.arraycopy(candidates[call[0]++], 0, scores, offset, MatchFeature.FEATURE_COUNT);
+                return null;
+            }).when(featureExtractor).extractBaseScores(any(), any(), any(), anyInt());
+            when(featureWeight.normalizedWeights()).thenReturn(new double[]{0.25, 0.20, 0.15, 0.15, 0.15, 0.10});
+            when(featureWeight.normalize()).thenReturn(normalizedWeight);
+            when(featureExtractor.extractFeatures(any(), any()))
+                    .thenAnswer(invocation -> featureOf(invocation.getArgument(1), 90));
+            List<ProductDTO> products = Arrays.asList(product(1L), product(2L), product(3L), product(4L));
+
+            // When
+            List<MatchFeature> result = matchScoreCalculator.rankTopN(testPlan, products, 2, 0);
+
+            // Then
+            assertThat(result).extracting(MatchFeature::getProductId).containsExactly(2L, 4L);
+        }
+
+        /**
+         * 测试硬性不匹配和得分上界剪枝的商品不计算气候和意图特征
+         */
+        @Test
+        @DisplayName("硬性不匹配或上界进不了前N名的商品应跳过气候和意图特征")
+        void rankTopN_shouldPruneBeforeContextScores() {
+            // Given - 第2个商品季节不匹配；第3个商品上界 50*0.75 + 100*0.25 = 62.5，低于第1名的90
+            double[][] candidates = {
+                    {90, 90, 90, 90, 90, 90},
+                    {90, 90, 90, 30, 90, 90},
+                    {50, 50, 50, 50, 50, 50}
+            };
+            int[] call = {0};
+            doAnswer(invocation -> {
+                double[] scores = invocation.getArgument(2);
+                int offset = invocation.getArgument(3);
+                System.arraycopy(candidates[call[0]++], 0, scores, offset, MatchFeature.FEATURE_COUNT);
+                return null;
+            }).when(featureExtractor).extractBaseScores(any(), any(), any(), anyInt());
+            when(featureWeight.normalizedWeights()).thenReturn(new double[]{0.25, 0.20, 0.15, 0.15, 0.15, 0.10});
+            when(featureWeight.normalize()).thenReturn(normalizedWeight);
+            when(featureExtractor.extractFeatures(any(), any()))
+                    .thenAnswer(invocation -> featureOf(invocation.getArgument(1), 90));
+            List<ProductDTO> products = Arrays.asList(product(1L), product(2L), product(3L));
+
+            // When
+            List<MatchFeature> result = matchScoreCalculator.rankTopN(testPlan, products, 1, 0);
+
+            // Then
+            assertThat(result).extracting(MatchFeature::getProductId).containsExactly(1L);
+            verify(featureExtractor, times(1)).extractContextScores(any(), any(), any(), anyInt());
+        }
+    }
+
+    /**
+     * 让特征提取器为每个商品写入相同的特征得分，权重为默认权重
+     * 
+     * @param values 6维特征得分
+     */
+    private void stubScores(double... values) {
+        doAnswer(invocation -> {
+            double[] scores = invocation.getArgument(2);
+            int offset = invocation.getArgument(3);
+            System.arraycopy(values, 0, scores, offset, values.length);
+            return null;
+        }).when(featureExtractor).extractBaseScores(any(), any(), any(), anyInt());
+        when(featureWeight.normalizedWeights()).thenReturn(new double[]{0.25, 0.20, 0.15, 0.15, 0.15, 0.10});
+    }
+
+    /**
+     * 构建测试商品
+     * 
+     * @param id 商品ID
+     * @return 商品
+     */
+    private ProductDTO product(Long id) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        return product;
+    }
+
+    /**
+     * 构建各维得分相同的匹配特征
+     * 
+     * @param product 商品
+     * @param score 各维得分
+     * @return 匹配特征
+     */
+    private MatchFeature featureOf(ProductDTO product, int score) {
+        BigDecimal value = new BigDecimal(score);
+        return MatchFeature.builder()
+                .productId(product.getId())
+                .varietyScore(value)
+                .regionScore(value)
+                .climateScore(value)
+                .seasonScore(value)
+                .qualityScore(value)
+                .intentScore(value)
+                .build();
     }
 
     @Nested
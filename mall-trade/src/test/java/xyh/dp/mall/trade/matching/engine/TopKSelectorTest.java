@@ -0,0 +1,86 @@
+package xyh.dp.mall.trade.matching.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TopKSelector 前K名选择器单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("TopKSelector 前K名选择器测试")
+class TopKSelectorTest {
+
+    @Test
+    @DisplayName("应按得分降序返回前K名，同分按下标升序")
+    void sortedIndexes_shouldKeepBestInOrder() {
+        // Given
+        double[] scores = {70, 90, 80, 90, 60, 85};
+        TopKSelector selector = new TopKSelector(3);
+
+        // When
+        for (int i = 0; i < scores.length; i++) {
+            selector.offer(i, scores[i]);
+        }
+
+        // Then
+        assertThat(selector.sortedIndexes()).containsExactly(1, 3, 5);
+    }
+
+    @Test
+    @DisplayName("已满时只接受严格高于第K名的得分")
+    void accepts_whenFull_shouldCompareWithKth() {
+        // Given
+        TopKSelector selector = new TopKSelector(2);
+        selector.offer(0, 80);
+        selector.offer(1, 90);
+
+        // When/Then
+        assertThat(selector.accepts(80)).isFalse();
+        assertThat(selector.accepts(80.01)).isTrue();
+        assertThat(selector.offer(2, 70)).isFalse();
+        assertThat(selector.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("结果应与全量稳定排序后截取一致")
+    void sortedIndexes_shouldMatchFullSort() {
+        // Given - 得分只取少量离散值，制造大量同分
+        Random random = new Random(7);
+        double[] scores = new double[500];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextInt(20) * 5;
+        }
+        TopKSelector selector = new TopKSelector(10);
+
+        // When
+        for (int i = 0; i < scores.length; i++) {
+            selector.offer(i, scores[i]);
+        }
+
+        // Then
+        int[] expected = IntStream.range(0, scores.length).boxed()
+                .sorted((a, b) -> Double.compare(scores[b], scores[a]))
+                .limit(10)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertThat(selector.sortedIndexes()).containsExactly(expected);
+    }
+
+    @Test
+    @DisplayName("容量为0时不保留任何候选")
+    void offer_zeroCapacity_shouldRejectAll() {
+        // Given
+        TopKSelector selector = new TopKSelector(0);
+
+        // When/Then
+        assertThat(selector.offer(0, 100)).isFalse();
+        assertThat(selector.sortedIndexes()).isEmpty();
+    }
+}
@@ -0,0 +1,111 @@
+package xyh.dp.mall.trade.matching.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * TreeEnsembleModel 树集成模型单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("TreeEnsembleModel 树集成模型测试")
+class TreeEnsembleModelTest {
+
+    /**
+     * 两棵树：品种得分<=50时0.2否则0.9；质量得分<=60时0.4否则0.8
+     */
+    private static final String TREES = "[" +
+            "{\"feature\":[0,-1,-1],\"threshold\":[50,0,0],\"left\":[1,-1,-1],\"right\":[2,-1,-1],\"value\":[0,0.2,0.9]}," +
+            "{\"feature\":[4,-1,-1],\"threshold\":[60,0,0],\"left\":[1,-1,-1],\"right\":[2,-1,-1],\"value\":[0,0.4,0.8]}]";
+
+    @Test
+    @DisplayName("随机森林 - 各树叶子值取平均")
+    void predict_average_shouldMeanLeafValues() {
+        TreeEnsembleModel model = TreeEnsembleModel.parse(document(1, "average", TREES));
+
+        assertThat(model.predict(new double[]{80, 0, 0, 0, 90, 0}, 0)).isCloseTo(0.85, within(1e-9));
+        assertThat(model.predict(new double[]{-1, 50, 0, 0, 0, 60, 0}, 1)).isCloseTo(0.3, within(1e-9));
+        assertThat(model.treeCount()).isEqualTo(2);
+        assertThat(model.version()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("梯度提升 - 叶子值与先验求和后取sigmoid")
+    void predict_logistic_shouldApplySigmoid() {
+        TreeEnsembleModel model = TreeEnsembleModel.parse(document(1, "logistic", TREES));
+
+        assertThat(model.predict(new double[]{80, 0, 0, 0, 90, 0}, 0))
+                .isCloseTo(1 / (1 + Math.exp(-(0.5 + 1.7))), within(1e-9));
+    }
+
+    @Test
+    @DisplayName("格式校验 - 特征列不一致或子节点不在父节点之后时拒绝加载")
+    void parse_invalidModel_shouldThrow() {
+        String cyclic = "[{\"feature\":[0,-1],\"threshold\":[50,0],\"left\":[1,-1],\"right\":[0,-1],\"value\":[0,0.2]}]";
+
+        assertThatThrownBy(() -> TreeEnsembleModel.parse(document(1, "average", cyclic)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TreeEnsembleModel.parse(document(1, "average", TREES)
+                .replace("intent_score", "price")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TreeEnsembleModel.parse("{\"format\":\"onnx\"}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("热替换 - 文件修改后整体替换，加载失败保留旧模型")
+    void registry_shouldSwapOnFileChange(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tree_ensemble.json");
+        Files.writeString(file, document(1, "average", TREES));
+        LocalModelProperties properties = new LocalModelProperties();
+        properties.setPath(file.toString());
+        LocalModelRegistry registry = new LocalModelRegistry(properties);
+        TreeEnsembleModel first = registry.current();
+
+        assertThat(first.version()).isEqualTo(1);
+        assertThat(registry.reload()).isFalse();
+
+        Files.writeString(file, document(2, "logistic", TREES));
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+        assertThat(registry.reload()).isTrue();
+        assertThat(registry.current().version()).isEqualTo(2);
+
+        Files.writeString(file, "{broken");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(20)));
+        assertThat(registry.reload()).isFalse();
+        assertThat(registry.current().version()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("热替换 - 未配置模型文件时不加载")
+    void registry_withoutPath_shouldStayEmpty() {
+        assertThat(new LocalModelRegistry(new LocalModelProperties()).current()).isNull();
+    }
+
+    /**
+     * 构建导出文件
+     *
+     * @param version     版本
+     * @param aggregation 聚合方式
+     * @param trees       树数组JSON
+     * @return 模型JSON
+     */
+    private static String document(long version, String aggregation, String trees) {
+        return "{\"format\":\"tree-ensemble\",\"version\":" + version + ",\"model_name\":\"RandomForest\"," +
+                "\"feature_columns\":[\"variety_score\",\"region_score\",\"climate_score\",\"season_score\"," +
+                "\"quality_score\",\"intent_score\"],\"aggregation\":\"" + aggregation + "\"," +
+                "\"base_score\":0.5,\"trees\":" + trees + "}";
+    }
+}
@@ -0,0 +1,84 @@
+package xyh.dp.mall.trade.matching.region;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ClimateDataset 月度气候数据集单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("ClimateDataset 月度气候数据集测试")
+class ClimateDatasetTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("编译后映射读取 - 按代码查找并读取各月数据")
+    void compileAndOpen_shouldReadMonthlyValues() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# version=3");
+        lines.addAll(months(371700, -1.5, 55, "FULL_SUN"));
+        lines.addAll(months(110000, 2.0, 40, "PARTIAL_SUN"));
+        Path file = dir.resolve("climate.bin");
+
+        ClimateDataset.compile(lines, file);
+        ClimateDataset dataset = ClimateDataset.open(file);
+
+        assertThat(dataset.version()).isEqualTo(3);
+        assertThat(dataset.size()).isEqualTo(2);
+        int record = dataset.find(371700);
+        assertThat(dataset.avgTemperature(record, 1)).isEqualTo(-1.5);
+        assertThat(dataset.avgTemperature(record, 12)).isEqualTo(9.5);
+        assertThat(dataset.avgHumidity(record, 7)).isEqualTo(61);
+        assertThat(dataset.lightCondition(record, 7)).isEqualTo("FULL_SUN");
+        assertThat(dataset.lightCondition(dataset.find(110000), 1)).isEqualTo("PARTIAL_SUN");
+        assertThat(dataset.find(370000)).isEqualTo(ClimateDataset.NONE);
+        assertThat(ClimateDataset.EMPTY.find(371700)).isEqualTo(ClimateDataset.NONE);
+    }
+
+    @Test
+    @DisplayName("数据校验 - 月份不全或文件不是数据集时拒绝")
+    void invalidData_shouldThrow() throws IOException {
+        List<String> lines = new ArrayList<>(months(371700, 0, 55, "FULL_SUN"));
+        lines.remove(5);
+        Path file = dir.resolve("climate.bin");
+
+        assertThatThrownBy(() -> ClimateDataset.compile(lines, file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("month=6");
+
+        Path other = Files.writeString(dir.resolve("other.bin"), "not a dataset");
+        assertThatThrownBy(() -> ClimateDataset.open(other))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 生成某区域12个月的源数据，温度和湿度逐月递增
+     *
+     * @param code     行政区划代码
+     * @param january  1月平均温度
+     * @param humidity 1月平均湿度
+     * @param light    光照条件
+     * @return 源数据行
+     */
+    private static List<String> months(int code, double january, int humidity, String light) {
+        List<String> lines = new ArrayList<>();
+        for (int month = 1; month <= 12; month++) {
+            lines.add(code + "," + month + "," + (january + month - 1) + "," + (humidity + month - 1) + "," + light);
+        }
+        return lines;
+    }
+}
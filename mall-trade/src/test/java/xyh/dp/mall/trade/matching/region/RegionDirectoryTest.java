@@ -0,0 +1,71 @@
+package xyh.dp.mall.trade.matching.region;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RegionDirectory 区域目录单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("RegionDirectory 区域目录测试")
+class RegionDirectoryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("重新加载 - 文件修改时间和大小未变时不重新映射，变化后按版本替换")
+    void reload_shouldSkipUnchangedFiles() throws IOException {
+        // Given
+        Path file = dir.resolve("climate.bin");
+        ClimateDataset.compile(source(3), file);
+        FileTime modified = Files.getLastModifiedTime(file);
+        RegionProperties properties = new RegionProperties();
+        properties.setClimateDataset(file.toString());
+        RegionDirectory directory = new RegionDirectory(properties, new DefaultResourceLoader());
+
+        // When - 写入更高版本但保持修改时间和大小不变
+        ClimateDataset.compile(source(4), file);
+        Files.setLastModifiedTime(file, modified);
+
+        // Then - 视为未变化
+        assertThat(directory.reload()).isFalse();
+        assertThat(directory.climateDataset().version()).isEqualTo(3);
+
+        // When - 修改时间变化
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 1000));
+
+        // Then
+        assertThat(directory.reload()).isTrue();
+        assertThat(directory.climateDataset().version()).isEqualTo(4);
+        assertThat(directory.reload()).isFalse();
+    }
+
+    /**
+     * 生成单个区域的月度气候源数据
+     *
+     * @param version 数据版本
+     * @return 源数据行
+     */
+    private static List<String> source(int version) {
+        List<String> lines = new ArrayList<>();
+        lines.add("# version=" + version);
+        for (int month = 1; month <= 12; month++) {
+            lines.add("371700," + month + "," + month + ".0,50,FULL_SUN");
+        }
+        return lines;
+    }
+}
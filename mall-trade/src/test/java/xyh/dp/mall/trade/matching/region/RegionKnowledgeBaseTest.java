@@ -0,0 +1,122 @@
+package xyh.dp.mall.trade.matching.region;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * RegionKnowledgeBase 区域知识库单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("RegionKnowledgeBase 区域知识库测试")
+class RegionKnowledgeBaseTest {
+
+    private static RegionKnowledgeBase regions;
+
+    @BeforeAll
+    static void setUp() {
+        regions = new RegionDirectory(new RegionProperties(), new DefaultResourceLoader()).current();
+    }
+
+    @Test
+    @DisplayName("气候查询 - 取最长的已知前缀")
+    void climateOf_shouldUseLongestPrefix() {
+        assertThat(regions.name(regions.climateOf("山东菏泽"))).isEqualTo("山东菏泽");
+        assertThat(regions.name(regions.climateOf("山东菏泽牡丹区"))).isEqualTo("山东菏泽");
+        assertThat(regions.name(regions.climateOf("山东济南"))).isEqualTo("山东");
+        assertThat(regions.avgTemperature(regions.climateOf("江苏南京"))).isEqualTo(15.8);
+        assertThat(regions.lightCondition(regions.climateOf("江苏"))).isEqualTo("PARTIAL_SUN");
+    }
+
+    @Test
+    @DisplayName("气候查询 - 别名与全称命中同一条记录")
+    void climateOf_aliasShouldResolveToSameRecord() {
+        assertThat(regions.climateOf("菏泽")).isEqualTo(regions.climateOf("山东菏泽"));
+        assertThat(regions.climateOf("山东省菏泽市")).isEqualTo(regions.climateOf("山东菏泽"));
+        assertThat(regions.climateOf("山东省济南市")).isEqualTo(regions.climateOf("山东"));
+        assertThat(regions.climateOf("北京市大兴区")).isEqualTo(regions.climateOf("北京"));
+    }
+
+    @Test
+    @DisplayName("气候查询 - 未知区域和无气候数据的省份使用默认气候")
+    void climateOf_unknownRegion_shouldReturnDefault() {
+        int defaultClimate = regions.climateOf(null);
+
+        assertThat(regions.name(defaultClimate)).isEqualTo("默认");
+        assertThat(regions.climateOf("火星")).isEqualTo(defaultClimate);
+        assertThat(regions.climateOf("天津")).isEqualTo(defaultClimate);
+        assertThat(regions.suitsSeason(defaultClimate, "春季")).isTrue();
+        assertThat(regions.suitsSeason(defaultClimate, "夏季")).isFalse();
+    }
+
+    @Test
+    @DisplayName("月度气候 - 使用数据集中收录的最具体的一级行政区划")
+    void monthlyRecordOf_shouldUseMostSpecificCode() {
+        ClimateDataset monthly = new RegionDirectory(new RegionProperties(), new DefaultResourceLoader())
+                .climateDataset();
+
+        assertThat(regions.monthlyRecordOf("山东菏泽牡丹区", monthly)).isEqualTo(monthly.find(371700));
+        assertThat(regions.monthlyRecordOf("山东济南", monthly)).isEqualTo(monthly.find(370000));
+        assertThat(regions.monthlyRecordOf("天津", monthly)).isEqualTo(ClimateDataset.NONE);
+        assertThat(regions.monthlyRecordOf("山东", ClimateDataset.EMPTY)).isEqualTo(ClimateDataset.NONE);
+    }
+
+    @Test
+    @DisplayName("大区判断 - 省份、城市和别名归属到所在大区")
+    void belongsToMajorRegion_shouldResolveProvince() {
+        assertThat(regions.belongsToMajorRegion("山东菏泽", "华东")).isTrue();
+        assertThat(regions.belongsToMajorRegion("菏泽", "华东")).isTrue();
+        assertThat(regions.belongsToMajorRegion("天津", "华北")).isTrue();
+        assertThat(regions.belongsToMajorRegion("山东菏泽", "华北")).isFalse();
+        assertThat(regions.belongsToMajorRegion("山东", "华东地区")).isFalse();
+        assertThat(regions.belongsToMajorRegion("火星", "华东")).isFalse();
+    }
+
+    @Test
+    @DisplayName("数据格式 - 缺少默认气候或取值未知时拒绝加载")
+    void parse_invalidData_shouldThrow() {
+        assertThatThrownBy(() -> RegionKnowledgeBase.parse(List.of("山东,370000,华东,13.5,62,FULL_SUN,春季,")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RegionKnowledgeBase.parse(List.of("默认,,,15,65,MOON,春季,")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("重新加载 - 版本号更高时替换，否则保留旧数据")
+    void reload_shouldSwapOnlyOnNewerVersion(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("regions.csv");
+        Files.write(file, List.of("# version=1", "默认,,,15,65,PARTIAL_SUN,春季,", "山东,370000,华东,13.5,62,FULL_SUN,春季,"),
+                StandardCharsets.UTF_8);
+        RegionProperties properties = new RegionProperties();
+        properties.setLocation(file.toUri().toString());
+        RegionDirectory directory = new RegionDirectory(properties, new DefaultResourceLoader());
+        RegionKnowledgeBase first = directory.current();
+
+        assertThat(directory.reload()).isFalse();
+        assertThat(directory.current()).isSameAs(first);
+
+        Files.write(file, List.of("# version=2", "默认,,,15,65,PARTIAL_SUN,春季,", "山东,370000,华东,20,62,FULL_SUN,春季,"),
+                StandardCharsets.UTF_8);
+        assertThat(directory.reload()).isTrue();
+        assertThat(directory.current().version()).isEqualTo(2);
+        assertThat(directory.current().avgTemperature(directory.current().climateOf("山东"))).isEqualTo(20.0);
+        assertThat(first.avgTemperature(first.climateOf("山东"))).isEqualTo(13.5);
+
+        Files.write(file, List.of("# version=3", "山东,370000,华东,20,62,FULL_SUN,春季,"), StandardCharsets.UTF_8);
+        assertThat(directory.reload()).isFalse();
+        assertThat(directory.current().version()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,104 @@
+package xyh.dp.mall.trade.matching.variety;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * VarietySimilarityService 品种相似度单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("VarietySimilarityService 品种相似度测试")
+class VarietySimilarityServiceTest {
+
+    @Test
+    @DisplayName("位并行编辑距离 - 与矩阵动态规划结果一致（含超过64字符的回退）")
+    void myersDistance_shouldMatchMatrixDistance() {
+        Random random = new Random(7);
+        String alphabet = "济麦郑周矮抗农2207";
+        for (int round = 0; round < 5000; round++) {
+            int maxLength = round % 100 == 0 ? 90 : 10;
+            String s1 = randomString(random, alphabet, random.nextInt(maxLength));
+            String s2 = randomString(random, alphabet, random.nextInt(maxLength));
+
+            assertThat(MyersEditDistance.distance(s1, s2))
+                    .as("%s / %s", s1, s2)
+                    .isEqualTo(matrixDistance(s1, s2));
+        }
+    }
+
+    @Test
+    @DisplayName("品种得分 - 完全相同、互相包含和编辑距离三种规则")
+    void score_shouldApplyRules() {
+        VarietySimilarityService service = new VarietySimilarityService(new VarietySimilarityProperties());
+
+        assertThat(service.score("济麦22", "济麦22")).isEqualTo(100);
+        assertThat(service.score("济麦22", "济麦")).isEqualTo(85);
+        // 济麦22 -> 郑麦22：替换1个字符，相似度 1 - 1/4
+        assertThat(service.score("济麦22", "郑麦22")).isCloseTo(75, within(0.001));
+        assertThat(service.score("济麦22", null)).isZero();
+    }
+
+    @Test
+    @DisplayName("品种得分 - 缓存命中与字典已满时结果一致且与顺序无关")
+    void score_shouldBeConsistentWithAndWithoutCache() {
+        VarietySimilarityService cached = new VarietySimilarityService(new VarietySimilarityProperties());
+        VarietySimilarityProperties tiny = new VarietySimilarityProperties();
+        tiny.setDictionarySize(1);
+        VarietySimilarityService uncached = new VarietySimilarityService(tiny);
+
+        double first = cached.score("济麦22", "周麦27");
+        double second = cached.score("周麦27", "济麦22");
+
+        assertThat(second).isEqualTo(first);
+        assertThat(uncached.score("济麦22", "周麦27")).isEqualTo(first);
+        assertThat(cached.dictionarySize()).isEqualTo(2);
+        assertThat(uncached.dictionarySize()).isEqualTo(1);
+    }
+
+    /**
+     * 矩阵动态规划编辑距离（对照实现）
+     *
+     * @param s1 字符串1
+     * @param s2 字符串2
+     * @return 编辑距离
+     */
+    private static int matrixDistance(String s1, String s2) {
+        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
+        for (int i = 0; i <= s1.length(); i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= s2.length(); j++) {
+            dp[0][j] = j;
+        }
+        for (int i = 1; i <= s1.length(); i++) {
+            for (int j = 1; j <= s2.length(); j++) {
+                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
+            }
+        }
+        return dp[s1.length()][s2.length()];
+    }
+
+    /**
+     * 生成随机字符串
+     *
+     * @param random 随机数
+     * @param alphabet 字符集
+     * @param length 长度
+     * @return 随机字符串
+     */
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
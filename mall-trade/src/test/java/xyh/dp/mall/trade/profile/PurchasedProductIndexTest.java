@@ -0,0 +1,205 @@
+package xyh.dp.mall.trade.profile;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * PurchasedProductIndex 用户已购商品索引单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PurchasedProductIndex 用户已购商品索引测试")
+class PurchasedProductIndexTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private PurchaseRecordMapper purchaseRecordMapper;
+
+    @InjectMocks
+    private PurchasedProductIndex purchasedProductIndex;
+
+    @Test
+    @DisplayName("Redis中没有位图时从购买记录加载，之后读取本地位图")
+    void testLoadOnceThenLocalLookup() {
+        when(purchaseRecordMapper.selectPurchasedProductIds(1L)).thenReturn(List.of(30L, 10L, 20L));
+
+        assertThat(purchasedProductIndex.contains(1L, 10L)).isTrue();
+        assertThat(purchasedProductIndex.contains(1L, 11L)).isFalse();
+        assertThat(purchasedProductIndex.productIds(1L)).containsExactly(10L, 20L, 30L);
+
+        verify(purchaseRecordMapper, times(1)).selectPurchasedProductIds(1L);
+    }
+
+    @Test
+    @DisplayName("收到变更通知后丢弃本地位图，下次读取重新加载")
+    void testInvalidateOnMessage() {
+        when(purchaseRecordMapper.selectPurchasedProductIds(1L))
+                .thenReturn(List.of(10L))
+                .thenReturn(List.of(10L, 20L));
+        assertThat(purchasedProductIndex.contains(1L, 20L)).isFalse();
+
+        purchasedProductIndex.onMessage(new DefaultMessage(
+                PurchasedProductIndex.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "1".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(purchasedProductIndex.contains(1L, 20L)).isTrue();
+        verify(purchaseRecordMapper, times(2)).selectPurchasedProductIds(1L);
+    }
+
+    @Test
+    @DisplayName("无效商品ID直接返回未购买")
+    void testInvalidProductId() {
+        assertThat(purchasedProductIndex.contains(1L, null)).isFalse();
+        assertThat(purchasedProductIndex.contains(1L, (long) Integer.MAX_VALUE + 1)).isFalse();
+        verifyNoInteractions(purchaseRecordMapper);
+    }
+
+    @Test
+    @DisplayName("并发购买通过比较并交换写入位图，不丢失商品")
+    void testConcurrentAddKeepsAllProducts() throws Exception {
+        // Given - Redis中已有位图 {1}
+        Map<String, byte[]> store = fakeRedis();
+        store.put(PurchasedProductIndex.KEY_PREFIX + 1, serialize(RoaringBitmap.bitmapOf(1)));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When - 8个线程同时记录不同商品
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long productId = 100L + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                purchasedProductIndex.record(purchase(1L, productId));
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        RoaringBitmap stored = deserialize(store.get(PurchasedProductIndex.KEY_PREFIX + 1));
+        assertThat(stored.toArray()).containsExactly(1, 100, 101, 102, 103, 104, 105, 106, 107);
+        verify(purchaseRecordMapper, never()).selectPurchasedProductIds(any());
+    }
+
+    @Test
+    @DisplayName("冷加载期间有购买提交时，读取方的旧快照不覆盖写入方创建的位图")
+    void testColdLoadDoesNotOverwriteConcurrentAdd() {
+        // Given - 读取方从购买记录加载期间购买提交，写入方加载到新商品并创建位图
+        Map<String, byte[]> store = fakeRedis();
+        AtomicInteger loads = new AtomicInteger();
+        when(purchaseRecordMapper.selectPurchasedProductIds(1L)).thenAnswer(invocation -> {
+            if (loads.getAndIncrement() == 0) {
+                purchasedProductIndex.record(purchase(1L, 20L));
+                return List.of(10L);
+            }
+            return List.of(10L, 20L);
+        });
+
+        // When
+        boolean purchased = purchasedProductIndex.contains(1L, 20L);
+
+        // Then - 旧快照以"不存在"为期望值写入失败，读取方改用Redis中的位图
+        assertThat(purchased).isTrue();
+        assertThat(deserialize(store.get(PurchasedProductIndex.KEY_PREFIX + 1)).toArray()).containsExactly(10, 20);
+    }
+
+    /**
+     * 用内存Map模拟Redis的GET和比较并交换脚本
+     *
+     * @return key -> 值
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> fakeRedis() {
+        Map<String, byte[]> store = new ConcurrentHashMap<>();
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class, invocation -> {
+            if (!"get".equals(invocation.getMethod().getName())) {
+                return null;
+            }
+            Thread.yield();
+            return store.get(new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8));
+        });
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class, invocation -> {
+            byte[][] keysAndArgs = (byte[][]) invocation.getRawArguments()[3];
+            String key = new String(keysAndArgs[0], StandardCharsets.UTF_8);
+            synchronized (store) {
+                byte[] current = store.getOrDefault(key, new byte[0]);
+                if (!Arrays.equals(current, keysAndArgs[1])) {
+                    return 0L;
+                }
+                store.put(key, keysAndArgs[2]);
+                return 1L;
+            }
+        });
+        RedisConnection connection = mock(RedisConnection.class);
+        lenient().when(connection.stringCommands()).thenReturn(stringCommands);
+        lenient().when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<Object>) invocation.getArgument(0)).doInRedis(connection));
+        return store;
+    }
+
+    private static PurchaseRecord purchase(Long userId, Long productId) {
+        PurchaseRecord record = new PurchaseRecord();
+        record.setUserId(userId);
+        record.setProductId(productId);
+        return record;
+    }
+
+    private static byte[] serialize(RoaringBitmap bitmap) {
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+        return buffer.array();
+    }
+
+    private static RoaringBitmap deserialize(byte[] bytes) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        try {
+            bitmap.deserialize(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bitmap;
+    }
+}
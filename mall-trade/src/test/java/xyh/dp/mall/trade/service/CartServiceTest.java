@@ -0,0 +1,391 @@
+package xyh.dp.mall.trade.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyh.dp.mall.common.context.UserContext;
+import xyh.dp.mall.common.context.UserContextHolder;
+import xyh.dp.mall.common.exception.BusinessException;
+import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.trade.cart.CartStoreProperties;
+import xyh.dp.mall.trade.cart.RedisCartStore;
+import xyh.dp.mall.trade.dto.BatchCartDTO;
+import xyh.dp.mall.trade.dto.CartOperationDTO;
+import xyh.dp.mall.trade.dto.UpdateCartItemDTO;
+import xyh.dp.mall.trade.entity.CartItem;
+import xyh.dp.mall.trade.feign.ProductFeignClient;
+import xyh.dp.mall.trade.feign.dto.ProductDTO;
+import xyh.dp.mall.trade.mapper.CartItemMapper;
+import xyh.dp.mall.trade.snapshot.ProductSnapshotCache;
+import xyh.dp.mall.trade.vo.CartSummaryVO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * CartService 购物车服务单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CartService 购物车服务测试")
+class CartServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private CartItemMapper cartItemMapper;
+
+    @Mock
+    private ProductFeignClient productFeignClient;
+
+    @Mock
+    private RedisCartStore redisCartStore;
+
+    @Mock
+    private CartStoreProperties cartStoreProperties;
+
+    @Mock
+    private ProductSnapshotCache productSnapshotCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private CartService cartService;
+
+    /**
+     * 设置当前用户
+     */
+    @BeforeEach
+    void setUp() {
+        UserContext context = new UserContext();
+        context.setUserId(USER_ID);
+        context.setUserType("FARMER");
+        UserContextHolder.setContext(context);
+    }
+
+    /**
+     * 清理当前用户
+     */
+    @AfterEach
+    void tearDown() {
+        UserContextHolder.clear();
+    }
+
+    @Nested
+    @DisplayName("Redis模式 购物车项ID兼容测试")
+    class RedisItemIdTest {
+
+        @BeforeEach
+        void setUp() {
+            when(cartStoreProperties.isRedisMode()).thenReturn(true);
+        }
+
+        /**
+         * 测试未标记的ID按商品ID处理
+         */
+        @Test
+        @DisplayName("未标记的ID即商品ID，不查询旧行ID")
+        void updateQuantity_productId_shouldUseDirectly() {
+            // Given
+            when(productFeignClient.getProductById(100L)).thenReturn(Result.success(product(100L, 50)));
+            when(redisCartStore.updateQuantity(USER_ID, 100L, 3)).thenReturn(true);
+
+            // When
+            cartService.updateQuantity(updateDTO(100L, 3, null));
+
+            // Then
+            verify(redisCartStore).updateQuantity(USER_ID, 100L, 3);
+            verify(cartItemMapper, never()).selectList(any());
+        }
+
+        /**
+         * 测试标记为旧行ID时修改数量
+         */
+        @Test
+        @DisplayName("标记为旧行ID时转换为对应商品ID，并按该商品校验库存")
+        void updateQuantity_legacyRowId_shouldResolveProductId() {
+            // Given - 行ID 7 对应商品 100
+            when(cartItemMapper.selectList(any())).thenReturn(List.of(row(7L, 100L)));
+            when(productFeignClient.getProductById(100L)).thenReturn(Result.success(product(100L, 50)));
+            when(redisCartStore.updateQuantity(USER_ID, 100L, 3)).thenReturn(true);
+
+            // When
+            cartService.updateQuantity(updateDTO(7L, 3, true));
+
+            // Then
+            verify(redisCartStore).updateQuantity(USER_ID, 100L, 3);
+            verify(productFeignClient, never()).getProductById(7L);
+        }
+
+        /**
+         * 测试行ID与商品ID取值相同时按标记区分
+         */
+        @Test
+        @DisplayName("行ID与某商品ID相同时，只按标记决定操作哪一项")
+        void toggleSelected_overlappingIds_shouldFollowMarker() {
+            // Given - 行ID 100 对应商品 200，同时购物车中也有商品 100
+            when(cartItemMapper.selectList(any())).thenReturn(List.of(row(100L, 200L)));
+            when(redisCartStore.setSelected(eq(USER_ID), anyLong(), eq(false))).thenReturn(true);
+
+            // When
+            cartService.toggleSelected(100L, false, true);
+            cartService.toggleSelected(100L, false, false);
+
+            // Then
+            verify(redisCartStore).setSelected(USER_ID, 200L, false);
+            verify(redisCartStore).setSelected(USER_ID, 100L, false);
+        }
+
+        /**
+         * 测试标记为旧行ID但不属于当前用户
+         */
+        @Test
+        @DisplayName("标记的旧行ID不属于当前用户时抛出异常")
+        void removeItem_unknownLegacyRowId_shouldThrowException() {
+            // Given
+            when(cartItemMapper.selectList(any())).thenReturn(List.of());
+
+            // When/Then
+            assertThatThrownBy(() -> cartService.removeItem(9L, true))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessage("购物车项不存在");
+            verify(redisCartStore, never()).remove(anyLong(), anyLong());
+        }
+
+        /**
+         * 测试批量操作中混用两种ID
+         */
+        @Test
+        @DisplayName("批量操作中标记为旧行ID的操作转换为商品ID后整批执行")
+        @SuppressWarnings("unchecked")
+        void batchUpdate_legacyRowIds_shouldResolveBeforeApply() {
+            // Given - 购物车中有商品100、200，行ID 7 对应商品 100
+            when(redisCartStore.getItems(USER_ID)).thenReturn(List.of(cartItem(100L), cartItem(200L)));
+            when(cartItemMapper.selectList(any())).thenReturn(List.of(row(7L, 100L)));
+            when(productSnapshotCache.getSnapshots(anyCollection())).thenReturn(Map.of());
+
+            CartOperationDTO select = operation("SELECT", 7L, false);
+            select.setLegacyRowId(true);
+            BatchCartDTO dto = new BatchCartDTO();
+            dto.setOperations(List.of(select, operation("REMOVE", 200L, null)));
+
+            // When
+            CartSummaryVO summary = cartService.batchUpdate(dto);
+
+            // Then
+            verify(redisCartStore).applyBatch(eq(USER_ID), eq(Set.of(200L)), eq(Map.of()), any(Map.class),
+                    eq(Map.of()), eq(Map.of(100L, false)));
+            assertThat(summary.getItems()).hasSize(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("MySQL模式 购物车项归属测试")
+    class MysqlOwnershipTest {
+
+        /**
+         * 测试操作其他用户的购物车项
+         */
+        @Test
+        @DisplayName("购物车项不属于当前用户时拒绝修改")
+        void toggleSelected_otherUsersItem_shouldThrowException() {
+            // Given
+            when(cartStoreProperties.isRedisMode()).thenReturn(false);
+            CartItem item = row(7L, 100L);
+            item.setUserId(2L);
+            when(cartItemMapper.selectById(7L)).thenReturn(item);
+
+            // When/Then
+            assertThatThrownBy(() -> cartService.toggleSelected(7L, true, false))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessage("无权操作此购物车项");
+            verify(redisCartStore, never()).setSelected(anyLong(), anyLong(), anyBoolean());
+        }
+    }
+
+    @Nested
+    @DisplayName("批量操作规则 两种存储一致性测试")
+    class BatchRuleTest {
+
+        /**
+         * 测试Redis模式下同一商品既加入又修改数量
+         */
+        @Test
+        @DisplayName("Redis模式：同一商品既加入又修改数量时整批拒绝")
+        void batchUpdate_addAndUpdateSameProduct_redis_shouldReject() {
+            // Given - 购物车中已有商品100（Redis模式下购物车项ID即商品ID）
+            when(cartStoreProperties.isRedisMode()).thenReturn(true);
+            when(redisCartStore.getItems(USER_ID)).thenReturn(List.of(cartItem(100L)));
+
+            // When/Then
+            assertThatThrownBy(() -> cartService.batchUpdate(addAndUpdateBatch(100L)))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessage("同一商品不能在一次批量操作中同时加入和修改数量: 100");
+            verify(redisCartStore, never()).applyBatch(anyLong(), any(), any(), any(), any(), any());
+        }
+
+        /**
+         * 测试MySQL模式下同一商品既加入又修改数量
+         */
+        @Test
+        @DisplayName("MySQL模式：同一商品既加入又修改数量时整批拒绝")
+        void batchUpdate_addAndUpdateSameProduct_mysql_shouldReject() {
+            // Given - 购物车中已有商品100，行ID为7
+            when(cartStoreProperties.isRedisMode()).thenReturn(false);
+            CartItem row = cartItem(100L);
+            row.setId(7L);
+            when(cartItemMapper.selectList(any())).thenReturn(List.of(row));
+
+            // When/Then
+            assertThatThrownBy(() -> cartService.batchUpdate(addAndUpdateBatch(7L)))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessage("同一商品不能在一次批量操作中同时加入和修改数量: 100");
+            verify(transactionTemplate, never()).executeWithoutResult(any());
+        }
+
+        /**
+         * 测试批量操作时商品服务不可用
+         */
+        @Test
+        @DisplayName("商品服务不可用时返回服务不可用，而不是把商品报告为不存在")
+        void batchUpdate_productServiceDown_shouldReportUnavailable() {
+            // Given
+            when(cartStoreProperties.isRedisMode()).thenReturn(true);
+            when(redisCartStore.getItems(USER_ID)).thenReturn(List.of());
+            when(productFeignClient.getProductsByIds(any()))
+                    .thenReturn(Result.error(503, "商品服务暂时不可用，请稍后重试"));
+            CartOperationDTO add = operation("ADD", null, null);
+            add.setProductId(100L);
+            add.setQuantity(2);
+            BatchCartDTO dto = new BatchCartDTO();
+            dto.setOperations(List.of(add));
+
+            // When/Then
+            assertThatThrownBy(() -> cartService.batchUpdate(dto))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessage("商品服务暂时不可用，请稍后重试")
+                    .extracting("code").isEqualTo(503);
+            verify(redisCartStore, never()).applyBatch(anyLong(), any(), any(), any(), any(), any());
+        }
+
+        /**
+         * 构建同一商品既加入又修改数量的批量请求
+         *
+         * @param cartItemId 商品100在当前存储下的购物车项ID
+         * @return 批量请求
+         */
+        private BatchCartDTO addAndUpdateBatch(Long cartItemId) {
+            CartOperationDTO add = operation("ADD", null, null);
+            add.setProductId(100L);
+            add.setQuantity(2);
+            CartOperationDTO update = operation("UPDATE", cartItemId, null);
+            update.setQuantity(5);
+            BatchCartDTO dto = new BatchCartDTO();
+            dto.setOperations(List.of(add, update));
+            return dto;
+        }
+    }
+
+    /**
+     * 构建修改数量请求
+     *
+     * @param id          购物车项ID
+     * @param quantity    数量
+     * @param legacyRowId 是否为旧的行ID
+     * @return 请求
+     */
+    private static UpdateCartItemDTO updateDTO(Long id, int quantity, Boolean legacyRowId) {
+        UpdateCartItemDTO dto = new UpdateCartItemDTO();
+        dto.setId(id);
+        dto.setQuantity(quantity);
+        dto.setLegacyRowId(legacyRowId);
+        return dto;
+    }
+
+    /**
+     * 构建批量操作项
+     *
+     * @param type     操作类型
+     * @param id       购物车项ID
+     * @param selected 是否选中
+     * @return 操作项
+     */
+    private static CartOperationDTO operation(String type, Long id, Boolean selected) {
+        CartOperationDTO operation = new CartOperationDTO();
+        operation.setType(type);
+        operation.setId(id);
+        operation.setSelected(selected);
+        return operation;
+    }
+
+    /**
+     * 构建商品信息
+     *
+     * @param id    商品ID
+     * @param stock 库存
+     * @return 商品信息
+     */
+    private static ProductDTO product(Long id, int stock) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName("优质小麦种子");
+        product.setPrice(new BigDecimal("25.00"));
+        product.setStock(stock);
+        product.setStatus("ON_SALE");
+        return product;
+    }
+
+    /**
+     * 构建tb_cart_item行
+     *
+     * @param id        行ID
+     * @param productId 商品ID
+     * @return 购物车行
+     */
+    private static CartItem row(Long id, Long productId) {
+        CartItem row = new CartItem();
+        row.setId(id);
+        row.setUserId(USER_ID);
+        row.setProductId(productId);
+        return row;
+    }
+
+    /**
+     * 构建Redis模式下的购物车项（ID即商品ID）
+     *
+     * @param productId 商品ID
+     * @return 购物车项
+     */
+    private static CartItem cartItem(Long productId) {
+        CartItem item = row(productId, productId);
+        item.setPrice(new BigDecimal("25.00"));
+        item.setQuantity(1);
+        item.setSelected(true);
+        item.setCreateTime(LocalDateTime.now());
+        return item;
+    }
+}
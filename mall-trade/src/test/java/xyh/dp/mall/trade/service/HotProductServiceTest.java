@@ -0,0 +1,251 @@
+package xyh.dp.mall.trade.service;
+
+import com.alibaba.fastjson2.JSON;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import xyh.dp.mall.common.exception.BusinessException;
+import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.trade.feign.ProductFeignClient;
+import xyh.dp.mall.trade.feign.dto.ProductDTO;
+import xyh.dp.mall.trade.hot.HotLeaderboardProperties;
+import xyh.dp.mall.trade.hot.LeaderboardEntry;
+import xyh.dp.mall.trade.hot.SalesLeaderboard;
+import xyh.dp.mall.trade.hot.TrendingEntry;
+import xyh.dp.mall.trade.hot.TrendingProperties;
+import xyh.dp.mall.trade.hot.TrendingTracker;
+import xyh.dp.mall.trade.hot.UniqueBuyerCounter;
+import xyh.dp.mall.trade.vo.HotProductVO;
+import xyh.dp.mall.trade.vo.TrendingProductVO;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * HotProductService 热销商品服务单元测试
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("HotProductService 热销商品服务测试")
+class HotProductServiceTest {
+
+    @Mock
+    private PurchaseStatsService purchaseStatsService;
+
+    @Mock
+    private ProductFeignClient productFeignClient;
+
+    @Mock
+    private SalesLeaderboard salesLeaderboard;
+
+    @Mock
+    private HotLeaderboardProperties leaderboardProperties;
+
+    @Mock
+    private UniqueBuyerCounter uniqueBuyerCounter;
+
+    @Mock
+    private TrendingTracker trendingTracker;
+
+    @Mock
+    private TrendingProperties trendingProperties;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private Executor asyncExecutor;
+
+    @InjectMocks
+    private HotProductService hotProductService;
+
+    @Test
+    @DisplayName("按榜单顺序排名，商品详情一次批量获取")
+    void testWeeklyHotProducts() {
+        when(salesLeaderboard.top(SalesLeaderboard.GLOBAL_SCOPE, 10)).thenReturn(List.of(
+                new LeaderboardEntry(2L, 30, new BigDecimal("300.00")),
+                new LeaderboardEntry(1L, 10, new BigDecimal("100.00"))));
+        when(productFeignClient.getProductsByIds(anyList()))
+                .thenReturn(Result.success(List.of(product(1L, "小麦种子"), product(2L, "玉米种子"))));
+        when(uniqueBuyerCounter.countWindow(eq(UniqueBuyerCounter.PRODUCT), anyList())).thenReturn(Map.of(2L, 5L));
+
+        List<HotProductVO> result = hotProductService.computeWeeklyHotProducts(10);
+
+        assertThat(result).extracting(HotProductVO::getProductId).containsExactly(2L, 1L);
+        assertThat(result).extracting(HotProductVO::getRank).containsExactly(1, 2);
+        assertThat(result.get(0).getProductName()).isEqualTo("玉米种子");
+        assertThat(result.get(0).getWeekSales()).isEqualTo(30);
+        assertThat(result.get(0).getWeekBuyerCount()).isEqualTo(5);
+        assertThat(result.get(1).getWeekBuyerCount()).isZero();
+        verify(productFeignClient, times(1)).getProductsByIds(anyList());
+        verify(productFeignClient, never()).getProductById(any());
+    }
+
+    @Test
+    @DisplayName("HyperLogLog不可用时回退到每日汇总")
+    void testBuyerCountFallback() {
+        when(salesLeaderboard.top(SalesLeaderboard.GLOBAL_SCOPE, 10)).thenReturn(List.of(
+                new LeaderboardEntry(1L, 10, new BigDecimal("100.00"))));
+        when(productFeignClient.getProductsByIds(anyList())).thenReturn(Result.success(List.of(product(1L, "小麦种子"))));
+        when(uniqueBuyerCounter.countWindow(eq(UniqueBuyerCounter.PRODUCT), anyList()))
+                .thenThrow(new IllegalStateException("redis down"));
+        when(leaderboardProperties.getWindowHours()).thenReturn(168);
+        when(purchaseStatsService.sumBuyers(anyList(), eq(7))).thenReturn(Map.of(1L, 4));
+
+        List<HotProductVO> result = hotProductService.computeWeeklyHotProducts(10);
+
+        assertThat(result.get(0).getWeekBuyerCount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("榜单为空时不查询商品服务")
+    void testEmptyLeaderboard() {
+        when(salesLeaderboard.top(SalesLeaderboard.categoryScope(3L), 10)).thenReturn(List.of());
+
+        List<HotProductVO> result = hotProductService.getWeeklyHotProductsByCategory(3L, 10);
+
+        assertThat(result).isEmpty();
+        verifyNoInteractions(productFeignClient, uniqueBuyerCounter, purchaseStatsService);
+    }
+
+    @Test
+    @DisplayName("缓存未过期时直接返回缓存并截取前N个，不计算榜单")
+    void testWeeklyHotProductsFromCache() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("hot_products:weekly:top_20")).thenReturn(cachedJson(20));
+        when(redisTemplate.getExpire("hot_products:weekly:top_20", TimeUnit.SECONDS)).thenReturn(7000L);
+        when(leaderboardProperties.getCacheTtlMinutes()).thenReturn(120);
+        when(leaderboardProperties.getCacheStaleMinutes()).thenReturn(70);
+
+        List<HotProductVO> result = hotProductService.getWeeklyHotProducts(15);
+
+        assertThat(result).hasSize(15);
+        assertThat(result.get(0).getProductId()).isEqualTo(1L);
+        verifyNoInteractions(salesLeaderboard, productFeignClient, asyncExecutor);
+    }
+
+    @Test
+    @DisplayName("缓存已过期时返回旧数据并提交后台刷新")
+    void testStaleCacheRefreshedInBackground() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("hot_products:weekly:top_10")).thenReturn(cachedJson(10));
+        when(redisTemplate.getExpire("hot_products:weekly:top_10", TimeUnit.SECONDS)).thenReturn(600L);
+        when(leaderboardProperties.getCacheTtlMinutes()).thenReturn(120);
+        when(leaderboardProperties.getCacheStaleMinutes()).thenReturn(70);
+
+        List<HotProductVO> first = hotProductService.getWeeklyHotProducts(10);
+        List<HotProductVO> second = hotProductService.getWeeklyHotProducts(10);
+
+        assertThat(first).hasSize(10);
+        assertThat(second).hasSize(10);
+        // 刷新任务未执行完之前不重复提交
+        verify(asyncExecutor, times(1)).execute(any(Runnable.class));
+        verifyNoInteractions(salesLeaderboard);
+    }
+
+    @Test
+    @DisplayName("缓存缺失时计算一次前50名并切片写入10/20/50三个缓存")
+    void testCacheMissComputesTop50Once() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(salesLeaderboard.top(SalesLeaderboard.GLOBAL_SCOPE, 50)).thenReturn(List.of(
+                new LeaderboardEntry(1L, 10, new BigDecimal("100.00"))));
+        when(productFeignClient.getProductsByIds(anyList())).thenReturn(Result.success(List.of(product(1L, "小麦种子"))));
+        when(uniqueBuyerCounter.countWindow(eq(UniqueBuyerCounter.PRODUCT), anyList())).thenReturn(Map.of());
+        when(leaderboardProperties.getCacheTtlMinutes()).thenReturn(120);
+
+        List<HotProductVO> result = hotProductService.getWeeklyHotProducts(10);
+
+        assertThat(result).extracting(HotProductVO::getProductId).containsExactly(1L);
+        verify(salesLeaderboard, times(1)).top(SalesLeaderboard.GLOBAL_SCOPE, 50);
+        verify(valueOperations).set(eq("hot_products:weekly:top_10"), anyString(), eq(Duration.ofMinutes(120)));
+        verify(valueOperations).set(eq("hot_products:weekly:top_20"), anyString(), eq(Duration.ofMinutes(120)));
+        verify(valueOperations).set(eq("hot_products:weekly:top_50"), anyString(), eq(Duration.ofMinutes(120)));
+    }
+
+    @Test
+    @DisplayName("近期热点按窗口查询并补全商品信息")
+    void testTrendingProducts() {
+        when(trendingProperties.getMaxWindowMinutes()).thenReturn(360);
+        when(trendingTracker.top(Duration.ofHours(1), 20)).thenReturn(List.of(
+                new TrendingEntry(2L, 12.346), new TrendingEntry(1L, 3.0)));
+        when(productFeignClient.getProductsByIds(anyList()))
+                .thenReturn(Result.success(List.of(product(1L, "小麦种子"), product(2L, "玉米种子"))));
+
+        List<TrendingProductVO> result = hotProductService.getTrendingProducts("1h", 20);
+
+        assertThat(result).extracting(TrendingProductVO::getProductId).containsExactly(2L, 1L);
+        assertThat(result.get(0).getProductName()).isEqualTo("玉米种子");
+        assertThat(result.get(0).getScore()).isEqualTo(12.35);
+    }
+
+    @Test
+    @DisplayName("近期热点窗口格式错误、数字过长或超出上限时拒绝")
+    void testTrendingInvalidWindow() {
+        assertThatThrownBy(() -> hotProductService.getTrendingProducts("1d", 20))
+                .isInstanceOf(BusinessException.class);
+        // 超长数字不能抛出NumberFormatException
+        assertThatThrownBy(() -> hotProductService.getTrendingProducts("99999999999999999999m", 20))
+                .isInstanceOf(BusinessException.class);
+
+        when(trendingProperties.getMaxWindowMinutes()).thenReturn(360);
+        assertThatThrownBy(() -> hotProductService.getTrendingProducts("7h", 20))
+                .isInstanceOf(BusinessException.class);
+        verifyNoInteractions(trendingTracker);
+    }
+
+    /**
+     * 构建缓存中的热销榜单JSON
+     * 
+     * @param size 商品数
+     * @return JSON
+     */
+    private String cachedJson(int size) {
+        List<HotProductVO> list = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            HotProductVO vo = new HotProductVO();
+            vo.setRank(i);
+            vo.setProductId((long) i);
+            list.add(vo);
+        }
+        return JSON.toJSONString(list);
+    }
+
+    /**
+     * 构建测试商品
+     * 
+     * @param id 商品ID
+     * @param name 商品名称
+     * @return 商品
+     */
+    private ProductDTO product(Long id, String name) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(100);
+        return product;
+    }
+}
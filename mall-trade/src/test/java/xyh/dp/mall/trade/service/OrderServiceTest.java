@@ -1,5 +1,6 @@
 package xyh.dp.mall.trade.service;
 
+import com.alibaba.fastjson2.JSONObject;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,15 +12,19 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import xyh.dp.mall.common.exception.BusinessException;
 import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.trade.archive.PartitionArchiver;
+import xyh.dp.mall.trade.archive.PartitionedTable;
 import xyh.dp.mall.trade.dto.CreateOrderDTO;
 import xyh.dp.mall.trade.entity.Order;
 import xyh.dp.mall.trade.feign.ProductFeignClient;
 import xyh.dp.mall.trade.feign.dto.ProductDTO;
 import xyh.dp.mall.trade.mapper.OrderMapper;
+import xyh.dp.mall.trade.mapper.OrderNoMapper;
 import xyh.dp.mall.trade.vo.OrderVO;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -46,12 +51,24 @@ class OrderServiceTest {
     @Mock
     private OrderMapper orderMapper;
 
+    @Mock
+    private OrderNoMapper orderNoMapper;
+
     @Mock
     private ProductFeignClient productFeignClient;
 
     @Mock
     private Executor orderExecutor;
 
+    @Mock
+    private PartitionArchiver partitionArchiver;
+
+    @Mock
+    private SupplierDashboardService supplierDashboardService;
+
+    @Mock
+    private PurchaseRecordService purchaseRecordService;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -139,6 +156,96 @@ class OrderServiceTest {
                     .isInstanceOf(BusinessException.class)
                     .hasMessage("订单不存在");
         }
+
+        /**
+         * 测试订单已归档时从归档文件读取
+         */
+        @Test
+        @DisplayName("在线库不存在且已归档时应从归档文件返回订单")
+        void getByOrderNo_archivedOrder_shouldReadArchive() {
+            // Given
+            String orderNo = "ORD202301150930120042";
+            JSONObject row = new JSONObject();
+            row.put("id", 9L);
+            row.put("order_no", orderNo);
+            row.put("product_name", "优质小麦种子");
+            row.put("total_amount", new BigDecimal("50.00"));
+            row.put("status", "FINISHED");
+            row.put("create_time", "2023-01-15 09:30:12");
+            when(orderMapper.selectOne(any())).thenReturn(null);
+            when(partitionArchiver.read(PartitionedTable.ORDER, YearMonth.of(2023, 1), "order_no", orderNo, 1))
+                    .thenReturn(List.of(row));
+
+            // When
+            OrderVO result = orderService.getByOrderNo(orderNo);
+
+            // Then
+            assertThat(result.getOrderNo()).isEqualTo(orderNo);
+            assertThat(result.getProductName()).isEqualTo("优质小麦种子");
+            assertThat(result.getStatus()).isEqualTo("FINISHED");
+            assertThat(result.getCreateTime()).isEqualTo(LocalDateTime.of(2023, 1, 15, 9, 30, 12));
+        }
+
+        /**
+         * 测试登记表中有创建时间时按登记的月份读取归档
+         */
+        @Test
+        @DisplayName("订单号已登记时应按登记的创建时间定位归档月份")
+        void getByOrderNo_registeredOrder_shouldUseRegisteredCreateTime() {
+            // Given - 历史格式订单号无法解析时间，登记表中有创建时间
+            String orderNo = "ORD202412150001";
+            JSONObject row = new JSONObject();
+            row.put("order_no", orderNo);
+            row.put("status", "FINISHED");
+            when(orderNoMapper.selectCreateTime(orderNo)).thenReturn(LocalDateTime.of(2024, 12, 15, 8, 0, 0));
+            when(orderMapper.selectOne(any())).thenReturn(null);
+            when(partitionArchiver.read(PartitionedTable.ORDER, YearMonth.of(2024, 12), "order_no", orderNo, 1))
+                    .thenReturn(List.of(row));
+
+            // When
+            OrderVO result = orderService.getByOrderNo(orderNo);
+
+            // Then
+            assertThat(result.getStatus()).isEqualTo("FINISHED");
+        }
+    }
+
+    @Nested
+    @DisplayName("reserveOrderNo 订单号登记测试")
+    class ReserveOrderNoTest {
+
+        /**
+         * 测试订单号重复时重新生成
+         */
+        @Test
+        @DisplayName("订单号已被占用时应重新生成并登记")
+        void reserveOrderNo_duplicate_shouldRegenerate() {
+            // Given
+            LocalDateTime createTime = LocalDateTime.of(2025, 3, 1, 10, 0, 0);
+            when(orderNoMapper.insertIgnore(any(), eq(createTime))).thenReturn(0).thenReturn(1);
+
+            // When
+            String orderNo = orderService.reserveOrderNo(createTime);
+
+            // Then
+            assertThat(orderNo).startsWith("ORD20250301100000").hasSize(21);
+            verify(orderNoMapper, times(2)).insertIgnore(any(), eq(createTime));
+        }
+
+        /**
+         * 测试多次重复后放弃
+         */
+        @Test
+        @DisplayName("多次生成的订单号均被占用时应抛出BusinessException")
+        void reserveOrderNo_exhausted_shouldThrowException() {
+            // Given
+            when(orderNoMapper.insertIgnore(any(), any())).thenReturn(0);
+
+            // When/Then
+            assertThatThrownBy(() -> orderService.reserveOrderNo(LocalDateTime.now()))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessage("订单号生成失败，请稍后重试");
+        }
     }
 
     @Nested
@@ -222,14 +329,36 @@ class OrderServiceTest {
         void cancelOrder_pendingOrder_shouldSucceed() {
             // Given
             when(orderMapper.selectOne(any())).thenReturn(testOrder);
-            when(orderMapper.updateById((Order)any())).thenReturn(1);
+            when(orderMapper.cancelPending(eq(1L), eq(testOrder.getCreateTime()), any())).thenReturn(1);
             when(productFeignClient.restoreStock(anyLong(), anyInt())).thenReturn(Result.success(true));
 
             // When
             orderService.cancelOrder("ORD202412150001", 1L);
 
             // Then
-            verify(orderMapper, times(1)).updateById((Order)any());
+            assertThat(testOrder.getStatus()).isEqualTo("CANCELLED");
+            verify(supplierDashboardService).recordOrderCancelled(testOrder);
+            verify(purchaseRecordService).revokeOrderPurchaseRecords(testOrder);
+            verify(productFeignClient).restoreStock(1L, 2);
+        }
+
+        /**
+         * 测试并发取消同一订单
+         */
+        @Test
+        @DisplayName("条件更新未改到订单时不重复计数、撤销和恢复库存")
+        void cancelOrder_concurrentCancel_shouldSkipSideEffects() {
+            // Given - 读取时仍为待支付，另一个请求已先把订单改为已取消
+            when(orderMapper.selectOne(any())).thenReturn(testOrder);
+            when(orderMapper.cancelPending(eq(1L), eq(testOrder.getCreateTime()), any())).thenReturn(0);
+
+            // When/Then
+            assertThatThrownBy(() -> orderService.cancelOrder("ORD202412150001", 1L))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessage("只能取消待支付订单");
+            verify(supplierDashboardService, never()).recordOrderCancelled(any());
+            verify(purchaseRecordService, never()).revokeOrderPurchaseRecords(any());
+            verify(productFeignClient, never()).restoreStock(anyLong(), anyInt());
         }
 
         /**
@@ -0,0 +1,321 @@
+package xyh.dp.mall.trade.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyh.dp.mall.trade.entity.PurchaseRecord;
+import xyh.dp.mall.trade.entity.PurchaseUserStats;
+import xyh.dp.mall.trade.mapper.PurchaseBuyerMarkerMapper;
+import xyh.dp.mall.trade.mapper.PurchaseDailyProductStatsMapper;
+import xyh.dp.mall.trade.mapper.PurchaseRecordMapper;
+import xyh.dp.mall.trade.mapper.PurchaseUserStatsMapper;
+import xyh.dp.mall.trade.mapper.SupplierDailyStatsMapper;
+import xyh.dp.mall.trade.mapper.SupplierOrderStatsMapper;
+import xyh.dp.mall.trade.profile.PurchaseProfileStore;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * PurchaseStatsService 购买汇总服务单元测试
+ * 
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PurchaseStatsService 购买汇总服务测试")
+class PurchaseStatsServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private PurchaseRecordMapper purchaseRecordMapper;
+
+    @Mock
+    private PurchaseDailyProductStatsMapper dailyProductStatsMapper;
+
+    @Mock
+    private PurchaseUserStatsMapper userStatsMapper;
+
+    @Mock
+    private SupplierDailyStatsMapper supplierDailyStatsMapper;
+
+    @Mock
+    private SupplierOrderStatsMapper supplierOrderStatsMapper;
+
+    @Mock
+    private PurchaseBuyerMarkerMapper buyerMarkerMapper;
+
+    @Mock
+    private PurchaseProfileStore profileStore;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PurchaseStatsService purchaseStatsService;
+
+    private PurchaseRecord record;
+
+    /**
+     * 初始化测试数据
+     */
+    @BeforeEach
+    void setUp() {
+        record = new PurchaseRecord();
+        record.setId(100L);
+        record.setUserId(1L);
+        record.setProductId(10L);
+        record.setSupplierId(5L);
+        record.setVariety("番茄");
+        record.setQuantity(2);
+        record.setTotalAmount(new BigDecimal("50.00"));
+        record.setPurchaseTime(TODAY.atTime(10, 0));
+    }
+
+    @Test
+    @DisplayName("首次购买：商品、供应商当日购买人数和用户商品种类数各加1")
+    void testAccumulateFirstPurchase() {
+        PurchaseUserStats stats = emptyStats();
+        when(buyerMarkerMapper.insertProductBuyer(TODAY, 10L, 1L)).thenReturn(1);
+        when(buyerMarkerMapper.insertSupplierBuyer(TODAY, 5L, 1L)).thenReturn(1);
+        when(buyerMarkerMapper.insertUserProduct(1L, 10L)).thenReturn(1);
+        when(userStatsMapper.selectForUpdate(1L)).thenReturn(stats);
+
+        boolean newProduct = purchaseStatsService.accumulate(record);
+
+        assertThat(newProduct).isTrue();
+        verify(dailyProductStatsMapper).accumulate(eq(10L), eq(5L), eq(TODAY), eq(2),
+                eq(new BigDecimal("50.00")), eq(1));
+        verify(supplierDailyStatsMapper).accumulate(eq(5L), eq(TODAY), eq(2),
+                eq(new BigDecimal("50.00")), eq(1));
+        ArgumentCaptor<PurchaseUserStats> captor = ArgumentCaptor.forClass(PurchaseUserStats.class);
+        verify(userStatsMapper).updateById(captor.capture());
+        PurchaseUserStats updated = captor.getValue();
+        assertThat(updated.getTotalCount()).isEqualTo(1);
+        assertThat(updated.getTotalAmount()).isEqualByComparingTo("50.00");
+        assertThat(updated.getProductCount()).isEqualTo(1);
+        assertThat(updated.getLastPurchaseTime()).isEqualTo(record.getPurchaseTime());
+        assertThat(purchaseStatsService.parseHistogram(updated.getVarietyHistogram())).containsEntry("番茄", 1L);
+    }
+
+    @Test
+    @DisplayName("重复购买：去重指标不变，品种次数累加")
+    void testAccumulateRepeatPurchase() {
+        PurchaseUserStats stats = emptyStats();
+        stats.setTotalCount(3);
+        stats.setTotalAmount(new BigDecimal("100.00"));
+        stats.setProductCount(2);
+        stats.setLastPurchaseTime(TODAY.plusDays(1).atStartOfDay());
+        stats.setVarietyHistogram("{\"番茄\":2,\"水稻\":1}");
+        // 标记均已存在，INSERT IGNORE影响0行
+        when(userStatsMapper.selectForUpdate(1L)).thenReturn(stats);
+
+        boolean newProduct = purchaseStatsService.accumulate(record);
+
+        assertThat(newProduct).isFalse();
+        verify(dailyProductStatsMapper).accumulate(any(), any(), any(), any(), any(), eq(0));
+        verify(supplierDailyStatsMapper).accumulate(any(), any(), any(), any(), eq(0));
+        assertThat(stats.getTotalCount()).isEqualTo(4);
+        assertThat(stats.getProductCount()).isEqualTo(2);
+        // 较早的购买不覆盖最近购买时间
+        assertThat(stats.getLastPurchaseTime()).isEqualTo(TODAY.plusDays(1).atStartOfDay());
+        assertThat(purchaseStatsService.parseHistogram(stats.getVarietyHistogram()))
+                .containsEntry("番茄", 3L)
+                .containsEntry("水稻", 1L);
+    }
+
+    @Test
+    @DisplayName("当天买过同一供应商的其他商品：供应商当日购买人数不变")
+    void testAccumulateSameSupplierOtherProduct() {
+        when(buyerMarkerMapper.insertProductBuyer(any(), any(), any())).thenReturn(1);
+        when(buyerMarkerMapper.insertSupplierBuyer(any(), any(), any())).thenReturn(0);
+        when(buyerMarkerMapper.insertUserProduct(any(), any())).thenReturn(1);
+        when(userStatsMapper.selectForUpdate(1L)).thenReturn(emptyStats());
+
+        purchaseStatsService.accumulate(record);
+
+        verify(dailyProductStatsMapper).accumulate(any(), any(), any(), any(), any(), eq(1));
+        verify(supplierDailyStatsMapper).accumulate(any(), any(), any(), any(), eq(0));
+    }
+
+    @Test
+    @DisplayName("没有供应商的购买记录：不累加供应商汇总")
+    void testAccumulateWithoutSupplier() {
+        record.setSupplierId(null);
+        when(buyerMarkerMapper.insertProductBuyer(any(), any(), any())).thenReturn(1);
+        when(userStatsMapper.selectForUpdate(1L)).thenReturn(emptyStats());
+
+        purchaseStatsService.accumulate(record);
+
+        verify(dailyProductStatsMapper).accumulate(eq(10L), isNull(), any(), any(), any(), eq(1));
+        verifyNoInteractions(supplierDailyStatsMapper);
+    }
+
+    @Test
+    @DisplayName("取消订单撤销购买记录：供应商当日销售额、销量、订单数回落")
+    void testSubtractRevertsSupplierRevenue() {
+        // 供应商当日汇总按Mapper的累加/扣减语义在内存中维护
+        BigDecimal[] amount = {BigDecimal.ZERO};
+        int[] quantityAndOrders = {0, 0};
+        doAnswer(invocation -> {
+            amount[0] = amount[0].add(invocation.getArgument(3));
+            quantityAndOrders[0] += invocation.<Integer>getArgument(2);
+            quantityAndOrders[1]++;
+            return 1;
+        }).when(supplierDailyStatsMapper).accumulate(any(), any(), any(), any(), anyInt());
+        doAnswer(invocation -> {
+            amount[0] = amount[0].subtract(invocation.getArgument(3)).max(BigDecimal.ZERO);
+            quantityAndOrders[0] = Math.max(quantityAndOrders[0] - invocation.<Integer>getArgument(2), 0);
+            quantityAndOrders[1] = Math.max(quantityAndOrders[1] - 1, 0);
+            return 1;
+        }).when(supplierDailyStatsMapper).subtract(any(), any(), any(), any(), anyInt());
+        PurchaseUserStats stats = emptyStats();
+        when(buyerMarkerMapper.insertProductBuyer(any(), any(), any())).thenReturn(1);
+        when(buyerMarkerMapper.insertSupplierBuyer(any(), any(), any())).thenReturn(1);
+        when(buyerMarkerMapper.insertUserProduct(any(), any())).thenReturn(1);
+        when(buyerMarkerMapper.deleteUserProduct(1L, 10L)).thenReturn(1);
+        when(purchaseRecordMapper.exists(any())).thenReturn(false);
+        when(userStatsMapper.selectForUpdate(1L)).thenReturn(stats);
+        PurchaseRecord other = new PurchaseRecord();
+        other.setId(101L);
+        other.setUserId(2L);
+        other.setProductId(11L);
+        other.setSupplierId(5L);
+        other.setQuantity(1);
+        other.setTotalAmount(new BigDecimal("30.00"));
+        other.setPurchaseTime(TODAY.atTime(11, 0));
+        when(userStatsMapper.selectForUpdate(2L)).thenReturn(emptyStats());
+        purchaseStatsService.accumulate(record);
+        purchaseStatsService.accumulate(other);
+        assertThat(amount[0]).isEqualByComparingTo("80.00");
+
+        // 取消第一笔订单
+        purchaseStatsService.subtract(record);
+
+        assertThat(amount[0]).isEqualByComparingTo("30.00");
+        assertThat(quantityAndOrders).containsExactly(1, 1);
+        verify(dailyProductStatsMapper).subtract(eq(10L), eq(TODAY), eq(2),
+                eq(new BigDecimal("50.00")), eq(1));
+        verify(buyerMarkerMapper).deleteProductBuyer(TODAY, 10L, 1L);
+        verify(buyerMarkerMapper).deleteSupplierBuyer(TODAY, 5L, 1L);
+        assertThat(stats.getTotalCount()).isZero();
+        assertThat(stats.getTotalAmount()).isEqualByComparingTo("0");
+        assertThat(stats.getProductCount()).isZero();
+        assertThat(purchaseStatsService.parseHistogram(stats.getVarietyHistogram())).doesNotContainKey("番茄");
+        verify(profileStore).evict(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("标记已清理的日期迟到的购买：按当日其他购买记录判断新购买人，不写标记")
+    void testAccumulateLateRecordUsesExistingRecords() {
+        // Given - 三天前的补录记录，当天已有同一商品的购买，供应商当天没有其他购买
+        record.setPurchaseTime(TODAY.minusDays(3).atTime(10, 0));
+        when(purchaseRecordMapper.exists(any())).thenReturn(true, false);
+        when(userStatsMapper.selectForUpdate(1L)).thenReturn(emptyStats());
+
+        // When
+        purchaseStatsService.accumulate(record);
+
+        // Then
+        verify(dailyProductStatsMapper).accumulate(any(), any(), eq(TODAY.minusDays(3)), any(), any(), eq(0));
+        verify(supplierDailyStatsMapper).accumulate(any(), eq(TODAY.minusDays(3)), any(), any(), eq(1));
+        verify(buyerMarkerMapper, never()).insertProductBuyer(any(), any(), any());
+        verify(buyerMarkerMapper, never()).insertSupplierBuyer(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("回填每日汇总：同一事务中先删除当日汇总再重算")
+    void testBackfillDeletesDayBeforeRebuild() {
+        // Given
+        stubTransaction();
+        when(purchaseRecordMapper.selectUserIdsAfter(0L, 1000)).thenReturn(List.of());
+
+        // When
+        purchaseStatsService.backfill(1);
+
+        // Then
+        LocalDate yesterday = TODAY.minusDays(1);
+        InOrder inOrder = inOrder(dailyProductStatsMapper, supplierDailyStatsMapper);
+        inOrder.verify(dailyProductStatsMapper).deleteByDate(yesterday);
+        inOrder.verify(supplierDailyStatsMapper).deleteByDate(yesterday);
+        inOrder.verify(dailyProductStatsMapper).rebuild(yesterday.atStartOfDay(), TODAY.atStartOfDay());
+        inOrder.verify(supplierDailyStatsMapper).rebuild(yesterday.atStartOfDay(), TODAY.atStartOfDay());
+        // 没有购买记录时清空全部用户汇总
+        verify(userStatsMapper).deleteRange(1L, Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("重建单个用户画像：删除并重算用户汇总后删除Redis画像")
+    void testRebuildSingleProfile() {
+        stubTransaction();
+        when(userStatsMapper.rebuild(7L, 8L)).thenReturn(1);
+
+        int rows = purchaseStatsService.rebuildProfiles(7L);
+
+        assertThat(rows).isEqualTo(1);
+        InOrder inOrder = inOrder(userStatsMapper, buyerMarkerMapper, profileStore);
+        inOrder.verify(userStatsMapper).deleteRange(7L, 8L);
+        inOrder.verify(buyerMarkerMapper).deleteUserProducts(7L, 8L);
+        inOrder.verify(buyerMarkerMapper).rebuildUserProducts(7L, 8L);
+        inOrder.verify(userStatsMapper).rebuild(7L, 8L);
+        inOrder.verify(profileStore).evict(List.of(7L));
+        verifyNoInteractions(purchaseRecordMapper);
+    }
+
+    @Test
+    @DisplayName("重建所有用户画像：按实际存在的用户ID分页，区间首尾相接覆盖到ID上限")
+    void testRebuildAllProfilesByUserIdPages() {
+        stubTransaction();
+        when(purchaseRecordMapper.selectUserIdsAfter(0L, 1000)).thenReturn(List.of(3L, 7L, 1_000_000L));
+        when(userStatsMapper.rebuild(1L, Long.MAX_VALUE)).thenReturn(3);
+
+        int rows = purchaseStatsService.rebuildProfiles(null);
+
+        assertThat(rows).isEqualTo(3);
+        verify(userStatsMapper).deleteRange(1L, Long.MAX_VALUE);
+        verify(buyerMarkerMapper).rebuildUserProducts(1L, Long.MAX_VALUE);
+        verify(profileStore).evict(List.of(3L, 7L, 1_000_000L));
+        // 不足一页即为最后一页
+        verify(purchaseRecordMapper, times(1)).selectUserIdsAfter(anyLong(), anyInt());
+    }
+
+    /**
+     * 事务模板直接执行回调
+     */
+    private void stubTransaction() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    /**
+     * 构建初始化后的用户汇总
+     * 
+     * @return 用户汇总
+     */
+    private PurchaseUserStats emptyStats() {
+        PurchaseUserStats stats = new PurchaseUserStats();
+        stats.setUserId(1L);
+        stats.setTotalCount(0);
+        stats.setTotalAmount(BigDecimal.ZERO);
+        stats.setProductCount(0);
+        return stats;
+    }
+}
@@ -0,0 +1,145 @@
+package xyh.dp.mall.trade.snapshot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import xyh.dp.mall.common.result.Result;
+import xyh.dp.mall.common.snapshot.ProductSnapshot;
+import xyh.dp.mall.trade.feign.ProductFeignClient;
+import xyh.dp.mall.trade.feign.dto.ProductDTO;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ProductSnapshotCache 商品快照本地缓存单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProductSnapshotCache 商品快照本地缓存测试")
+class ProductSnapshotCacheTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ProductFeignClient productFeignClient;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private ProductSnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductSnapshotCache(redisTemplate, productFeignClient);
+    }
+
+    @Test
+    @DisplayName("通知跳号时不清空本地快照，读取时只从Redis刷新被读取的商品")
+    void onMessage_gap_shouldRefreshStaleEntriesLazily() {
+        // Given - 商品1、2已在本地，版本3的通知丢失
+        deliver(snapshot(1L, 1L, 10));
+        deliver(snapshot(2L, 2L, 20));
+        deliver(snapshot(3L, 4L, 30));
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.multiGet(eq(ProductSnapshot.HASH_KEY), anyCollection()))
+                .thenReturn(new ArrayList<>(List.of(snapshot(1L, 3L, 9).encode())));
+
+        // When
+        Map<Long, ProductSnapshot> result = cache.getSnapshots(List.of(1L, 3L));
+
+        // Then - 本地条目保留；商品1从Redis刷新，商品3是跳号后收到的通知，直接命中
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(result.get(1L).getStock()).isEqualTo(9);
+        assertThat(result.get(3L).getStock()).isEqualTo(30);
+        verify(hashOperations).multiGet(ProductSnapshot.HASH_KEY, List.of("1"));
+        verify(productFeignClient, never()).getProductsByIds(anyList());
+
+        // 刷新后再次读取不再访问Redis
+        cache.getSnapshots(List.of(1L));
+        verify(redisTemplate).opsForHash();
+    }
+
+    @Test
+    @DisplayName("Redis中也没有的商品一次批量查询商品服务，之后从本地读取")
+    void getSnapshots_remoteMisses_shouldLoadInOneBatch() {
+        // Given - Redis只有商品1
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        List<Object> values = new ArrayList<>();
+        values.add(snapshot(1L, 5L, 10).encode());
+        values.add(null);
+        values.add(null);
+        when(hashOperations.multiGet(eq(ProductSnapshot.HASH_KEY), anyCollection())).thenReturn(values);
+        when(productFeignClient.getProductsByIds(List.of(2L, 3L)))
+                .thenReturn(Result.success(List.of(product(2L, 20), product(3L, 30))));
+
+        // When
+        Map<Long, ProductSnapshot> result = cache.getSnapshots(List.of(1L, 2L, 3L));
+        cache.getSnapshots(List.of(2L, 3L));
+
+        // Then
+        assertThat(result).hasSize(3);
+        assertThat(result.get(3L).getStock()).isEqualTo(30);
+        assertThat(result.get(3L).getVersion()).isZero();
+        verify(productFeignClient, times(1)).getProductsByIds(anyList());
+    }
+
+    /**
+     * 投递商品快照通知
+     *
+     * @param snapshot 快照
+     */
+    private void deliver(ProductSnapshot snapshot) {
+        cache.onMessage(new DefaultMessage(ProductSnapshot.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                snapshot.encode().getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    /**
+     * 构建商品快照
+     *
+     * @param id      商品ID
+     * @param version 版本号
+     * @param stock   库存
+     * @return 快照
+     */
+    private static ProductSnapshot snapshot(long id, long version, int stock) {
+        return new ProductSnapshot(id, version, new BigDecimal("12.50"), stock, "ON_SALE");
+    }
+
+    /**
+     * 构建商品服务返回的商品
+     *
+     * @param id    商品ID
+     * @param stock 库存
+     * @return 商品
+     */
+    private static ProductDTO product(Long id, int stock) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setPrice(new BigDecimal("12.50"));
+        product.setStock(stock);
+        product.setStatus("ON_SALE");
+        return product;
+    }
+}
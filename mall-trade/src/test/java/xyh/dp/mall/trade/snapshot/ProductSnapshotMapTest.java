@@ -0,0 +1,103 @@
+package xyh.dp.mall.trade.snapshot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import xyh.dp.mall.common.snapshot.ProductSnapshot;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ProductSnapshotMap 商品快照表单元测试
+ *
+ * @author mall-cloud
+ * @since 1.0.0
+ */
+@DisplayName("ProductSnapshotMap 商品快照表测试")
+class ProductSnapshotMapTest {
+
+    @Test
+    @DisplayName("写入后可按商品ID读取")
+    void testPutAndGet() {
+        ProductSnapshotMap map = new ProductSnapshotMap(16);
+        map.put(new ProductSnapshot(1L, 3L, new BigDecimal("12.5"), 100, "ON_SALE"));
+
+        ProductSnapshot snapshot = map.get(1L);
+
+        assertThat(snapshot).isNotNull();
+        assertThat(snapshot.getVersion()).isEqualTo(3L);
+        assertThat(snapshot.getPrice()).isEqualByComparingTo("12.50");
+        assertThat(snapshot.getStock()).isEqualTo(100);
+        assertThat(snapshot.getStatus()).isEqualTo("ON_SALE");
+        assertThat(map.get(2L)).isNull();
+    }
+
+    @Test
+    @DisplayName("旧版本不覆盖新版本")
+    void testIgnoreOlderVersion() {
+        ProductSnapshotMap map = new ProductSnapshotMap(16);
+        map.put(new ProductSnapshot(1L, 5L, new BigDecimal("10"), 50, "ON_SALE"));
+
+        boolean written = map.put(new ProductSnapshot(1L, 4L, new BigDecimal("9"), 60, "OFF_SALE"));
+
+        assertThat(written).isFalse();
+        assertThat(map.get(1L).getStock()).isEqualTo(50);
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("超过容量时自动扩容且数据完整")
+    void testResize() {
+        ProductSnapshotMap map = new ProductSnapshotMap(8);
+        for (long id = 1; id <= 1000; id++) {
+            map.put(new ProductSnapshot(id, id, BigDecimal.valueOf(id), (int) id, "ON_SALE"));
+        }
+
+        assertThat(map.size()).isEqualTo(1000);
+        for (long id = 1; id <= 1000; id++) {
+            assertThat(map.get(id).getStock()).isEqualTo((int) id);
+        }
+    }
+
+    @Test
+    @DisplayName("清空后读取为空")
+    void testClear() {
+        ProductSnapshotMap map = new ProductSnapshotMap(16);
+        map.put(new ProductSnapshot(1L, 1L, BigDecimal.ONE, 1, "ON_SALE"));
+
+        map.clear();
+
+        assertThat(map.get(1L)).isNull();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("标记失效后保留条目，但不再作为当前代返回")
+    void testMarkStale() {
+        ProductSnapshotMap map = new ProductSnapshotMap(16);
+        map.put(new ProductSnapshot(1L, 1L, BigDecimal.ONE, 1, "ON_SALE"));
+
+        map.markStale();
+
+        assertThat(map.get(1L)).isNotNull();
+        assertThat(map.getFresh(1L)).isNull();
+        assertThat(map.size()).isEqualTo(1);
+
+        map.put(new ProductSnapshot(1L, 1L, BigDecimal.ONE, 1, "ON_SALE"));
+        assertThat(map.getFresh(1L)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("按失效前的代写回的数据仍视为失效")
+    void testPutWithOlderGeneration() {
+        ProductSnapshotMap map = new ProductSnapshotMap(16);
+        long generation = map.generation();
+        map.markStale();
+
+        map.put(new ProductSnapshot(1L, 2L, BigDecimal.TEN, 5, "ON_SALE"), generation);
+
+        assertThat(map.get(1L).getStock()).isEqualTo(5);
+        assertThat(map.getFresh(1L)).isNull();
+    }
+}
@@ -55,6 +55,8 @@ class TrackingServiceTest {
      */
     @BeforeEach
     void setUp() {
+        lenient().when(eventMapper.insertEventId(any(), any())).thenReturn(1);
+
         eventDTO = new TrackingEventDTO();
         eventDTO.setEventType("MATCH_VIEW");
         eventDTO.setPlanId("PLAN202412150001");
@@ -228,6 +230,26 @@ class TrackingServiceTest {
             assertThat(captured.getEventId()).isNotNull();
             assertThat(captured.getEventId()).startsWith("EVT");
         }
+
+        /**
+         * 测试事件ID重复时重新生成
+         */
+        @Test
+        @DisplayName("事件ID已被占用时应重新生成后写入")
+        void trackEvent_duplicateEventId_shouldRegenerate() {
+            // Given - 第一次生成的事件ID已被占用
+            ArgumentCaptor<String> eventIds = ArgumentCaptor.forClass(String.class);
+            when(eventMapper.insertEventId(eventIds.capture(), any())).thenReturn(0).thenReturn(1);
+            ArgumentCaptor<UserTrackingEvent> captor = ArgumentCaptor.forClass(UserTrackingEvent.class);
+            when(eventMapper.insert(captor.capture())).thenReturn(1);
+
+            // When
+            trackingService.trackEvent(eventDTO);
+
+            // Then
+            assertThat(eventIds.getAllValues()).hasSize(2);
+            assertThat(captor.getValue().getEventId()).isEqualTo(eventIds.getAllValues().get(1));
+        }
     }
 
     @Nested
@@ -241,7 +263,7 @@ class TrackingServiceTest {
         @DisplayName("应记录匹配事件和特征快照")
         void trackMatchEvent_shouldInsertEventWithFeatures() {
             // Given
-            when(scoreCalculator.calculateScore(any(), any())).thenReturn(testMatchFeature);
+            when(scoreCalculator.calculateFeatures(any(), any())).thenReturn(testMatchFeature);
             ArgumentCaptor<UserTrackingEvent> captor = ArgumentCaptor.forClass(UserTrackingEvent.class);
             when(eventMapper.insert(captor.capture())).thenReturn(1);
 
@@ -70,6 +70,7 @@ class MatchFeatures(BaseModel):
 class PredictionResponse(BaseModel):
     """预测响应体"""
     is_match: bool = Field(description="是否匹配")
+    score: float = Field(description="综合得分 (0-100)")
     confidence: float = Field(description="置信度 (0-1)")
     match_grade: str = Field(description="匹配等级 (A/B/C/D)")
     recommendation: str = Field(description="匹配建议")
@@ -103,28 +104,33 @@ def load_model_and_scaler(model_path: str, scaler_path: str):
     logger.info("模型加载完成")
 
 
-def predict_single(features: MatchFeatures) -> PredictionResponse:
-    """单个预测"""
+def predict_frame(features_list: list[MatchFeatures]) -> list[PredictionResponse]:
+    """批量预测：整批特征一次标准化、一次模型推理"""
     if model is None or scaler is None:
         raise HTTPException(status_code=500, detail="模型未加载")
+    if not features_list:
+        return []
     
-    # 构建特征向量
-    X = pd.DataFrame([{
-        'variety_score': features.variety_score,
-        'region_score': features.region_score,
-        'climate_score': features.climate_score,
-        'season_score': features.season_score,
-        'quality_score': features.quality_score,
-        'intent_score': features.intent_score
-    }])[FEATURE_COLUMNS]
+    # 构建特征矩阵
+    X = pd.DataFrame([f.model_dump() for f in features_list])[FEATURE_COLUMNS]
     
     # 标准化
     X_scaled = scaler.transform(X)
     
     # 预测
-    pred = model.predict(X_scaled)[0]
-    prob = model.predict_proba(X_scaled)[0, 1] if hasattr(model, 'predict_proba') else 0.5
+    preds = model.predict(X_scaled)
+    probs = model.predict_proba(X_scaled)[:, 1] if hasattr(model, 'predict_proba') else [0.5] * len(features_list)
     
+    return [build_response(f, pred, prob) for f, pred, prob in zip(features_list, preds, probs)]
+
+
+def predict_single(features: MatchFeatures) -> PredictionResponse:
+    """单个预测"""
+    return predict_frame([features])[0]
+
+
+def build_response(features: MatchFeatures, pred, prob) -> PredictionResponse:
+    """根据模型输出生成预测响应"""
     # 计算综合得分
     total_score = (
         features.variety_score * 0.25 +
@@ -157,6 +163,7 @@ def predict_single(features: MatchFeatures) -> PredictionResponse:
     
     return PredictionResponse(
         is_match=bool(pred),
+        score=round(float(total_score), 2),
         confidence=round(float(prob), 4),
         match_grade=grade,
         recommendation=recommendation
@@ -200,9 +207,9 @@ async def predict_batch(request: BatchPredictionRequest):
     """
     批量匹配预测
     
-    批量预测多个种植计划与商品的匹配度
+    批量预测多个种植计划与商品的匹配度（交易服务把多个匹配任务的候选商品合并后调用）
     """
-    predictions = [predict_single(f) for f in request.features_list]
+    predictions = predict_frame(request.features_list)
     return BatchPredictionResponse(predictions=predictions)
 
 
@@ -284,13 +284,19 @@ class MatchingModelTrainer:
         joblib.dump(self.scaler, scaler_path)
         logger.info(f"标准化器已保存: {scaler_path}")
         
+        # 导出树集成模型（交易服务进程内推理，非树模型不导出）
+        ensemble_path = self.output_dir / f'tree_ensemble_{timestamp}.json'
+        if not self.export_tree_ensemble(ensemble_path, name, int(timestamp.replace('_', ''))):
+            ensemble_path = None
+        
         # 保存模型元信息
         meta = {
             'model_name': name,
             'feature_columns': self.FEATURE_COLUMNS,
             'timestamp': timestamp,
             'model_path': str(model_path),
-            'scaler_path': str(scaler_path)
+            'scaler_path': str(scaler_path),
+            'tree_ensemble_path': str(ensemble_path) if ensemble_path else None
         }
         meta_path = self.output_dir / f'meta_{timestamp}.json'
         import json
@@ -300,6 +306,79 @@ class MatchingModelTrainer:
         
         return model_path
     
+    def export_tree_ensemble(self, path: Path, name: str, version: int) -> bool:
+        """
+        导出树集成模型为展开的JSON，供交易服务进程内推理（ml.model.local.path）
+        
+        每棵树按节点编号展开为feature/threshold/left/right/value数组，叶子节点feature为-1；
+        标准化器折算进分裂阈值（x_scaled <= t 等价于 x <= t * scale + mean），推理时直接使用原始特征。
+        RandomForest叶子值为正类比例、取各树平均；GradientBoosting叶子值已乘学习率、
+        与先验对数几率求和后取sigmoid。
+        
+        Args:
+            path: 输出文件路径
+            name: 模型名称
+            version: 模型版本（时间戳数字）
+            
+        Returns:
+            是否导出（非树模型返回False）
+        """
+        model = self.best_model
+        if isinstance(model, RandomForestClassifier):
+            aggregation = 'average'
+            base_score = 0.0
+            estimators = [(estimator.tree_, 1.0) for estimator in model.estimators_]
+        elif isinstance(model, GradientBoostingClassifier) and model.n_classes_ == 2:
+            aggregation = 'logistic'
+            prior = model.init_.class_prior_[1]
+            base_score = float(np.log(prior / (1 - prior)))
+            estimators = [(stage[0].tree_, model.learning_rate) for stage in model.estimators_]
+        else:
+            logger.info(f"{name} 不是树集成模型，跳过进程内推理模型导出")
+            return False
+        
+        mean = self.scaler.mean_
+        scale = self.scaler.scale_
+        trees = []
+        for tree, factor in estimators:
+            feature, threshold, value = [], [], []
+            for node in range(tree.node_count):
+                f = int(tree.feature[node])
+                if tree.children_left[node] >= 0:
+                    feature.append(f)
+                    threshold.append(float(tree.threshold[node] * scale[f] + mean[f]))
+                    value.append(0.0)
+                else:
+                    feature.append(-1)
+                    threshold.append(0.0)
+                    if aggregation == 'average':
+                        counts = tree.value[node][0]
+                        value.append(float(counts[1] / counts.sum()))
+                    else:
+                        value.append(float(tree.value[node][0][0] * factor))
+            trees.append({
+                'feature': feature,
+                'threshold': threshold,
+                'left': tree.children_left.tolist(),
+                'right': tree.children_right.tolist(),
+                'value': value
+            })
+        
+        document = {
+            'format': 'tree-ensemble',
+            'version': version,
+            'model_name': name,
+            'feature_columns': self.FEATURE_COLUMNS,
+            'aggregation': aggregation,
+            'base_score': base_score,
+            'trees': trees
+        }
+        import json
+        with open(path, 'w', encoding='utf-8') as f:
+            json.dump(document, f, ensure_ascii=False)
+        logger.info(f"树集成模型已导出: {path} (trees={len(trees)})")
+        return True
+    
     def load_model(self, model_path: str, scaler_path: str = None):
         """
         加载模型
@@ -3,12 +3,14 @@ CREATE DATABASE IF NOT EXISTS mall_trade DEFAULT CHARACTER SET utf8mb4 COLLATE u
 
 USE mall_trade;
 
--- 订单表
+-- 订单表（按创建时间月分区，分区由PartitionArchiver维护；分区表的主键和唯一键必须包含分区列）
+-- 注意：uk_order_no含create_time，只保证同一创建时间内订单号唯一，订单号的全局唯一由下方tb_order_no保证
 CREATE TABLE `tb_order` (
   `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '订单ID',
   `order_no` VARCHAR(32) NOT NULL COMMENT '订单号',
   `user_id` BIGINT NOT NULL COMMENT '用户ID',
   `product_id` BIGINT NOT NULL COMMENT '商品ID',
+  `supplier_id` BIGINT DEFAULT NULL COMMENT '供应商ID',
   `product_name` VARCHAR(100) NOT NULL COMMENT '商品名称',
   `product_image` VARCHAR(255) DEFAULT NULL COMMENT '商品主图',
   `price` DECIMAL(10,2) NOT NULL COMMENT '商品单价',
@@ -22,11 +24,16 @@ CREATE TABLE `tb_order` (
   `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `pay_time` DATETIME DEFAULT NULL COMMENT '支付时间',
-  PRIMARY KEY (`id`),
-  UNIQUE KEY `uk_order_no` (`order_no`),
+  PRIMARY KEY (`id`, `create_time`),
+  UNIQUE KEY `uk_order_no` (`order_no`, `create_time`) COMMENT '分区表限制，不保证订单号全局唯一',
   KEY `idx_user_id` (`user_id`),
-  KEY `idx_status` (`status`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单表';
+  KEY `idx_status` (`status`),
+  KEY `idx_supplier_status` (`supplier_id`, `status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单表'
+PARTITION BY RANGE COLUMNS(`create_time`) (
+  PARTITION p202412 VALUES LESS THAN ('2025-01-01'),
+  PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
 
 -- Mock数据
 INSERT INTO `tb_order` (`id`, `order_no`, `user_id`, `product_id`, `product_name`, `product_image`, `price`, `quantity`, `total_amount`, `receiver_name`, `receiver_phone`, `receiver_address`, `status`, `create_time`, `pay_time`) VALUES
@@ -34,6 +41,18 @@ INSERT INTO `tb_order` (`id`, `order_no`, `user_id`, `product_id`, `product_name
 (2, 'ORD202412080002', 1, 3, '草莓种子', 'https://cdn.example.com/product/strawberry.jpg', 35.00, 5, 175.00, '张三', '13800138001', '北京市朝阳区XX街道XX号', 'SHIPPED', '2024-12-02 14:20:00', '2024-12-02 14:25:00'),
 (3, 'ORD202412080003', 2, 5, '优质水稻种子', 'https://cdn.example.com/product/rice.jpg', 28.00, 20, 560.00, '李四', '13800138002', '河北省石家庄市XX区XX村', 'PENDING', '2024-12-08 09:15:00', NULL);
 
+-- 订单号登记表（不分区）：下单时在同一事务中先登记订单号，主键冲突时重新生成，保证订单号全局唯一；
+-- 同时记录订单创建时间，按订单号查询时精确定位月分区。订单月分区归档后清理该月及之前的登记
+CREATE TABLE `tb_order_no` (
+  `order_no` VARCHAR(32) NOT NULL COMMENT '订单号',
+  `create_time` DATETIME NOT NULL COMMENT '订单创建时间',
+  PRIMARY KEY (`order_no`),
+  KEY `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='订单号登记表';
+
+INSERT INTO `tb_order_no` (`order_no`, `create_time`)
+SELECT `order_no`, `create_time` FROM `tb_order`;
+
 -- 种植计划表（供给匹配）
 CREATE TABLE `planting_plan` (
   `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
@@ -67,7 +86,8 @@ INSERT INTO `planting_plan` (`id`, `plan_id`, `farmer_id`, `planting_area`, `var
 (3, 'PLAN202312080003', 'FARMER001', 15.00, '草莓', 8000, '2024-03-01', '鲜食销售', '北京大兴·草莓·15.0亩·预计产量8000个·用于鲜食销售', '北京大兴', NULL, NULL, NULL, NULL, 'PENDING', '2024-12-08 11:00:00'),
 (4, 'PLAN202312100004', 'FARMER003', 100.00, '水稻', 80000, '2024-04-20', '粮食储备', '江苏南京·水稻·100.0亩·预计产量80000个·用于粮食储备', '江苏南京', 78, 'SUPPLY002', '2024-12-10 16:45:00', '当前江苏地区适合水稻种植', 'MATCHED', '2024-12-05 08:30:00');
 
--- 用户行为埋点事件表（用于收集训练数据）
+-- 用户行为埋点事件表（用于收集训练数据，按事件时间月分区，分区由PartitionArchiver维护）
+-- 注意：uk_event_id含event_time，不保证事件ID全局唯一，事件ID去重由下方user_tracking_event_id保证
 CREATE TABLE `user_tracking_event` (
   `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
   `event_id` VARCHAR(64) NOT NULL COMMENT '事件ID（业务唯一标识）',
@@ -101,15 +121,19 @@ CREATE TABLE `user_tracking_event` (
   `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `ext_data` TEXT DEFAULT NULL COMMENT '扩展数据(JSON格式)',
   
-  PRIMARY KEY (`id`),
-  UNIQUE KEY `uk_event_id` (`event_id`),
+  PRIMARY KEY (`id`, `event_time`),
+  UNIQUE KEY `uk_event_id` (`event_id`, `event_time`) COMMENT '分区表限制，不保证事件ID全局唯一',
   KEY `idx_user_id` (`user_id`),
   KEY `idx_plan_id` (`plan_id`),
   KEY `idx_product_id` (`product_id`),
   KEY `idx_event_type` (`event_type`),
   KEY `idx_event_time` (`event_time`),
   KEY `idx_is_positive` (`is_positive`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户行为埋点事件表';
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户行为埋点事件表'
+PARTITION BY RANGE COLUMNS(`event_time`) (
+  PARTITION p202412 VALUES LESS THAN ('2025-01-01'),
+  PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
 
 -- Mock数据 - 埋点事件（训练数据样例）
 INSERT INTO `user_tracking_event` (
@@ -136,3 +160,125 @@ INSERT INTO `user_tracking_event` (
 
 ('EVT202312101006', 'FARMER003', 'FARMER', 'MATCH_CLICK', 'PLAN202312100004', 5, 'SUPPLY002',
  100.00, 100.00, 85.00, 100.00, 90.00, 80.00, 93.00, 'A', 'PC', 'web', 120, 1, '2024-12-10 16:45:00');
+
+-- 事件ID登记表（不分区）：写入事件前在同一事务中先登记事件ID，主键冲突时重新生成，去重不依赖event_time；
+-- 埋点事件月分区归档后清理该月及之前的登记
+CREATE TABLE `user_tracking_event_id` (
+  `event_id` VARCHAR(64) NOT NULL COMMENT '事件ID',
+  `create_time` DATETIME NOT NULL COMMENT '登记时间',
+  PRIMARY KEY (`event_id`),
+  KEY `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='事件ID登记表';
+
+INSERT INTO `user_tracking_event_id` (`event_id`, `create_time`)
+SELECT `event_id`, `event_time` FROM `user_tracking_event`;
+
+-- 购买记录表（订单支付成功后写入，按购买时间月分区，分区由PartitionArchiver维护）
+CREATE TABLE `tb_purchase_record` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '记录ID',
+  `user_id` BIGINT NOT NULL COMMENT '用户ID',
+  `order_id` BIGINT DEFAULT NULL COMMENT '订单ID',
+  `order_no` VARCHAR(32) DEFAULT NULL COMMENT '订单号',
+  `product_id` BIGINT NOT NULL COMMENT '商品ID',
+  `product_name` VARCHAR(100) DEFAULT NULL COMMENT '商品名称',
+  `category_id` BIGINT DEFAULT NULL COMMENT '分类ID',
+  `category_name` VARCHAR(50) DEFAULT NULL COMMENT '分类名称',
+  `variety` VARCHAR(50) DEFAULT NULL COMMENT '品种',
+  `origin` VARCHAR(100) DEFAULT NULL COMMENT '产地',
+  `price` DECIMAL(10,2) DEFAULT NULL COMMENT '购买单价',
+  `quantity` INT NOT NULL COMMENT '购买数量',
+  `total_amount` DECIMAL(10,2) DEFAULT NULL COMMENT '购买总金额',
+  `supplier_id` BIGINT DEFAULT NULL COMMENT '供应商ID',
+  `purchase_time` DATETIME NOT NULL COMMENT '购买时间',
+  `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`, `purchase_time`),
+  KEY `idx_user_product` (`user_id`, `product_id`),
+  KEY `idx_product_id` (`product_id`),
+  KEY `idx_purchase_time` (`purchase_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='购买记录表'
+PARTITION BY RANGE COLUMNS(`purchase_time`) (
+  PARTITION p202412 VALUES LESS THAN ('2025-01-01'),
+  PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
+
+-- 商品每日销售汇总表（由购买记录增量维护，历史数据由回填任务生成）
+CREATE TABLE `purchase_daily_product_stats` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `product_id` BIGINT NOT NULL COMMENT '商品ID',
+  `supplier_id` BIGINT DEFAULT NULL COMMENT '供应商ID',
+  `stat_date` DATE NOT NULL COMMENT '统计日期',
+  `quantity` INT NOT NULL DEFAULT 0 COMMENT '当日销量',
+  `amount` DECIMAL(14,2) NOT NULL DEFAULT 0.00 COMMENT '当日销售额',
+  `buyer_count` INT NOT NULL DEFAULT 0 COMMENT '当日去重购买人数',
+  `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_product_date` (`product_id`, `stat_date`),
+  KEY `idx_stat_date` (`stat_date`),
+  KEY `idx_supplier_date` (`supplier_id`, `stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='商品每日销售汇总表';
+
+-- 用户购买汇总表（由购买记录增量维护，历史数据由回填任务生成）
+CREATE TABLE `purchase_user_stats` (
+  `user_id` BIGINT NOT NULL COMMENT '用户ID',
+  `total_count` INT NOT NULL DEFAULT 0 COMMENT '总购买次数',
+  `total_amount` DECIMAL(14,2) NOT NULL DEFAULT 0.00 COMMENT '总购买金额',
+  `product_count` INT NOT NULL DEFAULT 0 COMMENT '购买过的商品种类数',
+  `last_purchase_time` DATETIME DEFAULT NULL COMMENT '最近一次购买时间',
+  `variety_histogram` JSON DEFAULT NULL COMMENT '品种购买次数(JSON对象，如: {"番茄":3,"水稻":1})',
+  `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户购买汇总表';
+
+-- 供应商每日销售汇总表（由购买记录增量维护，历史数据由回填任务生成）
+CREATE TABLE `supplier_daily_stats` (
+  `supplier_id` BIGINT NOT NULL COMMENT '供应商ID',
+  `stat_date` DATE NOT NULL COMMENT '统计日期',
+  `quantity` INT NOT NULL DEFAULT 0 COMMENT '当日销量',
+  `amount` DECIMAL(14,2) NOT NULL DEFAULT 0.00 COMMENT '当日销售额',
+  `order_count` INT NOT NULL DEFAULT 0 COMMENT '当日成交订单数',
+  `buyer_count` INT NOT NULL DEFAULT 0 COMMENT '当日去重购买人数',
+  `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`supplier_id`, `stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='供应商每日销售汇总表';
+
+-- 供应商订单汇总表（由下单、取消订单增量维护，回填任务按订单表校正）
+CREATE TABLE `supplier_order_stats` (
+  `supplier_id` BIGINT NOT NULL COMMENT '供应商ID',
+  `pending_count` INT NOT NULL DEFAULT 0 COMMENT '待支付订单数',
+  `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`supplier_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='供应商订单汇总表';
+
+-- 购买去重标记表：INSERT IGNORE影响1行即为首次出现，用于累加去重类汇总指标（当日购买人数、商品种类数）
+-- 当日购买人标记只保留今天和昨天，由PurchaseStatsService定时清理
+CREATE TABLE `purchase_day_buyer` (
+  `stat_date` DATE NOT NULL COMMENT '统计日期',
+  `product_id` BIGINT NOT NULL COMMENT '商品ID',
+  `user_id` BIGINT NOT NULL COMMENT '用户ID',
+  PRIMARY KEY (`stat_date`, `product_id`, `user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='商品当日购买人标记表';
+
+CREATE TABLE `supplier_day_buyer` (
+  `stat_date` DATE NOT NULL COMMENT '统计日期',
+  `supplier_id` BIGINT NOT NULL COMMENT '供应商ID',
+  `user_id` BIGINT NOT NULL COMMENT '用户ID',
+  PRIMARY KEY (`stat_date`, `supplier_id`, `user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='供应商当日购买人标记表';
+
+CREATE TABLE `purchase_user_product` (
+  `user_id` BIGINT NOT NULL COMMENT '用户ID',
+  `product_id` BIGINT NOT NULL COMMENT '商品ID',
+  PRIMARY KEY (`user_id`, `product_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户已购商品标记表';
+
+-- 从已有购买记录初始化标记
+INSERT IGNORE INTO `purchase_day_buyer` (`stat_date`, `product_id`, `user_id`)
+SELECT DISTINCT DATE(`purchase_time`), `product_id`, `user_id` FROM `tb_purchase_record`
+WHERE `purchase_time` >= CURDATE() - INTERVAL 1 DAY;
+
+INSERT IGNORE INTO `supplier_day_buyer` (`stat_date`, `supplier_id`, `user_id`)
+SELECT DISTINCT DATE(`purchase_time`), `supplier_id`, `user_id` FROM `tb_purchase_record`
+WHERE `purchase_time` >= CURDATE() - INTERVAL 1 DAY AND `supplier_id` IS NOT NULL;
+
+INSERT IGNORE INTO `purchase_user_product` (`user_id`, `product_id`)
+SELECT DISTINCT `user_id`, `product_id` FROM `tb_purchase_record`;